@@ -0,0 +1,192 @@
+/*
+File: AsyncLibraryCollectionController.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class provides an asynchronous version of the LibraryCollectionController class,
+which allows for a view (in particular the GUI, where work done on the Swing event dispatch
+thread freezes the whole window) to hand work to the library collection without waiting for it
+to finish. Each method queues its work on a dedicated worker thread, and immediately returns a
+CompletableFuture which is completed with the result once the work is done, so the view can
+attach whatever should happen next to the future (for example, with thenAcceptAsync() and
+SwingUtilities::invokeLater, in order to update the window back on the event dispatch thread).
+All of the work is done on a single worker thread, one task at a time, in the order in which it
+was queued. This means that the library collection is only ever used by one thread (so that the
+LibraryCollection class, which is not thread-safe, can still be used), and that any task sees
+the results of every task queued before it. A task that is cancelled before it starts is never
+run, and an import that is cancelled while it runs stops after the section of the file that it
+is currently reading (see ImportProgress.java).
+ */
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+When it comes to maintaining encapsulation, note that the controller and the executor are both
+private, and that the results handed to the futures are the same ones returned by the controller,
+which are new ArrayLists of immutable books, new ImportReports, and so on. Since every task runs
+on the one worker thread, no two tasks can ever see the collection in the middle of a change.
+ */
+
+public class AsyncLibraryCollectionController {
+    // Declares the private instance variables, which are the controller that the work is handed
+    // to, and the executor holding the single worker thread that runs it
+    private LibraryCollectionController controller;
+    private ExecutorService executor;
+
+    /*
+    Public constructor for the AsyncLibraryCollectionController class, which takes in the
+    controller that all of the work should be handed to, and starts the worker thread. The worker
+    thread is a daemon thread, so it does not keep the program running once the view is closed.
+    Note that the given controller should not be used directly by any other thread afterwards,
+    unless its model is thread-safe.
+
+    @pre controller != null
+     */
+    public AsyncLibraryCollectionController(LibraryCollectionController controller) {
+        this.controller = controller;
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread worker = new Thread(task, "library-worker");
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    /*
+    Public method which queues the given task, which may call any number of methods of the
+    controller, on the worker thread. Since no other task can run in between, this is the way to
+    carry out several operations together, such as checking that a book is in the collection and
+    then rating it. If the task throws an exception, then the future is completed with it.
+
+    @pre task != null
+    @return CompletableFuture<T> which is completed with the result of the task
+     */
+    public <T> CompletableFuture<T> submit(Function<LibraryCollectionController, T> task) {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        schedule(result, () -> task.apply(controller));
+        return result;
+    }
+
+    /*
+    Public methods which queue the matching method of the controller on the worker thread (see
+    LibraryCollectionController.java for the full description of each), returning a future which
+    is completed with its result.
+
+    @pre the preconditions of the matching method of the controller
+    @return CompletableFuture which is completed with the result of the matching method
+     */
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cGetSortedCollection(TypeSort howSort) {
+        return submit(c -> c.cGetSortedCollection(howSort));
+    }
+
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cGetSortedCollection(TypeSort howSort, int offset, int limit) {
+        return submit(c -> c.cGetSortedCollection(howSort, offset, limit));
+    }
+
+    public CompletableFuture<BookPage> cGetPage(TypeSort howSort, String afterToken, int limit) {
+        return submit(c -> c.cGetPage(howSort, afterToken, limit));
+    }
+
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cGetBooksWithAuthor(String author) {
+        return submit(c -> c.cGetBooksWithAuthor(author));
+    }
+
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cGetBooksWithTitle(String title) {
+        return submit(c -> c.cGetBooksWithTitle(title));
+    }
+
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cGetBooksWithRating(int rating) {
+        return submit(c -> c.cGetBooksWithRating(rating));
+    }
+
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cSearch(String query, boolean matchAll) {
+        return submit(c -> c.cSearch(query, matchAll));
+    }
+
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cFuzzySearch(String query, boolean matchAll) {
+        return submit(c -> c.cFuzzySearch(query, matchAll));
+    }
+
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cQuery(BookQuery query) {
+        return submit(c -> c.cQuery(query));
+    }
+
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cAllReadBooks() {
+        return submit(c -> c.cAllReadBooks());
+    }
+
+    public CompletableFuture<ArrayList<ReadOnlyBook>> cAllUnreadBooks() {
+        return submit(c -> c.cAllUnreadBooks());
+    }
+
+    public CompletableFuture<Boolean> cAlreadyInCollection(String title, String author) {
+        return submit(c -> c.cAlreadyInCollection(title, author));
+    }
+
+    public CompletableFuture<ReadOnlyBook> cGetRandomBook() {
+        return submit(c -> c.cGetRandomBook());
+    }
+
+    public CompletableFuture<Boolean> cIsEmpty() {
+        return submit(c -> c.cIsEmpty());
+    }
+
+    /*
+    Public method which queues the import of the given file on the worker thread, telling the
+    given listener how much of the file has been read as it goes (note that the listener is
+    called on the worker thread). Cancelling the returned future while the import is running
+    stops the import after the section of the file currently being read, keeping the books read
+    so far, and cancelling it before the import starts means that nothing is read at all.
+
+    @pre filename != null && progress != null
+    @return CompletableFuture<ImportReport> which is completed with the report of the import, or
+        with null if the file could not be read
+     */
+    public CompletableFuture<ImportReport> cAddBooksFromFile(String filename, ImportProgress progress) {
+        CompletableFuture<ImportReport> result = new CompletableFuture<ImportReport>();
+        schedule(result, () -> controller.cAddBooksFromFile(filename,
+                (bytesRead, totalBytes) -> !result.isCancelled() && progress.update(bytesRead, totalBytes)));
+        return result;
+    }
+
+    /*
+    Public method which stops accepting new tasks, letting the tasks already queued finish on
+    the worker thread. Any task queued afterwards completes its future with a
+    RejectedExecutionException. Since there are no inputs and no assumptions, there are no
+    preconditions.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /*
+    Private helper method which queues the given work on the worker thread, completing the given
+    future with its result, or with whatever exception or error it throws. If the future has already
+    been completed (which only happens if it was cancelled) by the time the work would start, then
+    the work is skipped.
+
+    @pre result != null && work != null
+     */
+    private <T> void schedule(CompletableFuture<T> result, Supplier<T> work) {
+        try {
+            executor.execute(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(work.get());
+                } catch (Throwable e) {
+                    // Any Error (such as running out of memory while importing a huge file) is
+                    // also passed on, since otherwise the future would never be completed
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+File: BatchResult.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class is designed to simply define the BatchResult enumerated type, which
+describes what happened to a single item of a batch change to the library collection (see the
+setToRead(), updateRatings(), and addBooks() methods of the LibraryModel interface). It can take
+on one of six values: APPLIED, where the change was made, UNCHANGED, where the book was found
+but already had the given read status or rating, NOT_FOUND, where there is no such book in the
+collection, DUPLICATE, where a book being added was already in the collection (or earlier in the
+same batch), INVALID, where the item itself was malformed (such as a rating outside of 1-5), and
+FAILED, where the change would have been made, but the batch could not be recorded in the
+write-ahead log, so none of it was made.
+ */
+
+import java.util.List;
+
+public enum BatchResult {
+    APPLIED, UNCHANGED, NOT_FOUND, DUPLICATE, INVALID, FAILED;
+
+    /*
+    Public static method which replaces every APPLIED result within the given list of results
+    with FAILED, which is used once a batch turns out to be impossible to record in the
+    write-ahead log, so that none of its changes were actually made.
+
+    @pre results != null
+     */
+    public static void failApplied(List<BatchResult> results) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == APPLIED) {
+                results.set(i, FAILED);
+            }
+        }
+    }
+}
@@ -6,7 +6,9 @@ Purpose: This class implements the Book object, which will be used to model the
 books within the library collection. Each Book object will have an associated title,
 author, rating, and read status, and the class contains several static factory methods for
 creating Comparator<Book> objects, which will be used to sort Book objects according
-to differing characteristics. This class also defines what it means for two Book objects 
+to differing characteristics. Since the Book class implements the ReadOnlyBook interface, these
+Comparators can also sort the immutable BookSnapshot objects handed out by the model, which
+implement the same interface. This class also defines what it means for two Book objects 
 to be equal, and provides a copy constructor for easily creating copies of Book objects,
 considering that these Book objects were made mutable in order to better consolidate
 all book-related information into a single class.
@@ -29,7 +31,7 @@ instance variables (particularly rating), with input validation in the view bein
 that no improper values are placed within any Book objects. 
  */
 
-public class Book {
+public class Book implements ReadOnlyBook {
     // Declares the private instance variables, which include a String for the title,
     // a String for the author, and int for the rating (must be 1 through 5 once actually set), and 
     // a Read enumerated type object for the read status of the book.
@@ -96,6 +98,66 @@ public class Book {
         }
     }
 
+    /*
+    Public override of the equals() method inherited from the Object class, which allows for
+    Book objects to be used correctly within the standard collections of the java.util package
+    (such as HashMap and HashSet). Note that this method follows the same rules as the method
+    above, with two Books being equal exactly when they share a title and an author, and that
+    false is returned if the other object is null or is not a Book at all. 
+
+    @return true if other is a Book with the same title and author, false otherwise
+     */
+    @Override
+    public boolean equals(Object other) {
+        // Checks to see whether the other object is actually a Book
+        if (!(other instanceof Book)) {
+            return false;
+        }
+
+        // If so, the comparison is handed off to the Book-specific version of equals()
+        return equals((Book) other);
+    }
+
+    /*
+    Public override of the hashCode() method inherited from the Object class. Considering that
+    two Book objects are equal whenever their titles and authors are equal, the hash code is
+    computed using only these two characteristics, which ensures that equal Books always have
+    equal hash codes, as is required by the general contract of hashCode(). 
+
+    @return an int representing the hash code of the Book
+     */
+    @Override
+    public int hashCode() {
+        return 31 * title.hashCode() + author.hashCode();
+    }
+
+    /*
+    Public static method for constructing the key that uniquely identifies a book with the
+    given title and author within the library collection. Since the title and author of each
+    Book are stored in all uppercase, both Strings are uppercased here as well, which allows
+    the key to be used for case-insensitive lookups. The two Strings are joined by a newline
+    character, which can never appear within a title or author read from a line of a file (and
+    which the HTTP server rejects within a title or author, see LibraryHttpServer.java), so
+    that two different (title, author) pairs can never produce the same key. 
+
+    @pre title != null && author != null
+    @return a String key representing the given title and author
+     */
+    public static String makeKey(String title, String author) {
+        return title.toUpperCase() + "\n" + author.toUpperCase();
+    }
+
+    /*
+    Public method for obtaining the key of this particular Book, as described within the
+    makeKey() method above. Note that the title and author are already in uppercase, so
+    they are simply joined together rather than being uppercased a second time. 
+
+    @return a String key representing the title and author of this Book
+     */
+    public String getKey() {
+        return title + "\n" + author;
+    }
+
     /*
     Public method for updating the read status of a book to READ. If the book has 
     already been set to READ, then no changes to the Book object are made. This
@@ -175,22 +237,7 @@ public class Book {
     @return a String representing the given Book object
      */
     public String toString() {
-        // Constructs the string to be returned using the values of the Book's instance variables
-        String returnString = "Title: " + this.title + "; ";
-        returnString += "Author: " + this.author + "; ";
-        returnString += "Rating: ";
-        if (rating == -1) {
-            returnString += "not rated yet; ";
-        } else {
-            returnString += rating + "; ";
-        }
-        returnString += "Read Status: ";
-        if (this.readStatus.equals(Read.READ)) {
-            returnString += "read";
-        } else {
-            returnString += "not read";
-        }
-        return returnString;
+        return ReadOnlyBook.describe(this);
     }
 
     /*
@@ -204,14 +251,20 @@ public class Book {
     be constructed directly through the Book class rather than through an instance of it.
     This method is not case-sensitive, considering that the internal Strings for all 
     Book objects must necessarily be in all upper-case, ensuring appropriate sorting
-    of all Book objects. 
+    of all Book objects. Note that Books sharing the same String for their title (such as
+    the different versions of a book within the library collection) are found to be equal
+    without comparing any characters.
 
     @return a Comparator<Book> object used to compare Books alphabetically by title
      */
-    public static Comparator<Book> makeComparatorTitle() {
-        return new Comparator<Book>() {
-            public int compare(Book book1, Book book2) {
-                return book1.title.compareTo(book2.title);
+    public static <T extends ReadOnlyBook> Comparator<T> makeComparatorTitle() {
+        return new Comparator<T>() {
+            public int compare(T book1, T book2) {
+                // Books sharing the same String for their title are equal without comparing it
+                if (book1.getTitle() == book2.getTitle()) {
+                    return 0;
+                }
+                return book1.getTitle().compareTo(book2.getTitle());
             }
         };
     }
@@ -227,14 +280,21 @@ public class Book {
     be constructed directly through the class rather than through an instance of it.
     This method is also not case-sensitive, considering that the constructors for the
     Book class ensure that all internal strings are necessarily in all upper-case, 
-    ensuring appropriate sorting of all Book objects. 
+    ensuring appropriate sorting of all Book objects. Note that Books sharing the same String
+    for their author (as the books by the same author within a library collection do, see
+    SymbolTable.java) are found to be equal without comparing any characters, but that any
+    other two authors are compared character by character, as no sort ranks are kept for them.
 
     @return a Comparator<Book> object used to compare Books alphabetically by author
      */
-    public static Comparator<Book> makeComparatorAuthor() {
-        return new Comparator<Book>() {
-            public int compare(Book book1, Book book2) {
-                return book1.author.compareTo(book2.author);
+    public static <T extends ReadOnlyBook> Comparator<T> makeComparatorAuthor() {
+        return new Comparator<T>() {
+            public int compare(T book1, T book2) {
+                // Books sharing the same String for their author are equal without comparing it
+                if (book1.getAuthor() == book2.getAuthor()) {
+                    return 0;
+                }
+                return book1.getAuthor().compareTo(book2.getAuthor());
             }
         };
     }
@@ -254,10 +314,10 @@ public class Book {
 
     @return a Comparator<Book> object used to compare Books based on their rating
      */
-    public static Comparator<Book> makeComparatorRating() {
-        return new Comparator<Book>() {
-            public int compare(Book book1, Book book2) {
-                return Integer.compare(book1.rating, book2.rating);
+    public static <T extends ReadOnlyBook> Comparator<T> makeComparatorRating() {
+        return new Comparator<T>() {
+            public int compare(T book1, T book2) {
+                return Integer.compare(book1.getRating(), book2.getRating());
             }
         };
     }
@@ -0,0 +1,140 @@
+/*
+File: BookPage.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class represents a single page of books from the library collection, sorted by
+title or by author, which allows for a very large collection to be listed a page at a time
+without ever holding every book in memory at once. Along with the books on the page, each page
+holds a continuation token, which is an opaque String marking the position just after the last
+book on the page, and which can be handed back to the getPage() method of the library collection
+in order to get the next page. Since the token records the last book itself (its title and
+author), rather than a position number, getting the next page does not have to count its way
+past every earlier book, and books added between pages do not cause any book to be skipped or
+shown twice. The token of the last page is null. This class also provides the static helper
+methods used by the library collection to create and read tokens.
+ */
+
+import java.util.ArrayList;
+
+/*
+When it comes to maintaining encapsulation, note that the instance variables of this class are
+private, and that the getBooks() method returns a copy of the list of books, which only holds
+immutable BookSnapshots. The token is a String, which is immutable, so no escaping references
+can be produced.
+ */
+
+public class BookPage {
+    // Declares the character separating the two parts of a token, which cannot appear within a
+    // title or author, since books are read from files one line at a time
+    private static final char SEPARATOR = '\n';
+
+    // Declares the private instance variables, which are the books on this page, in order, and
+    // the token for the next page (or null if this is the last page)
+    private ArrayList<ReadOnlyBook> books;
+    private String nextToken;
+
+    /*
+    Public constructor for the BookPage class, which takes in the books on the page, along with
+    the token for the next page (or null if there are no more books).
+
+    @pre books != null
+     */
+    public BookPage(ArrayList<ReadOnlyBook> books, String nextToken) {
+        this.books = books;
+        this.nextToken = nextToken;
+    }
+
+    /*
+    Public getter for the books on this page, in sorted order.
+
+    @return a new ArrayList<ReadOnlyBook> of the books on this page
+     */
+    public ArrayList<ReadOnlyBook> getBooks() {
+        return new ArrayList<ReadOnlyBook>(books);
+    }
+
+    /*
+    Public getter for the token which can be passed to getPage() in order to get the page after
+    this one.
+
+    @return a String representing the token for the next page, or null if this is the last page
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    /*
+    Public static method which turns the given books, in sorted order, into a page of up to limit
+    books. The library collection reads one more book than the limit in order to tell whether
+    there are any books after the page. If there are, then the extra book is left off, and the
+    page is given the token marking its last book, and otherwise the page is the last one and
+    has no token.
+
+    @pre books != null && limit > 0 && books.size() <= limit + 1
+    @return BookPage holding up to limit of the given books
+     */
+    public static BookPage of(ArrayList<ReadOnlyBook> books, TypeSort howSort, int limit) {
+        if (books.size() <= limit) {
+            return new BookPage(books, null);
+        }
+        books.remove(limit);
+        return new BookPage(books, tokenAfter(books.get(limit - 1), howSort));
+    }
+
+    /*
+    Public static method which creates the token marking the position just after the given book,
+    when the books are sorted in the given order. The token holds the sort key of the book,
+    followed by its other key.
+
+    @pre book != null && howSort != null
+    @return a String representing the token for the position after book
+     */
+    public static String tokenAfter(ReadOnlyBook book, TypeSort howSort) {
+        if (howSort == TypeSort.AUTHOR) {
+            return book.getAuthor() + SEPARATOR + book.getTitle();
+        }
+        return book.getTitle() + SEPARATOR + book.getAuthor();
+    }
+
+    /*
+    Public static method which returns the title of the book marked by the given token.
+
+    @pre token was created by tokenAfter() with the same howSort
+    @return a String representing the title of the book marked by the token
+     */
+    public static String titleOf(String token, TypeSort howSort) {
+        return howSort == TypeSort.AUTHOR ? otherKeyOf(token) : sortKeyOf(token);
+    }
+
+    /*
+    Public static method which returns the author of the book marked by the given token.
+
+    @pre token was created by tokenAfter() with the same howSort
+    @return a String representing the author of the book marked by the token
+     */
+    public static String authorOf(String token, TypeSort howSort) {
+        return howSort == TypeSort.AUTHOR ? sortKeyOf(token) : otherKeyOf(token);
+    }
+
+    /*
+    Public static method which determines whether the given String could be a token created by
+    tokenAfter().
+
+    @pre token != null
+    @return true if the token is well formed, false otherwise
+     */
+    public static boolean isValid(String token) {
+        int separator = token.indexOf(SEPARATOR);
+        return separator >= 0 && token.indexOf(SEPARATOR, separator + 1) < 0;
+    }
+
+    // Private helper methods which return the part of the given token before, and after, the
+    // separator
+    private static String sortKeyOf(String token) {
+        return token.substring(0, token.indexOf(SEPARATOR));
+    }
+
+    private static String otherKeyOf(String token) {
+        return token.substring(token.indexOf(SEPARATOR) + 1);
+    }
+}
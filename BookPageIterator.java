@@ -0,0 +1,82 @@
+/*
+File: BookPageIterator.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements an Iterator over all of the books in a library collection, in
+sorted order, which reads the books from the collection one page at a time through its getPage()
+method, fetching the next page only once every book of the current page has been returned. This
+allows for a collection of millions of books to be walked through while only ever holding a
+single page of them in memory, rather than a list of the whole collection. Since each page
+continues from the token of the page before it, books that are added to the collection while it
+is being walked through are returned if they come after the current position, and never cause
+another book to be returned twice.
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private, and that the books returned by the next() method are the immutable books
+handed out by the collection itself. The Iterator does not support removal.
+ */
+
+public class BookPageIterator implements Iterator<ReadOnlyBook> {
+    // Declares the number of books fetched from the collection at a time
+    public static final int PAGE_SIZE = 1024;
+
+    // Declares the private instance variables, which are the collection and sort order being
+    // walked through, the current page of books along with the position of the next book within
+    // it, and the token for the next page (which is null once the last page has been fetched)
+    private LibraryModel collection;
+    private TypeSort howSort;
+    private ArrayList<ReadOnlyBook> page;
+    private int position;
+    private String nextToken;
+
+    /*
+    Public constructor for the BookPageIterator class, which takes in the collection to walk
+    through along with the order to walk through it in. The first page is fetched right away.
+
+    @pre collection != null && howSort != null
+     */
+    public BookPageIterator(LibraryModel collection, TypeSort howSort) {
+        this.collection = collection;
+        this.howSort = howSort;
+        BookPage first = collection.getPage(howSort, null, PAGE_SIZE);
+        this.page = first.getBooks();
+        this.position = 0;
+        this.nextToken = first.getNextToken();
+    }
+
+    /*
+    Public method which determines whether there are any more books to return, fetching the
+    next page from the collection if every book of the current page has been returned.
+
+    @return true if there is another book, false otherwise
+     */
+    public boolean hasNext() {
+        if (position == page.size() && nextToken != null) {
+            BookPage next = collection.getPage(howSort, nextToken, PAGE_SIZE);
+            page = next.getBooks();
+            position = 0;
+            nextToken = next.getNextToken();
+        }
+        return position < page.size();
+    }
+
+    /*
+    Public method which returns the next book, in sorted order.
+
+    @pre hasNext()
+    @return ReadOnlyBook representing the next book in the collection
+     */
+    public ReadOnlyBook next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        position++;
+        return page.get(position - 1);
+    }
+}
@@ -0,0 +1,314 @@
+/*
+File: BookQuery.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class represents a query against the library collection which combines any number
+of criteria, such as "unread books by a given author rated at least 4, first ten by title",
+along with the order that the matching books should be sorted in and the largest number of them
+that should be returned. A query is built up by calling its "with" methods one after the other
+(each of which returns the query itself), and is then passed to the query() method of the
+library collection, which looks at every criterion that has been given and starts from whichever
+of its indexes will produce the fewest candidate books (for example, the books by the given
+author, rather than every unread book). Each candidate is then checked against the rest of the
+criteria by the select() method of this class, one at a time, so no intermediate lists of books
+are ever built. If the query is sorted, only the best matches seen so far are kept (in a heap
+that never holds more than the limit), and if it is not, then the candidates stop being read as
+soon as enough matches have been found.
+ */
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private, and are either Strings, ints, or enumerated types, all of which are immutable,
+so no getter can produce an escaping reference. The select() method only ever reads the books
+that it is given, and returns a new ArrayList of them.
+ */
+
+public class BookQuery {
+    // Declares the private instance variables, which are the criteria of the query (with null,
+    // or a rating of -1, meaning that the criterion was not given), the order to sort the
+    // matching books in (or null if they need not be sorted), and the largest number of books to
+    // return. Note that the Strings are stored in uppercase, just as they are in the Book class
+    private String title;
+    private String author;
+    private String titlePrefix;
+    private String authorPrefix;
+    private String keywords;
+    private int minRating;
+    private int maxRating;
+    private Read readStatus;
+    private TypeSort sortBy;
+    private int limit;
+
+    /*
+    Public constructor for the BookQuery class, which takes no inputs, and which produces a
+    query that matches every book, in no particular order, with no limit. Since there are no
+    inputs and no assumptions, there are no preconditions.
+     */
+    public BookQuery() {
+        this.title = null;
+        this.author = null;
+        this.titlePrefix = null;
+        this.authorPrefix = null;
+        this.keywords = null;
+        this.minRating = -1;
+        this.maxRating = -1;
+        this.readStatus = null;
+        this.sortBy = null;
+        this.limit = Integer.MAX_VALUE;
+    }
+
+    /*
+    Public methods which add a criterion to the query, each returning the query itself so that
+    several criteria can be added in a row. Matching of titles, authors, and prefixes is not
+    case-sensitive, and the keywords must all be found within the title or author of a book, in
+    the same way as for the search() method of the library collection.
+
+    @pre the given String is not null, and the given rating is within 1-5
+    @return this BookQuery
+     */
+    public BookQuery withTitle(String title) {
+        this.title = title.toUpperCase();
+        return this;
+    }
+
+    public BookQuery withAuthor(String author) {
+        this.author = author.toUpperCase();
+        return this;
+    }
+
+    public BookQuery withTitlePrefix(String prefix) {
+        this.titlePrefix = prefix.toUpperCase();
+        return this;
+    }
+
+    public BookQuery withAuthorPrefix(String prefix) {
+        this.authorPrefix = prefix.toUpperCase();
+        return this;
+    }
+
+    public BookQuery withKeywords(String keywords) {
+        this.keywords = keywords;
+        return this;
+    }
+
+    public BookQuery withMinRating(int rating) {
+        this.minRating = rating;
+        return this;
+    }
+
+    public BookQuery withMaxRating(int rating) {
+        this.maxRating = rating;
+        return this;
+    }
+
+    public BookQuery withReadStatus(Read readStatus) {
+        this.readStatus = readStatus;
+        return this;
+    }
+
+    /*
+    Public method which sets the order that the matching books should be returned in. Books are
+    sorted by the given key, with books that share that key being sorted by the other key (so
+    books with the same title are sorted by author), which gives a single order no matter which
+    index the books were found with.
+
+    @pre sortBy != null
+    @return this BookQuery
+     */
+    public BookQuery sortedBy(TypeSort sortBy) {
+        this.sortBy = sortBy;
+        return this;
+    }
+
+    /*
+    Public method which sets the largest number of books that the query should return.
+
+    @pre limit >= 0
+    @return this BookQuery
+     */
+    public BookQuery withLimit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    // Public getters for each of the criteria of the query, along with its sort order and limit,
+    // which are used by the library collection to choose which index to start from. Each returns
+    // null (or -1 for a rating) if the criterion was not given, while the limit is
+    // Integer.MAX_VALUE if none was given
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getTitlePrefix() {
+        return titlePrefix;
+    }
+
+    public String getAuthorPrefix() {
+        return authorPrefix;
+    }
+
+    public String getKeywords() {
+        return keywords;
+    }
+
+    public int getMinRating() {
+        return minRating;
+    }
+
+    public int getMaxRating() {
+        return maxRating;
+    }
+
+    public Read getReadStatus() {
+        return readStatus;
+    }
+
+    public TypeSort getSortBy() {
+        return sortBy;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /*
+    Public method which determines whether the given book matches every criterion of the query.
+
+    @pre book != null
+    @return true if the book matches the query, false otherwise
+     */
+    public boolean matches(ReadOnlyBook book) {
+        if (title != null && !book.getTitle().equals(title)) {
+            return false;
+        } else if (author != null && !book.getAuthor().equals(author)) {
+            return false;
+        } else if (titlePrefix != null && !book.getTitle().startsWith(titlePrefix)) {
+            return false;
+        } else if (authorPrefix != null && !book.getAuthor().startsWith(authorPrefix)) {
+            return false;
+        } else if (minRating != -1 && book.getRating() < minRating) {
+            return false;
+        } else if (maxRating != -1 && (book.getRating() == -1 || book.getRating() > maxRating)) {
+            return false;
+        } else if (readStatus != null && !book.getReadStatus().equals(readStatus)) {
+            return false;
+        } else if (keywords != null) {
+            List<String> terms = InvertedIndex.tokenize(book.getTitle());
+            terms.addAll(InvertedIndex.tokenize(book.getAuthor()));
+            return terms.containsAll(InvertedIndex.tokenize(keywords));
+        }
+        return true;
+    }
+
+    /*
+    Public method which reads through the given candidate books, keeping those which match the
+    query, and returns them sorted and limited as the query asks. If the query is not sorted,
+    then the matches are returned in the order of the candidates, and the candidates stop being
+    read once the limit is reached. If it is sorted, then a heap holding the best limit matches
+    seen so far is kept, with the worst of them on top, so that a new match only has to be
+    compared against the worst of the current best. This takes O(m log k) time, rather than the
+    O(m log m) time needed to sort every match, where m is the number of matches and k is the
+    limit.
+
+    @pre candidates != null
+    @return ArrayList<ReadOnlyBook> of the matching books, sorted and limited as the query asks
+     */
+    public ArrayList<ReadOnlyBook> select(Iterator<? extends ReadOnlyBook> candidates) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        if (limit == 0) {
+            return books;
+        }
+
+        // Without a sort order, the first matches found are simply returned
+        if (sortBy == null) {
+            while (candidates.hasNext() && books.size() < limit) {
+                ReadOnlyBook book = candidates.next();
+                if (matches(book)) {
+                    books.add(book);
+                }
+            }
+            return books;
+        }
+
+        // Otherwise, the best matches are kept in a heap with the worst of them on top
+        Comparator<ReadOnlyBook> order = comparator();
+        PriorityQueue<ReadOnlyBook> best = new PriorityQueue<ReadOnlyBook>(order.reversed());
+        while (candidates.hasNext()) {
+            ReadOnlyBook book = candidates.next();
+            if (!matches(book)) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(book);
+            } else if (order.compare(book, best.peek()) < 0) {
+                best.poll();
+                best.add(book);
+            }
+        }
+        books.addAll(best);
+        books.sort(order);
+        return books;
+    }
+
+    /*
+    Public method which works in the same way as select() for a sorted query, except that the
+    candidate books must already be in order of the sort key of the query (as they are when read
+    from the SortedBookIndex for that key, where books sharing a sort key are in the order in
+    which they were added). The candidates then stop being read as soon as limit matches have been
+    found and the sort key has moved past that of the last of them, so this only reads as many
+    candidates as it takes to find the matches, rather than every candidate. The matches that
+    share a sort key are then put in order of the other key, which is the only sorting needed.
+
+    @pre candidates != null && sortBy != null && the candidates are in order of the sort key
+    @return ArrayList<ReadOnlyBook> of the matching books, sorted and limited as the query asks
+     */
+    public ArrayList<ReadOnlyBook> selectInOrder(Iterator<? extends ReadOnlyBook> candidates) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        if (limit == 0) {
+            return books;
+        }
+
+        // Once there are enough matches, only the candidates sharing the sort key of the last
+        // match can still come before it, so the rest are never read
+        Comparator<ReadOnlyBook> sortKey = sortBy == TypeSort.AUTHOR ? Book.makeComparatorAuthor()
+                : Book.makeComparatorTitle();
+        while (candidates.hasNext()) {
+            ReadOnlyBook book = candidates.next();
+            if (books.size() >= limit && sortKey.compare(book, books.get(books.size() - 1)) != 0) {
+                break;
+            }
+            if (matches(book)) {
+                books.add(book);
+            }
+        }
+        books.sort(comparator());
+        if (books.size() > limit) {
+            books.subList(limit, books.size()).clear();
+        }
+        return books;
+    }
+
+    /*
+    Private helper method which returns the Comparator for the sort order of the query, which
+    compares books by the sort key first, and by the other key second.
+
+    @pre sortBy != null
+    @return Comparator<ReadOnlyBook> for the sort order of the query
+     */
+    private Comparator<ReadOnlyBook> comparator() {
+        if (sortBy == TypeSort.AUTHOR) {
+            return Book.makeComparatorAuthor().thenComparing(Book.makeComparatorTitle());
+        }
+        return Book.makeComparatorTitle().thenComparing(Book.makeComparatorAuthor());
+    }
+}
@@ -0,0 +1,192 @@
+/*
+File: BookSnapshot.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements an immutable book, which is what the LibraryCollection class
+actually stores and hands out to its clients. Since a BookSnapshot can never be changed once it
+is constructed, the library collection can return references to the BookSnapshot objects that
+it stores directly, rather than having to copy every book that it returns. Whenever the rating
+or read status of a book changes, the library collection simply replaces the old BookSnapshot
+with a new one, using the withRead() and withRating() methods below. Note that this class is
+not a kind of Book; instead, both classes implement the ReadOnlyBook interface, so that the
+code which only needs to look at a book works with either of them.
+ */
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private and final, and are all immutable objects or primitive types, and that the
+class has no methods that change them (each of the with...() methods returns a new
+BookSnapshot instead). As a result, no code is able to change a BookSnapshot after it has been
+constructed, so handing out references to BookSnapshot objects cannot produce any harmful
+escaping references. Note also that the class is declared as final, which prevents any
+subclass from adding a way to change it.
+ */
+
+public final class BookSnapshot implements ReadOnlyBook {
+    // Declares the private instance variables, which are the same as those of the Book class:
+    // the title and author (both in all uppercase), the rating (-1 if the book has not been
+    // rated), and the read status
+    private final String title;
+    private final String author;
+    private final int rating;
+    private final Read readStatus;
+
+    /*
+    Public constructor for the BookSnapshot class, which takes in a title and author and
+    constructs a new BookSnapshot that has not been rated and has not been read. As with the
+    Book class, the title and author are converted to all uppercase.
+
+    @pre title != null && author != null
+     */
+    public BookSnapshot(String title, String author) {
+        this(title.toUpperCase(), author.toUpperCase(), -1, Read.UNREAD, true);
+    }
+
+    /*
+    Public constructor for the BookSnapshot class, which takes in a title, author, rating, and
+    read status, and constructs a new BookSnapshot with all of these values. As with the Book
+    class, the title and author are converted to all uppercase.
+
+    @pre title != null && author != null && (rating == -1 || (rating >= 1 && rating <= 5))
+        && readStatus != null
+     */
+    public BookSnapshot(String title, String author, int rating, Read readStatus) {
+        this(title.toUpperCase(), author.toUpperCase(), rating, readStatus, true);
+    }
+
+    /*
+    Private constructor for the BookSnapshot class, which stores the given values directly. The
+    title and author must already be in all uppercase, since they are not converted again. The
+    final parameter is only there to tell this constructor apart from the public one above.
+
+    @pre title != null && author != null && title and author are in all uppercase
+        && (rating == -1 || (rating >= 1 && rating <= 5)) && readStatus != null
+     */
+    private BookSnapshot(String title, String author, int rating, Read readStatus, boolean uppercased) {
+        this.title = title;
+        this.author = author;
+        this.rating = rating;
+        this.readStatus = readStatus;
+    }
+
+    /*
+    Public static factory method which constructs a new BookSnapshot from a title and author
+    that are already in all uppercase (such as those kept by the columnar storage engine, or
+    those read back from a snapshot or log file), along with a rating and read status. The title
+    and author are stored as they are, without being converted to uppercase again or looked up
+    in any symbol table, so this only allocates the BookSnapshot itself.
+
+    @pre title != null && author != null && title and author are in all uppercase
+        && (rating == -1 || (rating >= 1 && rating <= 5)) && readStatus != null
+    @return a new BookSnapshot holding the given values
+     */
+    public static BookSnapshot ofUppercase(String title, String author, int rating, Read readStatus) {
+        return new BookSnapshot(title, author, rating, readStatus, true);
+    }
+
+    /*
+    Public method which returns a new BookSnapshot that is identical to this one, except that
+    it has been marked as read. Since the title and author are already in all uppercase, they
+    are reused directly. This BookSnapshot itself is not changed.
+
+    @return a BookSnapshot representing this book after it has been read
+     */
+    public BookSnapshot withRead() {
+        return new BookSnapshot(title, author, rating, Read.READ, true);
+    }
+
+    /*
+    Public method which returns a new BookSnapshot that is identical to this one, except that
+    it has the given rating. This BookSnapshot itself is not changed.
+
+    @pre newRating >= 1 && newRating <= 5
+    @return a BookSnapshot representing this book with the given rating
+     */
+    public BookSnapshot withRating(int newRating) {
+        return new BookSnapshot(title, author, newRating, readStatus, true);
+    }
+
+    /*
+    Public method which returns a new BookSnapshot that is identical to this one, except that
+    it holds the given String for its author, which must be equal to the author it already has.
+    This is used by the LibraryCollection class so that all of the books by the same author in
+    a collection share a single String (see SymbolTable.java). This BookSnapshot itself is not
+    changed.
+
+    @pre author != null && author.equals(getAuthor())
+    @return a BookSnapshot representing this book, holding the given String for its author
+     */
+    public BookSnapshot withSharedAuthor(String author) {
+        return new BookSnapshot(title, author, rating, readStatus, true);
+    }
+
+    /*
+    Public getters for the title, author, rating, and read status of the book, as described
+    within the ReadOnlyBook interface.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public Read getReadStatus() {
+        return readStatus;
+    }
+
+    /*
+    Public method for obtaining the key of this book, in the same format as the makeKey()
+    method of the Book class. Since the title and author are already in uppercase, they are
+    simply joined together.
+
+    @return a String key representing the title and author of this book
+     */
+    public String getKey() {
+        return title + "\n" + author;
+    }
+
+    /*
+    Public override of the equals() method inherited from the Object class. As with the Book
+    class, two BookSnapshots are equal exactly when they share a title and an author, with the
+    rating and read status being ignored. False is returned if the other object is null or is
+    not a BookSnapshot at all.
+
+    @return true if other is a BookSnapshot with the same title and author, false otherwise
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof BookSnapshot)) {
+            return false;
+        }
+        BookSnapshot otherBook = (BookSnapshot) other;
+        return title.equals(otherBook.title) && author.equals(otherBook.author);
+    }
+
+    /*
+    Public override of the hashCode() method inherited from the Object class, which is computed
+    in the same way as that of the Book class, using only the title and author.
+
+    @return an int representing the hash code of the BookSnapshot
+     */
+    @Override
+    public int hashCode() {
+        return 31 * title.hashCode() + author.hashCode();
+    }
+
+    /*
+    Public method which returns a String representation of the book, in the same format as the
+    toString() method of the Book class (see the describe() method of ReadOnlyBook).
+
+    @return a String representing the book
+     */
+    @Override
+    public String toString() {
+        return ReadOnlyBook.describe(this);
+    }
+}
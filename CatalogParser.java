@@ -0,0 +1,228 @@
+/*
+File: CatalogParser.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements the parser for book files in the "Title;Author" format that
+was given with the spec, which is used by both the addBooksFromFile() method of the
+LibraryCollection class and the ParallelImporter class. Rather than reading the file through
+a Reader and building up a String for every line, the file is mapped into memory, and its
+bytes are scanned directly for the semicolon and line break of each line. Only the bytes of
+the title and the author are then decoded from UTF-8 into Strings, so the rest of the file
+never has to be copied or decoded at all. A line that has no semicolon is counted as
+malformed and skipped, rather than stopping the whole import, and blank lines (along with the
+carriage return of a Windows-style line break) are simply ignored.
+ */
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/*
+When it comes to maintaining encapsulation, note that this class has no instance variables,
+and cannot be instantiated, since it only provides a static method for parsing. The mapped
+region of the file is read-only and is never returned, and the books handed to the given
+Consumer are newly created BookSnapshots, which are immutable.
+ */
+
+public final class CatalogParser {
+    // Declares the largest region of a file that is mapped into memory at once, in bytes. A
+    // file larger than this is mapped one window at a time
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    // Declares the size of the sections that a file is read in when its progress is reported,
+    // in bytes
+    private static final long PROGRESS_BYTES = 4L << 20;
+
+    // Declares the line break and semicolon bytes repeated across all eight bytes of a long,
+    // which allows for eight bytes of the file to be checked for either at once
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long SEMICOLONS = 0x3B3B3B3B3B3B3B3BL;
+
+    /*
+    Private constructor for the CatalogParser class, which prevents it from being instantiated.
+     */
+    private CatalogParser() {
+    }
+
+    /*
+    Public static method which parses every line of the given file that starts at or after the
+    byte position start and before the byte position end, handing each book to the given Consumer
+    in the order in which they appear. The line that crosses end is parsed in full, while a line
+    that started before start is skipped, so a file can be split into ranges at any positions and
+    each line will be parsed by exactly one range. The first line of the file is always treated
+    as the "Title;Author" header, and is skipped. The number of malformed lines (those without a
+    semicolon) in the range is returned.
+
+    @pre channel != null && 0 <= start && start <= end && end <= channel.size() && sink != null
+    @return an int representing the number of malformed lines in the range
+     */
+    public static int parse(FileChannel channel, long start, long end, Consumer<BookSnapshot> sink)
+            throws IOException {
+        long size = channel.size();
+        int malformed = 0;
+        byte[] scratch = new byte[256];
+
+        // A range that starts right after a line break starts with a full line, while any other
+        // range (including the start of the file, where the header is) skips its first line
+        long lineStart = start;
+        boolean skipFirst = true;
+        if (start > 0) {
+            MappedByteBuffer before = channel.map(FileChannel.MapMode.READ_ONLY, start - 1, 1);
+            skipFirst = before.get(0) != '\n';
+        }
+
+        while (lineStart < end && lineStart < size) {
+            // Maps a window of the file starting at the current line
+            long windowEnd = Math.min(size, lineStart + WINDOW_BYTES);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, lineStart,
+                    windowEnd - lineStart);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            int limit = window.limit();
+            int from = 0;
+
+            // Scans the window one line at a time, remembering where the first semicolon is
+            while (from < limit && lineStart + from < end) {
+                int separator = -1;
+                int to = from;
+
+                // Eight bytes are checked at a time for a line break or semicolon, with the lowest
+                // matching byte of each word giving the position of the first match
+                boolean found = false;
+                while (to + 8 <= limit) {
+                    long word = window.getLong(to);
+                    long newlines = matches(word, NEWLINES);
+                    if (separator < 0) {
+                        long semicolons = matches(word, SEMICOLONS);
+                        if (semicolons != 0) {
+                            separator = to + (Long.numberOfTrailingZeros(semicolons) >>> 3);
+                        }
+                    }
+                    if (newlines != 0) {
+                        to += Long.numberOfTrailingZeros(newlines) >>> 3;
+                        found = true;
+                        break;
+                    }
+                    to += 8;
+                }
+
+                // The last few bytes of the window are checked one at a time
+                while (!found && to < limit) {
+                    byte cur = window.get(to);
+                    if (cur == '\n') {
+                        break;
+                    }
+                    if (cur == ';' && separator < 0) {
+                        separator = to;
+                    }
+                    to++;
+                }
+
+                // A line that runs past the end of the window is picked up again by the next
+                // window, unless this window already reaches the end of the file
+                if (to == limit && windowEnd < size) {
+                    if (from == 0) {
+                        throw new IOException("line is too long");
+                    }
+                    break;
+                }
+
+                // Parses the line, unless it is the line being skipped
+                if (skipFirst) {
+                    skipFirst = false;
+                } else {
+                    int lineEnd = to;
+                    if (lineEnd > from && window.get(lineEnd - 1) == '\r') {
+                        lineEnd--;
+                    }
+                    if (lineEnd > from) {
+                        if (separator < 0 || separator >= lineEnd) {
+                            malformed++;
+                        } else {
+                            if (scratch.length < lineEnd - from) {
+                                scratch = new byte[Math.max(lineEnd - from, scratch.length * 2)];
+                            }
+                            String title = decode(window, from, separator, scratch);
+                            String author = decode(window, separator + 1, lineEnd, scratch);
+                            sink.accept(BookSnapshot.ofUppercase(title, author, -1, Read.UNREAD));
+                        }
+                    }
+                }
+                from = to + 1;
+            }
+            lineStart += from;
+        }
+        return malformed;
+    }
+
+    /*
+    Public static method which parses every line of the given file (after the header), handing
+    each book to the given Consumer in order, and recording the number of malformed lines in the
+    given report. The file is read in sections of PROGRESS_BYTES, with the given listener being
+    told about the progress after each section, and if the listener asks for the import to be
+    cancelled, then the rest of the file is not read, and the report records the cancellation.
+
+    @pre channel != null && sink != null && report != null && progress != null
+     */
+    public static void parse(FileChannel channel, Consumer<BookSnapshot> sink, ImportReport report,
+            ImportProgress progress) throws IOException {
+        long size = channel.size();
+        long start = 0;
+        do {
+            long end = Math.min(size, start + PROGRESS_BYTES);
+            int malformed = parse(channel, start, end, sink);
+            for (int i = 0; i < malformed; i++) {
+                report.recordMalformed();
+            }
+            start = end;
+            if (!progress.update(start, size)) {
+                if (start < size) {
+                    report.recordCancelled();
+                }
+                return;
+            }
+        } while (start < size);
+    }
+
+    /*
+    Private helper method which decodes the bytes of the given window between from (inclusive)
+    and to (exclusive) from UTF-8 into a String in all uppercase, copying them into the given
+    scratch array first.
+
+    @pre window != null && 0 <= from && from <= to && to - from <= scratch.length
+    @return the decoded String
+     */
+    private static String decode(MappedByteBuffer window, int from, int to, byte[] scratch) {
+        int length = to - from;
+        window.get(from, scratch, 0, length);
+
+        // If every byte is ASCII, the bytes are converted to uppercase here, and are turned into
+        // a String without going through the UTF-8 decoder. Otherwise, the decoded String is
+        // converted to uppercase in the same way as the Book class would
+        for (int i = 0; i < length; i++) {
+            byte cur = scratch[i];
+            if (cur < 0) {
+                return new String(scratch, 0, length, StandardCharsets.UTF_8).toUpperCase();
+            }
+            if (cur >= 'a' && cur <= 'z') {
+                scratch[i] = (byte) (cur - ('a' - 'A'));
+            }
+        }
+        return new String(scratch, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /*
+    Private helper method which finds every byte of the given word that is equal to the byte
+    repeated throughout the given pattern, returning a word with the high bit of each such byte
+    set. Note that bytes above the first match may be wrongly marked, so only the lowest marked
+    byte should be relied upon.
+
+    @return a long with the high bit set in each matching byte (with only the lowest being exact)
+     */
+    private static long matches(long word, long pattern) {
+        long diff = word ^ pattern;
+        return (diff - 0x0101010101010101L) & ~diff & 0x8080808080808080L;
+    }
+}
@@ -0,0 +1,1192 @@
+/*
+File: ColumnarLibraryCollection.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements an alternative storage engine for the Model element of the
+library collection, which provides exactly the same operations as the LibraryCollection
+class, but which is designed to hold tens of millions of books using as little memory as
+possible. Rather than storing a Book object for each book (with its object header, references
+to two Strings, an int, and a reference to a Read enum), each book is simply a row number, and
+everything about the book is stored in columns, which are plain arrays of primitives indexed
+by row. The titles and authors are each stored once in a StringDictionary, with each row only
+holding the int id of its title and of its author, and the rating and read status of each row
+are packed together into a single byte. The secondary indexes are made of int arrays as well:
+the rows with each title (and with each author) are linked together in the order in which they
+were added, the rows with each rating are linked together in the order in which they were
+rated, and a hash table of row numbers allows for any book to be found from its title and
+author in constant time. Sorted lists of books are produced by walking the titles (or authors)
+in their sorted order, which the dictionaries keep cached, and the full-text index knows each
+book by its row. Book objects are only created when
+books are returned, in which case they are immutable BookSnapshots, just as in the
+LibraryCollection class. The methods of this class which behave exactly as described in the
+LibraryModel interface (and the LibraryCollection class) are not described again here.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private, and that none of the arrays or dictionaries are ever returned from any method.
+Each Book that is returned is a newly created BookSnapshot, which is immutable, and each list of
+Books that is returned is a new ArrayList, so client code has no way to reach the columns of the
+collection. None of the methods that only read from the collection modify any of the columns.
+ */
+
+public class ColumnarLibraryCollection implements LibraryModel {
+    // Declares the constants used for packing the rating and read status of each row into a
+    // single byte, the value used to mark the end of a linked list of rows (or a missing row),
+    // the value used for a key that is malformed, and the size that the write-ahead log may grow
+    // to before it is compacted, in bytes
+    private static final int READ_FLAG = 0x08;
+    private static final int RATING_MASK = 0x07;
+    private static final int NONE = -1;
+    private static final int INVALID_KEY = -2;
+    private static final long COMPACT_BYTES = 64L << 20;
+
+    // Declares the dictionaries of titles and authors, along with the columns holding the id
+    // of the title, the id of the author, and the packed rating and read status of each row,
+    // and the number of rows
+    private StringDictionary titles;
+    private StringDictionary authors;
+    private int[] titleIds;
+    private int[] authorIds;
+    private byte[] packed;
+    private int count;
+
+    // Declares the linked lists of rows with the same title and with the same author, where
+    // the first and last rows are indexed by the id of the title (or author), and the next
+    // row is indexed by row
+    private int[] firstByTitle;
+    private int[] lastByTitle;
+    private int[] nextByTitle;
+    private int[] firstByAuthor;
+    private int[] lastByAuthor;
+    private int[] nextByAuthor;
+
+    // Declares the doubly linked lists of rows with each rating (with slot 0 being used for
+    // rows that have not been rated), along with the number of rows in each list
+    private int[] ratingFirst;
+    private int[] ratingLast;
+    private int[] ratingNext;
+    private int[] ratingPrev;
+    private int[] ratingCounts;
+
+    // Declares the hash table from the title and author of each book to its row (plus one, so
+    // that 0 marks an empty slot), along with the pool of unread rows (and the position of each
+    // row within it, or NONE if the row has been read), and the number of read rows
+    private int[] bookTable;
+    private int[] unreadPool;
+    private int unreadCount;
+    private int[] unreadPositions;
+    private int readCount;
+
+    // Declares the full-text index over the titles and authors, which knows each book by its row
+    private InvertedIndex textIndex;
+
+    // Declares the write-ahead log that every change is recorded in (or null if changes are
+    // not being logged), and the name of the snapshot file that the log is compacted into
+    private MutationLog log;
+    private String snapshotFilename;
+
+    /*
+    Public constructor for the ColumnarLibraryCollection class, which takes no inputs, and
+    which produces an empty collection, with room for a small number of rows. The columns are
+    doubled in size whenever they fill up. Since this method takes no inputs and has no
+    assumptions, it also has no preconditions.
+     */
+    public ColumnarLibraryCollection() {
+        this(new StringDictionary(), new StringDictionary());
+    }
+
+    /*
+    Protected constructor for the ColumnarLibraryCollection class, which takes in the (empty)
+    dictionaries that the titles and authors should be stored in, and which otherwise produces
+    an empty collection just like the public constructor. This allows for subclasses (such as the
+    OffHeapLibraryCollection class) to store the titles and authors somewhere else.
+
+    @pre titles != null && authors != null && both are empty
+     */
+    protected ColumnarLibraryCollection(StringDictionary titles, StringDictionary authors) {
+        this.titles = titles;
+        this.authors = authors;
+        this.count = 0;
+        this.titleIds = new int[16];
+        this.authorIds = new int[16];
+        this.packed = new byte[16];
+        this.nextByTitle = new int[16];
+        this.nextByAuthor = new int[16];
+        this.ratingNext = new int[16];
+        this.ratingPrev = new int[16];
+        this.unreadPositions = new int[16];
+        this.unreadPool = new int[16];
+        this.unreadCount = 0;
+        this.readCount = 0;
+        this.firstByTitle = new int[16];
+        this.lastByTitle = new int[16];
+        this.firstByAuthor = new int[16];
+        this.lastByAuthor = new int[16];
+        this.ratingFirst = new int[6];
+        this.ratingLast = new int[6];
+        this.ratingCounts = new int[6];
+        Arrays.fill(firstByTitle, NONE);
+        Arrays.fill(firstByAuthor, NONE);
+        Arrays.fill(ratingFirst, NONE);
+        Arrays.fill(ratingLast, NONE);
+        this.bookTable = new int[32];
+        this.textIndex = new InvertedIndex();
+        this.log = null;
+        this.snapshotFilename = null;
+    }
+
+    public ArrayList<ReadOnlyBook> getSortedCollection(TypeSort howSort) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>(count);
+        if (howSort == TypeSort.AUTHOR) {
+            for (int position = 0; position < authors.size(); position++) {
+                addChain(books, firstByAuthor[authors.sortedIdAt(position)], nextByAuthor, NONE);
+            }
+        } else {
+            for (int position = 0; position < titles.size(); position++) {
+                addChain(books, firstByTitle[titles.sortedIdAt(position)], nextByTitle, NONE);
+            }
+        }
+        return books;
+    }
+
+    /*
+    Public method for obtaining up to limit books, sorted according to howSort, skipping the first
+    offset books. The rows before the page are skipped by walking their linked lists without ever
+    creating a book for them, so this takes O(offset + limit) time.
+
+    @pre howSort != null && offset >= 0 && limit >= 0
+    @return ArrayList<ReadOnlyBook> of up to limit books, starting from the book at position offset
+     */
+    public ArrayList<ReadOnlyBook> getSortedCollection(TypeSort howSort, int offset, int limit) {
+        boolean byAuthor = howSort == TypeSort.AUTHOR;
+        StringDictionary keys = byAuthor ? authors : titles;
+        int[] first = byAuthor ? firstByAuthor : firstByTitle;
+        int[] next = byAuthor ? nextByAuthor : nextByTitle;
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        int skipped = 0;
+        for (int position = 0; position < keys.size() && books.size() < limit; position++) {
+            for (int row = first[keys.sortedIdAt(position)]; row != NONE && books.size() < limit; row = next[row]) {
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    books.add(bookAt(row));
+                }
+            }
+        }
+        return books;
+    }
+
+    /*
+    Public method for obtaining the page of up to limit books just after the position marked by
+    the given token, sorted according to howSort (see LibraryCollection.java). The book marked by
+    the token is found through the hash table, and the rest of its linked list is read first,
+    followed by the lists of the keys after it, which are found by binary search within the
+    sorted order of the dictionary, so this takes O(log u + limit) time no matter how far into
+    the collection the page is.
+
+    @pre howSort != null && limit > 0 && (afterToken was returned for the same howSort)
+    @return BookPage holding the books and the token for the next page, or null if the token is
+        not valid
+     */
+    public BookPage getPage(TypeSort howSort, String afterToken, int limit) {
+        boolean byAuthor = howSort == TypeSort.AUTHOR;
+        StringDictionary keys = byAuthor ? authors : titles;
+        int[] first = byAuthor ? firstByAuthor : firstByTitle;
+        int[] next = byAuthor ? nextByAuthor : nextByTitle;
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        int position = 0;
+        if (afterToken != null) {
+            if (!BookPage.isValid(afterToken)) {
+                System.out.println("Error: invalid page token");
+                return null;
+            }
+            String title = BookPage.titleOf(afterToken, howSort);
+            String author = BookPage.authorOf(afterToken, howSort);
+            String sortKey = byAuthor ? author : title;
+            position = keys.lowerBound(sortKey);
+
+            // Reads the rest of the list of the marked book, then moves past its key
+            int row = findRow(title, author);
+            if (row != NONE) {
+                for (row = next[row]; row != NONE && books.size() <= limit; row = next[row]) {
+                    books.add(bookAt(row));
+                }
+                position++;
+            } else if (position < keys.size() && keys.get(keys.sortedIdAt(position)).equals(sortKey)) {
+                position++;
+            }
+        }
+
+        // One more book than the limit is read, so that BookPage can tell if this is the last page
+        for (; position < keys.size() && books.size() <= limit; position++) {
+            for (int row = first[keys.sortedIdAt(position)]; row != NONE && books.size() <= limit; row = next[row]) {
+                books.add(bookAt(row));
+            }
+        }
+        return BookPage.of(books, howSort, limit);
+    }
+
+    public ArrayList<ReadOnlyBook> getBooksWithAuthor(String author) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        int authorId = authors.find(author.toUpperCase());
+        if (authorId != NONE) {
+            addChain(books, firstByAuthor[authorId], nextByAuthor, NONE);
+        }
+        return books;
+    }
+
+    public ArrayList<ReadOnlyBook> getBooksWithTitle(String title) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        int titleId = titles.find(title.toUpperCase());
+        if (titleId != NONE) {
+            addChain(books, firstByTitle[titleId], nextByTitle, NONE);
+        }
+        return books;
+    }
+
+    /*
+    Public method for obtaining a list of the books whose author starts with the given prefix,
+    sorted by author. The first author that could start with the prefix is found by binary search
+    within the sorted order of the author dictionary, and the authors are then walked forward only
+    while they still start with the prefix, so this takes O(log u + k) time, where u is the number
+    of distinct authors and k is the number of books returned. This is not case-sensitive.
+
+    @pre prefix != null
+    @return ArrayList<ReadOnlyBook> of Book objects whose author starts with the given prefix
+     */
+    public ArrayList<ReadOnlyBook> getBooksWithAuthorPrefix(String prefix) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        String upper = prefix.toUpperCase();
+        for (int position = authors.lowerBound(upper); position < authors.size(); position++) {
+            int authorId = authors.sortedIdAt(position);
+            if (!authors.get(authorId).startsWith(upper)) {
+                break;
+            }
+            addChain(books, firstByAuthor[authorId], nextByAuthor, NONE);
+        }
+        return books;
+    }
+
+    public ArrayList<ReadOnlyBook> getBooksWithTitlePrefix(String prefix) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        String upper = prefix.toUpperCase();
+        for (int position = titles.lowerBound(upper); position < titles.size(); position++) {
+            int titleId = titles.sortedIdAt(position);
+            if (!titles.get(titleId).startsWith(upper)) {
+                break;
+            }
+            addChain(books, firstByTitle[titleId], nextByTitle, NONE);
+        }
+        return books;
+    }
+
+    public ArrayList<ReadOnlyBook> getBooksWithRating(int rating) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>(ratingCounts[ratingSlot(rating)]);
+        addChain(books, ratingFirst[ratingSlot(rating)], ratingNext, NONE);
+        return books;
+    }
+
+    public ArrayList<ReadOnlyBook> search(String query, boolean matchAll) {
+        return booksAt(textIndex.search(query, matchAll));
+    }
+
+    public ArrayList<ReadOnlyBook> fuzzySearch(String query, boolean matchAll) {
+        return booksAt(textIndex.fuzzySearch(query, matchAll));
+    }
+
+    /*
+    Public method for obtaining a list of the books matching every criterion of the given query,
+    sorted and limited as the query asks. As with the LibraryCollection class, this starts from
+    whichever index holds the fewest candidates: the full-text index if the query has keywords,
+    otherwise the rows with the given title, the rows with the given author, the rows with the
+    given rating (if the query asks for exactly one rating), the pool of unread rows, or the rows
+    with the given title or author prefix, before falling back on every row. The candidate rows
+    are read one at a time, and their rating and read status are checked straight from the
+    packed column, so a BookSnapshot is only created for the rows that pass these checks.
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> of the matching books
+     */
+    public ArrayList<ReadOnlyBook> query(BookQuery query) {
+        PrimitiveIterator.OfInt rows = IntStream.range(0, count).iterator();
+        int fewest = count;
+        if (query.getKeywords() != null) {
+            // The rows of the full-text matches (which are in order of relevance) are read in the
+            // same way as any other candidate rows, so only those that pass the checks below are
+            // turned into BookSnapshots
+            rows = Arrays.stream(textIndex.search(query.getKeywords(), true)).iterator();
+            fewest = 0;
+        } else if (query.getTitle() != null) {
+            int titleId = titles.find(query.getTitle());
+            rows = chain(titleId == NONE ? NONE : firstByTitle[titleId], nextByTitle);
+            fewest = 0;
+        } else if (query.getAuthor() != null) {
+            int authorId = authors.find(query.getAuthor());
+            rows = chain(authorId == NONE ? NONE : firstByAuthor[authorId], nextByAuthor);
+            fewest = 0;
+        }
+
+        // The rows with a single rating and the unread rows are counted, so the smaller of the
+        // two (if the query can use either) is chosen
+        int slot = ratingSlot(query.getMinRating());
+        if (query.getMinRating() != -1 && query.getMinRating() == query.getMaxRating() && ratingCounts[slot] < fewest) {
+            rows = chain(ratingFirst[slot], ratingNext);
+            fewest = ratingCounts[slot];
+        }
+        if (query.getReadStatus() == Read.UNREAD && unreadCount < fewest) {
+            rows = Arrays.stream(unreadPool, 0, unreadCount).iterator();
+            fewest = unreadCount;
+        }
+        if (fewest == count && query.getTitlePrefix() != null) {
+            rows = prefixRows(titles, firstByTitle, nextByTitle, query.getTitlePrefix());
+        } else if (fewest == count && query.getAuthorPrefix() != null) {
+            rows = prefixRows(authors, firstByAuthor, nextByAuthor, query.getAuthorPrefix());
+        }
+
+        // Only the rows with the right rating and read status are turned into BookSnapshots,
+        // with the next such row being found ahead of time so that hasNext() can be answered
+        PrimitiveIterator.OfInt candidates = rows;
+        return query.select(new Iterator<ReadOnlyBook>() {
+            private int row = advance();
+
+            private int advance() {
+                while (candidates.hasNext()) {
+                    int cur = candidates.nextInt();
+                    if (stateMatches(packed[cur], query)) {
+                        return cur;
+                    }
+                }
+                return NONE;
+            }
+
+            public boolean hasNext() {
+                return row != NONE;
+            }
+
+            public ReadOnlyBook next() {
+                if (row == NONE) {
+                    throw new NoSuchElementException();
+                }
+                ReadOnlyBook book = bookAt(row);
+                row = advance();
+                return book;
+            }
+        });
+    }
+
+    public boolean addBook(String title, String author) {
+        return addRow(title.toUpperCase(), author.toUpperCase(), 0);
+    }
+
+    public boolean alreadyInCollection(String title, String author) {
+        return findRow(title.toUpperCase(), author.toUpperCase()) != NONE;
+    }
+
+    public boolean setToRead(String title, String author) {
+        int row = findRow(title.toUpperCase(), author.toUpperCase());
+        if (row != NONE && (packed[row] & READ_FLAG) == 0) {
+            return updateRow(row, packed[row] | READ_FLAG);
+        }
+        return true;
+    }
+
+    public boolean updateBookRating(String title, String author, int rating) {
+        int row = findRow(title.toUpperCase(), author.toUpperCase());
+        if (row != NONE && (packed[row] & RATING_MASK) != rating) {
+            return updateRow(row, (packed[row] & ~RATING_MASK) | rating);
+        }
+        return true;
+    }
+
+    /*
+    Public methods which make a batch of changes in the same two passes as the matching methods
+    of the LibraryCollection class: every key (or book) is first looked up in the hash table of
+    books, deciding the result of each item and the new packed state of each changed row, and
+    then all of the changes are made together (see applyRows() and applyAdds()).
+     */
+    public ArrayList<BatchResult> setToRead(Collection<String> keys) {
+        ArrayList<BatchResult> results = new ArrayList<BatchResult>(keys.size());
+        LinkedHashMap<Integer, Integer> changes = new LinkedHashMap<Integer, Integer>();
+        for (String key : keys) {
+            int row = keyRow(key);
+            if (row == INVALID_KEY) {
+                results.add(BatchResult.INVALID);
+            } else if (row == NONE) {
+                results.add(BatchResult.NOT_FOUND);
+            } else if ((packed[row] & READ_FLAG) != 0 || changes.containsKey(row)) {
+                results.add(BatchResult.UNCHANGED);
+            } else {
+                changes.put(row, packed[row] | READ_FLAG);
+                results.add(BatchResult.APPLIED);
+            }
+        }
+        if (!applyRows(changes)) {
+            BatchResult.failApplied(results);
+        }
+        return results;
+    }
+
+    public ArrayList<BatchResult> updateRatings(Map<String, Integer> ratings) {
+        ArrayList<BatchResult> results = new ArrayList<BatchResult>(ratings.size());
+        LinkedHashMap<Integer, Integer> changes = new LinkedHashMap<Integer, Integer>();
+        for (Map.Entry<String, Integer> entry : ratings.entrySet()) {
+            Integer rating = entry.getValue();
+            int row = keyRow(entry.getKey());
+            if (row == INVALID_KEY || rating == null || rating < 1 || rating > 5) {
+                results.add(BatchResult.INVALID);
+                continue;
+            }
+            if (row == NONE) {
+                results.add(BatchResult.NOT_FOUND);
+                continue;
+            }
+            // A row changed earlier in the batch is compared against its pending state
+            int state = changes.getOrDefault(row, (int) packed[row]);
+            if ((state & RATING_MASK) == rating) {
+                results.add(BatchResult.UNCHANGED);
+            } else {
+                changes.put(row, (state & ~RATING_MASK) | rating);
+                results.add(BatchResult.APPLIED);
+            }
+        }
+        if (!applyRows(changes)) {
+            BatchResult.failApplied(results);
+        }
+        return results;
+    }
+
+    public ArrayList<BatchResult> addBooks(Collection<? extends ReadOnlyBook> books) {
+        ArrayList<BatchResult> results = new ArrayList<BatchResult>(books.size());
+        LinkedHashMap<String, BookSnapshot> additions = new LinkedHashMap<String, BookSnapshot>();
+        for (ReadOnlyBook curBook : books) {
+            if (curBook == null || curBook.getReadStatus() == null || curBook.getRating() == 0
+                    || curBook.getRating() < -1 || curBook.getRating() > 5) {
+                results.add(BatchResult.INVALID);
+            } else if (findRow(curBook.getTitle(), curBook.getAuthor()) != NONE
+                    || additions.containsKey(curBook.getKey())) {
+                results.add(BatchResult.DUPLICATE);
+            } else {
+                additions.put(curBook.getKey(), new BookSnapshot(curBook.getTitle(), curBook.getAuthor(),
+                        curBook.getRating(), curBook.getReadStatus()));
+                results.add(BatchResult.APPLIED);
+            }
+        }
+        if (!applyAdds(additions.values())) {
+            BatchResult.failApplied(results);
+        }
+        return results;
+    }
+
+    public ArrayList<ReadOnlyBook> allReadBooks() {
+        return booksWithReadFlag(READ_FLAG, readCount);
+    }
+
+    public ArrayList<ReadOnlyBook> allUnreadBooks() {
+        return booksWithReadFlag(0, unreadCount);
+    }
+
+    public int countBooksWithRating(int rating) {
+        return ratingCounts[ratingSlot(rating)];
+    }
+
+    public int countReadBooks() {
+        return readCount;
+    }
+
+    public int countUnreadBooks() {
+        return unreadCount;
+    }
+
+    public ReadOnlyBook getRandomBook() {
+        if (unreadCount == 0) {
+            return null;
+        }
+        return bookAt(unreadPool[ThreadLocalRandom.current().nextInt(unreadCount)]);
+    }
+
+    /*
+    Public method which returns a list of up to k distinct random unread books, using a partial
+    Fisher-Yates shuffle of the pool of unread rows, in the same manner as the LibraryCollection
+    class. This takes O(k) time.
+
+    @pre k >= 0
+    @return ArrayList<ReadOnlyBook> of up to k distinct random unread books
+     */
+    public ArrayList<ReadOnlyBook> suggest(int k) {
+        int total = Math.min(k, unreadCount);
+        ArrayList<ReadOnlyBook> suggestions = new ArrayList<ReadOnlyBook>(total);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < total; i++) {
+            int j = i + random.nextInt(unreadCount - i);
+            int chosen = unreadPool[j];
+            int displaced = unreadPool[i];
+            unreadPool[i] = chosen;
+            unreadPool[j] = displaced;
+            unreadPositions[chosen] = i;
+            unreadPositions[displaced] = j;
+            suggestions.add(bookAt(chosen));
+        }
+        return suggestions;
+    }
+
+    public ImportReport addBooksFromFile(String filename) {
+        return addBooksFromFile(filename, ImportProgress.NONE);
+    }
+
+    public ImportReport addBooksFromFile(String filename, ImportProgress progress) {
+        ImportReport report = new ImportReport();
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            CatalogParser.parse(channel, curBook -> addParsed(curBook, report), report, progress);
+        } catch (IOException e) {
+            System.out.println("Error: given file not found");
+            return null;
+        } catch (UncheckedIOException e) {
+            return null;
+        }
+        return report;
+    }
+
+    public ImportReport addBooksFromFiles(List<String> filenames) {
+        ImportReport report = new ImportReport();
+        try {
+            new ParallelImporter(Runtime.getRuntime().availableProcessors()).parse(filenames, report,
+                    curBook -> addParsed(curBook, report));
+        } catch (IOException e) {
+            System.out.println("Error: given file not found");
+            return null;
+        } catch (UncheckedIOException e) {
+            return null;
+        }
+        return report;
+    }
+
+    /*
+    Public method which saves every book in the collection to a binary snapshot file, in the
+    same format as the LibraryCollection class (see LibrarySnapshot.java), so snapshots can be
+    moved freely between the two storage engines. The books are written in row order, with each
+    BookSnapshot only being created as it is written.
+
+    @pre filename != null
+    @return true if the snapshot was saved, and false otherwise
+     */
+    public boolean saveSnapshot(String filename) {
+        try {
+            LibrarySnapshot.write(() -> new Iterator<ReadOnlyBook>() {
+                private int row = 0;
+
+                public boolean hasNext() {
+                    return row < count;
+                }
+
+                public ReadOnlyBook next() {
+                    if (row >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    return bookAt(row++);
+                }
+            }, filename);
+        } catch (IOException e) {
+            System.out.println("Error: snapshot could not be saved");
+            return false;
+        }
+        return true;
+    }
+
+    public ImportReport loadSnapshot(String filename) {
+        ImportReport report = new ImportReport();
+        try {
+            LibrarySnapshot.read(filename, curBook -> addParsed(curBook, report));
+        } catch (IOException e) {
+            System.out.println("Error: given snapshot could not be read");
+            return null;
+        } catch (UncheckedIOException e) {
+            return null;
+        }
+        return report;
+    }
+
+    /*
+    Public method which starts keeping the collection on disk, in the same manner as the
+    openLog() method of the LibraryCollection class: the snapshot is loaded, the write-ahead log
+    is replayed on top of it, and every later change is recorded in the log.
+
+    @pre snapshotFilename != null && logFilename != null && durability != null
+    @return true if the log was opened, and false otherwise
+     */
+    public boolean openLog(String snapshotFilename, String logFilename, Durability durability) {
+        if (log != null) {
+            System.out.println("Error: a log is already open");
+            return false;
+        }
+        if (new File(snapshotFilename).exists() && loadSnapshot(snapshotFilename) == null) {
+            return false;
+        }
+        try {
+            MutationLog.replay(logFilename, new MutationLog.Listener() {
+                public void add(BookSnapshot book) {
+                    if (findRow(book.getTitle(), book.getAuthor()) == NONE) {
+                        addRow(book.getTitle(), book.getAuthor(), pack(book));
+                    }
+                }
+
+                public void update(BookSnapshot book) {
+                    int row = findRow(book.getTitle(), book.getAuthor());
+                    if (row != NONE) {
+                        updateRow(row, pack(book));
+                    }
+                }
+            });
+            log = new MutationLog(logFilename, durability);
+        } catch (IOException e) {
+            System.out.println("Error: given log could not be read");
+            return false;
+        }
+        this.snapshotFilename = snapshotFilename;
+        return true;
+    }
+
+    public boolean compact() {
+        if (log == null) {
+            System.out.println("Error: no log is open");
+            return false;
+        }
+        if (!saveSnapshot(snapshotFilename)) {
+            return false;
+        }
+        try {
+            log.reset();
+        } catch (IOException e) {
+            System.out.println("Error: log could not be compacted");
+            return false;
+        }
+        return true;
+    }
+
+    public boolean closeLog() {
+        if (log == null) {
+            return true;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.out.println("Error: log could not be closed");
+            return false;
+        } finally {
+            log = null;
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /*
+    Private helper method which adds a new row with the given (already uppercased) title and
+    author, and the given packed rating and read status, to every column and index. The columns
+    are doubled in size first if they are full. If a write-ahead log is open, then the new book is
+    recorded in it first, and if that fails, then no row is added, and false is returned.
+
+    @pre title != null && author != null && findRow(title, author) == NONE
+    @return true if the row was added, and false if it could not be recorded in the log
+     */
+    private boolean addRow(String title, String author, int state) {
+        if (log != null && !logChange(MutationLog.ADD, BookSnapshot.ofUppercase(title, author,
+                unpackRating(state), unpackRead(state)))) {
+            return false;
+        }
+        if (count == titleIds.length) {
+            growRows();
+        }
+        int row = count;
+        int titleId = titles.intern(title);
+        int authorId = authors.intern(author);
+        growIds();
+        titleIds[row] = titleId;
+        authorIds[row] = authorId;
+        packed[row] = (byte) state;
+        count++;
+
+        // Links the row onto the end of the lists for its title, author, and rating
+        nextByTitle[row] = NONE;
+        if (firstByTitle[titleId] == NONE) {
+            firstByTitle[titleId] = row;
+        } else {
+            nextByTitle[lastByTitle[titleId]] = row;
+        }
+        lastByTitle[titleId] = row;
+        nextByAuthor[row] = NONE;
+        if (firstByAuthor[authorId] == NONE) {
+            firstByAuthor[authorId] = row;
+        } else {
+            nextByAuthor[lastByAuthor[authorId]] = row;
+        }
+        lastByAuthor[authorId] = row;
+        linkRating(row, ratingSlot(state & RATING_MASK));
+
+        // Adds the row to the pool of unread rows (or counts it as read), and to the hash table
+        if ((state & READ_FLAG) == 0) {
+            unreadPositions[row] = unreadCount;
+            unreadPool[unreadCount++] = row;
+        } else {
+            unreadPositions[row] = NONE;
+            readCount++;
+        }
+        if (count * 2 > bookTable.length) {
+            rehashBooks();
+        } else {
+            bookTable[bookSlot(titleId, authorId)] = row + 1;
+        }
+        textIndex.add(row, title, author);
+        compactIfNeeded();
+        return true;
+    }
+
+    /*
+    Private helper method which changes the packed rating and read status of the given row,
+    moving it between the lists of ratings and in or out of the pool of unread rows as needed. As
+    with addRow(), if the change cannot be recorded in the write-ahead log, then the row is left
+    as it was, and false is returned.
+
+    @pre 0 <= row && row < count
+    @return true if the row was changed, and false if the change could not be recorded in the log
+     */
+    private boolean updateRow(int row, int state) {
+        if (log != null && !logChange(MutationLog.UPDATE, BookSnapshot.ofUppercase(titles.get(titleIds[row]),
+                authors.get(authorIds[row]), unpackRating(state), unpackRead(state)))) {
+            return false;
+        }
+        int oldState = packed[row];
+        packed[row] = (byte) state;
+
+        // Moves the row to the end of the list for its new rating, if the rating changed
+        if ((oldState & RATING_MASK) != (state & RATING_MASK)) {
+            unlinkRating(row, ratingSlot(oldState & RATING_MASK));
+            linkRating(row, ratingSlot(state & RATING_MASK));
+        }
+
+        // Removes the row from the pool of unread rows if it has now been read, by moving the
+        // last row of the pool into its place
+        if ((oldState & READ_FLAG) == 0 && (state & READ_FLAG) != 0) {
+            int position = unreadPositions[row];
+            int last = unreadPool[--unreadCount];
+            unreadPool[position] = last;
+            unreadPositions[last] = position;
+            unreadPositions[row] = NONE;
+            readCount++;
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /*
+    Private helper methods which make every change of a batch, where applyRows() gives each of
+    the given rows its new packed state, and applyAdds() adds each of the given books as a new
+    row. In the same way as the applyBatch() method of the LibraryCollection class, the whole
+    batch is recorded in the log (if one is open) at once, with a single flush to the disk, and
+    the log is then set aside while the changes are made, so that they are not recorded twice.
+    If the batch cannot be recorded in the log, then none of the changes are made, and false is
+    returned.
+
+    @pre changes != null && newBooks != null && no book in newBooks is in the collection
+    @return true if the batch was made, and false if it could not be recorded in the log
+     */
+    private boolean applyRows(LinkedHashMap<Integer, Integer> changes) {
+        ArrayList<BookSnapshot> newBooks = new ArrayList<BookSnapshot>(changes.size());
+        for (Map.Entry<Integer, Integer> change : changes.entrySet()) {
+            int row = change.getKey();
+            newBooks.add(BookSnapshot.ofUppercase(titles.get(titleIds[row]), authors.get(authorIds[row]),
+                    unpackRating(change.getValue()), unpackRead(change.getValue())));
+        }
+        if (!logBatch(MutationLog.UPDATE, newBooks)) {
+            return false;
+        }
+        MutationLog batchLog = log;
+        log = null;
+        try {
+            for (Map.Entry<Integer, Integer> change : changes.entrySet()) {
+                updateRow(change.getKey(), change.getValue());
+            }
+        } finally {
+            log = batchLog;
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    private boolean applyAdds(Collection<BookSnapshot> newBooks) {
+        if (!logBatch(MutationLog.ADD, new ArrayList<BookSnapshot>(newBooks))) {
+            return false;
+        }
+        MutationLog batchLog = log;
+        log = null;
+        try {
+            for (BookSnapshot newBook : newBooks) {
+                addRow(newBook.getTitle(), newBook.getAuthor(), pack(newBook));
+            }
+        } finally {
+            log = batchLog;
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /*
+    Private helper method which records the given batch in the log, if one is open and the batch
+    is not empty. If the batch cannot be written to the log, then an error message is printed,
+    and false is returned, in which case none of the batch may be made in memory.
+
+    @pre (type == MutationLog.ADD || type == MutationLog.UPDATE) && newBooks != null
+    @return true if the batch was recorded (or there was nothing to record), and false otherwise
+     */
+    private boolean logBatch(byte type, List<BookSnapshot> newBooks) {
+        if (log == null || newBooks.isEmpty()) {
+            return true;
+        }
+        try {
+            log.appendAll(type, newBooks);
+        } catch (IOException e) {
+            System.out.println("Error: changes could not be written to the log, so they were not made");
+            return false;
+        }
+        return true;
+    }
+
+    /*
+    Private helper method which returns the row of the book with the given key (see
+    Book.makeKey()), NONE if there is no such book, or INVALID_KEY if the given String is not a
+    key at all.
+
+    @return an int representing the row of the book, NONE, or INVALID_KEY
+     */
+    private int keyRow(String key) {
+        int split = key == null ? -1 : key.indexOf('\n');
+        if (split < 0) {
+            return INVALID_KEY;
+        }
+        return findRow(key.substring(0, split).toUpperCase(), key.substring(split + 1).toUpperCase());
+    }
+
+    /*
+    Private helper method which adds a book that was read in from a file (or a snapshot), unless
+    it is already in the collection, recording the outcome in the given ImportReport. As with
+    the LibraryCollection class, if the book cannot be recorded in the write-ahead log, then it
+    is not added, and an UncheckedIOException is thrown in order to stop the import.
+
+    @pre curBook != null && report != null
+     */
+    private void addParsed(BookSnapshot curBook, ImportReport report) {
+        if (findRow(curBook.getTitle(), curBook.getAuthor()) != NONE) {
+            report.recordDuplicate();
+        } else if (addRow(curBook.getTitle(), curBook.getAuthor(), pack(curBook))) {
+            report.recordAdded();
+        } else {
+            throw new UncheckedIOException(new IOException("book could not be written to the log"));
+        }
+    }
+
+    /*
+    Private helper method which returns the row of the book with the given (already uppercased)
+    title and author, or NONE if there is no such book. This takes constant time on average.
+
+    @pre title != null && author != null
+    @return an int representing the row of the book, or NONE
+     */
+    private int findRow(String title, String author) {
+        int titleId = titles.find(title);
+        int authorId = authors.find(author);
+        if (titleId == NONE || authorId == NONE) {
+            return NONE;
+        }
+        return bookTable[bookSlot(titleId, authorId)] - 1;
+    }
+
+    /*
+    Private helper method which finds the slot of the hash table holding the row with the given
+    title and author ids, or the empty slot where it would be placed, using linear probing.
+
+    @return an int representing the slot for the given ids
+     */
+    private int bookSlot(int titleId, int authorId) {
+        int mask = bookTable.length - 1;
+        int hash = (titleId * 0x9E3779B9) ^ (authorId * 0x85EBCA6B);
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (bookTable[slot] != 0) {
+            int row = bookTable[slot] - 1;
+            if (titleIds[row] == titleId && authorIds[row] == authorId) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /*
+    Private helper method which doubles the size of the hash table of books, placing every
+    row into its new slot.
+     */
+    private void rehashBooks() {
+        bookTable = new int[bookTable.length * 2];
+        for (int row = 0; row < count; row++) {
+            bookTable[bookSlot(titleIds[row], authorIds[row])] = row + 1;
+        }
+    }
+
+    /*
+    Private helper method which doubles the size of every column that is indexed by row.
+     */
+    private void growRows() {
+        int size = titleIds.length * 2;
+        titleIds = Arrays.copyOf(titleIds, size);
+        authorIds = Arrays.copyOf(authorIds, size);
+        packed = Arrays.copyOf(packed, size);
+        nextByTitle = Arrays.copyOf(nextByTitle, size);
+        nextByAuthor = Arrays.copyOf(nextByAuthor, size);
+        ratingNext = Arrays.copyOf(ratingNext, size);
+        ratingPrev = Arrays.copyOf(ratingPrev, size);
+        unreadPositions = Arrays.copyOf(unreadPositions, size);
+        unreadPool = Arrays.copyOf(unreadPool, size);
+    }
+
+    /*
+    Private helper method which makes sure that the lists indexed by the ids of titles and
+    authors have room for every id in the dictionaries, with new entries marking empty lists.
+     */
+    private void growIds() {
+        if (titles.size() > firstByTitle.length) {
+            int oldSize = firstByTitle.length;
+            firstByTitle = Arrays.copyOf(firstByTitle, oldSize * 2);
+            lastByTitle = Arrays.copyOf(lastByTitle, oldSize * 2);
+            Arrays.fill(firstByTitle, oldSize, oldSize * 2, NONE);
+        }
+        if (authors.size() > firstByAuthor.length) {
+            int oldSize = firstByAuthor.length;
+            firstByAuthor = Arrays.copyOf(firstByAuthor, oldSize * 2);
+            lastByAuthor = Arrays.copyOf(lastByAuthor, oldSize * 2);
+            Arrays.fill(firstByAuthor, oldSize, oldSize * 2, NONE);
+        }
+    }
+
+    // Private helper methods for linking a row onto the end of the list for a rating slot, and
+    // for unlinking it from the list that it is currently in
+    private void linkRating(int row, int slot) {
+        ratingNext[row] = NONE;
+        ratingPrev[row] = ratingLast[slot];
+        if (ratingLast[slot] == NONE) {
+            ratingFirst[slot] = row;
+        } else {
+            ratingNext[ratingLast[slot]] = row;
+        }
+        ratingLast[slot] = row;
+        ratingCounts[slot]++;
+    }
+
+    private void unlinkRating(int row, int slot) {
+        if (ratingPrev[row] == NONE) {
+            ratingFirst[slot] = ratingNext[row];
+        } else {
+            ratingNext[ratingPrev[row]] = ratingNext[row];
+        }
+        if (ratingNext[row] == NONE) {
+            ratingLast[slot] = ratingPrev[row];
+        } else {
+            ratingPrev[ratingNext[row]] = ratingPrev[row];
+        }
+        ratingCounts[slot]--;
+    }
+
+    /*
+    Private helper method which returns every book with the given read flag, sorted by title,
+    by walking the titles in sorted order and skipping the rows with the other read status.
+
+    @pre flag == 0 || flag == READ_FLAG
+    @return ArrayList<ReadOnlyBook> of the books with the given read status, sorted by title
+     */
+    private ArrayList<ReadOnlyBook> booksWithReadFlag(int flag, int expected) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>(expected);
+        if (expected == 0) {
+            return books;
+        }
+        for (int position = 0; position < titles.size(); position++) {
+            addChain(books, firstByTitle[titles.sortedIdAt(position)], nextByTitle, flag);
+        }
+        return books;
+    }
+
+    /*
+    Private helper method which walks a linked list of rows starting from the given row, adding
+    a BookSnapshot for each row to the given list (only including rows with the given read flag,
+    unless the flag is NONE).
+
+    @pre books != null && next != null
+     */
+    private void addChain(ArrayList<ReadOnlyBook> books, int row, int[] next, int flag) {
+        for (; row != NONE; row = next[row]) {
+            if (flag == NONE || (packed[row] & READ_FLAG) == flag) {
+                books.add(bookAt(row));
+            }
+        }
+    }
+
+    /*
+    Private helper method which returns an iterator over the rows whose title (or author) starts
+    with the given prefix, in sorted order, given the dictionary of titles (or authors) along with
+    the matching linked lists. The first key that could start with the prefix is found by binary
+    search, and the keys after it are only walked as the rows are read, so that a query with a
+    limit takes O(log u + k) time for the k rows that it reads.
+
+    @pre keys, first, and next all belong to either the titles or the authors && prefix != null
+    @return PrimitiveIterator.OfInt over the rows with the given prefix, in sorted order
+     */
+    private PrimitiveIterator.OfInt prefixRows(StringDictionary keys, int[] first, int[] next, String prefix) {
+        return new PrimitiveIterator.OfInt() {
+            private int position = keys.lowerBound(prefix);
+            private int row = NONE;
+
+            public boolean hasNext() {
+                // Moves on to the list of the next key once the current one runs out, stopping
+                // at the first key that does not start with the prefix
+                while (row == NONE && position < keys.size()) {
+                    int id = keys.sortedIdAt(position);
+                    if (!keys.get(id).startsWith(prefix)) {
+                        position = keys.size();
+                    } else {
+                        row = first[id];
+                        position++;
+                    }
+                }
+                return row != NONE;
+            }
+
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int cur = row;
+                row = next[row];
+                return cur;
+            }
+        };
+    }
+
+    /*
+    Private helper method which returns an iterator over the rows of the linked list starting at
+    the given row, where the row after each row is found in the given array.
+
+    @pre first == NONE || (0 <= first && first < count)
+    @return PrimitiveIterator.OfInt over the rows of the linked list, in order
+     */
+    private PrimitiveIterator.OfInt chain(int first, int[] next) {
+        return IntStream.iterate(first, row -> row != NONE, row -> next[row]).iterator();
+    }
+
+    /*
+    Private helper method which determines whether the given packed rating and read status
+    could match the given query, without creating a BookSnapshot.
+
+    @pre query != null
+    @return true if the rating and read status match the query, false otherwise
+     */
+    private static boolean stateMatches(int state, BookQuery query) {
+        int rating = unpackRating(state);
+        if (query.getMinRating() != -1 && rating < query.getMinRating()) {
+            return false;
+        } else if (query.getMaxRating() != -1 && (rating == -1 || rating > query.getMaxRating())) {
+            return false;
+        }
+        return query.getReadStatus() == null || query.getReadStatus().equals(unpackRead(state));
+    }
+
+    /*
+    Private helper method which creates a list of BookSnapshots describing the given rows, in
+    the same order as the rows.
+
+    @pre every row is >= 0 and < count
+    @return ArrayList<ReadOnlyBook> of new BookSnapshots for the rows
+     */
+    private ArrayList<ReadOnlyBook> booksAt(int[] rows) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>(rows.length);
+        for (int row : rows) {
+            books.add(bookAt(row));
+        }
+        return books;
+    }
+
+    /*
+    Private helper method which creates a BookSnapshot describing the given row. The title and
+    author are taken from the dictionaries as they are, since they are already in uppercase, so
+    the only object allocated is the BookSnapshot itself.
+
+    @pre 0 <= row && row < count
+    @return a new BookSnapshot for the row
+     */
+    private BookSnapshot bookAt(int row) {
+        int state = packed[row];
+        return BookSnapshot.ofUppercase(titles.get(titleIds[row]), authors.get(authorIds[row]),
+                unpackRating(state), unpackRead(state));
+    }
+
+    // Private helper methods for recording a change in the write-ahead log (returning false,
+    // in which case the change must not be made, if it cannot be written), and for compacting
+    // the log once it has grown too large (see the LibraryCollection class)
+    private boolean logChange(byte type, BookSnapshot book) {
+        try {
+            log.append(type, book);
+        } catch (IOException e) {
+            System.out.println("Error: change could not be written to the log, so it was not made");
+            return false;
+        }
+        return true;
+    }
+
+    private void compactIfNeeded() {
+        if (log != null && log.size() >= COMPACT_BYTES) {
+            compact();
+        }
+    }
+
+    // Private static helper methods for packing and unpacking the rating and read status of a
+    // row, and for finding the rating slot of a rating (where slot 0 is used for unrated rows)
+    private static int pack(ReadOnlyBook book) {
+        int state = Math.max(book.getRating(), 0);
+        if (book.getReadStatus() == Read.READ) {
+            state |= READ_FLAG;
+        }
+        return state;
+    }
+
+    private static int unpackRating(int state) {
+        int rating = state & RATING_MASK;
+        return rating == 0 ? -1 : rating;
+    }
+
+    private static Read unpackRead(int state) {
+        return (state & READ_FLAG) != 0 ? Read.READ : Read.UNREAD;
+    }
+
+    private static int ratingSlot(int rating) {
+        if (rating < 1) {
+            return 0;
+        }
+        return rating;
+    }
+}
@@ -0,0 +1,518 @@
+/*
+File: ConcurrentLibraryCollection.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a thread-safe version of the Model element of the library
+collection, which allows for a single library collection to be shared between many users
+(each on their own thread) at once. Rather than guarding a single collection with a lock, it
+keeps two copies of the collection (each an ordinary LibraryCollection, or any of the other
+storage engines), known as the primary and the copy, so that reading never has to wait for a
+change. At any moment, readers use one of the two copies, and nothing else touches it. A change
+(such as adding, reading, or rating a book) is first made to the copy that no reader is using,
+then readers are pointed at that copy, and once every reader that was still using the other
+copy has finished, the same change is made to it as well, so that the two copies stay the same.
+
+A reader only has to note that it has started (in one of two counters) before it reads, and
+that it has finished afterwards, so reads never take a lock, never wait for a change to finish,
+and never wait behind a change that is waiting to start, however long another read takes (such
+as listing a very large collection). Each read sees a single version of the collection: either
+all of a change (or a batch of changes) or none of it. Changes themselves are made one at a
+time, with each change taking effect at a single point in time (when readers are pointed at the
+copy that has it), so every read that starts afterwards sees it. The cost is that the books are
+stored twice, that each change is made twice, and that a change may have to wait for the reads
+that are still using the copy it needs to change next.
+
+Only the primary records changes in the write-ahead log (see openLog()), and each change is
+always made to the primary first, so a change that cannot be recorded in the log is never made
+to either copy. To keep changes short, the slow parts of importing a file or loading a snapshot
+(reading and parsing the file) happen before any change is made, and the books are then added
+a chunk of IMPORT_CHUNK books at a time, so that other changes can go ahead in between chunks.
+As a result, other threads may see some of the books of an import before the rest of them.
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/*
+When it comes to maintaining encapsulation, note that the two wrapped collections, the lock
+held while making changes, and the counters of readers are all private, and are never returned
+from any method, so the only way to reach the underlying collections is through the methods
+below. The Book objects returned by these methods are immutable BookSnapshots (see
+LibraryCollection.java), which means that they can be safely shared between threads, and the
+ArrayLists that are returned are always new lists that belong to the calling thread.
+ */
+
+public class ConcurrentLibraryCollection implements LibraryModel {
+    // Declares the number of books that an import adds in each change
+    private static final int IMPORT_CHUNK = 4096;
+
+    // Declares the private instance variables, which are the storage engine of both copies,
+    // the primary (which records changes in the log), the copy, and whether a log is open. The
+    // lock is only ever taken by threads making a change, so that changes are made one at a time
+    private StorageEngine engine;
+    private LibraryModel primary;
+    private LibraryModel copy;
+    private boolean logOpen;
+    private ReentrantLock writeLock;
+
+    // Declares the private instance variables used by readers, which are whether readers
+    // should use the primary (rather than the copy), and the two counters of readers that have
+    // started but not yet finished, along with which of the two counters new readers add to
+    private volatile boolean readPrimary;
+    private AtomicInteger[] readers;
+    private volatile int readerCounter;
+
+    /*
+    Public constructor for the ConcurrentLibraryCollection class, which takes no inputs and
+    produces an empty, thread-safe library collection, storing each book as an ordinary Book.
+    Since there are no inputs and no assumptions, there are no preconditions.
+     */
+    public ConcurrentLibraryCollection() {
+        this(StorageEngine.OBJECTS);
+    }
+
+    /*
+    Public constructor for the ConcurrentLibraryCollection class, which produces an empty,
+    thread-safe library collection using the given storage engine (see StorageEngine.java) for
+    both of its copies. The lock for changes is created in fair mode, so that every thread making
+    a change gets its turn in order.
+
+    @pre engine != null
+     */
+    public ConcurrentLibraryCollection(StorageEngine engine) {
+        this.engine = engine;
+        this.primary = newCollection(engine);
+        this.copy = newCollection(engine);
+        this.logOpen = false;
+        this.writeLock = new ReentrantLock(true);
+        this.readPrimary = true;
+        this.readers = new AtomicInteger[] {new AtomicInteger(), new AtomicInteger()};
+        this.readerCounter = 0;
+    }
+
+    public ArrayList<ReadOnlyBook> getSortedCollection(TypeSort howSort) {
+        return read(collection -> collection.getSortedCollection(howSort));
+    }
+
+    public ArrayList<ReadOnlyBook> getSortedCollection(TypeSort howSort, int offset, int limit) {
+        return read(collection -> collection.getSortedCollection(howSort, offset, limit));
+    }
+
+    // Note that the iterator and stream of sorted books read the collection through this method,
+    // a single page at a time, so changes may be made in between pages
+    public BookPage getPage(TypeSort howSort, String afterToken, int limit) {
+        return read(collection -> collection.getPage(howSort, afterToken, limit));
+    }
+
+    public ArrayList<ReadOnlyBook> getBooksWithAuthor(String author) {
+        return read(collection -> collection.getBooksWithAuthor(author));
+    }
+
+    public ArrayList<ReadOnlyBook> getBooksWithTitle(String title) {
+        return read(collection -> collection.getBooksWithTitle(title));
+    }
+
+    public ArrayList<ReadOnlyBook> getBooksWithAuthorPrefix(String prefix) {
+        return read(collection -> collection.getBooksWithAuthorPrefix(prefix));
+    }
+
+    public ArrayList<ReadOnlyBook> getBooksWithTitlePrefix(String prefix) {
+        return read(collection -> collection.getBooksWithTitlePrefix(prefix));
+    }
+
+    public ArrayList<ReadOnlyBook> search(String query, boolean matchAll) {
+        return read(collection -> collection.search(query, matchAll));
+    }
+
+    public ArrayList<ReadOnlyBook> fuzzySearch(String query, boolean matchAll) {
+        return read(collection -> collection.fuzzySearch(query, matchAll));
+    }
+
+    public ArrayList<ReadOnlyBook> query(BookQuery query) {
+        return read(collection -> collection.query(query));
+    }
+
+    public ArrayList<ReadOnlyBook> getBooksWithRating(int rating) {
+        return read(collection -> collection.getBooksWithRating(rating));
+    }
+
+    /*
+    Public method which adds a new book with the given title and author to the collection.
+    Note that, unlike the LibraryCollection class, this method checks whether the book is
+    already in the collection as part of the same change that adds it, and does nothing if it
+    is. This is necessary since two threads may both check that a book is not in the collection,
+    then both try to add it, and only one of them should succeed.
+
+    @pre title != null && author != null
+    @return true if the book was added, and false if it was already in the collection or could
+        not be recorded in the write-ahead log
+     */
+    public boolean addBook(String title, String author) {
+        return change(collection -> !collection.alreadyInCollection(title, author)
+                && collection.addBook(title, author), added -> added);
+    }
+
+    public boolean alreadyInCollection(String title, String author) {
+        return read(collection -> collection.alreadyInCollection(title, author));
+    }
+
+    // Note that these are only made to the copy if they were recorded in the log of the primary
+    public boolean setToRead(String title, String author) {
+        return change(collection -> collection.setToRead(title, author), logged -> logged);
+    }
+
+    public boolean updateBookRating(String title, String author, int rating) {
+        return change(collection -> collection.updateBookRating(title, author, rating),
+                logged -> logged);
+    }
+
+    /*
+    Public methods which make a batch of changes as a single change, so that other threads see
+    either none of the batch or all of it. The batch is only made to the copy if at least one of
+    its changes was applied to the primary.
+     */
+    public ArrayList<BatchResult> setToRead(Collection<String> keys) {
+        return change(collection -> collection.setToRead(keys),
+                ConcurrentLibraryCollection::anyApplied);
+    }
+
+    public ArrayList<BatchResult> updateRatings(Map<String, Integer> ratings) {
+        return change(collection -> collection.updateRatings(ratings),
+                ConcurrentLibraryCollection::anyApplied);
+    }
+
+    public ArrayList<BatchResult> addBooks(Collection<? extends ReadOnlyBook> books) {
+        return change(collection -> collection.addBooks(books),
+                ConcurrentLibraryCollection::anyApplied);
+    }
+
+    public ArrayList<ReadOnlyBook> allReadBooks() {
+        return read(collection -> collection.allReadBooks());
+    }
+
+    public ArrayList<ReadOnlyBook> allUnreadBooks() {
+        return read(collection -> collection.allUnreadBooks());
+    }
+
+    public int countBooksWithRating(int rating) {
+        return read(collection -> collection.countBooksWithRating(rating));
+    }
+
+    public int countReadBooks() {
+        return read(collection -> collection.countReadBooks());
+    }
+
+    public int countUnreadBooks() {
+        return read(collection -> collection.countUnreadBooks());
+    }
+
+    public ReadOnlyBook getRandomBook() {
+        return read(collection -> collection.getRandomBook());
+    }
+
+    /*
+    Public method which returns up to k distinct random unread books from the collection.
+    Note that this is not a read, since the underlying collection rearranges its pool of unread
+    books in order to choose them. Instead, the books are chosen from whichever of the two copies
+    no reader is using, while holding the lock for changes. The two copies may then have their
+    pools in different orders, which makes no difference to anything but the random choices.
+
+    @pre k >= 0
+    @return ArrayList<ReadOnlyBook> of up to k distinct random unread books
+     */
+    public ArrayList<ReadOnlyBook> suggest(int k) {
+        writeLock.lock();
+        try {
+            return (readPrimary ? copy : primary).suggest(k);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+    Public method which adds all of the books from the given file into the collection. The file
+    is read and parsed before any change is made, and the books are then added a chunk at a time
+    (see addChunks()), so other threads may keep making changes while the file is being imported.
+
+    @pre filename != null && (file structure is as described in the spec)
+    @return ImportReport describing the result of the import, or null if the file could not be read
+     */
+    public ImportReport addBooksFromFile(String filename) {
+        return addBooksFromFile(filename, ImportProgress.NONE);
+    }
+
+    // Note that a cancelled import still keeps the books read before it was cancelled, since
+    // the last chunk is added once the parser stops
+    public ImportReport addBooksFromFile(String filename, ImportProgress progress) {
+        ImportReport report = new ImportReport();
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            addChunks(sink -> CatalogParser.parse(channel, sink, report, progress), report);
+        } catch (IOException e) {
+            System.out.println("Error: given file not found");
+            return null;
+        } catch (UncheckedIOException e) {
+            // A chunk could not be recorded in the write-ahead log, so the import stops there
+            return null;
+        }
+        return report;
+    }
+
+    /*
+    Public method which adds all of the books from the given files into the collection, reading
+    the files in parallel. As with addBooksFromFile(), the files are read before any change is
+    made, and the books are added a chunk at a time as they are read.
+
+    @pre filenames != null && (each file's structure is as described in the spec)
+    @return ImportReport describing the result of the import, or null if a file could not be read
+     */
+    public ImportReport addBooksFromFiles(List<String> filenames) {
+        ImportReport report = new ImportReport();
+        try {
+            addChunks(sink -> new ParallelImporter(Runtime.getRuntime().availableProcessors())
+                    .parse(filenames, report, sink), report);
+        } catch (IOException e) {
+            System.out.println("Error: given file not found");
+            return null;
+        } catch (UncheckedIOException e) {
+            return null;
+        }
+        return report;
+    }
+
+    /*
+    Public method which saves the collection to a snapshot file. Since saving does not change the
+    collection, this is a read, so other threads may keep reading and changing the collection
+    while the snapshot is written, and the snapshot reflects a single point in time.
+
+    @pre filename != null
+    @return true if the snapshot was saved, and false otherwise
+     */
+    public boolean saveSnapshot(String filename) {
+        return read(collection -> collection.saveSnapshot(filename));
+    }
+
+    /*
+    Public method which adds the books from a snapshot file into the collection. As with
+    addBooksFromFile(), the snapshot is read before any change is made, and the books are added
+    a chunk at a time.
+
+    @pre filename != null
+    @return ImportReport describing the result of the load, or null if the file could not be read
+     */
+    public ImportReport loadSnapshot(String filename) {
+        ImportReport report = new ImportReport();
+        try {
+            addChunks(sink -> LibrarySnapshot.read(filename, sink), report);
+        } catch (IOException e) {
+            System.out.println("Error: given snapshot could not be read");
+            return null;
+        } catch (UncheckedIOException e) {
+            return null;
+        }
+        return report;
+    }
+
+    /*
+    Public method which loads the collection from the given snapshot and log files, then starts
+    recording every change in the log. The primary loads the files and opens the log first, and
+    the copy then loads the same files in the same way (so that its books end up in exactly the
+    same order), but closes the log again straight away, since only the primary records changes.
+    Note that every change is made to the primary while holding the lock for changes, so the
+    records in the log are always in the same order as the changes themselves.
+
+    @pre snapshotFilename != null && logFilename != null && durability != null
+    @return true if the log was opened, and false otherwise
+     */
+    public boolean openLog(String snapshotFilename, String logFilename, Durability durability) {
+        writeLock.lock();
+        try {
+            if (logOpen) {
+                return primary.openLog(snapshotFilename, logFilename, durability);
+            }
+            pointReaders(false);
+            logOpen = primary.openLog(snapshotFilename, logFilename, durability);
+            pointReaders(true);
+            copy.openLog(snapshotFilename, logFilename, Durability.NONE);
+            copy.closeLog();
+            return logOpen;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+    Public methods which compact and close the log. These only involve the primary, so readers
+    are pointed at the copy while the primary compacts or closes its log.
+     */
+    public boolean compact() {
+        return change(collection -> collection.compact(), done -> false);
+    }
+
+    public boolean closeLog() {
+        writeLock.lock();
+        try {
+            boolean closed = change(collection -> collection.closeLog(), done -> false);
+            logOpen = logOpen && !closed;
+            return closed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return read(collection -> collection.isEmpty());
+    }
+
+    /*
+    Private helper method which reads from whichever copy readers should currently use, without
+    taking any lock. The reader first adds itself to the current counter of readers, and removes
+    itself once it has finished, which is how a thread making a change knows when every reader of
+    a copy has finished with it (see pointReaders()).
+
+    @pre reading != null && reading does not change the collection
+    @return the result of reading the collection
+     */
+    private <T> T read(Function<LibraryModel, T> reading) {
+        AtomicInteger counter = readers[readerCounter];
+        counter.incrementAndGet();
+        try {
+            return reading.apply(readPrimary ? primary : copy);
+        } finally {
+            counter.decrementAndGet();
+        }
+    }
+
+    /*
+    Private helper method which makes the given change to both copies, one at a time, while
+    holding the lock for changes. Readers are first pointed at the copy (if they were not using
+    it already), so that the change can be made to the primary, which records it in the log. If
+    the given test finds that the change was made, then readers are pointed at the primary, and
+    the same change is made to the copy. Otherwise, the copy is left as it is.
+
+    @pre change != null && made != null
+    @return the result of making the change to the primary
+     */
+    private <T> T change(Function<LibraryModel, T> change, Predicate<T> made) {
+        writeLock.lock();
+        try {
+            pointReaders(false);
+            T result = change.apply(primary);
+            if (made.test(result)) {
+                pointReaders(true);
+                change.apply(copy);
+            }
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+    Private helper method which points new readers at the primary (or at the copy), and then
+    waits until every reader that may still be using the other copy has finished. Readers that
+    started before this may have read the old choice of copy, so they are waited for by switching
+    new readers over to the other counter first, and then waiting for the old counter to empty.
+    Since a reader only adds itself to a counter before choosing a copy, waiting for the unused
+    counter to empty first makes sure that no reader is left behind on the old choice.
+
+    @pre the lock for changes is held by the current thread
+     */
+    private void pointReaders(boolean toPrimary) {
+        if (readPrimary == toPrimary) {
+            return;
+        }
+        readPrimary = toPrimary;
+        int current = readerCounter;
+        awaitReaders(readers[1 - current]);
+        readerCounter = 1 - current;
+        awaitReaders(readers[current]);
+    }
+
+    // Private helper method which waits until the given counter of readers is empty, giving up
+    // the processor in the meantime so that the readers can finish
+    private static void awaitReaders(AtomicInteger counter) {
+        while (counter.get() != 0) {
+            Thread.yield();
+        }
+    }
+
+    // Private helper method which returns whether any change within a batch was applied
+    private static boolean anyApplied(ArrayList<BatchResult> results) {
+        return results.contains(BatchResult.APPLIED);
+    }
+
+    /*
+    Private helper method which returns a new, empty collection using the given engine.
+
+    @pre engine != null
+    @return a new LibraryModel using the given engine
+     */
+    private static LibraryModel newCollection(StorageEngine engine) {
+        if (engine == StorageEngine.COLUMNAR) {
+            return new ColumnarLibraryCollection();
+        } else if (engine == StorageEngine.OFF_HEAP) {
+            return new OffHeapLibraryCollection();
+        }
+        return new LibraryCollection();
+    }
+
+    /*
+    Private functional interface representing a source of books being imported (such as a file
+    being parsed), which hands each book to the given Consumer in order.
+     */
+    private interface BookSource {
+        void readInto(Consumer<BookSnapshot> sink) throws IOException;
+    }
+
+    /*
+    Private helper method which reads every book from the given source before making any change,
+    gathering them into chunks of IMPORT_CHUNK books, and adds each chunk with addBooks() (which
+    adds the whole chunk as a single change). The result for each book is recorded in the given
+    report. If a chunk cannot
+    be recorded in the write-ahead log, then an UncheckedIOException is thrown, which stops the
+    source from reading any further.
+
+    @pre source != null && report != null
+     */
+    private void addChunks(BookSource source, ImportReport report) throws IOException {
+        ArrayList<BookSnapshot> chunk = new ArrayList<BookSnapshot>(IMPORT_CHUNK);
+        source.readInto(curBook -> {
+            chunk.add(curBook);
+            if (chunk.size() == IMPORT_CHUNK) {
+                addChunk(chunk, report);
+            }
+        });
+        addChunk(chunk, report);
+    }
+
+    // Adds a single chunk of books and records the result of each one, then empties the chunk
+    private void addChunk(ArrayList<BookSnapshot> chunk, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        for (BatchResult result : addBooks(chunk)) {
+            if (result == BatchResult.FAILED) {
+                throw new UncheckedIOException(new IOException("change could not be written to the log"));
+            } else if (result == BatchResult.APPLIED) {
+                report.recordAdded();
+            } else if (result == BatchResult.DUPLICATE) {
+                report.recordDuplicate();
+            } else {
+                report.recordMalformed();
+            }
+        }
+        chunk.clear();
+    }
+}
@@ -0,0 +1,15 @@
+/*
+File: Durability.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class is designed to simply define the Durability enumerated type, which
+describes how carefully the MutationLog class makes sure that each change to the library
+collection has reached the disk. It can take on one of three values: NONE, where changes are
+only written out once enough of them have built up (or the log is closed), BATCHED, where
+changes are written out and flushed to disk by a background thread every few milliseconds,
+and SYNC, where each change is flushed to disk before the method that made it returns.
+ */
+
+public enum Durability {
+    NONE, BATCHED, SYNC
+}
@@ -0,0 +1,201 @@
+/*
+File: GcPauseBenchmark.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: Implements a benchmark of how much time the garbage collector spends on a large
+library collection for each of the storage engines (see StorageEngine.java), which shows how
+much the columnar and off-heap engines reduce garbage collection pauses compared to storing a
+Book object for every book. For each engine, a collection is filled with generated books (1M
+by default, or the number given as the first command line argument), and then a workload of
+lookups and searches is run against it for a few seconds, followed by a second workload which
+adds a new book before each read of the first page of the books sorted by title and by author.
+The number of collections and the time spent in them (as reported by the GarbageCollectorMXBeans
+of the JVM) is printed both for building the collection, where each collection has to copy the
+books that have been added so far, and for each workload, along with the throughput of each
+workload and the time taken by a full collection, which has to trace every object that is still
+alive. The heap and direct (off-heap) memory used by each collection is printed as well. Note
+that the engines should be compared within a single run, with something like
+"java -Xmx4g GcPauseBenchmark".
+ */
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/*
+When it comes to maintaining encapsulation, note that this class is only ever run through
+its main() method, and that all of its helper methods and its sole static variable are
+declared as private, so no other class is able to reach the collections that are built here.
+The collections are only ever accessed through the methods of the LibraryModel interface.
+ */
+
+public class GcPauseBenchmark {
+    // Declares the default number of books, the amount of time to run each workload for, in
+    // nanoseconds, and the number of full collections to average over
+    private static final int DEFAULT_SIZE = 1_000_000;
+    private static final long WORKLOAD_NANOS = 5_000_000_000L;
+    private static final int FULL_COLLECTIONS = 5;
+
+    // Declares the sole static variable, which holds on to the result of each operation, so
+    // that the JIT compiler is not able to remove an operation whose result goes unused
+    private static Object sink;
+
+    public static void main(String[] args) {
+        int size = DEFAULT_SIZE;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+
+        // Prints the header of the results table
+        System.out.printf("%-10s %10s %10s %12s %12s %10s %12s %12s %10s %12s %12s %10s %10s%n",
+                "Engine", "Books", "build GCs", "build GC ms", "ops/s", "GCs", "GC ms/s",
+                "add ops/s", "add GCs", "add GC ms/s", "full GC ms", "heap MB", "direct MB");
+
+        // Runs the benchmark for each engine in turn, letting the previous collection be
+        // collected before the next one is built
+        for (StorageEngine engine : StorageEngine.values()) {
+            try {
+                run(engine, size);
+            } catch (OutOfMemoryError e) {
+                System.out.println("Error: not enough memory for " + size + " books");
+            }
+        }
+    }
+
+    /*
+    Private helper method which builds a collection with the given number of books using the
+    given engine, then measures the time spent by the garbage collector while a workload of
+    lookups runs against it, and while a workload of adds and sorted reads runs against it, as
+    well as the time taken by a full collection.
+
+    @pre engine != null && size > 0
+     */
+    private static void run(StorageEngine engine, int size) {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+        long buildCount = gcCount();
+        long buildTime = gcMillis();
+        LibraryModel collection = newCollection(engine);
+        for (int i = 0; i < size; i++) {
+            collection.addBook(title(i), author(i));
+        }
+        buildCount = gcCount() - buildCount;
+        buildTime = gcMillis() - buildTime;
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+
+        // Runs the first workload, counting the collections that happen while it runs
+        long countBefore = gcCount();
+        long timeBefore = gcMillis();
+        long start = System.nanoTime();
+        int i = 0;
+        while (System.nanoTime() - start < WORKLOAD_NANOS) {
+            int book = (int) ((i * 2654435761L) % size);
+            sink = collection.getBooksWithAuthor(author(book));
+            sink = collection.alreadyInCollection(title(book), author(book));
+            sink = collection.getBooksWithTitlePrefix(title(book));
+            i++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long count = gcCount() - countBefore;
+        long millis = gcMillis() - timeBefore;
+
+        // Runs the second workload, where each new book changes the sorted order that the
+        // following reads have to use
+        long addCountBefore = gcCount();
+        long addTimeBefore = gcMillis();
+        long addStart = System.nanoTime();
+        int added = 0;
+        while (System.nanoTime() - addStart < WORKLOAD_NANOS) {
+            sink = collection.addBook(title(size + added), author(size + added));
+            sink = collection.getPage(TypeSort.TITLE, null, 10);
+            sink = collection.getPage(TypeSort.AUTHOR, null, 10);
+            added++;
+        }
+        double addSeconds = (System.nanoTime() - addStart) / 1e9;
+        long addCount = gcCount() - addCountBefore;
+        long addMillis = gcMillis() - addTimeBefore;
+
+        // Times a few full collections, which have to trace everything that is still alive
+        long fullStart = System.nanoTime();
+        for (int j = 0; j < FULL_COLLECTIONS; j++) {
+            System.gc();
+        }
+        double fullMillis = (System.nanoTime() - fullStart) / 1e6 / FULL_COLLECTIONS;
+        sink = collection.isEmpty();
+
+        System.out.printf("%-10s %10d %10d %12d %12.1f %10d %12.1f %12.1f %10d %12.1f %12.1f"
+                + " %10.1f %10.1f%n", engine, size, buildCount, buildTime, i / seconds, count,
+                millis / seconds, added / addSeconds, addCount, addMillis / addSeconds, fullMillis,
+                heap / 1048576.0, direct / 1048576.0);
+    }
+
+    /*
+    Private helper method which returns a new, empty collection using the given engine.
+
+    @pre engine != null
+    @return a new LibraryModel using the given engine
+     */
+    private static LibraryModel newCollection(StorageEngine engine) {
+        if (engine == StorageEngine.COLUMNAR) {
+            return new ColumnarLibraryCollection();
+        } else if (engine == StorageEngine.OFF_HEAP) {
+            return new OffHeapLibraryCollection();
+        }
+        return new LibraryCollection();
+    }
+
+    /*
+    Private helper method which returns the number of bytes of heap in use after a full
+    collection, so that only objects which are still alive are counted.
+
+    @return a long representing the number of bytes of heap in use
+     */
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /*
+    Private helper method which returns the number of bytes of direct memory (outside of the
+    heap) in use by direct ByteBuffers.
+
+    @return a long representing the number of bytes of direct memory in use
+     */
+    private static long usedDirect() {
+        long used = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                used += pool.getMemoryUsed();
+            }
+        }
+        return used;
+    }
+
+    // Private helper methods which return the total number of collections, and the total time
+    // spent collecting in milliseconds, across every garbage collector of the JVM
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    // Private helper methods which produce the title and author of the i-th generated book
+    private static String title(int i) {
+        return "Title " + i;
+    }
+
+    private static String author(int i) {
+        return "Author " + i / 10;
+    }
+}
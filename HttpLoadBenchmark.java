@@ -0,0 +1,261 @@
+/*
+File: HttpLoadBenchmark.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: Implements a load test for the LibraryHttpServer class, which measures how many requests
+per second a local server is able to answer, along with the latency of each request, so that any
+changes which slow down the server can be caught. A server is started on a free port of the
+loopback address, serving a ConcurrentLibraryCollection filled with generated books (100K books
+by default), and then for each kind of request, a number of client threads (64 by default) each
+open a single connection to the server and send requests over it, one after another, for a fixed
+amount of time. Since the connection is kept open between requests (HTTP keep-alive), the test
+measures the server rather than the cost of setting up connections. For each kind of request,
+the benchmark reports the throughput (in requests per second), and the median and 99th
+percentile latency of a single request. The number of books, the number of client threads, and
+the number of server threads may be given as command line arguments, in that order (for
+example, "java HttpLoadBenchmark 1000000 128 16").
+ */
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+When it comes to maintaining encapsulation, note that this class is only ever run through
+its main() method, and that all of its helper methods are declared as private, so no other class
+is able to reach the server or the collection that are built here. The server is only ever
+accessed over HTTP, in the same way as any other client would use it.
+ */
+
+public class HttpLoadBenchmark {
+    // Declares the default number of books and client threads, the amount of time to spend
+    // warming up and measuring each kind of request, in nanoseconds, and the largest number of
+    // latencies recorded by each client thread
+    private static final int DEFAULT_BOOKS = 100_000;
+    private static final int DEFAULT_CLIENTS = 64;
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+    private static final int MAX_SAMPLES = 1 << 18;
+
+    /*
+    Private functional interface representing a single kind of request being benchmarked, which
+    is given the number of times the client thread has already sent it, so that each request can
+    look at a different book, and returns the request line to send (such as "GET /books/empty").
+     */
+    private interface Request {
+        String line(int i);
+    }
+
+    public static void main(String[] args) throws Exception {
+        // Determines the number of books, client threads, and server threads to use, with the
+        // command line arguments (in that order) replacing the defaults if they were given
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BOOKS;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CLIENTS;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : LibraryHttpServer.DEFAULT_THREADS;
+
+        // Builds the collection and starts serving it on a free port
+        LibraryCollectionController controller = new LibraryCollectionController(new ConcurrentLibraryCollection());
+        for (int i = 0; i < size; i++) {
+            controller.cAddBook(title(i), author(i));
+        }
+        LibraryHttpServer server = new LibraryHttpServer(controller, 0, threads);
+        server.start();
+
+        // Builds up the kinds of requests to send, in the order that they will be run. The
+        // requests that only read from the collection come first, followed by those that change it
+        Map<String, Request> requests = new LinkedHashMap<String, Request>();
+        requests.put("GET /books/empty", i -> "GET /books/empty");
+        requests.put("GET /books/contains", i -> "GET /books/contains?title=" + encode(title(i % size))
+                + "&author=" + encode(author(i % size)));
+        requests.put("GET /books/title", i -> "GET /books/title?title=" + encode(title(i % size)));
+        requests.put("GET /books/author", i -> "GET /books/author?author=" + encode(author(i % size)));
+        requests.put("GET /query (prefix, 20)", i -> "GET /query?titlePrefix=" + encode(title(i % size))
+                + "&limit=20");
+        requests.put("GET /books/page (100)", i -> "GET /books/page?limit=100");
+        requests.put("GET /count/read", i -> "GET /count/read");
+        requests.put("POST /books/rating", i -> "POST /books/rating?title=" + encode(title(i % size))
+                + "&author=" + encode(author(i % size)) + "&rating=" + (i % 5 + 1));
+        requests.put("POST /books/read", i -> "POST /books/read?title=" + encode(title(i % size))
+                + "&author=" + encode(author(i % size)));
+
+        // Prints the header of the results table, then runs each kind of request
+        System.out.printf("%-28s %10s %8s %14s %12s %12s%n", "Request", "Books", "Clients", "req/s",
+                "p50 us", "p99 us");
+        for (Map.Entry<String, Request> entry : requests.entrySet()) {
+            measure(entry.getKey(), size, clients, server.getPort(), entry.getValue());
+        }
+        server.stop(0);
+    }
+
+    /*
+    Private helper method which load tests a single kind of request. Each client thread opens a
+    connection to the server and sends requests over it as quickly as it can, first for the
+    warmup period, and then for the measurement period, in which the latency of each request is
+    recorded. The latencies of all of the client threads are then combined in order to print out
+    a row of the results table.
+
+    @pre name != null && size > 0 && clients > 0 && request != null
+     */
+    private static void measure(String name, int size, int clients, int port, Request request) throws Exception {
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        long measureEnd = warmupEnd + MEASURE_NANOS;
+        long[][] samples = new long[clients][];
+        int[] counts = new int[clients];
+        AtomicInteger failures = new AtomicInteger();
+
+        // Starts each of the client threads, each of which keeps a single connection open
+        ArrayList<Thread> threads = new ArrayList<Thread>();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            Thread thread = new Thread(() -> {
+                long[] latencies = new long[MAX_SAMPLES];
+                int count = 0;
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                    socket.setTcpNoDelay(true);
+                    OutputStream out = socket.getOutputStream();
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    int i = client;
+                    long now = System.nanoTime();
+                    while (now < measureEnd) {
+                        long before = now;
+                        send(out, request.line(i));
+                        if (readResponse(in) != 200) {
+                            failures.incrementAndGet();
+                        }
+                        i += clients;
+                        now = System.nanoTime();
+                        if (before >= warmupEnd && count < MAX_SAMPLES) {
+                            latencies[count++] = now - before;
+                        }
+                    }
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                }
+                samples[client] = latencies;
+                counts[client] = count;
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Combines the latencies of every client thread, then prints them out as a row of the table
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int filled = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(samples[c], 0, all, filled, counts[c]);
+            filled += counts[c];
+        }
+        Arrays.sort(all);
+        if (total == 0) {
+            System.out.println("Error: no requests to " + name + " were answered");
+            return;
+        }
+        System.out.printf("%-28s %10d %8d %14.1f %12.1f %12.1f%n", name, size, clients,
+                total / (MEASURE_NANOS / 1e9), all[total / 2] / 1e3, all[(int) (total * 0.99)] / 1e3);
+        if (failures.get() > 0) {
+            System.out.println("Error: " + failures.get() + " requests to " + name + " failed");
+        }
+    }
+
+    /*
+    Private helper method which sends a single request with the given request line (such as
+    "GET /books/empty") over the given connection, asking for the connection to be kept open.
+
+    @pre out != null && line != null
+     */
+    private static void send(OutputStream out, String line) throws IOException {
+        String request = line + " HTTP/1.1\r\nHost: localhost\r\nConnection: keep-alive\r\n"
+                + (line.startsWith("POST") ? "Content-Length: 0\r\n" : "") + "\r\n";
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /*
+    Private helper method which reads a single response from the given connection, skipping over
+    its body (whether it is sent with a length or in chunks), and returns its status.
+
+    @pre in != null
+    @return an int representing the status of the response
+     */
+    private static int readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+        long contentLength = -1;
+        boolean chunked = false;
+        for (String header = readLine(in); !header.isEmpty(); header = readLine(in)) {
+            String lower = header.toLowerCase();
+            if (lower.startsWith("content-length:")) {
+                contentLength = Long.parseLong(lower.substring(15).trim());
+            } else if (lower.startsWith("transfer-encoding:") && lower.contains("chunked")) {
+                chunked = true;
+            }
+        }
+        if (chunked) {
+            for (long chunk = Long.parseLong(readLine(in).trim(), 16); chunk > 0;
+                    chunk = Long.parseLong(readLine(in).trim(), 16)) {
+                skip(in, chunk);
+                readLine(in);
+            }
+            readLine(in);
+        } else if (contentLength > 0) {
+            skip(in, contentLength);
+        }
+        return status;
+    }
+
+    // Private helper methods which read a single line (without its line ending), and skip over
+    // the given number of bytes, throwing an IOException if the connection is closed partway
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b < 0) {
+                throw new IOException("connection closed");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void skip(InputStream in, long count) throws IOException {
+        while (count > 0) {
+            long skipped = in.skip(count);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new IOException("connection closed");
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    // Private helper methods which produce the title and author of the i-th generated book, and
+    // encode a parameter for the query string
+    private static String title(int i) {
+        return "Title " + i;
+    }
+
+    private static String author(int i) {
+        return "Author " + i / 10;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,26 @@
+/*
+File: ImportProgress.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This interface defines a listener which is told how far along the reading of a book
+file has gotten, which allows for a view (such as the GUI) to show the progress of a long
+import, and to cancel it partway through. The library collection calls the update() method
+after each section of the file has been read, and stops reading the file as soon as update()
+returns false. Any books that were read before the import was cancelled are kept in the
+collection, and the ImportReport of a cancelled import records that it was cancelled.
+ */
+
+public interface ImportProgress {
+    // Declares the listener used when no progress needs to be reported, which never cancels
+    ImportProgress NONE = (bytesRead, totalBytes) -> true;
+
+    /*
+    Called each time that another section of the file has been read, with the number of bytes
+    of the file read so far, and the total size of the file in bytes. Note that this is called
+    on whichever thread is reading the file.
+
+    @pre 0 <= bytesRead && bytesRead <= totalBytes
+    @return true if the import should go on, and false if it should be cancelled
+     */
+    boolean update(long bytesRead, long totalBytes);
+}
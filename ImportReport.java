@@ -0,0 +1,128 @@
+/*
+File: ImportReport.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class is designed to summarize the result of adding books to the library
+collection from a file. Each ImportReport keeps track of how many lines of the file
+resulted in a new book being added, how many lines described a book that was already
+in the collection (or that appeared earlier in the same file), and how many lines were
+malformed, in the sense that they did not follow the "Title;Author" format. If the import
+was cancelled partway through (see ImportProgress.java), then the report also records this,
+with the counts covering only the part of the file that was read.
+ */
+
+/*
+When it comes to maintaining encapsulation, all of the instance variables of this class
+are private primitive types, so no escaping references to internal data can be produced.
+The counts can only be updated through the package-level record methods, which are used
+by the LibraryCollection class while it reads through a file, and the client code is only
+ever given access to the getters and the toString() method.
+ */
+
+public class ImportReport {
+    // Declares the private instance variables, which are the number of books added, the
+    // number of duplicate lines, the number of malformed lines, and whether the import was
+    // cancelled before the whole file was read
+    private int added;
+    private int duplicates;
+    private int malformed;
+    private boolean cancelled;
+
+    /*
+    Public constructor for the ImportReport class, which takes no inputs and creates a
+    report with all of its counts initialized to zero. Since there are no inputs and no
+    assumptions, this constructor has no preconditions.
+     */
+    public ImportReport() {
+        this.added = 0;
+        this.duplicates = 0;
+        this.malformed = 0;
+        this.cancelled = false;
+    }
+
+    /*
+    Method for recording that a line of the file resulted in a new book being added to
+    the library collection. Takes no inputs and returns nothing.
+     */
+    void recordAdded() {
+        added++;
+    }
+
+    /*
+    Method for recording that a line of the file described a book that was already in the
+    library collection, so nothing was added. Takes no inputs and returns nothing.
+     */
+    void recordDuplicate() {
+        duplicates++;
+    }
+
+    /*
+    Method for recording that a line of the file did not follow the "Title;Author" format,
+    and was therefore skipped. Takes no inputs and returns nothing.
+     */
+    void recordMalformed() {
+        malformed++;
+    }
+
+    /*
+    Method for recording that the import was cancelled before the whole file was read. Takes
+    no inputs and returns nothing.
+     */
+    void recordCancelled() {
+        cancelled = true;
+    }
+
+    /*
+    Public getter for the number of books that were added to the library collection.
+
+    @return an int representing the number of books added
+     */
+    public int getAdded() {
+        return added;
+    }
+
+    /*
+    Public getter for the number of lines describing books that were already in the
+    library collection.
+
+    @return an int representing the number of duplicate lines
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /*
+    Public getter for the number of lines that did not follow the "Title;Author" format.
+
+    @return an int representing the number of malformed lines
+     */
+    public int getMalformed() {
+        return malformed;
+    }
+
+    /*
+    Public method for determining whether the import was cancelled before the whole file
+    was read.
+
+    @return true if the import was cancelled, false otherwise
+     */
+    public boolean wasCancelled() {
+        return cancelled;
+    }
+
+    /*
+    Public method which returns a String representation of the report, which has the
+    following format: "Added: added; Duplicates: duplicates; Malformed: malformed", followed
+    by "; Cancelled" if the import was cancelled. Since
+    this method takes no inputs and makes no assumptions, it has no preconditions.
+
+    @return a String representing the given ImportReport
+     */
+    public String toString() {
+        String report = "Added: " + added + "; Duplicates: " + duplicates + "; Malformed: " + malformed;
+        if (cancelled) {
+            report += "; Cancelled";
+        }
+        return report;
+    }
+}
@@ -0,0 +1,459 @@
+/*
+File: InvertedIndex.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a full-text (inverted) index over the titles and authors of the
+books in the library collection, which allows for books to be found from any of the words in
+their title or author, rather than only from their exact title or author. Each book is known to
+the index only by a compact int id, which is given to it by the library collection (and which
+must increase as books are added). The title and author of each book are split into words
+(terms), which are converted to uppercase and stripped of any accents, so that "fellowship"
+finds "The Fellowship of the Ring", and "miserables" finds "Les Miserables" even when it is
+spelled with an accented E. For each term, the index keeps a posting list, which is a growing
+int array of the ids of the books containing the term, in increasing order, with the lowest bit
+of each entry marking whether the term was found in the title (1) or in the author (0). A query
+may ask for the books containing all of its terms, which is done by walking the shortest posting
+list and skipping ahead through the others with galloping search, or for the books containing any of
+its terms, which is done by merging all of the posting lists. Either way, the matching books are
+ranked by how rare the matched terms are (so matching an uncommon word counts for more than matching
+"the"), with a match in the title counting for twice as much as a match in the author. The index
+also keeps a TrigramIndex over all of its terms, which allows for a fuzzy search, where each word of
+the query also matches the terms that are spelled almost the same (so that "tolkein" finds
+"Tolkien"), with closer spellings counting for more.
+ */
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private, and that the posting lists are never returned from any method; the search()
+method returns a new array of ids. The index only ever holds the ids of books (and not the books
+themselves), so it cannot be used to reach or change any of the books in the collection.
+ */
+
+public class InvertedIndex {
+    // Declares the weights given to a term that is found in the title of a book, and to a term
+    // that is found in its author
+    private static final int TITLE_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+
+    /*
+    Private class representing the posting list of a single term, which is a growing array of
+    entries (each being the id of a book shifted left by one, plus one if the term is in the
+    title of the book), in increasing order.
+     */
+    private static class Postings {
+        private int[] entries = new int[2];
+        private int size = 0;
+
+        private void add(int entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+    }
+
+    /*
+    Private class representing the books matched by part of a fuzzy query, with their ids (in
+    increasing order) and their scores.
+     */
+    private static class Matches {
+        private int[] ids = new int[16];
+        private double[] scores = new double[16];
+        private int size = 0;
+
+        private void add(int id, double score) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            ids[size] = id;
+            scores[size++] = score;
+        }
+    }
+
+    // Declares the private instance variables, which are the posting list of each term, the
+    // trigram index over every term, and the number of books in the index
+    private HashMap<String, Postings> terms;
+    private TrigramIndex vocabulary;
+    private int documents;
+
+    /*
+    Public constructor for the InvertedIndex class, which takes no inputs and produces an empty
+    index. Since there are no inputs and no assumptions, there are no preconditions.
+     */
+    public InvertedIndex() {
+        this.terms = new HashMap<String, Postings>();
+        this.vocabulary = new TrigramIndex();
+        this.documents = 0;
+    }
+
+    /*
+    Public method which adds the book with the given id, title, and author to the index. This
+    takes time proportional to the number of terms in the title and author.
+
+    @pre id is greater than the id of every book already added && title != null && author != null
+     */
+    public void add(int id, String title, String author) {
+        // The terms of the author are added first, since their entries are one less than the
+        // entries for the same terms in the title, which keeps each posting list in order
+        for (String term : new LinkedHashSet<String>(tokenize(author))) {
+            terms.computeIfAbsent(term, this::newTerm).add(id << 1);
+        }
+        for (String term : new LinkedHashSet<String>(tokenize(title))) {
+            terms.computeIfAbsent(term, this::newTerm).add((id << 1) | 1);
+        }
+        documents++;
+    }
+
+    /*
+    Public method which returns the ids of the books matching the given query, ranked from the
+    best match to the worst (with books that match equally well being in increasing order of
+    id). If matchAll is true, then only books containing every term of the query are returned,
+    and otherwise, books containing any term of the query are returned. An empty array is
+    returned if the query has no terms.
+
+    @pre query != null
+    @return an int[] of the ids of the matching books, best match first
+     */
+    public int[] search(String query, boolean matchAll) {
+        // Looks up the posting list of each distinct term of the query, giving up right away if
+        // all of the terms are needed and one of them is missing
+        ArrayList<Postings> lists = new ArrayList<Postings>();
+        for (String term : new LinkedHashSet<String>(tokenize(query))) {
+            Postings postings = terms.get(term);
+            if (postings != null) {
+                lists.add(postings);
+            } else if (matchAll) {
+                return new int[0];
+            }
+        }
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+
+        // Each result is collected as a long, with the score (negated, so that the best score
+        // sorts first) in the high half and the id in the low half
+        return rank(matchAll ? intersect(lists) : union(lists));
+    }
+
+    /*
+    Public method which returns the ids of the books matching the given query, in the same way
+    as the search() method, except that each word of the query also matches the terms that are
+    within a few edits of it (see TrigramIndex.java). A term that is d edits away from a word of
+    length n counts for (1 - d / n) as much as an exact match. This takes longer than search(),
+    since each word of the query may match several terms, but never looks at any book that does
+    not contain one of these terms.
+
+    @pre query != null
+    @return an int[] of the ids of the matching books, best match first
+     */
+    public int[] fuzzySearch(String query, boolean matchAll) {
+        Matches total = null;
+        for (String word : new LinkedHashSet<String>(tokenize(query))) {
+            // Merges together the books containing any of the terms similar to this word
+            Matches matches = new Matches();
+            for (Map.Entry<String, Integer> similar : vocabulary.similar(word).entrySet()) {
+                double closeness = 1 - (double) similar.getValue() / Math.max(word.length(), similar.getKey().length());
+                matches = combine(matches, matchesOf(terms.get(similar.getKey()), closeness), false);
+            }
+
+            // Then combines these books with the books matched by the other words
+            if (total == null) {
+                total = matches;
+            } else {
+                total = combine(total, matches, matchAll);
+            }
+            if (matchAll && total.size == 0) {
+                return new int[0];
+            }
+        }
+        if (total == null) {
+            return new int[0];
+        }
+        long[] results = new long[total.size];
+        for (int i = 0; i < total.size; i++) {
+            results[i] = result(total.scores[i], total.ids[i]);
+        }
+        return rank(results);
+    }
+
+    /*
+    Public static method which splits the given text into the terms that the index uses. A term
+    is any run of letters and digits, converted to uppercase, with any accents removed.
+
+    @pre text != null
+    @return ArrayList<String> of the terms of text, in order (possibly with repeats)
+     */
+    public static ArrayList<String> tokenize(String text) {
+        ArrayList<String> tokens = new ArrayList<String>();
+        int start = -1;
+        boolean ascii = true;
+        for (int i = 0; i <= text.length(); i++) {
+            char cur = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(cur) || (start >= 0 && Character.getType(cur) == Character.NON_SPACING_MARK)) {
+                if (start < 0) {
+                    start = i;
+                    ascii = true;
+                }
+                ascii &= cur < 0x80;
+            } else if (start >= 0) {
+                String token = text.substring(start, i).toUpperCase();
+                if (!ascii) {
+                    // Accents are removed by splitting each accented letter into the letter and
+                    // its accent, then dropping the accents
+                    token = Normalizer.normalize(token, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+                }
+                tokens.add(token);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /*
+    Private helper method which finds the books that appear in every one of the given posting
+    lists. The shortest list is walked one book at a time, and each of the other lists is
+    searched for that book with galloping search, starting from where its last search left off,
+    so the time taken depends mostly on the length of the shortest list.
+
+    @pre lists is not empty
+    @return a long[] of the scores and ids of the matching books (see search())
+     */
+    private long[] intersect(ArrayList<Postings> lists) {
+        lists.sort((first, second) -> Integer.compare(first.size, second.size));
+        Postings shortest = lists.get(0);
+        int[] cursors = new int[lists.size()];
+        long[] results = new long[16];
+        int count = 0;
+
+        int i = 0;
+        while (i < shortest.size) {
+            int id = shortest.entries[i] >>> 1;
+            double score = 0;
+            boolean found = true;
+            for (int list = 0; list < lists.size() && found; list++) {
+                Postings postings = lists.get(list);
+                int position = list == 0 ? i : gallop(postings, cursors[list], id << 1);
+                cursors[list] = position;
+                int weight = weightAt(postings, position, id);
+                found = weight > 0;
+                score += weight * idf(postings);
+            }
+            if (found) {
+                if (count == results.length) {
+                    results = Arrays.copyOf(results, count * 2);
+                }
+                results[count++] = result(score, id);
+            }
+
+            // Skips over the title entry of this book in the shortest list, if there is one
+            i++;
+            while (i < shortest.size && (shortest.entries[i] >>> 1) == id) {
+                i++;
+            }
+        }
+        return Arrays.copyOf(results, count);
+    }
+
+    /*
+    Private helper method which finds the books that appear in any of the given posting lists,
+    by merging all of the lists together in order of id.
+
+    @pre lists is not empty
+    @return a long[] of the scores and ids of the matching books (see search())
+     */
+    private long[] union(ArrayList<Postings> lists) {
+        int[] cursors = new int[lists.size()];
+        long[] results = new long[16];
+        int count = 0;
+        while (true) {
+            // Finds the lowest id that has not yet been merged
+            int id = Integer.MAX_VALUE;
+            for (int list = 0; list < lists.size(); list++) {
+                Postings postings = lists.get(list);
+                if (cursors[list] < postings.size) {
+                    id = Math.min(id, postings.entries[cursors[list]] >>> 1);
+                }
+            }
+            if (id == Integer.MAX_VALUE) {
+                break;
+            }
+
+            // Adds up the score of that id across every list containing it
+            double score = 0;
+            for (int list = 0; list < lists.size(); list++) {
+                Postings postings = lists.get(list);
+                int weight = weightAt(postings, cursors[list], id);
+                if (weight > 0) {
+                    score += weight * idf(postings);
+                    while (cursors[list] < postings.size && (postings.entries[cursors[list]] >>> 1) == id) {
+                        cursors[list]++;
+                    }
+                }
+            }
+            if (count == results.length) {
+                results = Arrays.copyOf(results, count * 2);
+            }
+            results[count++] = result(score, id);
+        }
+        return Arrays.copyOf(results, count);
+    }
+
+    /*
+    Private helper method which returns the books found in the given posting list, with the
+    score of each being the weight of the term for the book, times its idf and the given factor.
+
+    @pre postings != null
+    @return Matches holding every book in the posting list, in increasing order of id
+     */
+    private Matches matchesOf(Postings postings, double factor) {
+        Matches matches = new Matches();
+        int i = 0;
+        while (i < postings.size) {
+            int id = postings.entries[i] >>> 1;
+            matches.add(id, weightAt(postings, i, id) * idf(postings) * factor);
+            while (i < postings.size && (postings.entries[i] >>> 1) == id) {
+                i++;
+            }
+        }
+        return matches;
+    }
+
+    /*
+    Private static helper method which merges the two given sets of matched books, adding
+    together the scores of any book found in both. If intersect is true, then only the books
+    found in both are kept, and otherwise the books found in either are kept.
+
+    @pre first != null && second != null
+    @return Matches holding the merged books, in increasing order of id
+     */
+    private static Matches combine(Matches first, Matches second, boolean intersect) {
+        Matches merged = new Matches();
+        int i = 0;
+        int j = 0;
+        while (intersect ? i < first.size && j < second.size : i < first.size || j < second.size) {
+            int firstId = i < first.size ? first.ids[i] : Integer.MAX_VALUE;
+            int secondId = j < second.size ? second.ids[j] : Integer.MAX_VALUE;
+            if (firstId == secondId) {
+                merged.add(firstId, first.scores[i++] + second.scores[j++]);
+            } else if (firstId < secondId) {
+                if (!intersect) {
+                    merged.add(firstId, first.scores[i]);
+                }
+                i++;
+            } else {
+                if (!intersect) {
+                    merged.add(secondId, second.scores[j]);
+                }
+                j++;
+            }
+        }
+        return merged;
+    }
+
+    /*
+    Private helper method which returns the position of the first entry of the given posting
+    list, at or after position from, that is greater than or equal to the given entry. The step
+    size doubles until the entry is passed, and then binary search is used, so this takes
+    O(log d) time, where d is the distance moved.
+
+    @pre postings != null && 0 <= from
+    @return an int representing the position of the first entry >= target (or the size)
+     */
+    private static int gallop(Postings postings, int from, int target) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < postings.size && postings.entries[high] < target) {
+            low = high + 1;
+            high += step;
+            step *= 2;
+        }
+        high = Math.min(high, postings.size);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (postings.entries[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+    Private helper method which returns the weight of the given term (posting list) for the
+    book with the given id, looking only at the entries from the given position onward. The
+    weight is 0 if the book does not contain the term.
+
+    @pre postings != null && 0 <= position
+    @return an int representing the weight of the term for the book
+     */
+    private static int weightAt(Postings postings, int position, int id) {
+        int weight = 0;
+        while (position < postings.size && (postings.entries[position] >>> 1) == id) {
+            weight += (postings.entries[position] & 1) == 1 ? TITLE_WEIGHT : AUTHOR_WEIGHT;
+            position++;
+        }
+        return weight;
+    }
+
+    /*
+    Private helper method which returns the inverse document frequency of the given term, which
+    is larger for terms that are found in fewer books.
+
+    @pre postings != null
+    @return a double representing how rare the term is
+     */
+    private double idf(Postings postings) {
+        return Math.log(1 + (double) documents / postings.size);
+    }
+
+    /*
+    Private helper method which adds the given term to the trigram index, and creates its
+    (empty) posting list. This is only called the first time the term is seen.
+
+    @pre term != null
+    @return a new, empty Postings for the term
+     */
+    private Postings newTerm(String term) {
+        vocabulary.add(term);
+        return new Postings();
+    }
+
+    /*
+    Private static helper method which sorts the given results (see result()), so that the best
+    match comes first, and returns the ids held in them, in that order.
+
+    @pre results != null
+    @return an int[] of the ids held in the results, best match first
+     */
+    private static int[] rank(long[] results) {
+        Arrays.sort(results);
+        int[] ids = new int[results.length];
+        for (int i = 0; i < results.length; i++) {
+            ids[i] = (int) results[i];
+        }
+        return ids;
+    }
+
+    /*
+    Private static helper method which packs the given score and id into a single long, such
+    that sorting the longs puts the highest scores first, and equal scores in increasing order
+    of id.
+
+    @pre score >= 0 && id >= 0
+    @return a long holding both the score and id
+     */
+    private static long result(double score, int id) {
+        long rank = Integer.MAX_VALUE - Math.min(Integer.MAX_VALUE, Math.round(score * 1000));
+        return (rank << 32) | id;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+File: LibraryBenchmark.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: Implements a benchmark suite for the public methods of the LibraryCollection class,
+which allows for the performance of the library collection to be measured as it grows, so
+that any changes which slow down the most commonly used operations can be caught. For each
+size of collection (1K, 100K, 1M, and 10M books by default, or the sizes given as command
+line arguments), a collection is filled with generated books, and then each operation is
+repeatedly run against it. For each operation, the benchmark reports the throughput (in
+operations per second), the average, median, and 99th percentile latency of a single
+operation, and the number of bytes allocated per operation along with the allocation rate.
+Note that the larger sizes require a large heap, so this should be run with something like
+"java -Xmx16g LibraryBenchmark", or with smaller sizes (for example, "java LibraryBenchmark
+1000 100000").
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+When it comes to maintaining encapsulation, note that this class is only ever run through
+its main() method, and that all of its helper methods and its sole static variable are
+declared as private, so no other class is able to reach the collections that are built here.
+The library collections being benchmarked are only ever accessed through their public methods,
+in the same way as any other client code would use them.
+ */
+
+public class LibraryBenchmark {
+    // Declares the default sizes of collection to run each benchmark against, along with the
+    // amount of time to spend warming up and measuring each operation, in nanoseconds
+    private static final int[] DEFAULT_SIZES = {1_000, 100_000, 1_000_000, 10_000_000};
+    private static final long WARMUP_NANOS = 500_000_000L;
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+    private static final int MIN_OPERATIONS = 5;
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    // Declares the sole static variable, which holds on to the result of each operation, so
+    // that the JIT compiler is not able to remove an operation whose result goes unused
+    private static Object sink;
+
+    /*
+    Private functional interface representing a single operation being benchmarked, which is
+    given the number of times the operation has already been run, so that each run can look
+    at a different book.
+     */
+    private interface Operation {
+        Object run(int i);
+    }
+
+    public static void main(String[] args) {
+        // Determines the sizes to run the benchmarks at, using the command line arguments if
+        // any were given
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        }
+
+        // Prints the header of the results table
+        System.out.printf("%-32s %10s %14s %12s %12s %12s %14s %12s%n", "Benchmark", "Books",
+                "ops/s", "avg ns/op", "p50 ns/op", "p99 ns/op", "bytes/op", "MB/s alloc");
+
+        // Runs every benchmark at each size, moving on to the next size if there isn't enough
+        // memory for the current one
+        for (int size : sizes) {
+            try {
+                runAll(size);
+            } catch (OutOfMemoryError e) {
+                System.out.println("Error: not enough memory for " + size + " books");
+            } catch (IOException e) {
+                System.out.println("Error: could not write the benchmark file");
+            }
+        }
+    }
+
+    /*
+    Private helper method which builds a collection with the given number of books, then runs
+    every benchmark against it. The books are given unique titles, and every author has ten
+    books, so that searches by author return more than a single book. A file containing the same
+    books is also written out, in order to benchmark the addBooksFromFile() method.
+
+    @pre size > 0
+     */
+    private static void runAll(int size) throws IOException {
+        LibraryCollection collection = filledCollection(size);
+        File file = writeBookFile(size);
+        file.deleteOnExit();
+
+        // Builds up the list of operations to benchmark, in the order that they will be run. The
+        // operations that only read from the collection come first, so that they all see the
+        // same collection, followed by the operations that change it
+        Map<String, Operation> operations = new LinkedHashMap<String, Operation>();
+        operations.put("alreadyInCollection (hit)", i -> collection.alreadyInCollection(title(i % size), author(i % size)));
+        operations.put("alreadyInCollection (miss)", i -> collection.alreadyInCollection("Missing " + i, author(i % size)));
+        operations.put("getBooksWithTitle", i -> collection.getBooksWithTitle(title(i % size)));
+        operations.put("getBooksWithAuthor", i -> collection.getBooksWithAuthor(author(i % size)));
+        operations.put("getBooksWithTitlePrefix", i -> collection.getBooksWithTitlePrefix(title(i % size)));
+        operations.put("getBooksWithAuthorPrefix", i -> collection.getBooksWithAuthorPrefix(author(i % size)));
+        operations.put("getBooksWithRating", i -> collection.getBooksWithRating(i % 5 + 1));
+        for (TypeSort howSort : TypeSort.values()) {
+            operations.put("getSortedCollection (" + howSort + ")", i -> collection.getSortedCollection(howSort));
+        }
+        operations.put("allReadBooks", i -> collection.allReadBooks());
+        operations.put("allUnreadBooks", i -> collection.allUnreadBooks());
+        operations.put("countBooksWithRating", i -> collection.countBooksWithRating(i % 5 + 1));
+        operations.put("getRandomBook", i -> collection.getRandomBook());
+        operations.put("suggest (10)", i -> collection.suggest(10));
+        operations.put("updateBookRating", i -> {
+            collection.updateBookRating(title(i % size), author(i % size), i % 5 + 1);
+            return null;
+        });
+        operations.put("setToRead", i -> {
+            collection.setToRead(title(i % size), author(i % size));
+            return null;
+        });
+        operations.put("addBook", i -> {
+            collection.addBook("New " + title(i), author(i % size));
+            return null;
+        });
+        operations.put("addBooksFromFile", i -> new LibraryCollection().addBooksFromFile(file.getPath()));
+
+        // Runs each of the operations, printing out the results as it goes
+        for (Map.Entry<String, Operation> entry : operations.entrySet()) {
+            measure(entry.getKey(), size, entry.getValue());
+        }
+        file.delete();
+    }
+
+    /*
+    Private helper method which benchmarks a single operation. The operation is first run
+    repeatedly for a warmup period, so that the JIT compiler has a chance to compile it, then
+    run repeatedly for the measurement period (and at least MIN_OPERATIONS times), with the
+    latency of each run being recorded. The number of bytes allocated by the current thread is
+    read before and after the measurement period, in order to determine the allocation rate.
+
+    @pre name != null && size > 0 && operation != null
+     */
+    private static void measure(String name, int size, Operation operation) {
+        // Warms up the operation, so that the measurement reflects the compiled code
+        int i = 0;
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < warmupEnd || i < MIN_OPERATIONS) {
+            sink = operation.run(i++);
+        }
+
+        // Runs the operation for the measurement period, recording the time taken by each run
+        // (up to MAX_SAMPLES of them) along with the total time and the bytes allocated
+        long[] samples = new long[MAX_SAMPLES];
+        int count = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long now = start;
+        while (now - start < MEASURE_NANOS || count < MIN_OPERATIONS) {
+            long before = now;
+            sink = operation.run(i++);
+            now = System.nanoTime();
+            if (count < MAX_SAMPLES) {
+                samples[count] = now - before;
+            }
+            count++;
+        }
+        long elapsed = now - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        // Computes the statistics for this operation and prints them out as a row of the table
+        int recorded = Math.min(count, MAX_SAMPLES);
+        Arrays.sort(samples, 0, recorded);
+        double seconds = elapsed / 1e9;
+        System.out.printf("%-32s %10d %14.1f %12.1f %12d %12d %14.1f %12.1f%n", name, size,
+                count / seconds, (double) elapsed / count, samples[recorded / 2],
+                samples[(int) (recorded * 0.99)], (double) allocated / count,
+                allocated / seconds / (1024 * 1024));
+    }
+
+    /*
+    Private helper method which returns the total number of bytes allocated by the current
+    thread so far, or 0 if the JVM does not support measuring this.
+
+    @return a long representing the number of bytes allocated by the current thread
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /*
+    Private helper method which builds a new LibraryCollection holding the given number of
+    generated books.
+
+    @pre size > 0
+    @return a LibraryCollection holding size books
+     */
+    private static LibraryCollection filledCollection(int size) {
+        LibraryCollection collection = new LibraryCollection();
+        for (int i = 0; i < size; i++) {
+            collection.addBook(title(i), author(i));
+        }
+        return collection;
+    }
+
+    /*
+    Private helper method which writes the given number of generated books out to a temporary
+    file, in the same "Title;Author" format as books.txt.
+
+    @pre size > 0
+    @return the File that the books were written to
+     */
+    private static File writeBookFile(int size) throws IOException {
+        File file = File.createTempFile("books", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("Title;Author");
+            writer.newLine();
+            for (int i = 0; i < size; i++) {
+                writer.write(title(i) + ";" + author(i));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    // Private helper methods which produce the title and author of the i-th generated book
+    private static String title(int i) {
+        return "Title " + i;
+    }
+
+    private static String author(int i) {
+        return "Author " + i / 10;
+    }
+}
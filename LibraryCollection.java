@@ -7,314 +7,366 @@ be stored within the library collection, and will provide methods allowing
 for sorting all of the books according to different characteristics, searching
 for books with particular characteristics, and updating the books currently
 in the collection. Note that the underlying data structure for the collection
-is an ArrayList of Book objects, since using such a data structure allows for 
-new books to be added to the collection easily and efficiently, and allows the
-class as a whole to better model a collection of unique books, although there
-are a few trade-offs with search efficiency, which are noted below. Note that this
-class represents the Model element of the Model-View-Controller design pattern.
+is a LinkedHashMap from the key of each book (its uppercased title and author) to the
+book itself, since using such a data structure allows for new books to be added to the
+collection easily and efficiently (while remembering the order in which they were added),
+allows any particular book to be found in constant time, and allows the class as a whole
+to better model a collection of unique books. To avoid having to sort the entire collection
+whenever a sorted list of books is requested, the class also maintains sorted secondary
+indexes by title and by author, along with buckets of books grouped by rating and by read
+status, all of which are updated as books are added, rated, and read. Note that this class
+represents the Model element of the Model-View-Controller design pattern.
  */
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /*
 When it comes to maintaining encapsulation, this class does quite a bit of the 
 heavy lifting for the program as a whole. As is described above, the underlying
-data structure for the library collection is an ArrayList of Book objects. To
-prevent any escaping references from occurring, each time a Book object is returned
-by a method (either directly or within an ArrayList of Books), the actual thing
-being returned is a copy of the Book within the underlying ArrayList, rather than
-the mutable Book object itself. Furthermore, anytime the method returns an ArrayList 
-containing all of the books within the collection, the list being returned is 
-a copy of the underlying ArrayList rather than this underlying ArrayList itself,
-with all of the Book objects within being copied as well. With this, the class is
-able to effectively maintain a great degree of encapsulation. Additional protection
-is then provided via input validation in the MyLibrary class, which prevents any
-improper data from corrupting the Books in the collection. Note also that the sole 
-instance variable is declared as private to further maintain encapsulation.
+data structure for the library collection is a LinkedHashMap of Book objects. To
+prevent any escaping references from occurring, every book stored by the collection
+is a BookSnapshot, which is an immutable type of its own (see BookSnapshot.java), separate
+from the mutable Book class, with both sharing the ReadOnlyBook interface that the collection
+hands out. Since these can never be changed, each time a book is returned by a method (either
+directly or within an ArrayList of ReadOnlyBooks), the collection can simply return the
+BookSnapshot that it stores, without having to make a copy of it. Whenever the rating
+or read status of a book changes, the collection instead replaces its BookSnapshot with
+a new one in all of its data structures. Furthermore, anytime a method returns an ArrayList
+of books, the list being returned is a new ArrayList rather than any of the underlying
+data structures. With this, the class is able to effectively maintain a great degree of
+encapsulation. Additional protection is then provided via input validation in the MyLibrary
+class, which prevents any improper data from corrupting the Books in the collection. Note also
+that the instance variables are declared as private to further maintain encapsulation. None
+of the methods that only read from the collection modify any of these data structures.
  */
 
-public class LibraryCollection {
-    // Declares the sole private instance variable of the LibraryCollection class,
-    // which is an ArrayList of the Book objects currently within the collection
-    private ArrayList<Book> bookList;
+public class LibraryCollection implements LibraryModel {
+    // Declares the private instance variables of the LibraryCollection class, the first
+    // of which is the LinkedHashMap from the key of each Book (see Book.makeKey()) to the
+    // BookSnapshot currently stored for that book, in the order the books were added.
+    // The secondary indexes are then the title and author indexes, which are kept sorted,
+    // and a list of rating buckets, where position 0 holds the books that have not been
+    // rated and positions 1-5 hold the books with that rating. Books are also grouped by
+    // their read status, with each group being kept sorted by title. Finally, the unread
+    // books are additionally kept in an ArrayList (along with a HashMap from the key of each
+    // unread book to its position in that ArrayList), which allows for a random unread book
+    // to be chosen in constant time
+    private LinkedHashMap<String, BookSnapshot> bookIndex;
+    private SortedBookIndex titleIndex;
+    private SortedBookIndex authorIndex;
+    private ArrayList<LinkedHashMap<String, ReadOnlyBook>> ratingBuckets;
+    private EnumMap<Read, SortedBookIndex> readIndexes;
+    private ArrayList<ReadOnlyBook> unreadPool;
+    private HashMap<String, Integer> unreadPositions;
+
+    // Declares the full-text index over the titles and authors of the books, which knows each
+    // book by its position in the order in which the books were added, along with the key of
+    // the book at each of these positions
+    private InvertedIndex textIndex;
+    private ArrayList<String> textKeys;
+
+    // Declares the symbol table for the names of the authors of the books in the collection,
+    // which allows for every book by the same author to share a single String
+    private SymbolTable authors;
+
+    // Declares the private instance variables used for keeping the collection on disk, which
+    // are the write-ahead log that every change is recorded in (or null if changes are not
+    // being logged), and the name of the snapshot file that the log is compacted into
+    private MutationLog log;
+    private String snapshotFilename;
+
+    // Declares the size that the write-ahead log may grow to before it is compacted into a
+    // new snapshot, in bytes
+    private static final long COMPACT_BYTES = 64L << 20;
 
     /*
     Public constructor for the LibraryCollection class, which takes no inputs, and
-    which produces an (empty) LibraryCollection object. Note that the sole private
-    instance variable is initialized to an empty ArrayList of Book objects. Since this
-    method takes no inputs and has no assumptions, it also has no preconditions.
+    which produces an (empty) LibraryCollection object. Note that the private instance
+    variables are initialized to an empty LinkedHashMap of Book objects, empty title and author
+    indexes, six empty rating buckets, an empty index for each read status, an empty pool of unread
+    books, and an empty full-text index. Since this method takes no inputs and has no assumptions,
+    it also has no preconditions.
      */
     public LibraryCollection() {
-        this.bookList = new ArrayList<Book>();
+        this.bookIndex = new LinkedHashMap<String, BookSnapshot>();
+        this.titleIndex = new SortedBookIndex();
+        this.authorIndex = new SortedBookIndex();
+        this.ratingBuckets = new ArrayList<LinkedHashMap<String, ReadOnlyBook>>();
+        for (int i = 0; i <= 5; i++) {
+            this.ratingBuckets.add(new LinkedHashMap<String, ReadOnlyBook>());
+        }
+        this.readIndexes = new EnumMap<Read, SortedBookIndex>(Read.class);
+        this.readIndexes.put(Read.READ, new SortedBookIndex());
+        this.readIndexes.put(Read.UNREAD, new SortedBookIndex());
+        this.unreadPool = new ArrayList<ReadOnlyBook>();
+        this.unreadPositions = new HashMap<String, Integer>();
+        this.textIndex = new InvertedIndex();
+        this.textKeys = new ArrayList<String>();
+        this.authors = new SymbolTable();
+        this.log = null;
+        this.snapshotFilename = null;
     }
 
     /*
-    Public method for obtaining a sorted version of the underlying ArrayList, with an
+    Public method for obtaining a sorted version of the library collection, with an
     enumerated type (specifically, TypeSort) being the only input, which is used to 
     determine what type of sorting to utilize. To prevent issues with encapsulation,
-    the ArrayList<Book> that is returned by this method is a copy of the underlying
-    ArrayList<Book> for the class, with each Book object within the ArrayList being
-    copied as well to prevent any escaping references. Note that, based on the spec, 
-    the only client-available sorting options are by title and author, according to the 
-    functionality of the getBooks command. The use of the TypeSort enum then removes
-    any potential ambiguity involved in determining how to sort, and simplifies the 
-    process of ensuring that the type of sorting being passed into this method is a 
-    valid one. If there are no books currently in the collection, an empty ArrayList<Book>
-    is returned. Also, note that the Collections.sort() method is utilized in order
-    to perform the actual sorting, with the appropriate Comparator<Book> being passed
-    in according to the given type of sorting. 
+    the ArrayList<ReadOnlyBook> that is returned by this method is a new ArrayList, with each
+    Book object within the ArrayList being an immutable BookSnapshot to prevent any escaping
+    references.
+    Note that, based on the spec, the only client-available sorting options are by title and
+    author, according to the functionality of the getBooks command. The use of the TypeSort
+    enum then removes any potential ambiguity involved in determining how to sort, and simplifies
+    the process of ensuring that the type of sorting being passed into this method is a 
+    valid one. If there are no books currently in the collection, an empty ArrayList<ReadOnlyBook>
+    is returned. Also, note that no sorting actually takes place when this method is called,
+    since the title and author indexes are already kept in sorted order as books are added,
+    so the books are simply read out of the appropriate index in linear time. Books with the
+    same title (or author) appear in the order in which they were added to the collection.
 
     @pre howSort != null
-    @return ArrayList<Book> of the books currently in the collection, sorted according to howSort
+    @return ArrayList<ReadOnlyBook> of the books currently in the collection, sorted according to howSort
      */
-    public ArrayList<Book> getSortedCollection(TypeSort howSort) {
-        // First, the Collections class is used to sort the underlying ArrayList according
-        // to the given type of sorting
-        if (howSort.equals(TypeSort.TITLE)) {
-            Collections.sort(bookList, Book.makeComparatorTitle());
-        } else if (howSort.equals(TypeSort.AUTHOR)) {
-            Collections.sort(bookList, Book.makeComparatorAuthor());
-        }
+    public ArrayList<ReadOnlyBook> getSortedCollection(TypeSort howSort) {
+        // We read the books out of the index corresponding to the given type of sorting,
+        // adding each one into the ArrayList that will be returned
+        return listOf(getSortIndex(howSort));
+    }
 
-        // We then copy all of the books from the sorted ArrayList into a new ArrayList,
-        // with this new ArrayList being returned
-        ArrayList<Book> copy = new ArrayList<Book>();
-        for (int i = 0; i < bookList.size(); i++) {
-            Book curBook = bookList.get(i);
-            copy.add(new Book(curBook.getTitle(), curBook.getAuthor(), curBook.getRating(), curBook.getReadStatus()));
+    /*
+    Public method for obtaining a single page of the books currently in the collection, sorted
+    according to howSort in the same way as getSortedCollection(), skipping the first offset
+    books and returning up to limit books after them. Since the title and author indexes keep
+    the number of books under each key, every key before the page is skipped at once rather than
+    book by book, so this takes time proportional to the number of distinct keys before the page
+    plus the size of the page, without ever building a list of the whole collection. Note that
+    getPage() is the better choice for reading through the collection from start to finish.
+
+    @pre howSort != null && offset >= 0 && limit >= 0
+    @return ArrayList<ReadOnlyBook> of up to limit books, starting from the book at position offset
+     */
+    public ArrayList<ReadOnlyBook> getSortedCollection(TypeSort howSort, int offset, int limit) {
+        return getSortIndex(howSort).getRange(offset, limit);
+    }
+
+    /*
+    Public method for obtaining the page of up to limit books that comes just after the position
+    marked by the given continuation token, sorted according to howSort. If the token is null,
+    then the first page is returned. Each page holds the token for the page after it (see
+    BookPage.java), which marks the last book of the page by its title and author rather than
+    by its position, so the next page is found by looking up that book within the title or
+    author index in O(log n) time, no matter how far into the collection it is. One more book
+    than was asked for is read, in order to tell whether this is the last page, in which case
+    the token for the next page is null. If the token given is not valid, then an error message
+    is printed and null is returned.
+
+    @pre howSort != null && limit > 0 && (afterToken was returned for the same howSort)
+    @return BookPage holding the books and the token for the next page, or null if the token is
+        not valid
+     */
+    public BookPage getPage(TypeSort howSort, String afterToken, int limit) {
+        ArrayList<ReadOnlyBook> books;
+        if (afterToken == null) {
+            books = getSortIndex(howSort).getAfter(null, null, limit + 1);
+        } else if (BookPage.isValid(afterToken)) {
+            String title = BookPage.titleOf(afterToken, howSort);
+            String author = BookPage.authorOf(afterToken, howSort);
+            String sortKey = howSort.equals(TypeSort.AUTHOR) ? author : title;
+            books = getSortIndex(howSort).getAfter(sortKey, Book.makeKey(title, author), limit + 1);
+        } else {
+            System.out.println("Error: invalid page token");
+            return null;
         }
-        return copy;
+        return BookPage.of(books, howSort, limit);
     }
 
     /*
     Public method for obtaining a list of the Book objects currently in the collection that
-    have a particular author. Note that the returned list of Books will not have any particular
-    order, and that if there are no books with the given author currently in the collection, 
-    then an empty ArrayList<Book> will simply be returned. Also, to maintain encapsulation,
-    the ArrayList<Book> that is returned is not connected in any way to the underlying ArrayList
-    of the class, and all Book objects in the returned ArrayList are copies of those in the 
-    actual ArrayList. In terms of the sorting algorithm used, this method first sorts the ArrayList
-    according to author, then uses linear search to find the given author and all books associated
-    with them. While this is slightly less efficient than using hashing, performing searching
-    in this way allows for more rapid sorting, without too bad of a search runtime in the average
-    case, and allows for the Book class to contain all book-related information. This method is 
-    not case-sensitive. 
+    have a particular author. Note that the returned list of Books will be in the order in 
+    which they were added to the collection, and that if there are no books with the given
+    author currently in the collection, then an empty ArrayList<ReadOnlyBook> will simply be returned.
+    Also, to maintain encapsulation, the ArrayList<ReadOnlyBook> that is returned is not connected in
+    any way to the underlying data structures of the class, and all Book objects in the returned
+    ArrayList are immutable BookSnapshots. In terms of the searching algorithm used,
+    this method looks up the given author within the author index, which is a TreeMap, so the
+    books are found in O(log n + k) time (where k is the number of books returned), without
+    the collection needing to be sorted or searched linearly. This method is not case-sensitive. 
 
     @pre author != null
-    @return ArrayList<Book> of Book objects with the given author
+    @return ArrayList<ReadOnlyBook> of Book objects with the given author
      */
-    public ArrayList<Book> getBooksWithAuthor(String author) {
-        // First, we sort the underlying ArrayList by author
-        Collections.sort(bookList, Book.makeComparatorAuthor());
-
-        // Initializes the ArrayList to be returned
-        ArrayList<Book> authorList = new ArrayList<Book>();
-
+    public ArrayList<ReadOnlyBook> getBooksWithAuthor(String author) {
         // Converts the given author name to uppercase to avoid case sensitivity, knowing that
-        // the Book class ensures that all internal author data is in all uppercase
-        author = author.toUpperCase();
-
-        // We then iterate until we find a book with the given author
-        int i = 0;
-        while (i < bookList.size()) {
-            Book curBook = bookList.get(i);
-            if (curBook.getAuthor().equals(author)) {
-                // If we find a book with the given author, then we add all books with this
-                // author into the return list
-                while (i < bookList.size() && curBook.getAuthor().equals(author)) {
-                    // Adds the copy to the ArrayList to be returned
-                    Book copy = new Book(curBook.getTitle(), curBook.getAuthor(), curBook.getRating(), curBook.getReadStatus());
-                    authorList.add(copy);
-
-                    // Gets the next book in the list, if such a book exists
-                    i++;
-                    if (i < bookList.size()) {
-                        curBook = bookList.get(i);
-                    }
-                }
-                
-                // The while loop is then broken, since we need not do anything else
-                break;
-            }
-
-            // Otherwise, we increment i
-            i++;
-        }
-
-        // We then return the resulting list of Book objects, which will be empty if
-        // no books with the specified author are present in the collection.
-        return authorList;
+        // the Book class ensures that all internal author data is in all uppercase, then gets
+        // all of the books with this author out of the author index
+        return listOf(authorIndex.getEqual(author.toUpperCase()));
     }
 
     /*
     Public method for obtaining a list of the Book objects currently in the collection 
-    that have a particular title. Note that the returned list of Books will not have
-    any particular order, and that if there are no books in the collection with the given
-    title, then an empty ArrayList is simply returned. Also, to maintain encapsulation,
-    the returned ArrayList<Book> has no connection to the underlying ArrayList<Book> of
-    the class, and all Book objects within the returned ArrayList are copies of those in
-    the actual ArrayList of the class. In terms of how this is actually done, this method
-    first sorts the underlying ArrayList<Book> according to title, then uses linear search
-    to find all the books with the given title. While this may be slightly less efficient
-    of a search algorithm than hashing might provide, structuring our program in this manner
-    allows for more rapid, simple sorting while keeping all of the book-related information
-    within the Book class, and, ultimately, the runtime in the average case is not all too
-    much worse for searching. Note that this method is also not case-sensitive. 
+    that have a particular title. Note that the returned list of Books will be in the order
+    in which they were added to the collection, and that if there are no books in the collection
+    with the given title, then an empty ArrayList is simply returned. Also, to maintain encapsulation,
+    the returned ArrayList<ReadOnlyBook> has no connection to the underlying data structures of the class,
+    and all Book objects within the returned ArrayList are immutable BookSnapshots. In
+    terms of how this is actually done, this method looks up the given title within the title
+    index, which is a TreeMap, so all of the books with this title are found in O(log n + k) time,
+    without the collection needing to be sorted or searched linearly. Note that this method is
+    also not case-sensitive. 
 
     @pre title != null
-    @return ArrayList<Book> of the Books with the given title
+    @return ArrayList<ReadOnlyBook> of the Books with the given title
      */
-    public ArrayList<Book> getBooksWithTitle(String title) {
-        // First, we sort the underlying ArrayList by title
-        Collections.sort(bookList, Book.makeComparatorTitle());
-
-        // Initializes the ArrayList to be returned
-        ArrayList<Book> titleList = new ArrayList<Book>();
-
+    public ArrayList<ReadOnlyBook> getBooksWithTitle(String title) {
         // Puts the given title in uppercase to avoid case sensitivity, considering that the
-        // Book class constructor ensures that all internal strings are in uppercase
-        title = title.toUpperCase();
-
-        // We then iterate until we find a book with the given title
-        int i = 0;
-        while (i < bookList.size()) {
-            Book curBook = bookList.get(i);
-            if (curBook.getTitle().equals(title)) {
-                // If we find a book with the given title, then we iterate through all such
-                // books, adding copies of them to our ArrayList to be returned
-                while (i < bookList.size() && curBook.getTitle().equals(title)) {
-                    // Adds the copy to the ArrayList to be returned
-                    Book copy = new Book(curBook.getTitle(), curBook.getAuthor(), curBook.getRating(), curBook.getReadStatus());
-                    titleList.add(copy);
-
-                    // Gets the next book in the collection, if such a book exists
-                    i++;
-                    if (i < bookList.size()) {
-                        curBook = bookList.get(i);
-                    }
-                }
+        // Book class constructor ensures that all internal strings are in uppercase, then gets
+        // all of the books with this title out of the title index
+        return listOf(titleIndex.getEqual(title.toUpperCase()));
+    }
 
-                // We then break the while loop, since we've already found all of the books we need
-                break;
-            }
+    /*
+    Public method for obtaining a list of the Book objects currently in the collection whose
+    author starts with the given prefix (for example, "TOLK" will find all of the books by
+    "J.R.R. TOLKEIN" only if the prefix is "J.R.R. TOLK", since the match is on the start of
+    the whole author string). The returned list is sorted by author, with books by the same
+    author being in the order in which they were added, and an empty ArrayList<ReadOnlyBook> is returned
+    if no authors match. Since the author index is a TreeMap, the matching books are found with
+    a range scan in O(log n + k) time, where k is the number of books returned. As with the
+    other searching methods, the returned Books are immutable BookSnapshots, and this method is not
+    case-sensitive.
+
+    @pre prefix != null
+    @return ArrayList<ReadOnlyBook> of Book objects whose author starts with the given prefix
+     */
+    public ArrayList<ReadOnlyBook> getBooksWithAuthorPrefix(String prefix) {
+        return listOf(authorIndex.getPrefix(prefix.toUpperCase()));
+    }
 
-            // Otherwise, we increment i and continue looping
-            i++;
-        }
+    /*
+    Public method for obtaining a list of the Book objects currently in the collection whose
+    title starts with the given prefix. The returned list is sorted by title, with books with
+    the same title being in the order in which they were added, and an empty ArrayList<ReadOnlyBook> is
+    returned if no titles match. Since the title index is a TreeMap, the matching books are found
+    with a range scan in O(log n + k) time, where k is the number of books returned. As with the
+    other searching methods, the returned Books are immutable BookSnapshots, and this method is not
+    case-sensitive.
+
+    @pre prefix != null
+    @return ArrayList<ReadOnlyBook> of Book objects whose title starts with the given prefix
+     */
+    public ArrayList<ReadOnlyBook> getBooksWithTitlePrefix(String prefix) {
+        return listOf(titleIndex.getPrefix(prefix.toUpperCase()));
+    }
+
+    /*
+    Public method for obtaining a list of the Book objects currently in the collection whose
+    title or author contains the words of the given query, ranked from the best match to the
+    worst. The words are matched regardless of case and accents, and a word only has to match a
+    whole word of the title or author (so "fellowship" finds "The Fellowship of the Ring"). If
+    matchAll is true, then only books containing every word of the query are returned, and
+    otherwise books containing any of the words are returned. Matches of rarer words, and
+    matches within the title, rank higher. This is done with the full-text index, which is kept
+    up to date as books are added, so the time taken depends on the number of books containing
+    the words of the query rather than on the size of the collection. As with the other
+    searching methods, the returned Books are immutable BookSnapshots.
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> of the matching books, best match first
+     */
+    public ArrayList<ReadOnlyBook> search(String query, boolean matchAll) {
+        return booksWithTextIds(textIndex.search(query, matchAll));
+    }
 
-        // Finally, we return the resulting ArrayList of books with the given title
-        return titleList;
+    /*
+    Public method for obtaining a list of the Book objects currently in the collection matching
+    the words of the given query, in the same way as the search() method, except that each word
+    also matches words that are spelled almost the same (so "tolkein" finds the books by
+    Tolkien). Words of up to three letters must match exactly, words of up to seven letters may
+    be one edit away (where an edit is adding, removing, or changing a letter, or swapping two
+    neighbouring letters), and longer words may be two edits away. The books are ranked in the
+    same way as for search(), with a closer spelling counting for more. The similar words are
+    found with a trigram index over every word in the collection, so no book is looked at unless
+    it contains one of the similar words, and the returned Books are immutable BookSnapshots.
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> of the matching books, best match first
+     */
+    public ArrayList<ReadOnlyBook> fuzzySearch(String query, boolean matchAll) {
+        return booksWithTextIds(textIndex.fuzzySearch(query, matchAll));
     }
 
     /*
     Public method for obtaining a list of the Book objects currently in the collection that
-    have a particular rating. Note that the returned list of Books will not have any particular
-    order, and that if there are no books in the collection with the given rating, then an 
-    empty ArrayList<Book> will simply be returned. Also, to maintain encapsulation,
-    the returned ArrayList<Book> has no connection to the underlying ArrayList<Book> of
-    the class, and all Book objects within the returned ArrayList are copies of those in
-    the actual ArrayList of the class. It's also assumed that the given rating is within 
-    the valid range from 1-5, so books that have not yet been rated cannot be searched for
-    in this manner. In terms of how this is actually done, the underlying ArrayList<Book>
-    is first sorted with respect to rating, and linear search is then used to find all
-    books with the given rating. While this is slightly less efficent than searching with 
-    a HashMap might be, structuring our program in this way allows for fast, simple sorting
-    while keeping all book-related information within the Book class, all without the 
-    runtime of the search algorithm being overly inefficient.
+    have a particular rating. Note that the returned list of Books will be in the order in which
+    they were given this rating, and that if there are no books in the collection with the given
+    rating, then an empty ArrayList<ReadOnlyBook> will simply be returned. Also, to maintain encapsulation,
+    the returned ArrayList<ReadOnlyBook> has no connection to the underlying data structures of
+    the class, and all Book objects within the returned ArrayList are immutable BookSnapshots.
+    It's also assumed that the given rating is within the valid range from 1-5,
+    so books that have not yet been rated cannot be searched for in this manner. In terms of how
+    this is actually done, each book is kept within a bucket corresponding to its current rating,
+    and these buckets are updated whenever a book's rating changes, so the books are simply read
+    out of the appropriate bucket in O(k) time, where k is the number of books returned. 
 
     @pre rating >= 1 && rating <= 5
-    @return ArrayList<Book> of the Books currently in the collection with the given rating
-     */
-    public ArrayList<Book> getBooksWithRating(int rating) {
-        // First, we sort the underlying ArrayList by rating
-        Collections.sort(bookList, Book.makeComparatorRating());
-
-        // Initializes the ArrayList to be returned
-        ArrayList<Book> ratingList = new ArrayList<Book>();
-
-        // We then iterate until we find a book with the given rating
-        int i = 0;
-        while (i < bookList.size()) {
-            Book curBook = bookList.get(i);
-            if (curBook.getRating() == rating) {
-                // If we find a book with a particular rating, then we iterate through all
-                // such books, adding them to the ArrayList to be returned
-                while (i < bookList.size() && curBook.getRating() == rating) {
-                    // Adds a copy of the book to the ArrayList
-                    Book copy = new Book(curBook.getTitle(), curBook.getAuthor(), curBook.getRating(), curBook.getReadStatus());
-                    ratingList.add(copy);
-
-                    // Increments i and gets the next book in the collection, if there is one
-                    i++;
-                    if (i < bookList.size()) {
-                        curBook = bookList.get(i);
-                    }
-                }
-
-                // We can then break the loop, since we've found everything that we need
-                break;
-            }
-
-            // Otherwise, we simply increment i and continue looping
-            i++;
-        }
-
-        // We then return the resulting ArrayList
-        return ratingList;
+    @return ArrayList<ReadOnlyBook> of the Books currently in the collection with the given rating
+     */
+    public ArrayList<ReadOnlyBook> getBooksWithRating(int rating) {
+        // We get all of the books out of the bucket for the given rating
+        return listOf(ratingBuckets.get(ratingSlot(rating)).values());
     }
 
     /*
     Public method which takes in two Strings representing the title and author (respectively),
-    and which adds the corresponding Book object into the underlying ArrayList<Book> for the 
+    and which adds the corresponding Book object into the underlying ArrayList<ReadOnlyBook> for the 
     class. Note that this method assumes that the corresponding Book object has not already
     been added to the library collection, with this assumption being ensured to be true by the 
     input validation present within the class representing the View element of the Model-View-Controller. 
-    This method then does not return anything.
+    Note that the new Book is placed into the
+    underlying LinkedHashMap, so that it can be found in constant time by the methods below,
+    and into each of the secondary indexes, which takes O(log n) time. If a write-ahead log is
+    open and the new book cannot be recorded in it, then the book is not added at all, and
+    false is returned.
 
     @pre title != null && author != null && !alreadyInCollection(title, author)
+    @return true if the book was added, and false if it could not be recorded in the log
      */
-    public void addBook(String title, String author) {
-        // Creates a new Book object and adds it to the underlying ArrayList
-        Book newBook = new Book(title, author);
-        bookList.add(newBook);
+    public boolean addBook(String title, String author) {
+        // Creates a new BookSnapshot and adds it to the underlying LinkedHashMap and the indexes
+        BookSnapshot newBook = new BookSnapshot(title, author);
+        return indexBook(newBook);
     }
 
     /*
     Public method that can be used to determine whether a book with the given title and
     author already exists within the collection. This method returns true if the book
     is already in the collection, and false otherwise. Note that, in order to actually
-    try to find the given book, linear search is used on the underlying ArrayList. While
-    this is slightly less efficient than binary search may be, using this algorithm ensures
-    that if we have multiple books with the same author or the same title, then we know
-    without additional checking that the book we've found is the correct one, which is 
-    why we chose to implement this method in this manner. Furthermore, the average-case
-    runtime for linear search is not significantly worse than that of binary search,
-    especially when considering the additional checking required for binary search, which
-    further supports this decision.
+    try to find the given book, its key is looked up in the underlying LinkedHashMap rather
+    than searching through every book. Since the key of each book contains both its title and its author,
+    if we have multiple books with the same author or the same title, then we know without
+    additional checking that the book we've found is the correct one, and the lookup takes
+    constant time on average, regardless of the size of the collection. 
 
     @pre title != null && author != null
     @return true if the book is already in our library collection, and false otherwise
      */
     public boolean alreadyInCollection(String title, String author) {
-        // Creates a dummy Book object with this title and author
-        Book dummy = new Book(title, author);
-
-        // Iterates through the collection to see if such a book can be found
-        for (int i = 0; i < bookList.size(); i++) {
-            Book curBook = bookList.get(i);
-            if (curBook.equals(dummy)) {
-                // If we find this book, we return true
-                return true;
-            }
-        }
-
-        // If no books with this title and author are found, we return false
-        return false;
+        // Looks up the key for this title and author within the index
+        return bookIndex.containsKey(Book.makeKey(title, author));
     }
 
     /*
@@ -322,169 +374,325 @@ public class LibraryCollection {
     the corresponding book in the collection as being read. Note that this method assumes that
     all books in the collection are unique, and that a book with the given title and author
     is present within the library collection. Furthermore, if the book has already been marked
-    as read, then nothing is actually changed within the program state. The method does not 
-    return anything. Note again that the search algorithm used here is linear search, as is 
-    the case with the method above, and this is similarly used to prevent any ambiguity and
-    additional checking in the case that multiple books have the same author or the same title,
-    especially considering that linear search is still a relatively efficient algorithm.
+    as read, then nothing is actually changed within the program state. Note again that the book is
+    found using its key, as is the case with the method above, which prevents any ambiguity in the
+    case that multiple books have the same author or the same title, and which avoids searching
+    through the whole collection. The BookSnapshot for the book is then replaced by a new one that
+    has been read, which is moved from the index of unread books into the index of read books, and
+    the book is removed from the pool of unread books, all of which takes O(log n) time. If a
+    write-ahead log is open and the change cannot be recorded in it, then the book is left as it
+    was, and false is returned.
 
     @pre title != null && author != null && alreadyInCollection(title, author)
+    @return true unless the change could not be recorded in the log (and so was not made)
      */
-    public void setToRead(String title, String author) {
-        // First, a dummy Book is constructed with the same title and author
-        Book dummy = new Book(title, author);
-
-        // We then iterate through the collection to find the desired book
-        for (int i = 0; i < bookList.size(); i++) {
-            Book curBook = bookList.get(i);
-            if (curBook.equals(dummy)) {
-                // If we find the desired book, then we update its read status to read,
-                // then exit the method, since nothing else needs to be done
-                curBook.setRead();
-                return;
-            }
+    public boolean setToRead(String title, String author) {
+        // We find the desired book using its key
+        BookSnapshot curBook = bookIndex.get(Book.makeKey(title, author));
+
+        // If the book was found (and has not been read yet), then we replace it with a
+        // version of the book that has been read
+        if (curBook != null && curBook.getReadStatus().equals(Read.UNREAD)) {
+            return updateBook(curBook, curBook.withRead());
         }
+        return true;
     }
 
     /*
     Public method which updates the rating for the book in the collection with the given title
     and author. Note that this method assumes that all books in the collection are unique, and
     that a book exists within the collection with the given title and author. Also, it is 
-    assumed that the given rating is within the valid range from 1-5. The method then does not
-    return anything. Note that these assumptions are ensured to be true via the input validation
-    present within the View class of the Model-View-Controller structure. Furthermore, as is the
-    case with the above two methods, linear search is used (rather than binary search) in order 
-    to prevent any ambiguity and additional checking in the case when multiple books have the 
-    same author or title, especially considering that linear search is still relatively efficient.
+    assumed that the given rating is within the valid range from 1-5. Note that these assumptions
+    are ensured to be true via the input validation present within the View class of the
+    Model-View-Controller structure. Furthermore, as is the case with the above two methods, the
+    book's key is used in order to find the book in constant time, without any ambiguity when
+    multiple books have the same author or title. The BookSnapshot for the book is then replaced by
+    a new one with the given rating, which is moved from the bucket for its old rating into the
+    bucket for its new one. As with setToRead(), if the change cannot be recorded in the write-ahead
+    log, then it is not made, and false is returned.
 
     @pre title != null && author != null && rating >= 1 && rating <= 5 && alreadyInCollection(title, author)
+    @return true unless the change could not be recorded in the log (and so was not made)
+     */
+    public boolean updateBookRating(String title, String author, int rating) {
+        // We find the desired book using its key
+        BookSnapshot curBook = bookIndex.get(Book.makeKey(title, author));
+
+        // If the book was found (and its rating is actually changing), then we replace it
+        // with a version of the book that has the new rating
+        if (curBook != null && curBook.getRating() != rating) {
+            return updateBook(curBook, curBook.withRating(rating));
+        }
+        return true;
+    }
+
+    /*
+    Public method which marks every book with one of the given keys (see Book.makeKey()) as read,
+    as a single batch. Rather than finding and changing each book in turn, as calling setToRead()
+    for each key would, this is done in two passes. First, every key is looked up in the
+    underlying LinkedHashMap (which joins the keys against the collection in one pass over the
+    keys, taking constant time per key), which decides the result for each key without changing
+    anything, and then all of the changes are made together (see applyBatch()). The result for
+    each key is APPLIED if the book was marked as read, UNCHANGED if it had already been read (or
+    appeared earlier in the batch), NOT_FOUND if there is no such book, and INVALID if the key is
+    not a key at all. As with setToRead(), each changed book is replaced by a new BookSnapshot.
+    If the batch cannot be recorded in the write-ahead log, then none of it is made, and the
+    result for each key that would have been APPLIED is FAILED instead.
+
+    @pre keys != null
+    @return ArrayList<BatchResult> holding the result for each of the given keys, in order
      */
-    public void updateBookRating(String title, String author, int rating) {
-        // Creates a dummy Book with the desired title and author
-        Book dummy = new Book(title, author);
-
-        // We then iterate through the collection to find the desired book
-        for (int i = 0; i < bookList.size(); i++) {
-            Book curBook = bookList.get(i);
-            if (curBook.equals(dummy)) {
-                // If we find the desired book, then we update its rating and exit the
-                // method, since there's nothing else to be done
-                curBook.updateRating(rating);
-                return;
+    public ArrayList<BatchResult> setToRead(Collection<String> keys) {
+        ArrayList<BatchResult> results = new ArrayList<BatchResult>(keys.size());
+        LinkedHashMap<String, BookSnapshot> changes = new LinkedHashMap<String, BookSnapshot>();
+        for (String key : keys) {
+            if (key == null || key.indexOf('\n') < 0) {
+                results.add(BatchResult.INVALID);
+                continue;
+            }
+            BookSnapshot curBook = bookIndex.get(key.toUpperCase());
+            if (curBook == null) {
+                results.add(BatchResult.NOT_FOUND);
+            } else if (curBook.getReadStatus().equals(Read.READ) || changes.containsKey(curBook.getKey())) {
+                results.add(BatchResult.UNCHANGED);
+            } else {
+                changes.put(curBook.getKey(), curBook.withRead());
+                results.add(BatchResult.APPLIED);
             }
         }
+        if (!applyBatch(MutationLog.UPDATE, changes.values())) {
+            BatchResult.failApplied(results);
+        }
+        return results;
     }
 
     /*
-    Public method which obtains a list of all of the Book objects currently in the library
-    collection that have been marked as read, with the returned list being sorted according
-    to the titles of the books. If no books that have been read are present within the library
-    collection, then an empty ArrayList<Book> is simply returned. Also, note that in order to 
-    maintain encapsulation, the returned ArrayList<Book> does not have any connections with the
-    underlying ArrayList<Book> of the class, and that all of the Book objects in the returned
-    ArrayList are copies of those in the underlying ArrayList. This method then does not have 
-    any preconditions, since it has no inputs and makes no assumptions. Again, this method
-    utilizes the linear search algorithm, in this case to more simply ensure that the 
-    returned list is automatically sorted by title. The big-O efficiency also would not differ
-    if the underlying ArrayList was sorted according to read vs. unread, which is why we chose
-    not to utilize this approach. 
-
-    @return ArrayList<Book> of all the Book objects in the collection that have been read
-     */
-    public ArrayList<Book> allReadBooks() {
-        // First, the underlying ArrayList for the collection is sorted by title
-        Collections.sort(bookList, Book.makeComparatorTitle());
-
-        // Initializes the ArrayList of read books that will be returned
-        ArrayList<Book> readBooks = new ArrayList<Book>();
-        
-        // We then iterate through the full ArrayList, finding all of the books that
-        // have been read
-        for (int i = 0; i < bookList.size(); i++) {
-            Book curBook = bookList.get(i);
-            if (curBook.getReadStatus().equals(Read.READ)) {
-                // If we find a book that has been read, then we make a copy of it and 
-                // add it to the ArrayList that will be returned
-                Book copy = new Book(curBook.getTitle(), curBook.getAuthor(), curBook.getRating(), curBook.getReadStatus());
-                readBooks.add(copy);
+    Public method which gives each book with one of the keys of the given map (see
+    Book.makeKey()) the rating that the key maps to, as a single batch, in the same two passes
+    as the setToRead() method above. The result for each entry is APPLIED if the rating of the
+    book was changed, UNCHANGED if the book already had that rating, NOT_FOUND if there is no such
+    book, and INVALID if the key is not a key at all or the rating is not in the range from 1-5.
+    If a book appears more than once (with keys that differ only in case), then the last of its
+    ratings is the one that it ends up with.
+
+    @pre ratings != null
+    @return ArrayList<BatchResult> holding the result for each entry of the given map, in order
+     */
+    public ArrayList<BatchResult> updateRatings(Map<String, Integer> ratings) {
+        ArrayList<BatchResult> results = new ArrayList<BatchResult>(ratings.size());
+        LinkedHashMap<String, BookSnapshot> changes = new LinkedHashMap<String, BookSnapshot>();
+        for (Map.Entry<String, Integer> entry : ratings.entrySet()) {
+            String key = entry.getKey();
+            Integer rating = entry.getValue();
+            if (key == null || key.indexOf('\n') < 0 || rating == null || rating < 1 || rating > 5) {
+                results.add(BatchResult.INVALID);
+                continue;
+            }
+            // A book changed earlier in the batch is compared against its pending version
+            BookSnapshot curBook = changes.get(key.toUpperCase());
+            if (curBook == null) {
+                curBook = bookIndex.get(key.toUpperCase());
+            }
+            if (curBook == null) {
+                results.add(BatchResult.NOT_FOUND);
+            } else if (curBook.getRating() == rating) {
+                results.add(BatchResult.UNCHANGED);
+            } else {
+                changes.put(curBook.getKey(), curBook.withRating(rating));
+                results.add(BatchResult.APPLIED);
             }
         }
+        if (!applyBatch(MutationLog.UPDATE, changes.values())) {
+            BatchResult.failApplied(results);
+        }
+        return results;
+    }
+
+    /*
+    Public method which adds each of the given books that is not already in the collection, as a
+    single batch, keeping the rating and read status of each book (as is done when loading a
+    snapshot). The result for each book is APPLIED if it was added, DUPLICATE if it was already
+    in the collection (or appeared earlier in the batch), and INVALID if it is null or has a
+    rating outside of the range from 1-5 (other than -1, for a book that has not been rated).
+    Each book that is added is stored as a new BookSnapshot, so the given books are not kept.
+    As with the other batches, if the batch cannot be recorded in the write-ahead log, then no
+    books are added, and each result that would have been APPLIED is FAILED instead.
+
+    @pre books != null
+    @return ArrayList<BatchResult> holding the result for each of the given books, in order
+     */
+    public ArrayList<BatchResult> addBooks(Collection<? extends ReadOnlyBook> books) {
+        ArrayList<BatchResult> results = new ArrayList<BatchResult>(books.size());
+        LinkedHashMap<String, BookSnapshot> additions = new LinkedHashMap<String, BookSnapshot>();
+        for (ReadOnlyBook curBook : books) {
+            if (curBook == null || curBook.getReadStatus() == null || curBook.getRating() == 0
+                    || curBook.getRating() < -1 || curBook.getRating() > 5) {
+                results.add(BatchResult.INVALID);
+            } else if (bookIndex.containsKey(curBook.getKey()) || additions.containsKey(curBook.getKey())) {
+                results.add(BatchResult.DUPLICATE);
+            } else {
+                additions.put(curBook.getKey(), new BookSnapshot(curBook.getTitle(), curBook.getAuthor(),
+                        curBook.getRating(), curBook.getReadStatus()));
+                results.add(BatchResult.APPLIED);
+            }
+        }
+        if (!applyBatch(MutationLog.ADD, additions.values())) {
+            BatchResult.failApplied(results);
+        }
+        return results;
+    }
 
-        // We then return the resulting ArrayList of read books
-        return readBooks;
+    /*
+    Public method which obtains a list of all of the Book objects currently in the library
+    collection that have been marked as read, with the returned list being sorted according
+    to the titles of the books. If no books that have been read are present within the library
+    collection, then an empty ArrayList<ReadOnlyBook> is simply returned. Also, note that in order to 
+    maintain encapsulation, the returned ArrayList<ReadOnlyBook> does not have any connections with the
+    underlying data structures of the class, and that all of the Book objects in the returned
+    ArrayList are immutable BookSnapshots. This method then does not have any
+    preconditions, since it has no inputs and makes no assumptions. In terms of how this is
+    done, the read books are kept within their own index, which is sorted by title, so they
+    are simply read out of this index in O(k) time, where k is the number of read books.
+
+    @return ArrayList<ReadOnlyBook> of all the Book objects in the collection that have been read
+     */
+    public ArrayList<ReadOnlyBook> allReadBooks() {
+        return booksWithReadStatus(Read.READ);
     }
 
     /*
     Public method which obtains a list of all of the Book objects currently in the library
     collection that have not been marked as read, with the returned list being sorted according
     to the titles of the books. If no books that have not been read are present within the library
-    collection, then an empty ArrayList<Book> is simply returned. Also, note that in order to 
-    maintain encapsulation, the returned ArrayList<Book> does not have any connections with the
-    underlying ArrayList<Book> of the class, and that all of the Book objects in the returned
-    ArrayList are copies of those in the underlying ArrayList. This method then does not have 
-    any preconditions, since it has no inputs and makes no assumptions. As is the case with 
-    the above method, linear search is utilized in order to find these unread books, since this
-    helps to automatically ensure that the returned ArrayList<Book> is sorted according to title.
-    Furthermore, the big-O of this method would not differ if we were to pre-sort the underlying
-    array by read/unread, which is why we chose not to utilize this slightly more complicated
-    approach. 
-
-    @return ArrayList<Book> of all the Book objects in the collection that have not been read
-     */
-    public ArrayList<Book> allUnreadBooks() {
-        // First, the underlying ArrayList for the collection is sorted by title
-        Collections.sort(bookList, Book.makeComparatorTitle());
-
-        // Initializes the ArrayList of unread books that will be returned
-        ArrayList<Book> unreadBooks = new ArrayList<Book>();
-        
-        // We then iterate through the full ArrayList, finding all of the books that
-        // have not been read
-        for (int i = 0; i < bookList.size(); i++) {
-            Book curBook = bookList.get(i);
-            if (curBook.getReadStatus().equals(Read.UNREAD)) {
-                // If we find a book that has not been read, then we make a copy of it and 
-                // add it to the ArrayList that will be returned
-                Book copy = new Book(curBook.getTitle(), curBook.getAuthor(), curBook.getRating(), curBook.getReadStatus());
-                unreadBooks.add(copy);
-            }
-        }
+    collection, then an empty ArrayList<ReadOnlyBook> is simply returned. Also, note that in order to 
+    maintain encapsulation, the returned ArrayList<ReadOnlyBook> does not have any connections with the
+    underlying data structures of the class, and that all of the Book objects in the returned
+    ArrayList are immutable BookSnapshots. This method then does not have any
+    preconditions, since it has no inputs and makes no assumptions. As is the case with the
+    above method, the unread books are kept within their own index, sorted by title, so they
+    are simply read out of this index in O(k) time, where k is the number of unread books.
+
+    @return ArrayList<ReadOnlyBook> of all the Book objects in the collection that haven't been read
+     */
+    public ArrayList<ReadOnlyBook> allUnreadBooks() {
+        return booksWithReadStatus(Read.UNREAD);
+    }
+
+    /*
+    Private helper method which obtains a list of all of the Book objects in the collection
+    with the given read status, sorted according to title. This is done by simply reading the
+    books out of the index for the given read status.
+
+    @pre readStatus != null
+    @return ArrayList<ReadOnlyBook> of the books with the given read status, sorted by title
+     */
+    private ArrayList<ReadOnlyBook> booksWithReadStatus(Read readStatus) {
+        return listOf(readIndexes.get(readStatus));
+    }
+
+    /*
+    Public method for obtaining the number of books in the collection that have a particular
+    rating. Since the books are grouped into buckets by rating, this is simply the size of the
+    appropriate bucket, and so it takes constant time. Note that a rating of -1 may be given
+    in order to count the books that have not been rated yet.
+
+    @pre rating == -1 || (rating >= 1 && rating <= 5)
+    @return an int representing the number of books with the given rating
+     */
+    public int countBooksWithRating(int rating) {
+        return ratingBuckets.get(ratingSlot(rating)).size();
+    }
+
+    /*
+    Public method for obtaining the number of books in the collection that have been marked
+    as read. This is simply the size of the index of read books, so it takes constant time.
+    Since this method takes no inputs and makes no assumptions, it has no preconditions.
 
-        // We then return the resulting ArrayList of unread books
-        return unreadBooks;
+    @return an int representing the number of read books in the collection
+     */
+    public int countReadBooks() {
+        return readIndexes.get(Read.READ).size();
+    }
+
+    /*
+    Public method for obtaining the number of books in the collection that have not been
+    marked as read. This is simply the size of the index of unread books, so it takes constant
+    time. Since this method takes no inputs and makes no assumptions, it has no preconditions.
+
+    @return an int representing the number of unread books in the collection
+     */
+    public int countUnreadBooks() {
+        return readIndexes.get(Read.UNREAD).size();
     }
 
     /*
     Public method which returns a random Book object corresponding to an unread book in the library
-    collection. In order to maintain encapsulation, this Book object is actually a copy of
-    one of the Books in the underlying ArrayList<Book> of the class. This method also assumes
+    collection. In order to maintain encapsulation, this Book object is an immutable BookSnapshot,
+    so it is returned directly rather than being copied. This method also assumes
     that at least one Book exists within the library collection, though it need not necessarily
     be unread, since a null return value is used to indicate that there are no unread books present
     within the library collection. The class representing the View then ensures that these assumptions
     are upheld. Note that the requirement that the collection not be empty is simply there to ensure
     that the view throws an appropriate error message, according to whether there are no books or simply
-    no unread books. 
+    no unread books. In terms of how this is done, a random position is chosen within the pool of
+    unread books, which is kept up to date as books are added and read, so no list of unread books
+    needs to be built, and the whole method takes constant time. The random position is generated
+    using ThreadLocalRandom, which avoids creating a new Random object each time this is called.
 
     @pre !isEmpty()
-    @return Book object which represents a copy of a random unread book in the library collection, or null
+    @return ReadOnlyBook object which represents a random unread book in the library collection, or null
         if there are no unread books. 
      */
-    public Book getRandomBook() {
-        // First, we get a list of all of the unread books in the library
-        ArrayList<Book> unread = allUnreadBooks();
-
-        // If there is nothing in the array, then we return null
-        if (unread.size() == 0) {
+    public ReadOnlyBook getRandomBook() {
+        // If there are no unread books, then we return null
+        if (unreadPool.size() == 0) {
             return null;
         }
 
-        // Otherwise, we get a random index within this ArrayList of unread books
-        Random random = new Random();
-        int randIndex = random.nextInt(unread.size());
+        // Otherwise, we get a random index within the pool of unread books
+        int randIndex = ThreadLocalRandom.current().nextInt(unreadPool.size());
 
-        // We then return the copy of this random book
-        Book randBook = unread.get(randIndex);
-        return randBook;
+        // We then return this random book
+        return unreadPool.get(randIndex);
+    }
+
+    /*
+    Public method which returns a list of k distinct random unread books from the library
+    collection, with each of the Book objects being an immutable BookSnapshot. If
+    there are fewer than k unread books, then all of the unread books are returned (in a random
+    order), and if there are none, an empty ArrayList<ReadOnlyBook> is returned. In terms of how this is
+    done, a partial Fisher-Yates shuffle is performed on the pool of unread books: for each of the
+    first k positions, a random position at or after it is chosen, and the books at these two
+    positions are swapped. The first k books in the pool are then a uniformly random selection of
+    k distinct unread books, and the whole method takes O(k) time. Note that the order of the pool
+    of unread books does not matter, so rearranging it in this way has no other effects.
+
+    @pre k >= 0
+    @return ArrayList<ReadOnlyBook> of up to k distinct random unread books
+     */
+    public ArrayList<ReadOnlyBook> suggest(int k) {
+        // Initializes the ArrayList to be returned, with no more books than are available
+        int count = Math.min(k, unreadPool.size());
+        ArrayList<ReadOnlyBook> suggestions = new ArrayList<ReadOnlyBook>(count);
+
+        // We then perform the first count steps of a Fisher-Yates shuffle on the pool
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < count; i++) {
+            // Chooses a random position from i to the end of the pool, and swaps the books
+            // at these two positions, recording their new positions
+            int j = i + random.nextInt(unreadPool.size() - i);
+            ReadOnlyBook chosen = unreadPool.get(j);
+            ReadOnlyBook displaced = unreadPool.get(i);
+            unreadPool.set(i, chosen);
+            unreadPool.set(j, displaced);
+            unreadPositions.put(chosen.getKey(), i);
+            unreadPositions.put(displaced.getKey(), j);
+
+            // Adds the chosen book to the ArrayList to be returned
+            suggestions.add(chosen);
+        }
+
+        return suggestions;
     }
 
     /*
@@ -493,74 +701,611 @@ public class LibraryCollection {
     was given with the spec, with the first line simply being "Title;Author", and all other
     lines describing books with this specific format structure (one book per line). Note, 
     though, that only books that are not already in the library collection are added to 
-    the library collection from the file. This method does not return anything. Also, if
-    the given file cannot be found, then an error message is simply printed, and the method
-    automatically returns. 
+    the library collection from the file. In terms of how this is done, the file is mapped
+    into memory and scanned byte by byte by the CatalogParser class, which splits each line at
+    its first semicolon and only decodes the title and author, and each resulting book is checked
+    against the HashMap index, which also catches books that appear more than once within the
+    file itself. As a result, the time taken is linear in the size of the file. Lines without a
+    semicolon are counted as malformed and skipped, and blank lines are simply ignored. This method
+    returns an ImportReport that describes how many books were added, how many were duplicates, and
+    how many lines were malformed. Also, if the given file cannot be found or read, then an error
+    message is simply printed, and null is returned. The same happens if a write-ahead log is open
+    and one of the books cannot be recorded in it, in which case the import stops at that book, and
+    the books before it are kept.
 
     @pre filename != null && (file structure is as described in the spec)
+    @return ImportReport describing the result of the import, or null if the file could not be read
      */
-    public void addBooksFromFile(String filename) {
-        // First, we open this file and create a corresponding Scanner object for it
-        File bookFile = new File(filename);
-        Scanner scanner;
-        try {
-            scanner = new Scanner(bookFile);
-        } catch (FileNotFoundException e) {
+    public ImportReport addBooksFromFile(String filename) {
+        return addBooksFromFile(filename, ImportProgress.NONE);
+    }
+
+    /*
+    Public method which adds all of the books from a file into the library collection in the
+    same way as addBooksFromFile() above, while telling the given listener how much of the file
+    has been read after each section of it (see ImportProgress.java). If the listener cancels
+    the import, then the books that were already read are kept, and the rest of the file is
+    skipped, with the returned ImportReport recording the cancellation.
+
+    @pre filename != null && progress != null && (file structure is as described in the spec)
+    @return ImportReport describing the result of the import, or null if the file could not be read
+     */
+    public ImportReport addBooksFromFile(String filename, ImportProgress progress) {
+        ImportReport report = new ImportReport();
+
+        // First, we open this file, with the try-with-resources statement ensuring that it is
+        // always closed, and hand the whole file to the CatalogParser
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            // Each book that was read in is added to our collection, if it is not already
+            // in the collection. Otherwise, the line is counted as a duplicate
+            CatalogParser.parse(channel, curBook -> addParsed(curBook, report), report, progress);
+        } catch (IOException e) {
             System.out.println("Error: given file not found");   
-            return;
-        }
-
-        // We then ignore the first line in the file, and iterate until there are
-        // no more lines left to read
-        scanner.nextLine();
-        while (scanner.hasNext()) {
-            // Gets the current line from the Scanner object
-            String curLine = scanner.nextLine();
-
-            // We then iterate through this line until we hit a semicolon to construct
-            // a String representing the title
-            String curTitle = "";
-            int i = 0;
-            while (curLine.charAt(i) != ';') {
-                curTitle += curLine.charAt(i);
-                i++;
-            }
+            return null;
+        } catch (UncheckedIOException e) {
+            // A book could not be recorded in the write-ahead log, so the import stops there
+            return null;
+        }
 
-            // Once we find the semicolon, we ignore it, then iterate through the rest 
-            // of the line to construct the author string
-            String curAuthor = "";
-            i++;
-            while (i < curLine.length()) {
-                curAuthor += curLine.charAt(i);
-                i++;
-            }
+        // Finally, when we're done reading in lines, the report is returned
+        return report;
+    }
 
-            // We then create a new Book object with this title and author, and add it 
-            // to our collection, if it is not already in the collection. Otherwise,
-            // nothing is done
-            if (!alreadyInCollection(curTitle, curAuthor)) {
-                Book curBook = new Book(curTitle, curAuthor);
-                bookList.add(curBook);
-            }
+    /*
+    Public method which adds all of the books from several files (each in the same format as
+    is read by addBooksFromFile()) into the library collection at once, using every core of the
+    machine. The files are read and parsed in parallel by the ParallelImporter class, which also
+    splits any large file into chunks that are read at the same time, and the books that were
+    read are merged into the collection one chunk after the other (while the next chunks are
+    being read), in the same order as they appear in the files, so only a few chunks are held in
+    memory at once. As with addBooksFromFile(), only books that are not already in the
+    library collection (or that appear earlier in the files) are added, and the returned
+    ImportReport describes how many books were added, how many were duplicates, and how many
+    lines were malformed. Since every file is opened before any books are added, if any of the
+    given files cannot be found, then an error message is printed, no books are added at all,
+    and null is returned (while a file that cannot be read partway through keeps the books of
+    the chunks before it, in the same way as addBooksFromFile()).
+
+    @pre filenames != null && (each file's structure is as described in the spec)
+    @return ImportReport describing the result of the import, or null if a file could not be read
+     */
+    public ImportReport addBooksFromFiles(List<String> filenames) {
+        ImportReport report = new ImportReport();
+
+        // Every file is read and parsed in parallel, with the books being merged into the
+        // collection as each chunk is finished, skipping any duplicates
+        try {
+            new ParallelImporter(Runtime.getRuntime().availableProcessors()).parse(filenames, report,
+                    curBook -> addParsed(curBook, report));
+        } catch (IOException e) {
+            System.out.println("Error: given file not found");
+            return null;
+        } catch (UncheckedIOException e) {
+            return null;
+        }
+        return report;
+    }
+
+    /*
+    Public method which saves every book in the library collection (including its rating and
+    read status) to a binary snapshot file with the given name, so that the whole collection
+    can be restored later using loadSnapshot(). The books are written in the order in which they
+    were added to the collection. The details of the file format can be found in the
+    LibrarySnapshot class. If the file cannot be written, then an error message is simply
+    printed, and false is returned.
+
+    @pre filename != null
+    @return true if the snapshot was saved, and false otherwise
+     */
+    public boolean saveSnapshot(String filename) {
+        try {
+            LibrarySnapshot.write(bookIndex.values(), filename);
+        } catch (IOException e) {
+            System.out.println("Error: snapshot could not be saved");
+            return false;
+        }
+        return true;
+    }
+
+    /*
+    Public method which adds all of the books from a binary snapshot file (as written by
+    saveSnapshot()) into the library collection, keeping the rating and read status that each
+    book had when it was saved. As with addBooksFromFile(), only books that are not already in
+    the library collection are added, and the returned ImportReport describes how many books
+    were added and how many were duplicates. Since the snapshot is mapped into memory and its
+    strings are already separated out, this is considerably faster than importing a text file
+    of the same size. If the given file cannot be read, or is not a valid snapshot, then an error
+    message is simply printed, and null is returned. Note that the books from a snapshot that
+    turns out to be damaged partway through may have already been added by that point.
+
+    @pre filename != null
+    @return ImportReport describing the result of the load, or null if the file could not be read
+     */
+    public ImportReport loadSnapshot(String filename) {
+        ImportReport report = new ImportReport();
+        try {
+            // Each book from the snapshot is added, unless it is already in the collection
+            LibrarySnapshot.read(filename, curBook -> addParsed(curBook, report));
+        } catch (IOException e) {
+            System.out.println("Error: given snapshot could not be read");
+            return null;
+        } catch (UncheckedIOException e) {
+            return null;
+        }
+        return report;
+    }
+
+    /*
+    Public method which starts keeping the library collection on disk, so that none of the
+    changes made to it are lost if the program stops unexpectedly. First, the books from the
+    snapshot file with the given name are loaded (if the file exists), and then every change in
+    the write-ahead log file with the given name is replayed on top of them, bringing the
+    collection back to the state it was in when the program last stopped. From then on, every
+    book that is added, read, or rated is recorded in the log before the change is made in
+    memory, with the given durability level deciding how soon each change reaches the disk
+    (see Durability.java). Once the log grows past COMPACT_BYTES, it is compacted, which saves
+    the whole collection into the snapshot file and empties out the log. If either file cannot
+    be read, or a log is already open, then an error message is simply printed, and false is
+    returned.
+
+    @pre snapshotFilename != null && logFilename != null && durability != null
+    @return true if the log was opened, and false otherwise
+     */
+    public boolean openLog(String snapshotFilename, String logFilename, Durability durability) {
+        if (log != null) {
+            System.out.println("Error: a log is already open");
+            return false;
+        }
+
+        // First, the latest snapshot is loaded, if there is one
+        if (new File(snapshotFilename).exists() && loadSnapshot(snapshotFilename) == null) {
+            return false;
+        }
+
+        // The log is then replayed on top of the snapshot. Replaying a change that the snapshot
+        // already includes has no effect, so it does not matter if the program stopped after a
+        // snapshot was saved but before the log was emptied
+        try {
+            MutationLog.replay(logFilename, new MutationLog.Listener() {
+                public void add(BookSnapshot book) {
+                    if (!bookIndex.containsKey(book.getKey())) {
+                        indexBook(book);
+                    }
+                }
+
+                public void update(BookSnapshot book) {
+                    BookSnapshot curBook = bookIndex.get(book.getKey());
+                    if (curBook != null) {
+                        updateBook(curBook, book);
+                    }
+                }
+            });
+
+            // Finally, the log is opened so that new changes are appended to it
+            log = new MutationLog(logFilename, durability);
+        } catch (IOException e) {
+            System.out.println("Error: given log could not be read");
+            return false;
+        }
+        this.snapshotFilename = snapshotFilename;
+        return true;
+    }
+
+    /*
+    Public method which compacts the write-ahead log, by saving the whole library collection
+    into the snapshot file given to openLog(), and then emptying out the log, since every change
+    in it is now included in the snapshot. The log is only emptied once the snapshot (and the
+    directory holding it) has been forced out to the disk, so a crash partway through never loses
+    a change. This happens automatically once the log grows large
+    enough, but can also be called directly (for example, before the program exits). If no log
+    is open, or the snapshot cannot be saved, then an error message is printed, and false is
+    returned.
+
+    @return true if the log was compacted, and false otherwise
+     */
+    public boolean compact() {
+        if (log == null) {
+            System.out.println("Error: no log is open");
+            return false;
         }
+        if (!saveSnapshot(snapshotFilename)) {
+            return false;
+        }
+        try {
+            log.reset();
+        } catch (IOException e) {
+            System.out.println("Error: log could not be compacted");
+            return false;
+        }
+        return true;
+    }
+
+    /*
+    Public method which stops keeping the library collection on disk, flushing any changes that
+    have not yet reached the disk and closing the log file. Changes made after this are only kept
+    in memory. If no log is open, then nothing happens, and true is returned.
 
-        // Finally, when we're done reading in lines, the Scanner object is closed
-        scanner.close();
+    @return true if the log was closed cleanly, and false otherwise
+     */
+    public boolean closeLog() {
+        if (log == null) {
+            return true;
+        }
+        try {
+            log.close();
+        } catch (IOException e) {
+            System.out.println("Error: log could not be closed");
+            return false;
+        } finally {
+            log = null;
+        }
+        return true;
     }
 
     /*
     Public method for determining whether the library collection is empty; in other words,
-    a method for determining whether the underlying ArrayList<Book> contains any Book
-    objects. Returns true is the underyling ArrayList is empty, and false otherwise. This
+    a method for determining whether the underlying LinkedHashMap contains any Book
+    objects. Returns true is the underyling LinkedHashMap is empty, and false otherwise. This
     method has no preconditions, as it makes no assumptions and takes in no inputs.
 
-    @return true if the underlying ArrayList<Book> is empty, false otherwise
+    @return true if the underlying LinkedHashMap is empty, false otherwise
      */
     public boolean isEmpty() {
-        if (bookList.size() == 0) {
+        if (bookIndex.size() == 0) {
             return true;
         } else {
             return false;
         }
     }
+
+    /*
+    Private helper method which places a newly created Book into all of the data structures
+    of the class, namely the underlying LinkedHashMap, the title and author indexes, the bucket for its rating, the index for its read status, and (if it is unread)
+    the pool of unread books. The author of the book is first looked up in the symbol table for
+    authors, so that the stored book shares its author's String with the other books by the
+    same author.
+
+    If a write-ahead log is open, then the book is recorded in it first, and if that fails, then
+    the book is not placed into any of the data structures, and false is returned.
+
+    @pre newBook != null && !bookIndex.containsKey(newBook.getKey())
+    @return true if the book was added, and false if it could not be recorded in the log
+     */
+    private boolean indexBook(BookSnapshot newBook) {
+        newBook = shareAuthor(newBook);
+        if (!logChange(MutationLog.ADD, newBook)) {
+            return false;
+        }
+        bookIndex.put(newBook.getKey(), newBook);
+        titleIndex.add(newBook.getTitle(), newBook);
+        authorIndex.add(newBook.getAuthor(), newBook);
+        ratingBuckets.get(ratingSlot(newBook.getRating())).put(newBook.getKey(), newBook);
+        readIndexes.get(newBook.getReadStatus()).add(newBook.getTitle(), newBook);
+        if (newBook.getReadStatus().equals(Read.UNREAD)) {
+            unreadPositions.put(newBook.getKey(), unreadPool.size());
+            unreadPool.add(newBook);
+        }
+        textIndex.add(textKeys.size(), newBook.getTitle(), newBook.getAuthor());
+        textKeys.add(newBook.getKey());
+        compactIfNeeded();
+        return true;
+    }
+
+    /*
+    Public method for obtaining a list of the Book objects currently in the collection that
+    match every criterion of the given query, sorted and limited as the query asks. Rather than
+    looking through every book, this starts from whichever index holds the fewest candidates for
+    the query: the full-text index if the query has keywords (in which case unsorted matches come
+    in order of relevance), otherwise the smallest of the books with the given title, the books
+    with the given author, the bucket for the given rating (if the query asks for exactly one
+    rating), and the books with the given read status, falling back on the books with the given
+    title or author prefix, and only then on every book. The candidates are read from the index
+    one at a time, and checked against the rest of the query by BookQuery.select(), so the only
+    list that is built is the list of results. A sorted query with a small limit instead reads
+    the books in order from the title or author index, and stops as soon as it has enough. As with
+    the other searching methods, the returned Books are immutable BookSnapshots.
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> of the matching books
+     */
+    public ArrayList<ReadOnlyBook> query(BookQuery query) {
+        if (query.getKeywords() != null) {
+            int[] ids = textIndex.search(query.getKeywords(), true);
+            return query.select(Arrays.stream(ids).mapToObj(id -> (ReadOnlyBook) bookIndex.get(textKeys.get(id))).iterator());
+        }
+
+        // Chooses the smallest of the indexes that the query can use
+        Iterable<? extends ReadOnlyBook> candidates = bookIndex.values();
+        int fewest = bookIndex.size();
+        if (query.getTitle() != null && titleIndex.getEqual(query.getTitle()).size() < fewest) {
+            candidates = titleIndex.getEqual(query.getTitle());
+            fewest = titleIndex.getEqual(query.getTitle()).size();
+        }
+        if (query.getAuthor() != null && authorIndex.getEqual(query.getAuthor()).size() < fewest) {
+            candidates = authorIndex.getEqual(query.getAuthor());
+            fewest = authorIndex.getEqual(query.getAuthor()).size();
+        }
+        if (query.getMinRating() != -1 && query.getMinRating() == query.getMaxRating()
+                && ratingBuckets.get(ratingSlot(query.getMinRating())).size() < fewest) {
+            candidates = ratingBuckets.get(ratingSlot(query.getMinRating())).values();
+            fewest = ratingBuckets.get(ratingSlot(query.getMinRating())).size();
+        }
+        if (query.getReadStatus() != null && readIndexes.get(query.getReadStatus()).size() < fewest) {
+            candidates = readIndexes.get(query.getReadStatus());
+            fewest = readIndexes.get(query.getReadStatus()).size();
+        }
+
+        // A prefix is only used if none of the other indexes could be, since the number of
+        // books with a prefix is not known until they have all been found. The books with the
+        // prefix are read lazily, so a query with a limit stops as soon as it has enough. If the
+        // prefix is on the key that the query is sorted by, then the books with the prefix are
+        // already in order, so a sorted query with a limit stops early as well
+        SortedBookIndex sortIndex = query.getSortBy() == TypeSort.AUTHOR ? authorIndex : titleIndex;
+        if (fewest == bookIndex.size()) {
+            String sortPrefix = query.getSortBy() == TypeSort.AUTHOR ? query.getAuthorPrefix() : query.getTitlePrefix();
+            if (query.getSortBy() != null && sortPrefix != null) {
+                return query.selectInOrder(sortIndex.iteratePrefix(sortPrefix));
+            } else if (query.getTitlePrefix() != null) {
+                return query.select(titleIndex.iteratePrefix(query.getTitlePrefix()));
+            } else if (query.getAuthorPrefix() != null) {
+                return query.select(authorIndex.iteratePrefix(query.getAuthorPrefix()));
+            }
+        }
+
+        // A sorted query with a limit may instead read every book in order of its sort key,
+        // stopping once it has enough. If the chosen index holds a fraction f of the books, then
+        // about limit / f books are read in order before enough matches are found, so this is
+        // chosen whenever that is fewer than the books in the chosen index
+        if (query.getSortBy() != null && (long) query.getLimit() * bookIndex.size() < (long) fewest * fewest) {
+            return query.selectInOrder(sortIndex.iterator());
+        }
+        return query.select(candidates.iterator());
+    }
+
+    /*
+    Private helper method which returns the books with the given ids in the full-text index, in
+    the same order as the ids.
+
+    @pre every id was given to a book by indexBook()
+    @return ArrayList<ReadOnlyBook> of the books with the given ids
+     */
+    private ArrayList<ReadOnlyBook> booksWithTextIds(int[] ids) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>(ids.length);
+        for (int id : ids) {
+            books.add(bookIndex.get(textKeys.get(id)));
+        }
+        return books;
+    }
+
+    /*
+    Private helper method which returns a BookSnapshot equal to the given one that holds the
+    stored String for its author from the symbol table for authors, adding the author to the
+    symbol table if it is not already there. If the given BookSnapshot already holds the stored
+    String, then it is returned as it is.
+
+    @pre book != null
+    @return a BookSnapshot for the same book, sharing the String for its author
+     */
+    private BookSnapshot shareAuthor(BookSnapshot book) {
+        String author = authors.intern(book.getAuthor());
+        if (author == book.getAuthor()) {
+            return book;
+        }
+        return book.withSharedAuthor(author);
+    }
+
+    /*
+    Private helper method which replaces the given BookSnapshot with a new BookSnapshot for
+    the same book (but with a possibly different rating and read status) in all of the data
+    structures of the class. Within the underlying LinkedHashMap and the title and author
+    indexes, the new BookSnapshot simply takes the place of the old one. If the rating has
+    changed, then the book is moved to the end of the bucket for its new rating, and if the
+    read status has changed, then the book is moved into the index for its new read status
+    (and into or out of the pool of unread books). All of this takes O(log n) time. As with
+    indexBook(), if the change cannot be recorded in the write-ahead log, then nothing is changed,
+    and false is returned.
+
+    @pre oldBook is in the collection && newBook.equals(oldBook)
+    @return true if the book was replaced, and false if the change could not be recorded in the log
+     */
+    private boolean updateBook(BookSnapshot oldBook, BookSnapshot newBook) {
+        newBook = shareAuthor(newBook);
+        if (!logChange(MutationLog.UPDATE, newBook)) {
+            return false;
+        }
+        String key = newBook.getKey();
+
+        // Replaces the book in the structures that do not depend on its rating or read status
+        bookIndex.put(key, newBook);
+        titleIndex.replace(newBook.getTitle(), newBook);
+        authorIndex.replace(newBook.getAuthor(), newBook);
+
+        // Replaces the book within its rating bucket, or moves it to its new bucket
+        if (oldBook.getRating() == newBook.getRating()) {
+            ratingBuckets.get(ratingSlot(newBook.getRating())).put(key, newBook);
+        } else {
+            ratingBuckets.get(ratingSlot(oldBook.getRating())).remove(key);
+            ratingBuckets.get(ratingSlot(newBook.getRating())).put(key, newBook);
+        }
+
+        // Replaces the book within its read status index and the unread pool, or moves it
+        // into the index for its new read status
+        if (oldBook.getReadStatus().equals(newBook.getReadStatus())) {
+            readIndexes.get(newBook.getReadStatus()).replace(newBook.getTitle(), newBook);
+            if (newBook.getReadStatus().equals(Read.UNREAD)) {
+                unreadPool.set(unreadPositions.get(key), newBook);
+            }
+        } else {
+            readIndexes.get(oldBook.getReadStatus()).remove(oldBook.getTitle(), oldBook);
+            readIndexes.get(newBook.getReadStatus()).add(newBook.getTitle(), newBook);
+            if (oldBook.getReadStatus().equals(Read.UNREAD)) {
+                removeFromUnreadPool(oldBook);
+            } else {
+                unreadPositions.put(key, unreadPool.size());
+                unreadPool.add(newBook);
+            }
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /*
+    Private helper method which makes every change of a batch, where each of the given books is
+    either a new book to add (if type is MutationLog.ADD) or the new version of a book in the
+    collection (if type is MutationLog.UPDATE). If a log is open, then the whole batch is first
+    recorded in it at once, with a single flush to the disk no matter how many books there are.
+    If the batch cannot be recorded in the log, then none of the changes are made, and false is
+    returned. Otherwise, the log is set aside while the changes are made in memory, so that they
+    are not recorded a second time, and is compacted (if needed) only once the whole batch has
+    been made.
+
+    @pre (type == MutationLog.ADD || type == MutationLog.UPDATE) && newBooks != null
+    @return true if the batch was made, and false if it could not be recorded in the log
+     */
+    private boolean applyBatch(byte type, Collection<BookSnapshot> newBooks) {
+        if (newBooks.isEmpty()) {
+            return true;
+        }
+        if (log != null) {
+            try {
+                log.appendAll(type, new ArrayList<BookSnapshot>(newBooks));
+            } catch (IOException e) {
+                System.out.println("Error: changes could not be written to the log, so they were not made");
+                return false;
+            }
+        }
+        MutationLog batchLog = log;
+        log = null;
+        try {
+            for (BookSnapshot newBook : newBooks) {
+                if (type == MutationLog.ADD) {
+                    indexBook(newBook);
+                } else {
+                    updateBook(bookIndex.get(newBook.getKey()), newBook);
+                }
+            }
+        } finally {
+            log = batchLog;
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /*
+    Private helper method which records the given change in the write-ahead log, if one is
+    open. This is called before the change is made in memory. If the change cannot be written
+    to the log, then an error message is printed, and false is returned, in which case the
+    caller must not make the change in memory, so that the collection never holds a change
+    that the log does not.
+
+    @pre (type == MutationLog.ADD || type == MutationLog.UPDATE) && book != null
+    @return true if the change was recorded (or no log is open), and false otherwise
+     */
+    private boolean logChange(byte type, BookSnapshot book) {
+        if (log == null) {
+            return true;
+        }
+        try {
+            log.append(type, book);
+        } catch (IOException e) {
+            System.out.println("Error: change could not be written to the log, so it was not made");
+            return false;
+        }
+        return true;
+    }
+
+    /*
+    Private helper method which adds a book that was read in from a file (or a snapshot), unless
+    it is already in the collection, recording the outcome in the given ImportReport. If the book
+    cannot be recorded in the write-ahead log, then it is not added, and an UncheckedIOException
+    is thrown in order to stop the import, since the book is handed over by a Consumer that
+    cannot return a result.
+
+    @pre curBook != null && report != null
+     */
+    private void addParsed(BookSnapshot curBook, ImportReport report) {
+        if (bookIndex.containsKey(curBook.getKey())) {
+            report.recordDuplicate();
+        } else if (indexBook(curBook)) {
+            report.recordAdded();
+        } else {
+            throw new UncheckedIOException(new IOException("book could not be written to the log"));
+        }
+    }
+
+    /*
+    Private helper method which compacts the write-ahead log if it has grown past COMPACT_BYTES.
+    This is called after each change has been made in memory, so that the snapshot always
+    includes every change that is about to be removed from the log.
+     */
+    private void compactIfNeeded() {
+        if (log != null && log.size() >= COMPACT_BYTES) {
+            compact();
+        }
+    }
+
+    /*
+    Private helper method which removes the given Book from the pool of unread books in
+    constant time. This is done by moving the last Book in the pool into the position of the
+    removed Book, and updating the recorded position of the moved Book accordingly.
+
+    @pre book != null && book is in the pool of unread books
+     */
+    private void removeFromUnreadPool(ReadOnlyBook book) {
+        // Finds the position of the given book, and removes the last book from the pool
+        int position = unreadPositions.remove(book.getKey());
+        ReadOnlyBook last = unreadPool.remove(unreadPool.size() - 1);
+
+        // If the given book was not the last one, then the last book takes its place
+        if (position < unreadPool.size()) {
+            unreadPool.set(position, last);
+            unreadPositions.put(last.getKey(), position);
+        }
+    }
+
+    /*
+    Private helper method which returns the sorted index corresponding to the given type of
+    sorting, which is the title index for TITLE and the author index for AUTHOR.
+
+    @pre howSort != null
+    @return SortedBookIndex for the given type of sorting
+     */
+    private SortedBookIndex getSortIndex(TypeSort howSort) {
+        if (howSort.equals(TypeSort.AUTHOR)) {
+            return authorIndex;
+        }
+        return titleIndex;
+    }
+
+    /*
+    Private static helper method which converts a rating into the position of its bucket
+    within the list of rating buckets. Books that have not been rated (with a rating of -1)
+    are kept in the bucket at position 0, and books with a rating from 1-5 are kept in the
+    bucket at the position matching their rating.
+
+    @pre rating == -1 || (rating >= 1 && rating <= 5)
+    @return an int representing the position of the bucket for the given rating
+     */
+    private static int ratingSlot(int rating) {
+        if (rating < 1) {
+            return 0;
+        }
+        return rating;
+    }
+
+    /*
+    Private static helper method which adds each of the given Books into a new ArrayList,
+    preserving the order in which the Books are given. Note that the Books are not copied,
+    since every Book stored by the collection is an immutable BookSnapshot.
+
+    @pre books != null
+    @return ArrayList<ReadOnlyBook> containing the given Books
+     */
+    private static ArrayList<ReadOnlyBook> listOf(Iterable<? extends ReadOnlyBook> books) {
+        ArrayList<ReadOnlyBook> list = new ArrayList<ReadOnlyBook>();
+        for (ReadOnlyBook curBook : books) {
+            list.add(curBook);
+        }
+        return list;
+    }
 }
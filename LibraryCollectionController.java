@@ -10,9 +10,17 @@ Controller element of the MVC pattern, and it essectially functions as a wrapper
 class for the LibraryCollection model class. Note that the actual functionality 
 of each method is performed directly using corresponding methods in the LibraryCollection
 class, so the design choices involved in these functionalities is described there.
+The model is referred to through the LibraryModel interface, so that a thread-safe
+ConcurrentLibraryCollection can be given to the controller in place of the default
+LibraryCollection when the collection is shared between several users at once.
  */
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /*
 When it comes to maintaining encapsulation within this class, considering that the
@@ -36,8 +44,8 @@ never returned or fed directly into the class, preventing escaping references to
 
 public class LibraryCollectionController {
     // Declares the sole private instance variable of the class, which is a 
-    // LibraryCollection object that acts as the underlying model
-    private LibraryCollection model;
+    // LibraryModel object that acts as the underlying model
+    private LibraryModel model;
 
     /*
     Public constructor for the LibraryCollectionController class, which takes
@@ -50,6 +58,40 @@ public class LibraryCollectionController {
         model = new LibraryCollection();
     }
 
+    /*
+    Public constructor for the LibraryCollectionController class, which takes in the
+    storage engine that the library collection should use, and which produces a new (empty)
+    LibraryCollectionController object. The OBJECTS engine stores each book as a Book object,
+    as with the default constructor, while the COLUMNAR engine stores the books in columns of
+    primitive arrays, which uses far less memory for very large collections, and the OFF_HEAP
+    engine does the same but keeps the titles and authors outside of the Java heap. All of the
+    engines provide exactly the same operations.
+
+    @pre engine != null
+     */
+    public LibraryCollectionController(StorageEngine engine) {
+        if (engine == StorageEngine.COLUMNAR) {
+            model = new ColumnarLibraryCollection();
+        } else if (engine == StorageEngine.OFF_HEAP) {
+            model = new OffHeapLibraryCollection();
+        } else {
+            model = new LibraryCollection();
+        }
+    }
+
+    /*
+    Public constructor for the LibraryCollectionController class, which takes in the
+    model that the controller should use. This allows for a different implementation of
+    the LibraryModel interface to be used as the model, such as a ConcurrentLibraryCollection
+    when the library collection is to be shared between several threads at once. Note that
+    the controller should be the only object holding a reference to the given model.
+
+    @pre model != null
+     */
+    public LibraryCollectionController(LibraryModel model) {
+        this.model = model;
+    }
+
     /*
     Public method for obtaining a list of the books currently in the collection,
     with an enumerated type being given as the input to determine what type of 
@@ -59,12 +101,53 @@ public class LibraryCollectionController {
     Note that this list is obtained using a method from the model.
 
     @pre howSort != null
-    @return ArrayList<Book> containing a sorted list of books in the collection
+    @return ArrayList<ReadOnlyBook> containing a sorted list of books in the collection
      */
-    public ArrayList<Book> cGetSortedCollection(TypeSort howSort) {
+    public ArrayList<ReadOnlyBook> cGetSortedCollection(TypeSort howSort) {
         return model.getSortedCollection(howSort);
     }
 
+    /*
+    Public method for obtaining up to limit books from the collection, sorted according to
+    howSort, after skipping the first offset books. Note that this list is obtained using a
+    method from the model.
+
+    @pre howSort != null && offset >= 0 && limit >= 0
+    @return ArrayList<ReadOnlyBook> containing up to limit books, starting from position offset
+     */
+    public ArrayList<ReadOnlyBook> cGetSortedCollection(TypeSort howSort, int offset, int limit) {
+        return model.getSortedCollection(howSort, offset, limit);
+    }
+
+    /*
+    Public method for obtaining the page of up to limit books that comes after the position
+    marked by the given token, sorted according to howSort, where the token is the one held by
+    the previous page (or null for the first page). Note that this page is obtained using a
+    method from the model.
+
+    @pre howSort != null && limit > 0
+    @return BookPage holding the books and the token for the next page, or null if the token is
+        not valid
+     */
+    public BookPage cGetPage(TypeSort howSort, String afterToken, int limit) {
+        return model.getPage(howSort, afterToken, limit);
+    }
+
+    /*
+    Public methods for obtaining an Iterator, or a Stream, over every book in the collection,
+    sorted according to howSort, which read the books from the model one page at a time.
+
+    @pre howSort != null
+    @return Iterator<ReadOnlyBook> (or Stream<ReadOnlyBook>) over the books in the collection, in sorted order
+     */
+    public Iterator<ReadOnlyBook> cIterateSorted(TypeSort howSort) {
+        return model.iterateSorted(howSort);
+    }
+
+    public Stream<ReadOnlyBook> cStreamSorted(TypeSort howSort) {
+        return model.streamSorted(howSort);
+    }
+
     /*
     Public method for obtaining a list of the books currently in the collection
     that have a particular author. A String corresponding to the author's name
@@ -73,9 +156,9 @@ public class LibraryCollectionController {
     Note that this list is actually obtained using a method from the model.
 
     @pre author != null
-    @return ArrayList<Book> containing a list of Books with a particular author
+    @return ArrayList<ReadOnlyBook> containing a list of Books with a particular author
      */
-    public ArrayList<Book> cGetBooksWithAuthor(String author) {
+    public ArrayList<ReadOnlyBook> cGetBooksWithAuthor(String author) {
         return model.getBooksWithAuthor(author);
     }
 
@@ -87,12 +170,80 @@ public class LibraryCollectionController {
     actually obtained using a method from the model.
 
     @pre title != null
-    @return ArrayList<Book> containing a list of books with a particular title
+    @return ArrayList<ReadOnlyBook> containing a list of books with a particular title
      */
-    public ArrayList<Book> cGetBooksWithTitle(String title) {
+    public ArrayList<ReadOnlyBook> cGetBooksWithTitle(String title) {
         return model.getBooksWithTitle(title);
     }
 
+    /*
+    Public method for obtaining a list of the books currently in the collection
+    whose author starts with the given prefix, which is useful for suggesting
+    authors as the user types. The returned list is sorted by author, and this
+    method is not case-sensitive. The list is actually obtained using a method
+    from the model.
+
+    @pre prefix != null
+    @return ArrayList<ReadOnlyBook> containing a list of books whose author starts with prefix
+     */
+    public ArrayList<ReadOnlyBook> cGetBooksWithAuthorPrefix(String prefix) {
+        return model.getBooksWithAuthorPrefix(prefix);
+    }
+
+    /*
+    Public method for obtaining a list of the books currently in the collection
+    whose title starts with the given prefix, which is useful for suggesting
+    titles as the user types. The returned list is sorted by title, and this
+    method is not case-sensitive. The list is actually obtained using a method
+    from the model.
+
+    @pre prefix != null
+    @return ArrayList<ReadOnlyBook> containing a list of books whose title starts with prefix
+     */
+    public ArrayList<ReadOnlyBook> cGetBooksWithTitlePrefix(String prefix) {
+        return model.getBooksWithTitlePrefix(prefix);
+    }
+
+    /*
+    Public method for obtaining a list of the books currently in the collection whose
+    title or author contains the words of the given query, regardless of case, with the
+    best matches coming first. If matchAll is true, then only books containing every word
+    are returned, and otherwise books containing any of the words are returned. The list
+    of books is actually obtained using a method from the model.
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> containing the matching books, best match first
+     */
+    public ArrayList<ReadOnlyBook> cSearch(String query, boolean matchAll) {
+        return model.search(query, matchAll);
+    }
+
+    /*
+    Public method for obtaining a list of the books currently in the collection matching
+    the words of the given query, in the same way as cSearch(), except that the words may
+    be slightly misspelled, with the closest matches coming first. The list of books is
+    actually obtained using a method from the model.
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> containing the matching books, best match first
+     */
+    public ArrayList<ReadOnlyBook> cFuzzySearch(String query, boolean matchAll) {
+        return model.fuzzySearch(query, matchAll);
+    }
+
+    /*
+    Public method for obtaining a list of the books currently in the collection that
+    match every criterion of the given query (such as the author, the smallest rating,
+    and the read status), sorted and limited as the query asks. The list of books is
+    actually obtained using a method from the model.
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> containing the matching books
+     */
+    public ArrayList<ReadOnlyBook> cQuery(BookQuery query) {
+        return model.query(query);
+    }
+
     /*
     Public method for obtaining a list of the books currently in the collection
     that have a particular rating. An integer corresponding to this rating is 
@@ -101,9 +252,9 @@ public class LibraryCollectionController {
     actually obtained using a method from the model.
 
     @pre rating >= 1 && rating <= 5
-    @return ArrayList<Book> containing a list of books with a particular rating
+    @return ArrayList<ReadOnlyBook> containing a list of books with a particular rating
      */
-    public ArrayList<Book> cGetBooksWithRating(int rating) {
+    public ArrayList<ReadOnlyBook> cGetBooksWithRating(int rating) {
         return model.getBooksWithRating(rating);
     }
 
@@ -111,12 +262,15 @@ public class LibraryCollectionController {
     Public method for adding a book with a particular title and author to the
     library collection. Note that this method assumes that a book with this
     title and author does not already exist within the collection, and that this
-    is ensured via the input validation present within the View class. 
+    is ensured via the input validation present within the View class. If the book cannot be
+    recorded in the write-ahead log (when one is open), then it is not added, and false is
+    returned.
 
     @pre title != null && author != null && !model.alreadyInCollection(title, author)
+    @return true if the book was added, and false otherwise
      */
-    public void cAddBook(String title, String author) {
-        model.addBook(title, author);
+    public boolean cAddBook(String title, String author) {
+        return model.addBook(title, author);
     }
 
     /*
@@ -139,12 +293,15 @@ public class LibraryCollectionController {
     to read. Note that this assumes that all books in the library collection are
     unique, and that if the book has already been marked as read, then nothing is
     changed. Also assumes that the given book is in the library collection, which is
-    ensured using input validation within the class representing the View. 
+    ensured using input validation within the class representing the View. If the change
+    cannot be recorded in the write-ahead log (when one is open), then it is not made, and false
+    is returned.
 
     @pre title != null && author != null && model.alreadyInCollection(title, author)
+    @return true unless the change could not be recorded in the log (and so was not made)
      */
-    public void cSetToRead(String title, String author) {
-        model.setToRead(title, author);
+    public boolean cSetToRead(String title, String author) {
+        return model.setToRead(title, author);
     }
 
     /*
@@ -153,13 +310,54 @@ public class LibraryCollectionController {
     collection are unique, and that the given book is already in the library collection.
     The given rating must also be in the valid range from 1-5. All of these things
     are ensured to be true via input validation within the class representing the View.
-    Also, this method allows for the rating of a book to be updated as necessary.
+    Also, this method allows for the rating of a book to be updated as necessary. As with
+    cSetToRead(), false is returned if the change could not be recorded in the log.
 
     @pre title != null && author != null && model.alreadyInCollection(title, author)
         && rating >= 1 && rating <= 5
+    @return true unless the change could not be recorded in the log (and so was not made)
+     */
+    public boolean cUpdateBookRating(String title, String author, int rating) {
+        return model.updateBookRating(title, author, rating);
+    }
+
+    /*
+    Public method for marking many books in the library collection as read at once, where each
+    book is given by its key (see Book.makeKey()). Unlike calling cSetToRead() for each book,
+    every key is looked up before any book is changed, and the whole batch is then made as a
+    single change, so a book that is not in the collection is simply reported rather than having
+    to be checked for beforehand. Note that this is done using a method from the model.
+
+    @pre keys != null
+    @return ArrayList<BatchResult> holding the result for each of the given keys, in order
      */
-    public void cUpdateBookRating(String title, String author, int rating) {
-        model.updateBookRating(title, author, rating);
+    public ArrayList<BatchResult> cSetToRead(Collection<String> keys) {
+        return model.setToRead(keys);
+    }
+
+    /*
+    Public method for updating the ratings of many books in the library collection at once, where
+    each book is given by its key (see Book.makeKey()), mapped to its new rating. As with the
+    method above, every key is looked up before any book is changed, and the whole batch is made
+    as a single change, with any ratings outside of the range from 1-5 being reported as invalid.
+
+    @pre ratings != null
+    @return ArrayList<BatchResult> holding the result for each entry of the given map, in order
+     */
+    public ArrayList<BatchResult> cUpdateRatings(Map<String, Integer> ratings) {
+        return model.updateRatings(ratings);
+    }
+
+    /*
+    Public method for adding many books to the library collection at once, keeping the rating and
+    read status of each one. Books that are already in the library collection are not added a
+    second time, and are reported as duplicates. Note that this is done using a method from the model.
+
+    @pre books != null
+    @return ArrayList<BatchResult> holding the result for each of the given books, in order
+     */
+    public ArrayList<BatchResult> cAddBooks(Collection<? extends ReadOnlyBook> books) {
+        return model.addBooks(books);
     }
 
     /*
@@ -167,11 +365,11 @@ public class LibraryCollectionController {
     collection that have already been marked as read. Note that the returned list
     of books will be sorted by title. Also, considering that there are no parameters,
     and no assumptions made, this method has no preconditions. If there are no books
-    that have been read, then an empty ArrayList<Book> is simply returned. 
+    that have been read, then an empty ArrayList<ReadOnlyBook> is simply returned. 
 
-    @return ArrayList<Book> of all the books in the collection that have been read
+    @return ArrayList<ReadOnlyBook> of all the books in the collection that have been read
      */
-    public ArrayList<Book> cAllReadBooks() {
+    public ArrayList<ReadOnlyBook> cAllReadBooks() {
         return model.allReadBooks();
     }
 
@@ -180,15 +378,50 @@ public class LibraryCollectionController {
     collection that have not been marked as read. Note that the returned list
     of books will be sorted by title. Also, considering that there are no parameters,
     and that this method makes no assumptions, this method has no preconditions. If
-    there are no unread books in the library collection, then an empty ArrayList<Book>
+    there are no unread books in the library collection, then an empty ArrayList<ReadOnlyBook>
     is simply returned. 
 
-    @return ArrayList<Book> of all the books in the collection that haven't been read
+    @return ArrayList<ReadOnlyBook> of all the books in the collection that haven't been read
      */
-    public ArrayList<Book> cAllUnreadBooks() {
+    public ArrayList<ReadOnlyBook> cAllUnreadBooks() {
         return model.allUnreadBooks();
     }
 
+    /*
+    Public method for obtaining the number of books in the library collection that
+    have a particular rating, where a rating of -1 may be given to count the books that
+    have not been rated yet. This count is obtained in constant time using a method
+    from the model.
+
+    @pre rating == -1 || (rating >= 1 && rating <= 5)
+    @return int representing the number of books with the given rating
+     */
+    public int cCountBooksWithRating(int rating) {
+        return model.countBooksWithRating(rating);
+    }
+
+    /*
+    Public method for obtaining the number of books in the library collection that
+    have been marked as read. This count is obtained in constant time using a method
+    from the model, and this method has no preconditions.
+
+    @return int representing the number of read books in the collection
+     */
+    public int cCountReadBooks() {
+        return model.countReadBooks();
+    }
+
+    /*
+    Public method for obtaining the number of books in the library collection that
+    have not been marked as read. This count is obtained in constant time using a
+    method from the model, and this method has no preconditions.
+
+    @return int representing the number of unread books in the collection
+     */
+    public int cCountUnreadBooks() {
+        return model.countUnreadBooks();
+    }
+
     /*
     Public method for obtaining a random unread book from the library collection. Note that
     this method assumes that the collection contains at least one book, and that if there are
@@ -197,13 +430,26 @@ public class LibraryCollectionController {
     one book in the collection. 
 
     @pre !model.isEmpty()
-    @return Book object representing a random unread book from the collection, or null if there
+    @return ReadOnlyBook object representing a random unread book from the collection, or null if there
         are no unread books.
      */
-    public Book cGetRandomBook() {
+    public ReadOnlyBook cGetRandomBook() {
         return model.getRandomBook();
     }
 
+    /*
+    Public method for obtaining a list of k distinct random unread books from the library
+    collection. If there are fewer than k unread books, then all of them are returned, and
+    if there are none, an empty ArrayList<ReadOnlyBook> is returned. The books are actually chosen
+    using a method from the model.
+
+    @pre k >= 0
+    @return ArrayList<ReadOnlyBook> of up to k distinct random unread books
+     */
+    public ArrayList<ReadOnlyBook> cSuggest(int k) {
+        return model.suggest(k);
+    }
+
     /*
     Public method for adding all books from a given file into our library collection. 
     Note that if a book in the file is already in the library collection, then it will
@@ -211,12 +457,104 @@ public class LibraryCollectionController {
     the given file is in the format that was specified for this project, with the first
     line of the file always being "Title;Author" and every other line in the file describing
     actual books utilizing this format. If the given file cannot be found, then an error
-    message is simply printed to the terminal, and no books are added. 
+    message is simply printed to the terminal, no books are added, and null is returned.
+    Otherwise, an ImportReport describing how many books were added, how many were already
+    in the collection, and how many lines were malformed is returned. 
 
     @pre filename != null && filename is formatted according to the given example
+    @return ImportReport describing the result of the import, or null if the file could not be read
+     */
+    public ImportReport cAddBooksFromFile(String filename) {
+        return model.addBooksFromFile(filename);
+    }
+
+    /*
+    Public method for adding all books from a given file into our library collection in the
+    same way as cAddBooksFromFile() above, while telling the given listener how much of the
+    file has been read, so that the progress of a long import can be shown. If the listener
+    returns false, then the import is cancelled, with the books read so far being kept.
+
+    @pre filename != null && progress != null && filename is formatted according to the given example
+    @return ImportReport describing the result of the import, or null if the file could not be read
+     */
+    public ImportReport cAddBooksFromFile(String filename, ImportProgress progress) {
+        return model.addBooksFromFile(filename, progress);
+    }
+
+    /*
+    Public method for adding all books from several files into our library collection at once,
+    with the files (and any large file's chunks) being read in parallel. As with
+    cAddBooksFromFile(), books already in the library collection are not added a second time,
+    and each file is assumed to be in the format that was specified for this project. If any of
+    the given files cannot be found, then an error message is simply printed to the terminal, no
+    books are added, and null is returned.
+
+    @pre filenames != null && each file is formatted according to the given example
+    @return ImportReport describing the result of the import, or null if a file could not be read
+     */
+    public ImportReport cAddBooksFromFiles(List<String> filenames) {
+        return model.addBooksFromFiles(filenames);
+    }
+
+    /*
+    Public method for saving the whole library collection, including the rating and read
+    status of every book, to a binary snapshot file, so that it can be restored the next time
+    the program is run. If the file cannot be written, then an error message is simply printed
+    to the terminal, and false is returned. Note that this is done using a method from the model.
+
+    @pre filename != null
+    @return true if the snapshot was saved, and false otherwise
+     */
+    public boolean cSaveSnapshot(String filename) {
+        return model.saveSnapshot(filename);
+    }
+
+    /*
+    Public method for adding all of the books from a binary snapshot file (as written by
+    cSaveSnapshot()) into our library collection, keeping their saved ratings and read
+    statuses. Books that are already in the library collection are not added a second time.
+    If the given file cannot be read, or is not a snapshot, then an error message is simply
+    printed to the terminal, no books are added, and null is returned.
+
+    @pre filename != null
+    @return ImportReport describing the result of the load, or null if the file could not be read
+     */
+    public ImportReport cLoadSnapshot(String filename) {
+        return model.loadSnapshot(filename);
+    }
+
+    /*
+    Public method for keeping the library collection on disk. The collection is first restored
+    from the given snapshot and write-ahead log files (if they exist), and every later change is
+    then recorded in the log, with the given durability level deciding how soon each change is
+    flushed to the disk. If either file cannot be read, then an error message is simply printed
+    to the terminal, and false is returned. Note that this is done using a method from the model.
+
+    @pre snapshotFilename != null && logFilename != null && durability != null
+    @return true if the log was opened, and false otherwise
+     */
+    public boolean cOpenLog(String snapshotFilename, String logFilename, Durability durability) {
+        return model.openLog(snapshotFilename, logFilename, durability);
+    }
+
+    /*
+    Public method for compacting the write-ahead log, which saves the whole collection into
+    the snapshot file and empties out the log. Note that this is done using a method from the model.
+
+    @return true if the log was compacted, and false otherwise
+     */
+    public boolean cCompact() {
+        return model.compact();
+    }
+
+    /*
+    Public method for flushing any unsaved changes to the disk and closing the write-ahead log.
+    Note that this is done using a method from the model.
+
+    @return true if the log was closed cleanly, and false otherwise
      */
-    public void cAddBooksFromFile(String filename) {
-        model.addBooksFromFile(filename);
+    public boolean cCloseLog() {
+        return model.closeLog();
     }
 
     /*
@@ -0,0 +1,875 @@
+/*
+File: LibraryHttpServer.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a third View for the library collection (alongside the console in
+MyLibrary.java and the window in MyLibraryGUI.java), which serves the collection to other
+programs over HTTP, using the server built into the JDK (com.sun.net.httpserver), so that no
+outside libraries are needed. Every operation of the LibraryCollectionController class has its
+own endpoint, with the inputs given as parameters in the query string (or, for a POST, in a
+form-encoded body), and the result sent back as JSON. For example, "GET /books?sort=title"
+returns every book sorted by title, "GET /books/title-prefix?prefix=harry" returns the books
+whose titles start with "harry", and "POST /books/rating?title=dune&author=frank herbert&rating=5"
+rates a book. A book is sent as an object such as {"title":"DUNE","author":"FRANK HERBERT",
+"rating":5,"read":false}, where a rating of -1 means that the book has not been rated yet.
+Bad inputs (including a title or author holding a control character such as a newline) are
+answered with a 400 status, books and endpoints that do not exist with a 404 status, and a
+request sent to an endpoint with the wrong method (such as a GET to an endpoint that needs a
+POST) with a 405 status, each with a body such as {"error":"..."}.
+
+Requests are handled by a fixed pool of worker threads, so that many clients can be served at
+once, which is why the server is meant to be given a thread-safe model (such as a
+ConcurrentLibraryCollection, as is done by the main() method). Each response is encoded
+straight into a buffer as it is produced, and a small response is sent with its exact length,
+while a response that outgrows the buffer (such as a listing of millions of books) is sent in
+chunks as it is encoded, so the whole listing is never held in memory at once. Since every
+response has either a length or chunked encoding, clients can keep a connection open and send
+request after request over it (HTTP keep-alive), which avoids setting up a new connection for
+each request. Note that the server only listens on the loopback address, and only answers
+requests whose Host header names the loopback address (and whose Origin header, if there is one,
+is a page served from the loopback address), so that a web page opened in a browser on the same
+machine cannot reach the collection, even by pointing its own domain name at the loopback address.
+The endpoints which reach the file system of the machine (importing, saving, and loading files,
+and opening the write-ahead log) are also turned off unless the server is created with them
+allowed (or main() is given the --allow-files argument), and are otherwise answered with a 403
+status.
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+When it comes to maintaining encapsulation, note that the controller, the underlying server,
+the worker threads, and the table of endpoints are all private, and are never returned from any
+method, so the only way for a client to reach the library collection is through the endpoints
+below. Every input is checked before it is handed to the controller (in the same way as the
+input validation of MyLibrary.java), so that the preconditions of the controller always hold,
+and the books that are sent back are only ever written out as text, so no references to the
+underlying data of the collection can escape.
+ */
+
+public class LibraryHttpServer {
+    // Declares the default port and number of worker threads, and the size of the buffer that
+    // each response is encoded into before it is sent in chunks instead
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_THREADS = 2 * Runtime.getRuntime().availableProcessors();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // Declares the HTTP status codes that are sent back by the server
+    private static final int OK = 200;
+    private static final int BAD_REQUEST = 400;
+    private static final int FORBIDDEN = 403;
+    private static final int NOT_FOUND = 404;
+    private static final int BAD_METHOD = 405;
+    private static final int SERVER_ERROR = 500;
+
+    /*
+    Private functional interface representing the handling of a single endpoint, which is given
+    the parameters of the request, and writes the JSON result to the given response. A handler
+    may throw a BadRequestException in order to answer with an error instead.
+     */
+    private interface Endpoint {
+        void handle(Map<String, List<String>> params, JsonResponse response) throws IOException;
+    }
+
+    // Declares the private instance variables, which are the controller that every request is
+    // handed to, the server itself, the pool of worker threads that handle the requests, and
+    // the endpoints of the server, keyed by their method and path (such as "GET /books"), and
+    // whether the endpoints that reach the file system are allowed
+    private LibraryCollectionController controller;
+    private HttpServer server;
+    private ExecutorService workers;
+    private HashMap<String, Endpoint> endpoints;
+    private boolean allowFiles;
+
+    /*
+    Public constructor for the LibraryHttpServer class, which takes in the controller that the
+    requests should be handed to, the port to listen on (where 0 picks any free port), and the
+    number of worker threads to handle requests with. The server listens on the loopback address
+    only, and does not accept requests until start() is called. If the port cannot be listened
+    on, then an IOException is thrown. Note that since requests are handled by several threads
+    at once, the model of the given controller should be thread-safe. The endpoints that reach
+    the file system are turned off (see the constructor below for allowing them).
+
+    @pre controller != null && port >= 0 && threads > 0
+     */
+    public LibraryHttpServer(LibraryCollectionController controller, int port, int threads) throws IOException {
+        this(controller, port, threads, false);
+    }
+
+    /*
+    Public constructor for the LibraryHttpServer class, which works in the same way as the one
+    above, except that the endpoints which read and write files on the machine running the
+    server (importing, saving, and loading files, and opening the write-ahead log) are only
+    turned on if allowFiles is true.
+
+    @pre controller != null && port >= 0 && threads > 0
+     */
+    public LibraryHttpServer(LibraryCollectionController controller, int port, int threads, boolean allowFiles)
+            throws IOException {
+        // The headers and the body of each response are written to the connection separately, so
+        // the JDK server is told to send each write straight away, since otherwise the body would
+        // be held back until the client acknowledges the headers (which can take up to 40ms).
+        // Note that this is read once, when the first server is created
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.controller = controller;
+        this.allowFiles = allowFiles;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.workers = Executors.newFixedThreadPool(threads, task -> {
+            Thread worker = new Thread(task, "http-worker");
+            worker.setDaemon(true);
+            return worker;
+        });
+        this.endpoints = new HashMap<String, Endpoint>();
+        addEndpoints();
+        server.createContext("/", this::handle);
+        server.setExecutor(workers);
+    }
+
+    public static void main(String[] args) {
+        // Determines whether the endpoints that reach the file system are allowed, which is only
+        // the case if one of the command line arguments is --allow-files
+        boolean allowFiles = Arrays.asList(args).contains("--allow-files");
+        if (allowFiles) {
+            args = Arrays.stream(args).filter(arg -> !arg.equals("--allow-files")).toArray(String[]::new);
+        }
+
+        // Determines the port, number of threads, and storage engine to use, with the command
+        // line arguments (in that order) replacing the defaults if they were given
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_THREADS;
+        StorageEngine engine = args.length > 2 ? StorageEngine.valueOf(args[2].toUpperCase()) : StorageEngine.OBJECTS;
+
+        // Starts serving a thread-safe version of the collection
+        try {
+            LibraryHttpServer httpServer = new LibraryHttpServer(
+                    new LibraryCollectionController(new ConcurrentLibraryCollection(engine)), port, threads, allowFiles);
+            httpServer.start();
+            System.out.println("Serving the library collection at http://localhost:" + httpServer.getPort() + "/");
+        } catch (IOException e) {
+            System.out.println("Error: could not listen on port " + port);
+        }
+    }
+
+    /*
+    Public method which starts accepting requests. Since there are no inputs and no assumptions,
+    there are no preconditions.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /*
+    Public method which stops accepting requests, waiting up to the given number of seconds for
+    the requests currently being handled to finish, and then stops the worker threads.
+
+    @pre delaySeconds >= 0
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        workers.shutdown();
+    }
+
+    /*
+    Public method which returns the port that the server is listening on, which is useful when
+    the server was created with port 0.
+
+    @return an int representing the port of the server
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /*
+    Private helper method which fills in the table of endpoints, with one endpoint for each
+    operation of the controller. Each endpoint checks its parameters before calling the
+    controller, so that bad input is answered with a 400 status rather than breaking the
+    preconditions of the controller.
+     */
+    private void addEndpoints() {
+        // Endpoints for listing the books in sorted order, either all at once (which is sent in
+        // chunks as it is read from the collection), by offset, or one page after another
+        endpoints.put("GET /books", (params, response) -> {
+            TypeSort howSort = sortParam(params, "sort", TypeSort.TITLE);
+            if (params.containsKey("offset") || params.containsKey("limit")) {
+                int offset = intParam(params, "offset", 0, 0, Integer.MAX_VALUE);
+                int limit = intParam(params, "limit", Integer.MAX_VALUE, 0, Integer.MAX_VALUE);
+                response.writeBooks(controller.cGetSortedCollection(howSort, offset, limit).iterator());
+            } else {
+                response.writeBooks(controller.cIterateSorted(howSort));
+            }
+        });
+        endpoints.put("GET /books/page", (params, response) -> {
+            String after = param(params, "after");
+            if (after != null && !BookPage.isValid(after)) {
+                throw new BadRequestException("invalid page token");
+            }
+            BookPage page = controller.cGetPage(sortParam(params, "sort", TypeSort.TITLE), after,
+                    intParam(params, "limit", 100, 1, Integer.MAX_VALUE));
+            response.write("{\"books\":");
+            response.writeBooks(page.getBooks().iterator());
+            response.write(",\"next\":");
+            response.writeString(page.getNextToken());
+            response.write("}");
+        });
+
+        // Endpoints for finding books, each of which returns a list of books
+        endpoints.put("GET /books/title", (params, response) ->
+                response.writeBooks(controller.cGetBooksWithTitle(requiredParam(params, "title")).iterator()));
+        endpoints.put("GET /books/author", (params, response) ->
+                response.writeBooks(controller.cGetBooksWithAuthor(requiredParam(params, "author")).iterator()));
+        endpoints.put("GET /books/title-prefix", (params, response) ->
+                response.writeBooks(controller.cGetBooksWithTitlePrefix(requiredParam(params, "prefix")).iterator()));
+        endpoints.put("GET /books/author-prefix", (params, response) ->
+                response.writeBooks(controller.cGetBooksWithAuthorPrefix(requiredParam(params, "prefix")).iterator()));
+        endpoints.put("GET /books/rating", (params, response) ->
+                response.writeBooks(controller.cGetBooksWithRating(intParam(params, "rating", 0, 1, 5)).iterator()));
+        endpoints.put("GET /books/read", (params, response) ->
+                response.writeBooks(controller.cAllReadBooks().iterator()));
+        endpoints.put("GET /books/unread", (params, response) ->
+                response.writeBooks(controller.cAllUnreadBooks().iterator()));
+        endpoints.put("GET /search", (params, response) ->
+                response.writeBooks(controller.cSearch(requiredParam(params, "q"),
+                        booleanParam(params, "all", true)).iterator()));
+        endpoints.put("GET /search/fuzzy", (params, response) ->
+                response.writeBooks(controller.cFuzzySearch(requiredParam(params, "q"),
+                        booleanParam(params, "all", true)).iterator()));
+        endpoints.put("GET /query", (params, response) ->
+                response.writeBooks(controller.cQuery(queryParams(params)).iterator()));
+        endpoints.put("GET /suggest", (params, response) ->
+                response.writeBooks(controller.cSuggest(intParam(params, "k", 1, 0, Integer.MAX_VALUE)).iterator()));
+        endpoints.put("GET /books/random", (params, response) ->
+                response.writeBook(controller.cGetRandomBook()));
+
+        // Endpoints for counting the books, and checking whether a book is in the collection
+        endpoints.put("GET /books/contains", (params, response) ->
+                response.writeField("contains", controller.cAlreadyInCollection(requiredParam(params, "title"),
+                        requiredParam(params, "author"))));
+        endpoints.put("GET /books/empty", (params, response) ->
+                response.writeField("empty", controller.cIsEmpty()));
+        endpoints.put("GET /count/rating", (params, response) -> {
+            int rating = intParam(params, "rating", 0, -1, 5);
+            if (rating == 0) {
+                throw new BadRequestException("rating must be -1 or from 1 to 5");
+            }
+            response.writeField("count", controller.cCountBooksWithRating(rating));
+        });
+        endpoints.put("GET /count/read", (params, response) ->
+                response.writeField("count", controller.cCountReadBooks()));
+        endpoints.put("GET /count/unread", (params, response) ->
+                response.writeField("count", controller.cCountUnreadBooks()));
+
+        // Endpoints for changing the collection. Adding a book reports whether it was new, while
+        // reading or rating a book that is not in the collection is answered with a 404 status.
+        // A change that cannot be recorded in the write-ahead log is answered with a 500 status
+        endpoints.put("POST /books", (params, response) -> {
+            // The book is added as a batch of one, so that checking whether it is already in the
+            // collection and adding it happen together, and two requests adding the same book at
+            // once cannot both be told that they added it
+            BookSnapshot book = new BookSnapshot(requiredParam(params, "title"), requiredParam(params, "author"));
+            BatchResult result = controller.cAddBooks(Arrays.asList(book)).get(0);
+            requireLogged(result != BatchResult.FAILED);
+            response.writeField("added", result == BatchResult.APPLIED);
+        });
+        endpoints.put("POST /books/read", (params, response) -> {
+            String title = requiredParam(params, "title");
+            String author = requiredParam(params, "author");
+            requireBook(title, author);
+            requireLogged(controller.cSetToRead(title, author));
+            response.writeField("read", true);
+        });
+        endpoints.put("POST /books/rating", (params, response) -> {
+            String title = requiredParam(params, "title");
+            String author = requiredParam(params, "author");
+            int rating = intParam(params, "rating", 0, 1, 5);
+            requireBook(title, author);
+            requireLogged(controller.cUpdateBookRating(title, author, rating));
+            response.writeField("rating", rating);
+        });
+
+        // Endpoints for changing many books at once, where the books are given by repeating the
+        // title and author parameters (along with the rating parameter, when rating books), and
+        // the result for each book is sent back in the same order
+        endpoints.put("POST /books/batch", (params, response) ->
+                response.writeResults(controller.cAddBooks(batchBooks(params))));
+        endpoints.put("POST /books/batch/read", (params, response) ->
+                response.writeResults(controller.cSetToRead(batchKeys(params))));
+        endpoints.put("POST /books/batch/rating", (params, response) -> {
+            ArrayList<String> keys = batchKeys(params);
+            List<String> ratings = params.get("rating");
+            if (ratings == null || ratings.size() != keys.size()) {
+                throw new BadRequestException("each book needs a rating");
+            }
+            LinkedHashMap<String, Integer> newRatings = new LinkedHashMap<String, Integer>();
+            for (int i = 0; i < keys.size(); i++) {
+                Integer rating;
+                try {
+                    rating = Integer.parseInt(ratings.get(i));
+                } catch (NumberFormatException e) {
+                    // A rating that cannot be read is reported as invalid for that book alone
+                    rating = null;
+                }
+                if (newRatings.containsKey(keys.get(i))) {
+                    throw new BadRequestException("a book was given more than once");
+                }
+                newRatings.put(keys.get(i), rating);
+            }
+            response.writeResults(controller.cUpdateRatings(newRatings));
+        });
+
+        // Endpoints for importing and saving the collection, along with its write-ahead log. Note
+        // that the file names are paths on the machine running the server, which is why these
+        // endpoints are only allowed if the server was created with allowFiles set
+        fileEndpoint("POST /import", (params, response) -> {
+            List<String> files = params.get("file");
+            if (files == null) {
+                throw new BadRequestException("missing parameter: file");
+            }
+            ImportReport report = files.size() == 1 ? controller.cAddBooksFromFile(files.get(0))
+                    : controller.cAddBooksFromFiles(files);
+            if (report == null) {
+                throw new BadRequestException("could not read the file");
+            }
+            response.writeReport(report);
+        });
+        fileEndpoint("POST /snapshot/save", (params, response) -> {
+            if (!controller.cSaveSnapshot(requiredParam(params, "file"))) {
+                throw new BadRequestException("could not write the file");
+            }
+            response.writeField("saved", true);
+        });
+        fileEndpoint("POST /snapshot/load", (params, response) -> {
+            ImportReport report = controller.cLoadSnapshot(requiredParam(params, "file"));
+            if (report == null) {
+                throw new BadRequestException("could not read the file");
+            }
+            response.writeReport(report);
+        });
+        fileEndpoint("POST /log/open", (params, response) -> {
+            Durability durability;
+            try {
+                durability = Durability.valueOf(param(params, "durability", "BATCHED").toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("durability must be NONE, BATCHED, or SYNC");
+            }
+            response.writeField("open", controller.cOpenLog(requiredParam(params, "snapshot"),
+                    requiredParam(params, "log"), durability));
+        });
+        endpoints.put("POST /log/compact", (params, response) ->
+                response.writeField("compacted", controller.cCompact()));
+        endpoints.put("POST /log/close", (params, response) ->
+                response.writeField("closed", controller.cCloseLog()));
+    }
+
+    /*
+    Private helper method which adds an endpoint that reaches the file system of the machine
+    running the server. If such endpoints are not allowed, then the endpoint is answered with a
+    403 status instead, without its parameters being looked at.
+
+    @pre name != null && endpoint != null
+     */
+    private void fileEndpoint(String name, Endpoint endpoint) {
+        endpoints.put(name, (params, response) -> {
+            if (!allowFiles) {
+                throw new BadRequestException(FORBIDDEN, "file endpoints are turned off on this server");
+            }
+            endpoint.handle(params, response);
+        });
+    }
+
+    /*
+    Private helper method which handles a single request (on one of the worker threads), by
+    reading its parameters, finding its endpoint, and sending back the result. A request that does
+    not come from the loopback address (judging by its Host and Origin headers) is answered with a
+    403 status before anything else is done. Any error is answered with a JSON object describing
+    it, rather than being thrown, so that the connection can still be used for the next request.
+
+    @pre exchange != null
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (JsonResponse response = new JsonResponse(exchange)) {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if (!isLocal(exchange.getRequestHeaders().getFirst("Host"), false)
+                    || !isLocal(exchange.getRequestHeaders().getFirst("Origin"), true)) {
+                response.writeError(FORBIDDEN, "requests must come from the loopback address");
+                return;
+            }
+            Endpoint endpoint = endpoints.get(method + " " + path);
+            if (endpoint == null) {
+                boolean otherMethod = endpoints.containsKey("GET " + path) || endpoints.containsKey("POST " + path);
+                response.writeError(otherMethod ? BAD_METHOD : NOT_FOUND,
+                        otherMethod ? "wrong method for " + path : "no such endpoint: " + path);
+                return;
+            }
+
+            // The parameters are read from the query string, along with the body of a POST
+            Map<String, List<String>> params = new HashMap<String, List<String>>();
+            readParams(exchange.getRequestURI().getRawQuery(), params);
+            try (InputStream body = exchange.getRequestBody()) {
+                readParams(new String(body.readAllBytes(), StandardCharsets.UTF_8), params);
+            }
+            try {
+                endpoint.handle(params, response);
+            } catch (BadRequestException e) {
+                if (!response.discard()) {
+                    response.abort();
+                    throw e;
+                }
+                response.writeError(e.status, e.getMessage());
+            } catch (RuntimeException e) {
+                // An error can only be reported if none of the result has been sent yet.
+                // Otherwise, the response is aborted, and the exception is passed on to the JDK
+                // server, which closes the connection without sending the last chunk, so that the
+                // client can tell that the response was cut short rather than taking it as complete
+                if (!response.discard()) {
+                    response.abort();
+                    throw e;
+                }
+                response.writeError(SERVER_ERROR, "internal error");
+            }
+        }
+    }
+
+    /*
+    Private helper method which determines whether the given Host header (such as
+    "localhost:8080"), or the given Origin header (such as "http://localhost:3000") if isOrigin is
+    true, names the loopback address. A missing Host header is not allowed, while a missing Origin
+    header is, since programs other than browsers do not send one.
+
+    @return true if the header names the loopback address (or is a missing Origin), false otherwise
+     */
+    private static boolean isLocal(String header, boolean isOrigin) {
+        if (header == null) {
+            return isOrigin;
+        }
+        String host = header.trim().toLowerCase();
+        if (isOrigin) {
+            if (!host.startsWith("http://") && !host.startsWith("https://")) {
+                return false;
+            }
+            host = host.substring(host.indexOf("//") + 2);
+        }
+
+        // The port is removed from the end of the host, if there is one
+        int colon = host.lastIndexOf(':');
+        if (colon >= 0 && colon > host.lastIndexOf(']')) {
+            host = host.substring(0, colon);
+        }
+        return host.equals("localhost") || host.equals("127.0.0.1") || host.equals("[::1]");
+    }
+
+    /*
+    Private helper method which adds the parameters in the given form-encoded String (such as
+    "title=dune&author=frank+herbert") to the given map, where a parameter given several
+    times keeps all of its values, in order.
+
+    @pre params != null
+     */
+    private static void readParams(String encoded, Map<String, List<String>> params) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            params.computeIfAbsent(name, key -> new ArrayList<String>()).add(value);
+        }
+    }
+
+    /*
+    Private helper methods which read a single parameter of a request. The first returns null
+    (or the given default) if the parameter was not given, while requiredParam() throws a
+    BadRequestException if it is missing or empty, or holds a control character (see
+    requireText()), and the rest also throw a BadRequestException if the parameter cannot be
+    read as the right type or is out of range.
+
+    @pre params != null && name != null
+     */
+    private static String param(Map<String, List<String>> params, String name) {
+        List<String> values = params.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    private static String param(Map<String, List<String>> params, String name, String fallback) {
+        String value = param(params, name);
+        return value == null ? fallback : value;
+    }
+
+    private static String requiredParam(Map<String, List<String>> params, String name) {
+        String value = param(params, name);
+        if (value == null || value.isEmpty()) {
+            throw new BadRequestException("missing parameter: " + name);
+        }
+        requireText(name, value);
+        return value;
+    }
+
+    private static int intParam(Map<String, List<String>> params, String name, int fallback, int min, int max) {
+        String value = param(params, name);
+        if (value == null && fallback >= min) {
+            return fallback;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // An int that cannot be read is reported below, in the same way as one out of range
+        }
+        throw new BadRequestException(name + " must be a whole number from " + min + " to " + max);
+    }
+
+    private static boolean booleanParam(Map<String, List<String>> params, String name, boolean fallback) {
+        String value = param(params, name, Boolean.toString(fallback)).toLowerCase();
+        if (!value.equals("true") && !value.equals("false")) {
+            throw new BadRequestException(name + " must be true or false");
+        }
+        return value.equals("true");
+    }
+
+    private static TypeSort sortParam(Map<String, List<String>> params, String name, TypeSort fallback) {
+        try {
+            return TypeSort.valueOf(param(params, name, fallback.name()).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(name + " must be title or author");
+        }
+    }
+
+    /*
+    Private helper method which builds a BookQuery out of the parameters of a "GET /query"
+    request, where any of title, author, titlePrefix, authorPrefix, keywords, minRating,
+    maxRating, read (true or false), sort, and limit may be given.
+
+    @pre params != null
+    @return BookQuery holding every criterion that was given
+     */
+    private static BookQuery queryParams(Map<String, List<String>> params) {
+        BookQuery query = new BookQuery();
+        if (params.containsKey("title")) {
+            query.withTitle(param(params, "title"));
+        }
+        if (params.containsKey("author")) {
+            query.withAuthor(param(params, "author"));
+        }
+        if (params.containsKey("titlePrefix")) {
+            query.withTitlePrefix(param(params, "titlePrefix"));
+        }
+        if (params.containsKey("authorPrefix")) {
+            query.withAuthorPrefix(param(params, "authorPrefix"));
+        }
+        if (params.containsKey("keywords")) {
+            query.withKeywords(param(params, "keywords"));
+        }
+        if (params.containsKey("minRating")) {
+            query.withMinRating(intParam(params, "minRating", 0, -1, 5));
+        }
+        if (params.containsKey("maxRating")) {
+            query.withMaxRating(intParam(params, "maxRating", 0, -1, 5));
+        }
+        if (params.containsKey("read")) {
+            query.withReadStatus(booleanParam(params, "read", false) ? Read.READ : Read.UNREAD);
+        }
+        if (params.containsKey("sort")) {
+            query.sortedBy(sortParam(params, "sort", TypeSort.TITLE));
+        }
+        if (params.containsKey("limit")) {
+            query.withLimit(intParam(params, "limit", 0, 0, Integer.MAX_VALUE));
+        }
+        return query;
+    }
+
+    /*
+    Private helper method which pairs up the repeated title and author parameters of a batch
+    request into a BookSnapshot for each book, in order. If there are no books, the number of
+    titles and authors differ, or a title or author is empty or holds a control character, then
+    a BadRequestException is thrown.
+
+    @pre params != null
+    @return ArrayList<ReadOnlyBook> holding each book in the request
+     */
+    private static ArrayList<ReadOnlyBook> batchBooks(Map<String, List<String>> params) {
+        List<String> titles = params.get("title");
+        List<String> authors = params.get("author");
+        if (titles == null || authors == null || titles.size() != authors.size()) {
+            throw new BadRequestException("each book needs a title and an author");
+        }
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>(titles.size());
+        for (int i = 0; i < titles.size(); i++) {
+            if (titles.get(i).isEmpty() || authors.get(i).isEmpty()) {
+                throw new BadRequestException("each book needs a title and an author");
+            }
+            requireText("title", titles.get(i));
+            requireText("author", authors.get(i));
+            books.add(new BookSnapshot(titles.get(i), authors.get(i)));
+        }
+        return books;
+    }
+
+    /*
+    Private helper method which returns the key of each book of a batch request (see
+    Book.makeKey() and batchBooks()), in order.
+
+    @pre params != null
+    @return ArrayList<String> holding the key of each book in the request
+     */
+    private static ArrayList<String> batchKeys(Map<String, List<String>> params) {
+        ArrayList<String> keys = new ArrayList<String>();
+        for (ReadOnlyBook book : batchBooks(params)) {
+            keys.add(Book.makeKey(book.getTitle(), book.getAuthor()));
+        }
+        return keys;
+    }
+
+    /*
+    Private helper method which throws a BadRequestException if the given parameter holds a
+    control character. Once decoded from the URL, a parameter may hold characters such as a
+    newline (sent as %0A), which can never appear in a title or author read from a file, and
+    which the keys of books (see Book.makeKey()) and the tokens of pages (see BookPage) rely on
+    to separate a title from its author.
+
+    @pre name != null && value != null
+     */
+    private static void requireText(String name, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isISOControl(value.charAt(i))) {
+                throw new BadRequestException(name + " may not contain control characters");
+            }
+        }
+    }
+
+    /*
+    Private helper method which throws a BadRequestException with a 404 status if the book with
+    the given title and author is not in the collection.
+
+    @pre title != null && author != null
+     */
+    private void requireBook(String title, String author) {
+        if (!controller.cAlreadyInCollection(title, author)) {
+            throw new BadRequestException(NOT_FOUND, "no such book");
+        }
+    }
+
+    /*
+    Private helper method which throws a BadRequestException with a 500 status if a change to
+    the collection was not made, because it could not be recorded in the write-ahead log.
+
+    @pre (changed is the result of changing the collection through the controller)
+     */
+    private static void requireLogged(boolean changed) {
+        if (!changed) {
+            throw new BadRequestException(SERVER_ERROR, "change could not be written to the log");
+        }
+    }
+
+    /*
+    Private exception class which is thrown by an endpoint in order to answer the request with
+    an error, along with the status that should be sent back (400 unless stated otherwise).
+     */
+    private static class BadRequestException extends RuntimeException {
+        // Declares the version of this class for serialization, which every Throwable needs, and
+        // the status to send back
+        private static final long serialVersionUID = 1L;
+        private int status;
+
+        BadRequestException(String message) {
+            this(BAD_REQUEST, message);
+        }
+
+        BadRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /*
+    Private class which encodes the JSON result of a single request, and sends it back. The text
+    is written into a buffer, and if the whole response fits into the buffer, then it is sent
+    with its exact length once the response is closed. Otherwise, as soon as the buffer fills up,
+    the headers are sent with chunked encoding, and the buffer is sent each time that it fills up
+    again, so that a response of any size only takes up the space of the buffer. Either way, the
+    connection can be kept open for the next request.
+     */
+    private static class JsonResponse extends OutputStream {
+        // Declares the private instance variables, which are the request being answered, the
+        // buffer and the number of bytes in it, the body being sent (once the headers have been
+        // sent), the status to send, the writer which encodes text into the buffer, and whether
+        // the response has been aborted
+        private HttpExchange exchange;
+        private byte[] buffer;
+        private int length;
+        private OutputStream body;
+        private int status;
+        private Writer text;
+        private boolean aborted;
+
+        JsonResponse(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.buffer = new byte[BUFFER_SIZE];
+            this.status = OK;
+            this.text = new BufferedWriter(new OutputStreamWriter(this, StandardCharsets.UTF_8));
+        }
+
+        // Methods which write the given text, a JSON string (or null), a single book (or null),
+        // and an array of books, where the books are written out one at a time
+        void write(String json) throws IOException {
+            text.write(json);
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                text.write("null");
+                return;
+            }
+            text.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    text.write('\\');
+                    text.write(c);
+                } else if (c == '\n') {
+                    text.write("\\n");
+                } else if (c < 0x20) {
+                    text.write(String.format("\\u%04x", (int) c));
+                } else {
+                    text.write(c);
+                }
+            }
+            text.write('"');
+        }
+
+        void writeBook(ReadOnlyBook book) throws IOException {
+            if (book == null) {
+                text.write("null");
+                return;
+            }
+            text.write("{\"title\":");
+            writeString(book.getTitle());
+            text.write(",\"author\":");
+            writeString(book.getAuthor());
+            text.write(",\"rating\":" + book.getRating());
+            text.write(",\"read\":" + (book.getReadStatus() == Read.READ) + "}");
+        }
+
+        void writeBooks(Iterator<ReadOnlyBook> books) throws IOException {
+            text.write('[');
+            boolean first = true;
+            while (books.hasNext()) {
+                if (!first) {
+                    text.write(',');
+                }
+                writeBook(books.next());
+                first = false;
+            }
+            text.write(']');
+        }
+
+        // Methods which write an object with a single field, the counts of an ImportReport, the
+        // results of a batch, and an error with the given status, which is only possible before
+        // anything else is written
+        void writeField(String name, Object value) throws IOException {
+            text.write("{\"" + name + "\":" + value + "}");
+        }
+
+        void writeReport(ImportReport report) throws IOException {
+            text.write("{\"added\":" + report.getAdded() + ",\"duplicates\":" + report.getDuplicates()
+                    + ",\"malformed\":" + report.getMalformed() + ",\"cancelled\":" + report.wasCancelled() + "}");
+        }
+
+        void writeResults(List<BatchResult> results) throws IOException {
+            text.write("{\"results\":[");
+            for (int i = 0; i < results.size(); i++) {
+                text.write((i > 0 ? ",\"" : "\"") + results.get(i) + "\"");
+            }
+            text.write("]}");
+        }
+
+        void writeError(int status, String message) throws IOException {
+            this.status = status;
+            text.write("{\"error\":");
+            writeString(message);
+            text.write('}');
+        }
+
+        // Method which throws away everything written so far, returning false if some of it has
+        // already been sent, in which case nothing more can be taken back
+        boolean discard() throws IOException {
+            text.flush();
+            if (body != null) {
+                return false;
+            }
+            length = 0;
+            return true;
+        }
+
+        // Methods of OutputStream which receive the bytes encoded by the writer, sending the
+        // headers with chunked encoding once the buffer has filled up
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        public void write(byte[] bytes, int offset, int count) throws IOException {
+            if (body == null && length + count > buffer.length) {
+                sendHeaders(0);
+            }
+            if (body != null) {
+                body.write(buffer, 0, length);
+                length = 0;
+                body.write(bytes, offset, count);
+            } else {
+                System.arraycopy(bytes, offset, buffer, length, count);
+                length += count;
+            }
+        }
+
+        // Method which aborts a response that has already started to be sent, so that closing it
+        // sends nothing more (in particular, not the last chunk, which would mark it as complete)
+        void abort() {
+            aborted = true;
+        }
+
+        // Sends whatever is left of the response, along with the headers if they haven't been sent,
+        // unless the response has been aborted
+        public void close() throws IOException {
+            if (aborted) {
+                return;
+            }
+            text.flush();
+            if (body == null) {
+                sendHeaders(length);
+            }
+            body.write(buffer, 0, length);
+            body.close();
+        }
+
+        // Sends the headers, where a length of 0 means that the body is sent in chunks
+        private void sendHeaders(long bodyLength) throws IOException {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bodyLength);
+            body = exchange.getResponseBody();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+/*
+File: LibraryModel.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This interface defines all of the operations that the Model element of the
+Model-View-Controller design pattern must provide for the library collection. The
+LibraryCollectionController class only ever refers to its model through this interface,
+which allows for different implementations of the model (such as the single-threaded
+LibraryCollection class, or the thread-safe ConcurrentLibraryCollection class) to be
+swapped in without any changes to the controller or the views. The full descriptions of
+each of these operations, along with the design choices behind them, can be found in
+the LibraryCollection class.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public interface LibraryModel {
+    /*
+    Returns a list of all of the books in the collection, sorted according to howSort.
+
+    @pre howSort != null
+    @return ArrayList<ReadOnlyBook> of the books currently in the collection, sorted according to howSort
+     */
+    ArrayList<ReadOnlyBook> getSortedCollection(TypeSort howSort);
+
+    /*
+    Returns up to limit books from the collection, sorted according to howSort, skipping the
+    first offset books.
+
+    @pre howSort != null && offset >= 0 && limit >= 0
+    @return ArrayList<ReadOnlyBook> of up to limit books, starting from the book at position offset
+     */
+    ArrayList<ReadOnlyBook> getSortedCollection(TypeSort howSort, int offset, int limit);
+
+    /*
+    Returns the page of up to limit books that comes just after the position marked by the
+    given token (from the getNextToken() method of the previous page), sorted according to
+    howSort, or the first page if the token is null.
+
+    @pre howSort != null && limit > 0 && (afterToken was returned for the same howSort)
+    @return BookPage holding the books and the token for the next page, or null if the token is
+        not valid
+     */
+    BookPage getPage(TypeSort howSort, String afterToken, int limit);
+
+    /*
+    Returns an Iterator over all of the books in the collection, sorted according to howSort,
+    which reads the books one page at a time through getPage(), so that only a single page is
+    ever held in memory.
+
+    @pre howSort != null
+    @return Iterator<ReadOnlyBook> over the books in the collection, sorted according to howSort
+     */
+    default Iterator<ReadOnlyBook> iterateSorted(TypeSort howSort) {
+        return new BookPageIterator(this, howSort);
+    }
+
+    /*
+    Returns a sequential Stream of all of the books in the collection, sorted according to
+    howSort, which reads the books one page at a time in the same way as iterateSorted().
+
+    @pre howSort != null
+    @return Stream<ReadOnlyBook> of the books in the collection, sorted according to howSort
+     */
+    default Stream<ReadOnlyBook> streamSorted(TypeSort howSort) {
+        Spliterator<ReadOnlyBook> books = Spliterators.spliteratorUnknownSize(iterateSorted(howSort),
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(books, false);
+    }
+
+    /*
+    Returns a list of all of the books in the collection with the given author. This is
+    not case-sensitive.
+
+    @pre author != null
+    @return ArrayList<ReadOnlyBook> of Book objects with the given author
+     */
+    ArrayList<ReadOnlyBook> getBooksWithAuthor(String author);
+
+    /*
+    Returns a list of all of the books in the collection with the given title. This is
+    not case-sensitive.
+
+    @pre title != null
+    @return ArrayList<ReadOnlyBook> of the Books with the given title
+     */
+    ArrayList<ReadOnlyBook> getBooksWithTitle(String title);
+
+    /*
+    Returns a list of all of the books in the collection whose author starts with the given
+    prefix, sorted by author. This is not case-sensitive.
+
+    @pre prefix != null
+    @return ArrayList<ReadOnlyBook> of Book objects whose author starts with the given prefix
+     */
+    ArrayList<ReadOnlyBook> getBooksWithAuthorPrefix(String prefix);
+
+    /*
+    Returns a list of all of the books in the collection whose title starts with the given
+    prefix, sorted by title. This is not case-sensitive.
+
+    @pre prefix != null
+    @return ArrayList<ReadOnlyBook> of Book objects whose title starts with the given prefix
+     */
+    ArrayList<ReadOnlyBook> getBooksWithTitlePrefix(String prefix);
+
+    /*
+    Returns a list of the books in the collection whose title or author contains the words of
+    the given query (ignoring case and accents), ranked from the best match to the worst. If
+    matchAll is true, then every word must be found, and otherwise any of the words may be.
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> of the matching books, best match first
+     */
+    ArrayList<ReadOnlyBook> search(String query, boolean matchAll);
+
+    /*
+    Returns a list of the books in the collection matching the words of the given query in the
+    same way as search(), except that each word also matches words that are spelled almost the
+    same, with the closest matches ranked first.
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> of the matching books, best match first
+     */
+    ArrayList<ReadOnlyBook> fuzzySearch(String query, boolean matchAll);
+
+    /*
+    Returns a list of the books in the collection matching every criterion of the given query,
+    sorted and limited as the query asks (see BookQuery.java).
+
+    @pre query != null
+    @return ArrayList<ReadOnlyBook> of the matching books
+     */
+    ArrayList<ReadOnlyBook> query(BookQuery query);
+
+    /*
+    Returns a list of all of the books in the collection with the given rating.
+
+    @pre rating >= 1 && rating <= 5
+    @return ArrayList<ReadOnlyBook> of the Books currently in the collection with the given rating
+     */
+    ArrayList<ReadOnlyBook> getBooksWithRating(int rating);
+
+    /*
+    Adds a new, unrated and unread book with the given title and author to the collection. If a
+    write-ahead log is open and the book cannot be recorded in it, then the book is not added.
+
+    @pre title != null && author != null && !alreadyInCollection(title, author)
+    @return true if the book was added, and false otherwise
+     */
+    boolean addBook(String title, String author);
+
+    /*
+    Determines whether a book with the given title and author is in the collection. This
+    is not case-sensitive.
+
+    @pre title != null && author != null
+    @return true if the book is already in our library collection, and false otherwise
+     */
+    boolean alreadyInCollection(String title, String author);
+
+    /*
+    Marks the book with the given title and author as read. If a write-ahead log is open and the
+    change cannot be recorded in it, then the change is not made.
+
+    @pre title != null && author != null && alreadyInCollection(title, author)
+    @return true unless the change could not be recorded in the log (and so was not made)
+     */
+    boolean setToRead(String title, String author);
+
+    /*
+    Updates the rating of the book with the given title and author. If a write-ahead log is open
+    and the change cannot be recorded in it, then the change is not made.
+
+    @pre title != null && author != null && rating >= 1 && rating <= 5 && alreadyInCollection(title, author)
+    @return true unless the change could not be recorded in the log (and so was not made)
+     */
+    boolean updateBookRating(String title, String author, int rating);
+
+    /*
+    Marks every book with one of the given keys (see Book.makeKey()) as read, as a single change.
+    All of the keys are looked up before any book is changed, and the result for each key is
+    returned in the same order as the keys.
+
+    @pre keys != null
+    @return ArrayList<BatchResult> holding the result for each of the given keys, in order
+     */
+    ArrayList<BatchResult> setToRead(Collection<String> keys);
+
+    /*
+    Gives each book with one of the keys of the given map (see Book.makeKey()) the rating that
+    the key maps to, as a single change. All of the keys are looked up before any book is
+    changed, and the result for each entry is returned in the iteration order of the map.
+
+    @pre ratings != null
+    @return ArrayList<BatchResult> holding the result for each entry of the given map, in order
+     */
+    ArrayList<BatchResult> updateRatings(Map<String, Integer> ratings);
+
+    /*
+    Adds each of the given books that is not already in the collection, keeping its rating and
+    read status, as a single change. The result for each book is returned in the same order as
+    the books.
+
+    @pre books != null
+    @return ArrayList<BatchResult> holding the result for each of the given books, in order
+     */
+    ArrayList<BatchResult> addBooks(Collection<? extends ReadOnlyBook> books);
+
+    /*
+    Returns a list of all of the books in the collection that have been read, sorted by title.
+
+    @return ArrayList<ReadOnlyBook> of all the Book objects in the collection that have been read
+     */
+    ArrayList<ReadOnlyBook> allReadBooks();
+
+    /*
+    Returns a list of all of the books in the collection that have not been read, sorted by title.
+
+    @return ArrayList<ReadOnlyBook> of all the Book objects in the collection that haven't been read
+     */
+    ArrayList<ReadOnlyBook> allUnreadBooks();
+
+    /*
+    Returns the number of books in the collection with the given rating, where -1 counts the
+    books that have not been rated yet.
+
+    @pre rating == -1 || (rating >= 1 && rating <= 5)
+    @return an int representing the number of books with the given rating
+     */
+    int countBooksWithRating(int rating);
+
+    /*
+    Returns the number of books in the collection that have been read.
+
+    @return an int representing the number of read books in the collection
+     */
+    int countReadBooks();
+
+    /*
+    Returns the number of books in the collection that have not been read.
+
+    @return an int representing the number of unread books in the collection
+     */
+    int countUnreadBooks();
+
+    /*
+    Returns a random unread book from the collection, or null if there are no unread books.
+
+    @pre !isEmpty()
+    @return ReadOnlyBook object which represents a random unread book in the library collection, or null
+        if there are no unread books.
+     */
+    ReadOnlyBook getRandomBook();
+
+    /*
+    Returns a list of up to k distinct random unread books from the collection.
+
+    @pre k >= 0
+    @return ArrayList<ReadOnlyBook> of up to k distinct random unread books
+     */
+    ArrayList<ReadOnlyBook> suggest(int k);
+
+    /*
+    Adds all of the books from the given file (in the "Title;Author" format) that are not
+    already in the collection.
+
+    @pre filename != null && (file structure is as described in the spec)
+    @return ImportReport describing the result of the import, or null if the file could not be read
+     */
+    ImportReport addBooksFromFile(String filename);
+
+    /*
+    Adds all of the books from the given file in the same way as addBooksFromFile(), telling
+    the given listener how much of the file has been read as it goes, and stopping early if the
+    listener cancels the import.
+
+    @pre filename != null && progress != null && (file structure is as described in the spec)
+    @return ImportReport describing the result of the import, or null if the file could not be read
+     */
+    ImportReport addBooksFromFile(String filename, ImportProgress progress);
+
+    /*
+    Adds all of the books from the given files that are not already in the collection, reading
+    the files in parallel.
+
+    @pre filenames != null && (each file's structure is as described in the spec)
+    @return ImportReport describing the result of the import, or null if a file could not be read
+     */
+    ImportReport addBooksFromFiles(List<String> filenames);
+
+    /*
+    Saves every book in the collection, along with its rating and read status, to a binary
+    snapshot file with the given name.
+
+    @pre filename != null
+    @return true if the snapshot was saved, and false otherwise
+     */
+    boolean saveSnapshot(String filename);
+
+    /*
+    Adds all of the books from a binary snapshot file that are not already in the collection,
+    keeping their saved ratings and read statuses.
+
+    @pre filename != null
+    @return ImportReport describing the result of the load, or null if the file could not be read
+     */
+    ImportReport loadSnapshot(String filename);
+
+    /*
+    Loads the collection from the given snapshot and write-ahead log files, then records every
+    later change in the log with the given durability level.
+
+    @pre snapshotFilename != null && logFilename != null && durability != null
+    @return true if the log was opened, and false otherwise
+     */
+    boolean openLog(String snapshotFilename, String logFilename, Durability durability);
+
+    /*
+    Saves the whole collection into the snapshot file given to openLog(), then empties the log.
+
+    @return true if the log was compacted, and false otherwise
+     */
+    boolean compact();
+
+    /*
+    Flushes any changes that have not yet reached the disk, and stops logging changes.
+
+    @return true if the log was closed cleanly, and false otherwise
+     */
+    boolean closeLog();
+
+    /*
+    Determines whether the collection contains no books.
+
+    @return true if the collection is empty, false otherwise
+     */
+    boolean isEmpty();
+}
@@ -0,0 +1,239 @@
+/*
+File: LibrarySnapshot.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements the compact binary file format that the library collection
+uses to save all of its books (including their ratings and read statuses) to disk, and to
+load them back in again later. Unlike the "Title;Author" text files read by the
+addBooksFromFile() method, a snapshot keeps every piece of information about each book, and
+is much faster to load, since it never has to be split into lines or searched for separators.
+The format of a snapshot file is as follows, where every count, length, and id is written
+as a variable-length integer (seven bits per byte, with the high bit set on every byte but
+the last):
+
+    magic number (4 bytes, "LIB1") and format version (1 byte)
+    number of distinct authors, then each author as a length-prefixed UTF-8 string
+    number of books, then for each book:
+        the id of its author (its position in the list of authors above)
+        its title as a length-prefixed UTF-8 string
+        a single packed byte, holding the rating in the low three bits (0 if unrated)
+            and the read status in the fourth bit
+
+Since each author's name is only written once, no matter how many books they have, the
+authors of a large library take up very little space. Snapshots are loaded by mapping the
+file into memory through a FileChannel, so the bytes are decoded straight out of the page
+cache without being copied through any intermediate streams.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/*
+When it comes to maintaining encapsulation, note that this class has no instance variables
+at all, and that it cannot be instantiated, since it only provides the static methods for
+reading and writing snapshot files. The books being written are only ever read from, and the
+books being read in are newly created BookSnapshots, which are immutable, so no escaping
+references can be produced by this class.
+ */
+
+public final class LibrarySnapshot {
+    // Declares the constants of the file format, which are the magic number that every
+    // snapshot file starts with, and the current version of the format
+    private static final int MAGIC = 0x4C494231;
+    private static final byte VERSION = 1;
+    private static final int READ_FLAG = 0x08;
+    private static final int RATING_MASK = 0x07;
+
+    /*
+    Private constructor for the LibrarySnapshot class, which prevents it from being instantiated.
+     */
+    private LibrarySnapshot() {
+    }
+
+    /*
+    Public static method which writes the given books out to a snapshot file with the given
+    name. The snapshot is first written to a temporary file next to the given file, and is then
+    moved into place, so that a failure partway through writing never leaves behind a damaged
+    snapshot in place of the previous one. Both the snapshot and the directory holding it are
+    forced out to the disk before this method returns, so once it returns, the snapshot will
+    survive a crash (which is what allows the log to be reset after the library is compacted).
+
+    @pre books != null && filename != null
+     */
+    public static void write(Iterable<? extends ReadOnlyBook> books, String filename) throws IOException {
+        // First, the dictionary of authors is built, giving each distinct author an id in the
+        // order in which they are first seen, and the books are counted
+        HashMap<String, Integer> authorIds = new HashMap<String, Integer>();
+        ArrayList<String> authors = new ArrayList<String>();
+        int bookCount = 0;
+        for (ReadOnlyBook book : books) {
+            if (!authorIds.containsKey(book.getAuthor())) {
+                authorIds.put(book.getAuthor(), authors.size());
+                authors.add(book.getAuthor());
+            }
+            bookCount++;
+        }
+
+        // The header, dictionary of authors, and books are then written out to the temporary
+        // file, with the try-with-resources statement ensuring that the file is always closed
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16)) {
+            out.write(MAGIC >>> 24);
+            out.write(MAGIC >>> 16);
+            out.write(MAGIC >>> 8);
+            out.write(MAGIC);
+            out.write(VERSION);
+
+            writeVarInt(out, authors.size());
+            for (String author : authors) {
+                writeString(out, author);
+            }
+
+            writeVarInt(out, bookCount);
+            for (ReadOnlyBook book : books) {
+                writeVarInt(out, authorIds.get(book.getAuthor()));
+                writeString(out, book.getTitle());
+                int packed = Math.max(book.getRating(), 0);
+                if (book.getReadStatus() == Read.READ) {
+                    packed |= READ_FLAG;
+                }
+                out.write(packed);
+            }
+
+            // Before the temporary file is closed, everything written to it is forced out to the
+            // disk, so that the snapshot cannot be moved into place while still being incomplete
+            out.flush();
+            channel.force(true);
+        }
+
+        // Finally, the finished snapshot is moved into place, and the directory holding it is
+        // forced out to the disk as well, so that the move itself survives a crash
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(target.getParent());
+    }
+
+    /*
+    Private helper method which forces the entries of the given directory (such as a file that
+    was just moved into it) out to the disk. Some platforms do not allow a directory to be opened
+    in this way at all, in which case there is nothing more that can be done, and the directory
+    is left to the operating system.
+
+    @pre directory != null
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return;
+        }
+        try (FileChannel opened = channel) {
+            opened.force(true);
+        }
+    }
+
+    /*
+    Public static method which reads all of the books out of the snapshot file with the given
+    name, handing each one to the given Consumer in the order in which they were saved. The file
+    is mapped into memory, and each author is only decoded once, so all of the books by the same
+    author share the same String. If the file is not a valid snapshot, an IOException is thrown.
+
+    @pre filename != null && sink != null
+     */
+    public static void read(String filename, Consumer<BookSnapshot> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            // First, the header is checked, to make sure that this file really is a snapshot
+            if (buffer.remaining() < 5 || buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IOException("not a library snapshot");
+            }
+
+            // The dictionary of authors is then decoded, reusing a single scratch array for the
+            // bytes of each string
+            byte[] scratch = new byte[256];
+            String[] authors = new String[readVarInt(buffer)];
+            for (int i = 0; i < authors.length; i++) {
+                int length = readVarInt(buffer);
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                authors[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+
+            // Finally, each book is decoded and handed to the Consumer
+            int bookCount = readVarInt(buffer);
+            for (int i = 0; i < bookCount; i++) {
+                int authorId = readVarInt(buffer);
+                int length = readVarInt(buffer);
+                if (authorId >= authors.length) {
+                    throw new IOException("snapshot refers to an unknown author");
+                }
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                String title = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                int packed = buffer.get();
+                int rating = packed & RATING_MASK;
+                if (rating < 1 || rating > 5) {
+                    rating = -1;
+                }
+                Read readStatus = (packed & READ_FLAG) != 0 ? Read.READ : Read.UNREAD;
+                sink.accept(BookSnapshot.ofUppercase(title, authors[authorId], rating, readStatus));
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            // A snapshot that ends partway through is treated the same as any other invalid file
+            throw new IOException("snapshot is truncated", e);
+        }
+    }
+
+    // Private helper methods for writing and reading the variable-length integers and the
+    // length-prefixed UTF-8 strings that make up the file format
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static int readVarInt(MappedByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int cur = buffer.get();
+            value |= (cur & 0x7F) << shift;
+            if ((cur & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("snapshot contains an invalid length");
+                }
+                return value;
+            }
+        }
+        throw new IOException("snapshot contains an invalid length");
+    }
+}
@@ -0,0 +1,387 @@
+/*
+File: MutationLog.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements an append-only write-ahead log of the changes made to the
+library collection, so that if the program stops unexpectedly, every change made since the
+last snapshot can be replayed to bring the collection back to where it was. Each time a book
+is added, or has its rating or read status changed, the LibraryCollection class appends a
+record holding the new state of that book before making the change in memory. Each record is
+made up of its length, a CRC32 checksum of its contents, a byte for the type of change, the
+title and author of the book as length-prefixed UTF-8 strings, and a packed byte holding the
+rating and read status (in the same manner as the LibrarySnapshot class). The checksum allows
+for a record that was only partly written when the program stopped to be detected and thrown
+away during replay.
+
+Records are first encoded into an in-memory buffer, which makes appending a record cost only
+a small amount of copying, and are then written to the file in batches. How often the batches
+are flushed all the way to the disk depends on the Durability level that the log was opened
+with (see Durability.java). With SYNC durability, a thread which needs its record to be on
+disk first checks whether another thread's flush has already covered it, so many threads
+making changes at once share a single flush between them (this is known as group commit).
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private, and that the FileChannel and buffer are never returned from any method.
+The only way to change the log file is to append records through the append() method, or to
+empty it out through the reset() method, and every method that touches the buffer or the
+FileChannel is synchronized, so the background flushing thread can never see a half-written
+record. During replay, each record is handed to the Listener as a newly created BookSnapshot,
+which is immutable.
+ */
+
+public class MutationLog {
+    // Declares the types of record that can appear in the log, along with the constants used
+    // for packing the rating and read status of a book into a single byte
+    public static final byte ADD = 1;
+    public static final byte UPDATE = 2;
+    private static final int READ_FLAG = 0x08;
+    private static final int RATING_MASK = 0x07;
+    private static final int HEADER_BYTES = 8;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final long BATCH_MILLIS = 5;
+
+    /*
+    Public interface which is used to receive each of the records in a log while it is being
+    replayed. The add() method is called for records describing a newly added book, while the
+    update() method is called for records describing a change to a book's rating or read status.
+     */
+    public interface Listener {
+        void add(BookSnapshot book);
+
+        void update(BookSnapshot book);
+    }
+
+    // Declares the private instance variables, which are the FileChannel for the log file, the
+    // durability level, the buffer that records are encoded into before they are written, a
+    // CRC32 for computing checksums, the background thread used for BATCHED durability, and the
+    // number of records that have been appended and that are known to have reached the disk,
+    // along with the total size of the log in bytes (including any records still buffered)
+    private FileChannel channel;
+    private Durability durability;
+    private ByteBuffer buffer;
+    private CRC32 checksum;
+    private ScheduledExecutorService flusher;
+    private long appendedCount;
+    private volatile long durableCount;
+    private Object syncLock;
+    private long size;
+
+    /*
+    Public constructor for the MutationLog class, which opens (or creates) the log file with
+    the given name for appending, using the given durability level. Any records already in the
+    file are kept, so the file should be replayed with replay() before it is opened. If the
+    durability level is BATCHED, a background thread is started which writes out and flushes
+    the buffered records every few milliseconds.
+
+    @pre filename != null && durability != null
+     */
+    public MutationLog(String filename, Durability durability) throws IOException {
+        this.channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.durability = durability;
+        this.buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        this.checksum = new CRC32();
+        this.syncLock = new Object();
+        this.size = channel.size();
+        if (durability == Durability.BATCHED) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mutation-log-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.flusher.scheduleWithFixedDelay(this::flushQuietly, BATCH_MILLIS, BATCH_MILLIS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+    Public method which appends a record of the given type, describing the new state of the
+    given book, to the log. With NONE or BATCHED durability, this only encodes the record into
+    the in-memory buffer (writing the buffer out to the file if it has filled up), so it takes
+    very little time. With SYNC durability, this also waits until the record has been flushed
+    to the disk, unless another thread has already flushed it in the meantime.
+
+    @pre (type == ADD || type == UPDATE) && book != null
+     */
+    public void append(byte type, ReadOnlyBook book) throws IOException {
+        long sequence;
+        synchronized (this) {
+            encode(type, book);
+            sequence = ++appendedCount;
+        }
+
+        if (durability == Durability.SYNC) {
+            sync(sequence);
+        }
+    }
+
+    /*
+    Public method which appends a record of the given type for each of the given books, in
+    order, in the same way as append(). The records are all encoded while holding the lock, so
+    no other thread's records can end up between them, and with SYNC durability, the whole
+    batch is flushed to the disk once, rather than once for every record.
+
+    @pre (type == ADD || type == UPDATE) && books != null
+     */
+    public void appendAll(byte type, List<? extends ReadOnlyBook> books) throws IOException {
+        long sequence;
+        synchronized (this) {
+            for (ReadOnlyBook book : books) {
+                encode(type, book);
+            }
+            appendedCount += books.size();
+            sequence = appendedCount;
+        }
+
+        if (durability == Durability.SYNC) {
+            sync(sequence);
+        }
+    }
+
+    /*
+    Public method which writes out every record appended so far, and flushes them to the disk,
+    no matter what durability level the log was opened with.
+     */
+    public void flush() throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = appendedCount;
+        }
+        sync(sequence);
+    }
+
+    /*
+    Public method which throws away every record in the log, which is done once all of the
+    changes in the log have been saved in a snapshot.
+     */
+    public synchronized void reset() throws IOException {
+        buffer.clear();
+        size = 0;
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+    }
+
+    /*
+    Public getter for the current size of the log, in bytes, including any records that are
+    still waiting in the buffer.
+
+    @return a long representing the size of the log
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /*
+    Public method which flushes any remaining records to the disk, stops the background
+    thread (if there is one), and closes the log file.
+     */
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        synchronized (this) {
+            channel.close();
+        }
+    }
+
+    /*
+    Public static method which reads every record out of the log file with the given name,
+    handing each one to the given Listener in the order in which they were appended. Reading
+    stops at the first record that is incomplete or whose checksum does not match, since this
+    can only be a record that was still being written when the program stopped, and the file is
+    then cut off at that point so that new records are appended after the last good one. If
+    the file does not exist, there is nothing to replay, and 0 is returned.
+
+    @pre filename != null && listener != null
+    @return an int representing the number of records replayed
+     */
+    public static int replay(String filename, Listener listener) throws IOException {
+        if (!Paths.get(filename).toFile().exists()) {
+            return 0;
+        }
+
+        try (FileChannel file = FileChannel.open(Paths.get(filename), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer log = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            CRC32 crc = new CRC32();
+            int count = 0;
+            while (log.remaining() >= HEADER_BYTES) {
+                // Reads the header of the next record, and checks that the whole record is present
+                int start = log.position();
+                int length = log.getInt();
+                int expected = log.getInt();
+                if (length < 11 || length > log.remaining()) {
+                    log.position(start);
+                    break;
+                }
+
+                // Checks the checksum of the record
+                byte[] body = new byte[length];
+                log.get(body);
+                crc.reset();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != expected) {
+                    log.position(start);
+                    break;
+                }
+
+                // Decodes the record and hands it to the listener
+                ByteBuffer record = ByteBuffer.wrap(body);
+                byte type = record.get();
+                String title = readString(record);
+                String author = readString(record);
+                if (title == null || author == null || record.remaining() != 1) {
+                    log.position(start);
+                    break;
+                }
+                int packed = record.get();
+                int rating = packed & RATING_MASK;
+                if (rating < 1 || rating > 5) {
+                    rating = -1;
+                }
+                Read readStatus = (packed & READ_FLAG) != 0 ? Read.READ : Read.UNREAD;
+                BookSnapshot book = BookSnapshot.ofUppercase(title, author, rating, readStatus);
+                if (type == ADD) {
+                    listener.add(book);
+                } else {
+                    listener.update(book);
+                }
+                count++;
+            }
+
+            // Cuts off anything after the last good record
+            if (log.position() < file.size()) {
+                file.truncate(log.position());
+            }
+            return count;
+        }
+    }
+
+    /*
+    Private helper method which encodes a record of the given type, describing the new state of
+    the given book, into the buffer, writing the buffer out to the file first if the record
+    does not fit. This must be called while holding the lock on this log.
+
+    @pre (type == ADD || type == UPDATE) && book != null
+     */
+    private void encode(byte type, ReadOnlyBook book) throws IOException {
+        // Encodes the body of the record, leaving room for the length and checksum
+        byte[] title = book.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] author = book.getAuthor().getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + title.length + 4 + author.length + 1;
+        if (buffer.remaining() < HEADER_BYTES + length) {
+            writeBuffer();
+            if (buffer.capacity() < HEADER_BYTES + length) {
+                buffer = ByteBuffer.allocate(HEADER_BYTES + length);
+            }
+        }
+        int start = buffer.position();
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(type);
+        buffer.putInt(title.length);
+        buffer.put(title);
+        buffer.putInt(author.length);
+        buffer.put(author);
+        buffer.put(pack(book));
+
+        // Fills in the length and the checksum of the body
+        checksum.reset();
+        checksum.update(buffer.array(), start + HEADER_BYTES, length);
+        buffer.putInt(start, length);
+        buffer.putInt(start + 4, (int) checksum.getValue());
+        size += HEADER_BYTES + length;
+    }
+
+    /*
+    Private helper method which makes sure that every record up to the given sequence number
+    has been flushed to the disk. Only one thread flushes at a time, and a thread whose record
+    was already covered by another thread's flush returns right away.
+
+    @pre sequence >= 0
+     */
+    private void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (durableCount >= sequence) {
+                return;
+            }
+            long target;
+            synchronized (this) {
+                writeBuffer();
+                target = appendedCount;
+            }
+            channel.force(false);
+            durableCount = target;
+        }
+    }
+
+    /*
+    Private helper method used by the background thread for BATCHED durability, which flushes
+    the buffered records, printing an error message if this fails.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.out.println("Error: mutation log could not be flushed");
+        }
+    }
+
+    /*
+    Private helper method which writes every record in the buffer out to the file, then empties
+    the buffer.
+
+    @pre the current thread holds the lock on this MutationLog
+     */
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Private helper methods for packing the rating and read status of a book into a byte, and
+    // for reading a length-prefixed UTF-8 string (returning null if it does not fit)
+    private static byte pack(ReadOnlyBook book) {
+        int packed = Math.max(book.getRating(), 0);
+        if (book.getReadStatus() == Read.READ) {
+            packed |= READ_FLAG;
+        }
+        return (byte) packed;
+    }
+
+    private static String readString(ByteBuffer record) {
+        if (record.remaining() < 4) {
+            return null;
+        }
+        int length = record.getInt();
+        if (length < 0 || length > record.remaining()) {
+            return null;
+        }
+        String value = new String(record.array(), record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+}
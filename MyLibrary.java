@@ -10,6 +10,7 @@ that this represents the View in the Model-View-Controller design pattern.
  */
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.Scanner;
 
 /*
@@ -43,6 +44,8 @@ public class MyLibrary {
         System.out.println("getBooks: retrieve and display a list of books");
         System.out.println("suggestRead: choose a random book from library");
         System.out.println("addBooks: add files to your library");
+        System.out.println("save: save your library to a file");
+        System.out.println("load: load a saved library from a file");
         System.out.println("STOP: finish using your library");
         System.out.print("\n");
 
@@ -59,7 +62,7 @@ public class MyLibrary {
             String commandType = "";
             while (!(commandType.equals("search") || commandType.equals("addbook") || commandType.equals("settoread")
                     || commandType.equals("rate") || commandType.equals("getbooks") || commandType.equals("suggestread")
-                    || commandType.equals("addbooks"))) {
+                    || commandType.equals("addbooks") || commandType.equals("save") || commandType.equals("load"))) {
                 if (commandType.equals("stop")) {
                     endUse = true;
                     break;
@@ -111,7 +114,7 @@ public class MyLibrary {
                     System.out.println("There are no books in your library, therefore you can not use this command.\n");
                 } else {
                 // retrieve a random unread book from the library and print
-                    Book randBook = controller.cGetRandomBook();
+                    ReadOnlyBook randBook = controller.cGetRandomBook();
                     if (randBook == null) {
                         System.out.println("No unread books are present in your library to suggest.");
                     } else {
@@ -125,10 +128,46 @@ public class MyLibrary {
             // the terminal, and no books are added to the collection. It is also assumed that if the
             // given file name is valid, then it has the specified format.
             if (commandType.equals("addbooks")) {
-                // ask for file name and call addBooksFromFile function
-                System.out.println("Enter the book file name: ");
+                // ask for file name(s) and call addBooksFromFile function, or the parallel
+                // addBooksFromFiles function if several file names were given
+                System.out.println("Enter the book file name (or several, separated by commas): ");
                 String fileName = keyboard.nextLine();
-                controller.cAddBooksFromFile(fileName);
+                ImportReport report;
+                if (fileName.contains(",")) {
+                    ArrayList<String> fileNames = new ArrayList<String>();
+                    for (String curName : fileName.split(",")) {
+                        fileNames.add(curName.trim());
+                    }
+                    report = controller.cAddBooksFromFiles(fileNames);
+                } else {
+                    report = controller.cAddBooksFromFile(fileName);
+                }
+                if (report != null) {
+                    System.out.println(report);
+                }
+            }
+
+            // save
+            // Note that if the given file cannot be written, then an error message is printed to
+            // the terminal by the model, and the library is not saved.
+            if (commandType.equals("save")) {
+                System.out.println("Enter the file name to save to: ");
+                String fileName = keyboard.nextLine();
+                if (controller.cSaveSnapshot(fileName)) {
+                    System.out.println("Library saved to " + fileName);
+                }
+            }
+
+            // load
+            // Note that if the given file is not a saved library, then an error message is printed
+            // to the terminal, and no books are added to the collection.
+            if (commandType.equals("load")) {
+                System.out.println("Enter the saved library file name: ");
+                String fileName = keyboard.nextLine();
+                ImportReport report = controller.cLoadSnapshot(fileName);
+                if (report != null) {
+                    System.out.println(report);
+                }
             }
 
         }
@@ -155,30 +194,32 @@ public class MyLibrary {
             System.out.print("Enter one of 'title', 'author', 'read', or 'unread': ");
             searchType = keyboard.nextLine().toLowerCase();
         }
-        // Converts to an enumerated type for greater code clarity
+        // Converts to an enumerated type for greater code clarity. Note that the books sorted
+        // by title or author are read from the collection a page at a time as they are printed,
+        // so that the whole collection never has to be copied into a single list
         TypeSort enumSearchType;
-        ArrayList<Book> ourList;
+        Iterator<ReadOnlyBook> ourBooks;
         if (searchType.equals("title")) {
             enumSearchType = TypeSort.TITLE;
-            ourList = controller.cGetSortedCollection(enumSearchType);
+            ourBooks = controller.cIterateSorted(enumSearchType);
         } else if (searchType.equals("author")) {
             enumSearchType = TypeSort.AUTHOR;
-            ourList = controller.cGetSortedCollection(enumSearchType);
+            ourBooks = controller.cIterateSorted(enumSearchType);
         } else {
             if (searchType.equals("read")) {
-                ourList = controller.cAllReadBooks();
+                ourBooks = controller.cAllReadBooks().iterator();
             } else {
-                ourList = controller.cAllUnreadBooks();
+                ourBooks = controller.cAllUnreadBooks().iterator();
             }
         }
 
         // retrieves list of books based on search type and prints books that match 
         // with the search
-        if (ourList.size() == 0) {
+        if (!ourBooks.hasNext()) {
             System.out.println("No books available to get for this task :(");
         } else {
-            for (int i = 0; i < ourList.size(); i++) {
-                System.out.println(ourList.get(i));
+            while (ourBooks.hasNext()) {
+                System.out.println(ourBooks.next());
             }
         }
     }
@@ -288,7 +329,7 @@ public class MyLibrary {
 
     /*
     Private helper method, which implements the "search" functionality of the library collection.
-    This allows the user to choose a method for searching (title, author, or rating), asks them for
+    This allows the user to choose a method for searching (title, author, rating, or keywords), asks them for
     the appropriate information according to the chosen method of sorting, and prints all of the
     books that match this criteria to the terminal. This method does not return anything, and
     takes in a Scanner and LibraryCollectionController as inputs in order to perform the desired
@@ -302,24 +343,40 @@ public class MyLibrary {
         System.out.println("AUTHOR: Find books by a particular author");
         System.out.println("TITLE: Find books with a particular title");
         System.out.println("RATING: Find books with a particular rating");
+        System.out.println("KEYWORDS: Find books whose title or author contains some words");
         
         // get search type
         String getType = "";
-        while (!(getType.equals("title") || getType.equals("author") || getType.equals("rating"))) {
+        while (!(getType.equals("title") || getType.equals("author") || getType.equals("rating") || getType.equals("keywords"))) {
             System.out.print("Please enter one of the above options: ");
             getType = keyboard.nextLine().toLowerCase();
         }
 
-        // get book list based on search type
-        ArrayList<Book> ourBooks;
+        // get book list based on search type, remembering the text searched for (if any) so
+        // that a misspelled search can be retried
+        ArrayList<ReadOnlyBook> ourBooks;
+        String searchText = null;
+        boolean matchAll = true;
         if (getType.equals("author")) {
             System.out.print("Please enter the author: ");
-            String author = keyboard.nextLine();
-            ourBooks = controller.cGetBooksWithAuthor(author);
+            searchText = keyboard.nextLine();
+            ourBooks = controller.cGetBooksWithAuthor(searchText);
         } else if (getType.equals("title")) {
             System.out.print("Please enter the title: ");
-            String title = keyboard.nextLine();
-            ourBooks = controller.cGetBooksWithTitle(title);
+            searchText = keyboard.nextLine();
+            ourBooks = controller.cGetBooksWithTitle(searchText);
+        } else if (getType.equals("keywords")) {
+            System.out.print("Please enter the words to search for: ");
+            searchText = keyboard.nextLine();
+
+            // asks whether every word must be found, or just one of them
+            String allWords = "";
+            while (!(allWords.equals("y") || allWords.equals("n"))) {
+                System.out.print("Must books contain all of the words? (y/n): ");
+                allWords = keyboard.nextLine().toLowerCase();
+            }
+            matchAll = allWords.equals("y");
+            ourBooks = controller.cSearch(searchText, matchAll);
         } else if (getType.equals("rating")) { 
 
             System.out.print("Please enter the rating (1-5): ");
@@ -346,6 +403,15 @@ public class MyLibrary {
             return;
         }
 
+        // if nothing matched exactly, the text may have been misspelled, so the closest matches
+        // are found instead
+        if (ourBooks.size() == 0 && searchText != null) {
+            ourBooks = controller.cFuzzySearch(searchText, matchAll);
+            if (ourBooks.size() > 0) {
+                System.out.println("No exact matches, but these books are close:");
+            }
+        }
+
         // print books retrieved
         if (ourBooks.size() == 0) {
             System.out.println("No items match your search.");
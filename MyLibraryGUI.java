@@ -12,21 +12,29 @@ convenient format.
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.GridLayout;
 import java.awt.event.*;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 public class MyLibraryGUI extends JFrame {
     // Declares all of the private instance variables of the GUI class. Note that these are utilized in
     // order to allow for objects created within the helper methods of each functionality to be updated
     // within the button listener method, which actually responds to user input
 
-    // Main window private instance variables
+    // Main window private instance variables. Note that the controller is only ever used through the
+    // asynchronous controller, so that all of the work on the library collection is done on its worker
+    // thread, rather than on the event dispatch thread where it would freeze the window
     private LibraryCollectionController controller;
+    private AsyncLibraryCollectionController asyncController;
     private JPanel panel;
     private JLabel primaryLabel;
     private JComboBox<String> optionsComboBox;
@@ -37,6 +45,10 @@ public class MyLibraryGUI extends JFrame {
     private JFrame addBooksWindow;
     private JTextField addBooksTextField;
     private JLabel addBooksErrorLabel;
+    private JButton addBooksSubmitButton;
+    private JButton addBooksCancelButton;
+    private JProgressBar addBooksProgressBar;
+    private CompletableFuture<ImportReport> addBooksTask;
 
     // addBook functionality private instance variables
     private JFrame addBookWindow;
@@ -66,13 +78,33 @@ public class MyLibraryGUI extends JFrame {
     private JButton searchOptionsSubmitButton;
     private JButton searchAuthorTitleSubmitButton;
     private JButton searchRatingSubmitButton;
-    private JComboBox<String> searchOutputDropdown;
+    private JList<String> searchOutputList;
+    private JScrollPane searchOutputScrollPane;
+    private Timer searchTypingTimer;
+    private CompletableFuture<ArrayList<ReadOnlyBook>> searchTypingTask;
+
+    // Declares how long the user must stop typing for, in milliseconds, before the books starting with
+    // what they have typed are looked up, and the largest number of such books that are shown
+    private static final int SEARCH_TYPING_DELAY = 150;
+    private static final int SEARCH_TYPING_RESULTS = 20;
 
     // getBooks functionality private instance variables
     private JFrame getBooksWindow;
     private JComboBox<String> getBooksComboBox;
-    private JComboBox<String> getBooksOutputDropdown;
+    private JList<String> getBooksOutputList;
+    private JScrollPane getBooksOutputScrollPane;
     private JLabel getBooksErrorLabel;
+    private CompletableFuture<ListModel<String>> getBooksTask;
+
+    // Declares the fixed size of each row of the lists of books, in pixels. Since every row has the
+    // same size, a JList never has to measure its rows, so it only ever asks its model for the rows
+    // that are actually on the screen
+    private static final int ROW_HEIGHT = 18;
+    private static final int ROW_WIDTH = 900;
+
+    // Declares the Executor which runs each update of the window once the library collection has
+    // finished its work, which hands the update back to the event dispatch thread
+    private static final Executor ON_EDT = SwingUtilities::invokeLater;
 
     /*
         Main method for the GUI view, which constructs the actual GUI object, sets up the main window of
@@ -90,6 +122,7 @@ public class MyLibraryGUI extends JFrame {
      */
     public MyLibraryGUI() {
         controller = new LibraryCollectionController();
+        asyncController = new AsyncLibraryCollectionController(controller);
         setUp();
     }
 
@@ -222,72 +255,115 @@ public class MyLibraryGUI extends JFrame {
                 if (! (givenFile.exists() && givenFile.canRead())) {
                     addBooksErrorLabel.setText("Error: given file cannot be read. Please try again");
                 } else {
-                    // Otherwise, we make the error label blank, and read the books from the given
-                    // file into our library collection
+                    // Otherwise, we make the error label blank, and start reading the books from the
+                    // given file into our library collection on the worker thread, with the progress
+                    // bar being moved along (on the event dispatch thread) as the file is read
                     addBooksErrorLabel.setText("");
-                    controller.cAddBooksFromFile(curText);
-
-                    // We then close the current window, since the job is done
-                    addBooksWindow.dispose();
-
-                    // We also give the user a message that the books were added successfully
-                    buttonOutputLabel.setText("Books added successfully from file");
+                    addBooksSubmitButton.setEnabled(false);
+                    addBooksCancelButton.setVisible(true);
+                    addBooksProgressBar.setValue(0);
+                    addBooksProgressBar.setVisible(true);
+                    addBooksTask = asyncController.cAddBooksFromFile(curText, (bytesRead, totalBytes) -> {
+                        int percent = totalBytes == 0 ? 100 : (int) (bytesRead * 100 / totalBytes);
+                        SwingUtilities.invokeLater(() -> addBooksProgressBar.setValue(percent));
+                        return true;
+                    });
+
+                    // Once the import is done, we close the current window, and give the user a message
+                    // that the books were added successfully, along with the number of books that were
+                    // actually added. Note that nothing is done here if the import was cancelled
+                    addBooksTask.thenAcceptAsync(report -> {
+                        addBooksWindow.dispose();
+                        if (report == null) {
+                            buttonOutputLabel.setText("Error: given file cannot be read");
+                        } else {
+                            buttonOutputLabel.setText("Books added successfully from file (" + report.getAdded() + " added)");
+                        }
+                    }, ON_EDT);
                 }
+            } else if (command.equals("addBooksCancel")) {
+                // Cancels the import, which stops once the part of the file currently being read is
+                // done, keeping the books that were already read
+                addBooksTask.cancel(false);
+                addBooksWindow.dispose();
+                buttonOutputLabel.setText("Import cancelled (books read so far were kept)");
             } else if (command.equals("addBookSubmit")) {
                 // Gets the current text from our two text fields
                 String author = addBookAuthorField.getText();
                 String title = addBookTitleField.getText();
 
-                // Attempts to add the corresponding book to the library
-                if (!controller.cAlreadyInCollection(title, author)) {
-                    // If the book is not already in the library, we add it to the library, close
-                    // the window, and inform the user that the book was successfully added
-                    controller.cAddBook(title, author);
-                    addBookWindow.dispose();
-                    buttonOutputLabel.setText("Book added successfully");
-                }  else {
-                    // If the book has already been added to the library, then we also close the 
-                    // window, but give the user an error message
-                    addBookWindow.dispose();
-                    buttonOutputLabel.setText("Book has already been added to the library");
-                }
+                // Attempts to add the corresponding book to the library, with the check and the addition
+                // being done together on the worker thread
+                asyncController.submit(c -> {
+                    if (c.cAlreadyInCollection(title, author)) {
+                        return false;
+                    }
+                    c.cAddBook(title, author);
+                    return true;
+                }).thenAcceptAsync(added -> {
+                    if (added) {
+                        // If the book was not already in the library, we close the window, and inform
+                        // the user that the book was successfully added
+                        addBookWindow.dispose();
+                        buttonOutputLabel.setText("Book added successfully");
+                    }  else {
+                        // If the book has already been added to the library, then we also close the 
+                        // window, but give the user an error message
+                        addBookWindow.dispose();
+                        buttonOutputLabel.setText("Book has already been added to the library");
+                    }
+                }, ON_EDT);
             } else if (command.equals("setToReadSubmit")) {
                 // Gets the current text from our two text fields
                 String author = setToReadAuthorField.getText();
                 String title = setToReadTitleField.getText();
 
-                // Checks to see whether the book is actually in the library
-                if (!controller.cAlreadyInCollection(title, author)) {
-                    // If not, then we close the window and inform the user of this
-                    setToReadWindow.dispose();
-                    buttonOutputLabel.setText("Given book is not in current library collection");
-                } else {
-                    // Otherwise, we set the book to read, then inform the user that this was done 
-                    // successfully
-                    controller.cSetToRead(title, author);
-                    setToReadWindow.dispose();
-                    buttonOutputLabel.setText("Book was successfully set to read");
-                }
+                // Checks to see whether the book is actually in the library, and if so, sets it to read,
+                // both on the worker thread
+                asyncController.submit(c -> {
+                    if (!c.cAlreadyInCollection(title, author)) {
+                        return false;
+                    }
+                    c.cSetToRead(title, author);
+                    return true;
+                }).thenAcceptAsync(found -> {
+                    if (!found) {
+                        // If not, then we close the window and inform the user of this
+                        setToReadWindow.dispose();
+                        buttonOutputLabel.setText("Given book is not in current library collection");
+                    } else {
+                        // Otherwise, we inform the user that this was done successfully
+                        setToReadWindow.dispose();
+                        buttonOutputLabel.setText("Book was successfully set to read");
+                    }
+                }, ON_EDT);
             } else if (command.equals("rateSubmit")) {
                 // Gets the relevant pieces of text for the title and author, and the rating
                 String title = rateTitleField.getText();
                 String author = rateAuthorField.getText();
                 int rating = (Integer) rateComboBox.getSelectedItem();
 
-                // Checks to see whether the given book is actually in the collection
-                if (!controller.cAlreadyInCollection(title, author)) {
-                    // If not, then we close the window and give the user an error message
-                    rateWindow.dispose();
-                    buttonOutputLabel.setText("Given book is not in current library collection");
-                } else {
-                    // Otherwise, we set the rating of the given book, and tell the user that this 
-                    // was done successfully
-                    controller.cUpdateBookRating(title, author, rating);
-                    buttonOutputLabel.setText("Rating was successfully updated");
+                // Checks to see whether the given book is actually in the collection, and if so, sets
+                // its rating, both on the worker thread
+                asyncController.submit(c -> {
+                    if (!c.cAlreadyInCollection(title, author)) {
+                        return false;
+                    }
+                    c.cUpdateBookRating(title, author, rating);
+                    return true;
+                }).thenAcceptAsync(found -> {
+                    if (!found) {
+                        // If not, then we close the window and give the user an error message
+                        rateWindow.dispose();
+                        buttonOutputLabel.setText("Given book is not in current library collection");
+                    } else {
+                        // Otherwise, we tell the user that this was done successfully
+                        buttonOutputLabel.setText("Rating was successfully updated");
 
-                    // We then get rid of the rate window, since it is no longer needed
-                    rateWindow.dispose();
-                }
+                        // We then get rid of the rate window, since it is no longer needed
+                        rateWindow.dispose();
+                    }
+                }, ON_EDT);
             } else if (command.equals("searchOptionsSubmit")) {
                 // Gets the current option selected by the user, and converts to lowercase for simplicity
                 String curOption = (String) searchByComboBox.getSelectedItem();
@@ -311,6 +387,13 @@ public class MyLibraryGUI extends JFrame {
                     // Sets the label for the text field to ask for the title
                     searchAuthorTitleLabel.setText("Enter the title to search for: ");
 
+                    // Makes the text field and submit button visible
+                    searchAuthorTitleTextField.setVisible(true);
+                    searchAuthorTitleSubmitButton.setVisible(true);
+                } else if (curOption.startsWith("keywords")) {
+                    // Sets the label for the text field to ask for the words to search for
+                    searchAuthorTitleLabel.setText("Enter the words to search for: ");
+
                     // Makes the text field and submit button visible
                     searchAuthorTitleTextField.setVisible(true);
                     searchAuthorTitleSubmitButton.setVisible(true);
@@ -321,47 +404,52 @@ public class MyLibraryGUI extends JFrame {
                     searchRatingSubmitButton.setVisible(true);
                 }
             } else if (command.equals("searchAuthorTitleSubmit")) {
-                // First, determine whether we're looking for the title or author
+                // First, determine whether we're looking for the title, author, or keywords
                 String searchBy = (String) searchByComboBox.getSelectedItem();
                 searchBy = searchBy.toLowerCase();
 
                 // Sets the output label to be blank
                 searchOutputText.setText("");
 
-                // Removes all items from the dropdown menu, and makes this dropdown invisible
-                searchOutputDropdown.removeAllItems();
-                searchOutputDropdown.setVisible(false);
+                // Hides the list of books from any earlier search
+                searchOutputScrollPane.setVisible(false);
 
-                // Then, we get the ArrayList of desired books
-                ArrayList<Book> ourBooks;
-                if (searchBy.equals("author")) {
-                    // Gets the given author
-                    String author = searchAuthorTitleTextField.getText();
+                // Any lookup of the books starting with what was typed is no longer wanted
+                searchTypingTimer.stop();
+                if (searchTypingTask != null) {
+                    searchTypingTask.cancel(false);
+                }
 
-                    // Gets all of the books associated with this author
-                    ourBooks = controller.cGetBooksWithAuthor(author);
+                // Then, we start looking for the desired books on the worker thread
+                String searchText = searchAuthorTitleTextField.getText();
+                boolean matchAll = !searchBy.equals("keywords (any)");
+                CompletableFuture<ArrayList<ReadOnlyBook>> exactBooks;
+                if (searchBy.equals("author")) {
+                    // Gets all of the books associated with the given author
+                    exactBooks = asyncController.cGetBooksWithAuthor(searchText);
+                } else if (searchBy.startsWith("keywords")) {
+                    // Gets all of the books matching the given words, where either all or any of
+                    // the words must match according to the option selected
+                    exactBooks = asyncController.cSearch(searchText, searchBy.equals("keywords (all)"));
                 } else {
-                    // Gets the given title
-                    String title = searchAuthorTitleTextField.getText();
-
-                    // Gets all of the books associated with this title
-                    ourBooks = controller.cGetBooksWithTitle(title);
+                    // Gets all of the books associated with the given title
+                    exactBooks = asyncController.cGetBooksWithTitle(searchText);
                 }
 
-                // Checks to see whether we actually obtained any books
-                if (ourBooks.size() == 0) {
-                    // If not, then we inform the user that there were no books matching their search
-                    searchOutputText.setText("No books matching your search :(");
-                } else {
-                    // Otherwise, we iterate through all of the books that we find, adding the string representation
-                    // of each one to our dropdown menu of books
-                    for (Book book : ourBooks) {
-                        searchOutputDropdown.addItem(book.toString());
+                // Once the books have been found, they are shown to the user. If nothing matched exactly,
+                // the text may have been misspelled, so we find the closest matches instead
+                exactBooks.thenAcceptAsync(ourBooks -> {
+                    if (ourBooks.size() > 0) {
+                        showSearchResults(ourBooks);
+                    } else {
+                        asyncController.cFuzzySearch(searchText, matchAll).thenAcceptAsync(closeBooks -> {
+                            showSearchResults(closeBooks);
+                            if (closeBooks.size() > 0) {
+                                searchOutputText.setText("No exact matches, but these books are close:");
+                            }
+                        }, ON_EDT);
                     }
-
-                    // Makes this dropdown menu visible to the user
-                    searchOutputDropdown.setVisible(true);
-                }
+                }, ON_EDT);
 
                 // We then make the elements used for the actual search invisible once again, and the 
                 // elemnts for selecting the type of search visible, so the user can select this once
@@ -372,37 +460,20 @@ public class MyLibraryGUI extends JFrame {
                 searchAuthorTitleLabel.setText("");
                 searchAuthorTitleTextField.setVisible(false);
                 searchAuthorTitleTextField.setText("");
+                searchTypingTimer.stop();
                 searchAuthorTitleSubmitButton.setVisible(false);
             } else if (command.equals("searchRatingSubmit")) {
                 // First, we make the output label empty
                 searchOutputText.setText("");
 
-                // Along with removing all of the items currently in the dropdown menu, and making 
-                // this dropdown menu invisible
-                searchOutputDropdown.removeAllItems();
-                searchOutputDropdown.setVisible(false);
+                // Along with hiding the list of books from any earlier search
+                searchOutputScrollPane.setVisible(false);
 
                 // We then get the rating to search for
                 int rating = (Integer) searchRatingComboBox.getSelectedItem();
 
-                // All books with this rating are obtained
-                ArrayList<Book> ourBooks = controller.cGetBooksWithRating(rating);
-
-                // Checks to see whether we actually found any books
-                if (ourBooks.size() == 0) {
-                    // If not, then we inform the user that there were no books matching their search
-                    searchOutputText.setText("No books matching your search :(");
-                } else {
-                    // Otherwise, we iterate through all of the returned books, adding the string 
-                    // representations of these to our dropdown menu in order to make them easily 
-                    // viewable by the user
-                    for (Book book : ourBooks) {
-                        searchOutputDropdown.addItem(book.toString());
-                    }
-
-                    // We then make this dropdown visible
-                    searchOutputDropdown.setVisible(true);
-                }
+                // All books with this rating are obtained on the worker thread, then shown to the user
+                asyncController.cGetBooksWithRating(rating).thenAcceptAsync(ourBooks -> showSearchResults(ourBooks), ON_EDT);
 
                 // We then make the elements used for the actual search invisible once again, and the 
                 // elemnts for selecting the type of search visible, so the user can select this once
@@ -418,45 +489,88 @@ public class MyLibraryGUI extends JFrame {
                 // First, we get the selected item from the combo box
                 String getBooksOption = (String) getBooksComboBox.getSelectedItem();
 
-                // We first remove all items currently in our dropdown menu, and make the dropdown invisible
-                getBooksOutputDropdown.removeAllItems();
-                getBooksOutputDropdown.setVisible(false);
+                // We first hide the list of books from any earlier request
+                getBooksOutputScrollPane.setVisible(false);
 
                 // We also clear out any text in our error label
                 getBooksErrorLabel.setText("");
 
-                // We then determine how to retrieve our list of books
-                ArrayList<Book> ourBooks;
-                if (getBooksOption.equals("title")) {
-                    TypeSort enumSearchType = TypeSort.TITLE;
-                    ourBooks = controller.cGetSortedCollection(enumSearchType);
-                } else if (getBooksOption.equals("author")) {
-                    TypeSort enumSearchType = TypeSort.AUTHOR;
-                    ourBooks = controller.cGetSortedCollection(enumSearchType);
+                // We then determine how to retrieve our list of books, on the worker thread. Note that the
+                // books sorted by title or author are never all retrieved at once, since the list is given a
+                // PagedBookListModel, which only reads the pages of books that are scrolled onto the screen.
+                // Any earlier request that has not finished yet is cancelled, since it is no longer wanted
+                if (getBooksTask != null) {
+                    getBooksTask.cancel(false);
+                }
+                CompletableFuture<ListModel<String>> listModel;
+                if (getBooksOption.equals("title") || getBooksOption.equals("author")) {
+                    TypeSort enumSearchType = getBooksOption.equals("title") ? TypeSort.TITLE : TypeSort.AUTHOR;
+                    listModel = asyncController.submit(c -> c.cCountReadBooks() + c.cCountUnreadBooks())
+                            .thenApply(size -> new PagedBookListModel(asyncController, enumSearchType, size));
                 } else if (getBooksOption.equals("read")) {
-                    ourBooks = controller.cAllReadBooks();
+                    listModel = asyncController.cAllReadBooks().thenApply(BookListModel::new);
                 } else {
-                    ourBooks = controller.cAllUnreadBooks();
+                    listModel = asyncController.cAllUnreadBooks().thenApply(BookListModel::new);
                 }
+                getBooksTask = listModel;
 
-                // Finally, we check to see whether the retrieved list of books is empty
-                if (ourBooks.size() == 0) {
-                    // If so, then we inform the user that there were no books matching their request
-                    getBooksErrorLabel.setText("No books matching your request :(");
-                } else {
-                    // Otherwise, we fill our dropdown menu with all of the string representations of 
-                    // the books being output by the command
-                    for (Book book : ourBooks) {
-                        getBooksOutputDropdown.addItem(book.toString());
+                // Once the list is ready, we check to see whether it is empty
+                listModel.thenAcceptAsync(ourBooks -> {
+                    if (ourBooks.getSize() == 0) {
+                        // If so, then we inform the user that there were no books matching their request
+                        getBooksErrorLabel.setText("No books matching your request :(");
+                    } else {
+                        // Otherwise, we show the list, starting from its first book
+                        getBooksOutputList.setModel(ourBooks);
+                        getBooksOutputList.ensureIndexIsVisible(0);
+                        getBooksOutputScrollPane.setVisible(true);
+                        getBooksWindow.revalidate();
                     }
-
-                    // The dropdown menu is then made visible
-                    getBooksOutputDropdown.setVisible(true);
-                }
+                }, ON_EDT);
             }
         }
     }
 
+    /*
+        Private class which represents a ListModel for a JList over a list of books which has already been
+        retrieved, such as the results of a search. The text of each book is only produced when the JList
+        asks for it, which only happens for the rows that are actually on the screen, rather than for every
+        book in the list up front.
+     */
+    private static class BookListModel extends AbstractListModel<String> {
+        // Declares the version of this class for serialization, which every Swing ListModel needs
+        private static final long serialVersionUID = 1L;
+
+        // Declares the list of books shown by the model
+        private ArrayList<ReadOnlyBook> books;
+
+        public BookListModel(ArrayList<ReadOnlyBook> books) {
+            this.books = books;
+        }
+
+        public int getSize() {
+            return books.size();
+        }
+
+        public String getElementAt(int index) {
+            return books.get(index).toString();
+        }
+    }
+
+    /*
+        Private helper method which sets up the given JList, which is used to show a list of books, to have
+        a fixed row size, and which returns the scroll pane holding it, which starts out invisible.
+     */
+    private JScrollPane makeBookList(JList<String> bookList) {
+        bookList.setFixedCellHeight(ROW_HEIGHT);
+        bookList.setFixedCellWidth(ROW_WIDTH);
+        bookList.setVisibleRowCount(8);
+        JScrollPane scrollPane = new JScrollPane(bookList);
+        scrollPane.setPreferredSize(new Dimension(ROW_WIDTH + 40, ROW_HEIGHT * 8 + 10));
+        scrollPane.setVisible(false);
+        return scrollPane;
+    }
+
     /*
         Private helper method for the addBooks functionality, which sets up the additional window where the 
         user can enter the text file to read from, and which adds informative labels and a submit button to 
@@ -493,14 +607,27 @@ public class MyLibraryGUI extends JFrame {
 
         // Constructs a button, which will be used to determine when to get text from the 
         // text field
-        JButton textFieldButton = new JButton("Submit");
-        textFieldButton.setActionCommand("addBooksSubmit");
-        textFieldButton.addActionListener(new ButtonListener());
-        textPanel.add(textFieldButton);
+        addBooksSubmitButton = new JButton("Submit");
+        addBooksSubmitButton.setActionCommand("addBooksSubmit");
+        addBooksSubmitButton.addActionListener(new ButtonListener());
+        textPanel.add(addBooksSubmitButton);
 
         // Adds our separate panel to the overall panel
         addBooksPanel.add(textPanel, BorderLayout.NORTH);
 
+        // Constructs the progress bar and cancel button, which are shown while the file is being read
+        JPanel progressPanel = new JPanel();
+        addBooksProgressBar = new JProgressBar(0, 100);
+        addBooksProgressBar.setStringPainted(true);
+        addBooksProgressBar.setVisible(false);
+        progressPanel.add(addBooksProgressBar);
+        addBooksCancelButton = new JButton("Cancel");
+        addBooksCancelButton.setActionCommand("addBooksCancel");
+        addBooksCancelButton.addActionListener(new ButtonListener());
+        addBooksCancelButton.setVisible(false);
+        progressPanel.add(addBooksCancelButton);
+        addBooksPanel.add(progressPanel, BorderLayout.CENTER);
+
     }
 
     /*
@@ -510,20 +637,78 @@ public class MyLibraryGUI extends JFrame {
         collection.
      */
     private void suggestReadHelper() {
-        // Checks to see whether the library collection currently empty
-        if (controller.cIsEmpty()) {
-            // If so, we inform the user of this via the button output label
-            buttonOutputLabel.setText("No books currently in the collection");
-        } else {
+        // Finds the message for the user on the worker thread, then shows it via the button output
+        // label back on the event dispatch thread
+        asyncController.submit(c -> {
+            // Checks to see whether the library collection currently empty
+            if (c.cIsEmpty()) {
+                return "No books currently in the collection";
+            }
+
             // Otherwise, we try to get a random unread book from the library
-            Book randBook = controller.cGetRandomBook();
+            ReadOnlyBook randBook = c.cGetRandomBook();
             if (randBook == null) {
                 // If there are no unread books, we inform the user of this
-                buttonOutputLabel.setText("No unread books are currently in the collection");
-            } else {
-                // Otherwise, we provide the text for this book
-                buttonOutputLabel.setText(randBook.getTitle() + " by " + randBook.getAuthor());
+                return "No unread books are currently in the collection";
             }
+
+            // Otherwise, we provide the text for this book
+            return randBook.getTitle() + " by " + randBook.getAuthor();
+        }).thenAcceptAsync(message -> buttonOutputLabel.setText(message), ON_EDT);
+    }
+
+    /*
+        Private helper method for the search functionality, which is called once the user has stopped typing
+        in the text field of the search window, and which looks up the first few books whose title (or
+        author, depending on the type of searching) starts with the text, showing them in the list of books.
+        The lookup is done on the worker thread, and any earlier lookup that has not finished yet is cancelled,
+        so that the books shown always match the latest text. Since at most SEARCH_TYPING_RESULTS books are
+        read from the sorted index, the lookup takes very little time no matter how large the collection is.
+     */
+    private void searchAsYouType() {
+        if (searchTypingTask != null) {
+            searchTypingTask.cancel(false);
+        }
+
+        // Only a title or author search that is currently being typed is looked up
+        String searchBy = ((String) searchByComboBox.getSelectedItem()).toLowerCase();
+        String searchText = searchAuthorTitleTextField.getText();
+        if (!searchAuthorTitleTextField.isVisible() || searchText.isEmpty()
+                || !(searchBy.equals("title") || searchBy.equals("author"))) {
+            return;
+        }
+        BookQuery query = new BookQuery().withLimit(SEARCH_TYPING_RESULTS);
+        if (searchBy.equals("author")) {
+            query.withAuthorPrefix(searchText);
+        } else {
+            query.withTitlePrefix(searchText);
+        }
+
+        // Once the books are found, any earlier books are replaced with them
+        searchTypingTask = asyncController.cQuery(query);
+        searchTypingTask.thenAcceptAsync(ourBooks -> {
+            searchOutputText.setText("");
+            searchOutputScrollPane.setVisible(false);
+            showSearchResults(ourBooks);
+        }, ON_EDT);
+    }
+
+    /*
+        Private helper method for the search functionality, which shows the given books found by a search
+        within the list of books of the search window, or informs the user that no books were found. This
+        is called on the event dispatch thread, once the search has finished on the worker thread.
+     */
+    private void showSearchResults(ArrayList<ReadOnlyBook> ourBooks) {
+        // Checks to see whether we actually obtained any books
+        if (ourBooks.size() == 0) {
+            // If not, then we inform the user that there were no books matching their search
+            searchOutputText.setText("No books matching your search :(");
+        } else {
+            // Otherwise, we show the books that we found within our list, starting from the first of them
+            searchOutputList.setModel(new BookListModel(ourBooks));
+            searchOutputList.ensureIndexIsVisible(0);
+            searchOutputScrollPane.setVisible(true);
+            searchWindow.revalidate();
         }
     }
 
@@ -536,7 +721,7 @@ public class MyLibraryGUI extends JFrame {
     private void searchHelper() {
         // Constructs a new window, which will be used to aid with the search functionality
         searchWindow = new JFrame("search Window");
-        searchWindow.setSize(1000, 200);
+        searchWindow.setSize(1000, 400);
         searchWindow.setVisible(true);
 
         // Constructs a panel, which will be used to organize components within the window
@@ -548,6 +733,7 @@ public class MyLibraryGUI extends JFrame {
         String searchInfoString = "<html>AUTHOR: Find books with a particular author<br>";
         searchInfoString += "TITLE: Find books with a particular title<br>";
         searchInfoString += "RATING: Find books with a particular rating<br>";
+        searchInfoString += "(for a title or author, books starting with what you type are shown as you type)<br>";
         JLabel searchInfoLabel = new JLabel(searchInfoString, SwingConstants.CENTER);
         searchPanel.add(searchInfoLabel, BorderLayout.NORTH);
 
@@ -559,7 +745,7 @@ public class MyLibraryGUI extends JFrame {
 
         // Sets up the main combo box and associated label, which will allow the user to determine
         // how they want to perform their search, and adds these to our grid panel
-        String[] searchOptionsArray = {"Title", "Author", "Rating"};
+        String[] searchOptionsArray = {"Title", "Author", "Rating", "Keywords (all)", "Keywords (any)"};
         searchByComboBox = new JComboBox<String>(searchOptionsArray);
         searchByComboBox.setVisible(true);
         searchComboBoxLabel = new JLabel("Select the type of searching: ", SwingConstants.RIGHT);
@@ -579,6 +765,25 @@ public class MyLibraryGUI extends JFrame {
         // the additional information from the user
         searchAuthorTitleTextField = new JTextField("", 25);
         searchAuthorTitleTextField.setVisible(false);
+
+        // Sets up the search-as-you-type functionality, where every change to the text field restarts a
+        // timer, so that the books starting with the text are only looked up once the user has stopped
+        // typing for a moment, rather than once for every key that is pressed
+        searchTypingTimer = new Timer(SEARCH_TYPING_DELAY, event -> searchAsYouType());
+        searchTypingTimer.setRepeats(false);
+        searchAuthorTitleTextField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent event) {
+                searchTypingTimer.restart();
+            }
+
+            public void removeUpdate(DocumentEvent event) {
+                searchTypingTimer.restart();
+            }
+
+            public void changedUpdate(DocumentEvent event) {
+                searchTypingTimer.restart();
+            }
+        });
         searchAuthorTitleLabel = new JLabel("", SwingConstants.RIGHT);
         searchAuthorTitleSubmitButton = new JButton("Submit");
         searchAuthorTitleSubmitButton.setActionCommand("searchAuthorTitleSubmit");
@@ -610,13 +815,11 @@ public class MyLibraryGUI extends JFrame {
         searchOutputText.setForeground(Color.RED);
         searchPanel.add(searchOutputText, BorderLayout.EAST);
 
-        // Constructs a dropdown menu, which will be used to provide the user with the results of their search
-        // in clearly visible, easy to navigate manner
-        searchOutputDropdown = new JComboBox<String>();
-        searchPanel.add(searchOutputDropdown, BorderLayout.SOUTH);
-
-        // Makes this dropdown menu invisible, for now
-        searchOutputDropdown.setVisible(false);
+        // Constructs a scrollable list, which will be used to provide the user with the results of their search
+        // in clearly visible, easy to navigate manner, and which is invisible for now
+        searchOutputList = new JList<String>();
+        searchOutputScrollPane = makeBookList(searchOutputList);
+        searchPanel.add(searchOutputScrollPane, BorderLayout.SOUTH);
     }
 
     /*
@@ -628,7 +831,7 @@ public class MyLibraryGUI extends JFrame {
     private void getBooksHelper() {
         // Constructs a new window, which will be used to aid with the getBooks functionality
         getBooksWindow = new JFrame("getBooks Window");
-        getBooksWindow.setSize(1000, 300);
+        getBooksWindow.setSize(1000, 450);
         getBooksWindow.setVisible(true);
 
         // Constructs a panel, which will be used to organize components within the window
@@ -668,13 +871,11 @@ public class MyLibraryGUI extends JFrame {
         getBooksInputPanel.add(getBooksComboBox);
         getBooksInputPanel.add(getBooksSubmitButton);
 
-        // Sets up our dropdown menu, which will contain the output of the getBooks functionality, presenting
-        // it in a form that makes it simple for the user to view
-        getBooksOutputDropdown = new JComboBox<String>();
-        getBooksPanel.add(getBooksOutputDropdown, BorderLayout.SOUTH);
-        
-        // Makes this dropdown menu invisible for now
-        getBooksOutputDropdown.setVisible(false);
+        // Sets up our scrollable list, which will contain the output of the getBooks functionality, presenting
+        // it in a form that makes it simple for the user to view, and which is invisible for now
+        getBooksOutputList = new JList<String>();
+        getBooksOutputScrollPane = makeBookList(getBooksOutputList);
+        getBooksPanel.add(getBooksOutputScrollPane, BorderLayout.SOUTH);
     }
 
     /*
@@ -0,0 +1,150 @@
+/*
+File: OffHeapArena.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a simple arena of memory outside of the Java heap, which is
+used by the off-heap storage engine (see OffHeapLibraryCollection.java) to hold the bytes of
+every title and author. The arena is made up of direct ByteBuffers (chunks), which are
+allocated one after the other as the arena fills up, and each run of bytes that is added to
+the arena is simply copied onto the end of the current chunk. The garbage collector only ever
+sees the handful of ByteBuffer objects, no matter how many millions of Strings are stored in
+them, since the bytes themselves are not part of the heap. Each run of bytes is identified by
+its address, a long holding the index of its chunk in the high 32 bits and its position within
+the chunk in the low 32 bits, and is stored with its length in front of it. Nothing is ever
+freed individually; all of the memory in the arena is released at once when the arena itself
+is no longer reachable.
+ */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private, and that the chunks are never returned from any method. Bytes are copied
+into the arena when they are added, and copied out into a new array when they are read, so no
+client code ever holds a reference into the memory of the arena (and compare() reads the bytes
+in place without handing them out). Reading uses only absolute positions, so bytes may be read
+by several threads at once (as long as none are being added).
+ */
+
+public class OffHeapArena {
+    // Declares the size of the first chunk, and the largest size that chunks grow to, in bytes.
+    // Each chunk is twice the size of the one before it, up to the largest size
+    private static final int FIRST_CHUNK_BYTES = 64 << 10;
+    private static final int MAX_CHUNK_BYTES = 16 << 20;
+
+    // Declares the private instance variable, which is the list of chunks of the arena, in order
+    private ArrayList<ByteBuffer> chunks;
+
+    /*
+    Public constructor for the OffHeapArena class, which takes no inputs and produces an empty
+    arena. No memory is allocated until the first bytes are added. Since there are no inputs and
+    no assumptions, there are no preconditions.
+     */
+    public OffHeapArena() {
+        this.chunks = new ArrayList<ByteBuffer>();
+    }
+
+    /*
+    Public method which copies the first length bytes of the given array into the arena (along
+    with the length itself), and returns the address that they can be read back from. A new
+    chunk is allocated first if they do not fit into the current one.
+
+    @pre bytes != null && 0 <= length && length <= bytes.length
+    @return a long representing the address of the bytes within the arena
+     */
+    public long add(byte[] bytes, int length) {
+        int needed = Integer.BYTES + length;
+        ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (chunk == null || chunk.remaining() < needed) {
+            int capacity = chunk == null ? FIRST_CHUNK_BYTES : Math.min(chunk.capacity() * 2, MAX_CHUNK_BYTES);
+            chunk = ByteBuffer.allocateDirect(Math.max(capacity, needed));
+            chunks.add(chunk);
+        }
+        long address = ((long) (chunks.size() - 1) << 32) | chunk.position();
+        chunk.putInt(length);
+        chunk.put(bytes, 0, length);
+        return address;
+    }
+
+    /*
+    Public method which copies the bytes stored at the given address out of the arena, into a
+    new array.
+
+    @pre address was returned by add()
+    @return a byte[] holding the bytes stored at address
+     */
+    public byte[] get(long address) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int position = (int) address;
+        byte[] bytes = new byte[chunk.getInt(position)];
+        chunk.get(position + Integer.BYTES, bytes);
+        return bytes;
+    }
+
+    /*
+    Public method which compares the UTF-8 bytes stored at the given address with the given
+    String, in the same order as String.compareTo() (that is, by their UTF-16 chars), without
+    decoding the bytes into a new String. Each character is decoded from the bytes as it is
+    reached, with characters outside of the Basic Multilingual Plane being compared as their
+    two surrogate chars, and the comparison stops at the first char that differs. This lets
+    the dictionary search its Strings without creating any garbage.
+
+    @pre address was returned by add() && the bytes at address are valid UTF-8 && value != null
+    @return a negative int, zero, or a positive int as the stored String is less than, equal
+    to, or greater than value
+     */
+    public int compare(long address, String value) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int position = (int) address + Integer.BYTES;
+        int end = position + chunk.getInt((int) address);
+        int index = 0;
+        char low = 0;
+        while (position < end || low != 0) {
+            // Decodes the next char, which is either the second half of a surrogate pair that
+            // was decoded before, or the start of the next character
+            char next;
+            if (low != 0) {
+                next = low;
+                low = 0;
+            } else {
+                int first = chunk.get(position++) & 0xFF;
+                int codePoint;
+                if (first < 0x80) {
+                    codePoint = first;
+                } else if (first < 0xE0) {
+                    codePoint = (first & 0x1F) << 6 | continuation(chunk, position++);
+                } else if (first < 0xF0) {
+                    codePoint = (first & 0x0F) << 12 | continuation(chunk, position++) << 6
+                            | continuation(chunk, position++);
+                } else {
+                    codePoint = (first & 0x07) << 18 | continuation(chunk, position++) << 12
+                            | continuation(chunk, position++) << 6
+                            | continuation(chunk, position++);
+                }
+                if (Character.isSupplementaryCodePoint(codePoint)) {
+                    next = Character.highSurrogate(codePoint);
+                    low = Character.lowSurrogate(codePoint);
+                } else {
+                    next = (char) codePoint;
+                }
+            }
+
+            // Compares the decoded char with the next char of the String
+            if (index == value.length()) {
+                return 1;
+            }
+            char other = value.charAt(index++);
+            if (next != other) {
+                return next - other;
+            }
+        }
+        return index - value.length();
+    }
+
+    // Private helper method which returns the low six bits of the UTF-8 continuation byte at the
+    // given position of the given chunk
+    private static int continuation(ByteBuffer chunk, int position) {
+        return chunk.get(position) & 0x3F;
+    }
+}
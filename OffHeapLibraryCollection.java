@@ -0,0 +1,43 @@
+/*
+File: OffHeapLibraryCollection.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a storage engine for the Model element of the library
+collection which keeps the contents of the books outside of the Java heap, so that a very large
+collection does not slow down the garbage collector. It works exactly like the columnar storage
+engine (see ColumnarLibraryCollection.java), which already stores the rating, read status, and
+indexes of every book in a small number of primitive arrays (which the garbage collector never
+has to look inside of), except that the titles and authors are stored in an OffHeapArena of
+direct memory rather than as String objects. This leaves the heap holding only a few dozen large
+arrays, whatever the size of the collection, so each garbage collection only has a few objects to
+trace. Book objects (and the Strings inside of them) are only created at the boundary of the
+collection, when books are returned by one of its methods.
+ */
+
+/*
+When it comes to maintaining encapsulation, note that this class has no instance variables of
+its own, and that the arena holding the titles and authors is only reachable through the two
+dictionaries of the ColumnarLibraryCollection class, which are private. As with that class,
+every Book that is returned is a newly created, immutable BookSnapshot.
+ */
+
+public class OffHeapLibraryCollection extends ColumnarLibraryCollection {
+    /*
+    Public constructor for the OffHeapLibraryCollection class, which takes no inputs, and which
+    produces an empty collection whose titles and authors are stored in a new OffHeapArena. Since
+    this method takes no inputs and has no assumptions, it also has no preconditions.
+     */
+    public OffHeapLibraryCollection() {
+        this(new OffHeapArena());
+    }
+
+    /*
+    Private constructor for the OffHeapLibraryCollection class, which stores both the titles and
+    the authors in the given arena.
+
+    @pre arena != null
+     */
+    private OffHeapLibraryCollection(OffHeapArena arena) {
+        super(new OffHeapStringDictionary(arena), new OffHeapStringDictionary(arena));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+File: OffHeapStringDictionary.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a StringDictionary which keeps its Strings outside of the Java
+heap, in an OffHeapArena, rather than in an array of String objects. Each String is encoded as
+UTF-8 when it is added, and only its address within the arena is kept on the heap (in a plain
+long array), so the garbage collector never has to trace through the Strings of the dictionary,
+however many of them there are. A String is only decoded back into a String object when it is
+asked for, which happens when books are returned, or when every String is sorted at once. When
+the dictionary is searched, or new Strings are placed within its sorted order, the stored bytes
+are instead compared with the String being looked for in place (see OffHeapArena.compare()), so
+searching does not create a new String for each String it passes over.
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+When it comes to maintaining encapsulation, note that the instance variables of this class are
+private, and that the arena and the array of addresses are never returned from any method. The
+Strings handed out are newly decoded from the arena each time, and Strings are immutable, so no
+client code can reach the memory that the dictionary is stored in.
+ */
+
+public class OffHeapStringDictionary extends StringDictionary {
+    // Declares the private instance variables, which are the arena that the Strings are stored
+    // in, and the address of each String within the arena, in the order of their ids
+    private OffHeapArena arena;
+    private long[] addresses;
+
+    /*
+    Public constructor for the OffHeapStringDictionary class, which takes in the arena that the
+    Strings should be stored in, and produces an empty dictionary. Note that several dictionaries
+    may share the same arena.
+
+    @pre arena != null
+     */
+    public OffHeapStringDictionary(OffHeapArena arena) {
+        super();
+        this.arena = arena;
+        this.addresses = new long[16];
+    }
+
+    /*
+    Protected method which encodes the String with the given id as UTF-8, and copies it into
+    the arena.
+
+    @pre value != null && id == the number of Strings stored so far
+     */
+    @Override
+    protected void storeValue(int id, String value) {
+        if (id == addresses.length) {
+            addresses = Arrays.copyOf(addresses, id * 2);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        addresses[id] = arena.add(bytes, bytes.length);
+    }
+
+    /*
+    Protected method which decodes the String with the given id out of the arena.
+
+    @pre 0 <= id && id < size()
+    @return a new String equal to the String with the given id
+     */
+    @Override
+    protected String valueAt(int id) {
+        return new String(arena.get(addresses[id]), StandardCharsets.UTF_8);
+    }
+
+    /*
+    Protected method which compares the String with the given id to the given String, reading
+    its bytes in place within the arena rather than decoding them into a new String.
+
+    @pre 0 <= id && id < size() && value != null
+    @return a negative int, zero, or a positive int as the String with the given id is less
+    than, equal to, or greater than value
+     */
+    @Override
+    protected int compareValue(int id, String value) {
+        return arena.compare(addresses[id], value);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+File: PagedBookListModel.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a ListModel for a Swing JList which shows every book in the
+library collection, sorted by title or by author, without ever reading the whole collection.
+The rows are split up into pages, and a page is only read from the collection (through the
+asynchronous controller, so the event dispatch thread never waits on it) the first time that
+the JList asks for one of its rows, which only happens for the rows that are actually on the
+screen. Until the page arrives, its rows are shown as "Loading...", and once it does, the JList
+is told to repaint them. Only a limited number of pages are kept at a time, with the page that
+was used longest ago being dropped first, so the memory used does not grow with the size of the
+collection. A page that follows a page that has already been read is found from the last book
+of that page (see BookPage.java), which takes the same time no matter how far down the list it
+is, so scrolling through the list is fast, while jumping straight to a far away row has to skip
+over the rows before it. The token after a page is dropped along with the page itself, so the
+tokens do not grow with the size of the collection either. Note that the number of rows is fixed
+when the model is created, so books added afterwards may push the last few books off of the end of
+the list.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private, and that the rows handed out by the getElementAt() method are Strings, which
+are immutable. All of the instance variables are only ever used on the event dispatch thread,
+since the pages read by the worker thread are handed back to the event dispatch thread before
+being stored, so no locking is needed.
+ */
+
+public class PagedBookListModel extends AbstractListModel<String> {
+    // Declares the version of this class for serialization, since every Swing ListModel is
+    // Serializable (although a PagedBookListModel is never actually serialized)
+    private static final long serialVersionUID = 1L;
+
+    // Declares the number of rows in each page, the largest number of pages kept at a time, and
+    // the text shown for a row whose page has not arrived yet
+    public static final int PAGE_SIZE = 256;
+    private static final int CACHED_PAGES = 64;
+    private static final String LOADING = "Loading...";
+
+    // Declares the Executor which hands each page back to the event dispatch thread
+    private static final Executor ON_EDT = SwingUtilities::invokeLater;
+
+    // Declares the private instance variables, which are the controller that the pages are read
+    // through, the order of the rows, the number of rows, the pages that are currently kept (as
+    // the text of each row, with the page used longest ago first), the token following the last
+    // book of each page read so far, and the pages that have been asked for but have not arrived
+    private AsyncLibraryCollectionController asyncController;
+    private TypeSort howSort;
+    private int size;
+    private LinkedHashMap<Integer, ArrayList<String>> pages;
+    private HashMap<Integer, String> tokensAfter;
+    private HashSet<Integer> pending;
+
+    /*
+    Public constructor for the PagedBookListModel class, which takes in the controller to read the
+    books through, the order to show them in, and the number of books in the collection. No
+    books are read until the JList asks for them.
+
+    @pre asyncController != null && howSort != null && size >= 0
+     */
+    public PagedBookListModel(AsyncLibraryCollectionController asyncController, TypeSort howSort, int size) {
+        this.asyncController = asyncController;
+        this.howSort = howSort;
+        this.size = size;
+        this.pages = new LinkedHashMap<Integer, ArrayList<String>>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, ArrayList<String>> eldest) {
+                if (size() <= CACHED_PAGES) {
+                    return false;
+                }
+                tokensAfter.remove(eldest.getKey());
+                return true;
+            }
+        };
+        this.tokensAfter = new HashMap<Integer, String>();
+        this.pending = new HashSet<Integer>();
+    }
+
+    /*
+    Public method which returns the number of rows in the list, which is the number of books
+    that were in the collection when the model was created.
+
+    @return an int representing the number of rows
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /*
+    Public method which returns the text of the row at the given index. If the page holding the
+    row has not been read yet, then it is asked for, and "Loading..." is returned until it
+    arrives. This is only called on the event dispatch thread, and never waits for the collection.
+
+    @pre 0 <= index && index < getSize()
+    @return a String representing the book at the given index
+     */
+    public String getElementAt(int index) {
+        int page = index / PAGE_SIZE;
+        ArrayList<String> rows = pages.get(page);
+        if (rows == null) {
+            fetch(page);
+            return LOADING;
+        }
+        int row = index % PAGE_SIZE;
+        return row < rows.size() ? rows.get(row) : "";
+    }
+
+    /*
+    Private helper method which asks for the given page, unless it has already been asked for.
+    If the page before it has been read, then the page is read from the token after its last
+    book, and otherwise it is read by skipping over every row before it. Once the page arrives
+    (on the event dispatch thread), it is stored, and the JList is told to repaint its rows. If
+    the page cannot be read, then it is no longer treated as asked for, so that it is asked for
+    again the next time that the JList shows one of its rows.
+
+    @pre page >= 0
+     */
+    private void fetch(int page) {
+        if (!pending.add(page)) {
+            return;
+        }
+        CompletableFuture<ArrayList<ReadOnlyBook>> books;
+        String tokenBefore = tokensAfter.get(page - 1);
+        if (page == 0 || tokenBefore != null) {
+            books = asyncController.cGetPage(howSort, tokenBefore, PAGE_SIZE).thenApply(BookPage::getBooks);
+        } else {
+            books = asyncController.cGetSortedCollection(howSort, page * PAGE_SIZE, PAGE_SIZE);
+        }
+        books.whenCompleteAsync((pageBooks, error) -> {
+            pending.remove(page);
+            if (error != null) {
+                return;
+            }
+            ArrayList<String> rows = new ArrayList<String>(pageBooks.size());
+            for (ReadOnlyBook book : pageBooks) {
+                rows.add(book.toString());
+            }
+            pages.put(page, rows);
+            if (pageBooks.size() > 0) {
+                tokensAfter.put(page, BookPage.tokenAfter(pageBooks.get(pageBooks.size() - 1), howSort));
+            }
+            int first = page * PAGE_SIZE;
+            fireContentsChanged(this, first, Math.min(size, first + PAGE_SIZE) - 1);
+        }, ON_EDT);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+File: ParallelImporter.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements the parallel reading of book files (in the same "Title;Author"
+format read by the addBooksFromFile() method of the LibraryCollection class), which allows for
+a catalog that arrives as many files, or as a single very large file, to be imported using
+every core of the machine. Each file is split into chunks of roughly the same size, with
+every chunk after the first starting just after a line break, so that no line is ever split
+between two chunks. The chunks of every file are then read and parsed at the same time on a
+ForkJoinPool, with each chunk being parsed by the CatalogParser class, so that each line is
+split into a title and author and converted into a BookSnapshot (which converts both to
+uppercase) on the thread that read it. Finally, the books
+from every chunk are handed over in the same order as they appear in the files, so that
+the result is the same as reading each of the files one after the other. Only a few chunks are
+read ahead of the chunk being handed over, and the books of each chunk are dropped as soon as
+they have been handed over, so the memory used does not grow with the size of the files.
+ */
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/*
+When it comes to maintaining encapsulation, note that the instance variable of this class is
+private, and that the ForkJoinPool is created and shut down within each call to parse(), so no
+reference to it is ever held by any other object. The books handed out by parse() are newly
+created BookSnapshots, which are immutable, and the only object passed in that is changed is the
+given ImportReport.
+ */
+
+public class ParallelImporter {
+    // Declares the default size that files are split into chunks of, in bytes, and the number
+    // of chunks that may be read ahead for each thread
+    private static final long CHUNK_BYTES = 4L << 20;
+    private static final int CHUNKS_AHEAD = 2;
+
+    // Declares the private instance variables, which are the number of threads to use and
+    // the size that files are split into chunks of
+    private int parallelism;
+    private long chunkBytes;
+
+    /*
+    Public constructor for the ParallelImporter class, which takes in the number of threads
+    that should be used to read files at the same time. Files are split into chunks of
+    CHUNK_BYTES bytes.
+
+    @pre parallelism >= 1
+     */
+    public ParallelImporter(int parallelism) {
+        this(parallelism, CHUNK_BYTES);
+    }
+
+    /*
+    Public constructor for the ParallelImporter class, which takes in the number of threads
+    that should be used to read files at the same time, and the size of the chunks that files
+    should be split into.
+
+    @pre parallelism >= 1 && chunkBytes >= 1
+     */
+    public ParallelImporter(int parallelism, long chunkBytes) {
+        this.parallelism = parallelism;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /*
+    Public method which reads every book out of the files with the given names, in parallel,
+    and returns them all in a single list, in the order in which they appear in the files (with
+    the books from the first file coming first, and so on). The first line of each file is
+    assumed to be the "Title;Author" header, and is skipped. Blank lines are ignored, while
+    lines without a semicolon are counted as malformed in the given ImportReport. Note that no
+    checking for duplicates is done here, since that is left to the LibraryCollection that the
+    books are being added to. If any of the files cannot be read, an IOException is thrown.
+
+    @pre filenames != null && report != null
+    @return ArrayList<BookSnapshot> of every book in the given files, in order
+     */
+    public ArrayList<BookSnapshot> parse(List<String> filenames, ImportReport report) throws IOException {
+        ArrayList<BookSnapshot> books = new ArrayList<BookSnapshot>();
+        parse(filenames, report, books::add);
+        return books;
+    }
+
+    /*
+    Public method which reads every book out of the files with the given names, in parallel, in
+    the same way as the method above, but hands each book to the given Consumer (on the calling
+    thread) rather than gathering them into a list. The books are handed over in the order in
+    which they appear in the files, as soon as the chunk holding them (and every chunk before it)
+    has been read, while the following chunks are still being read. At most CHUNKS_AHEAD chunks
+    for each thread are read ahead of the chunk being handed over, so only the books of those
+    chunks are held in memory at once, no matter how large the files are. Every file is opened
+    before any book is handed over, so a file that cannot be found is reported before anything
+    else happens. If a file cannot be read partway through, then an IOException is thrown, after
+    the books of the chunks before it have already been handed over. Any exception thrown by the
+    Consumer stops the import, and is passed on to the caller.
+
+    @pre filenames != null && report != null && sink != null
+     */
+    public void parse(List<String> filenames, ImportReport report, Consumer<BookSnapshot> sink) throws IOException {
+        // First, each file is split into chunks, in order
+        ArrayDeque<ChunkTask> waiting = new ArrayDeque<ChunkTask>();
+        for (String filename : filenames) {
+            long size;
+            try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+                size = channel.size();
+            }
+            for (long start = 0; start < size || start == 0; start += chunkBytes) {
+                waiting.add(new ChunkTask(filename, start, Math.min(start + chunkBytes, size)));
+            }
+        }
+
+        // The chunks are then read on the ForkJoinPool, keeping a few chunks for each thread
+        // being read ahead, while the books of the oldest chunk are handed over in order. Each
+        // chunk is dropped once its books have been handed over, so its books can be reclaimed
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ArrayDeque<ChunkTask> reading = new ArrayDeque<ChunkTask>();
+        try {
+            while (!waiting.isEmpty() || !reading.isEmpty()) {
+                while (!waiting.isEmpty() && reading.size() < parallelism * CHUNKS_AHEAD) {
+                    ChunkTask task = waiting.poll();
+                    pool.execute(task);
+                    reading.add(task);
+                }
+                ChunkTask task = reading.poll();
+                ArrayList<BookSnapshot> books;
+                try {
+                    books = task.join();
+                } catch (RuntimeException e) {
+                    // Any IOException from the chunk is passed on to the caller, after being
+                    // unwrapped from the RuntimeExceptions that carried it out of the ForkJoinPool
+                    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                        if (cause instanceof IOException) {
+                            throw (IOException) cause;
+                        }
+                    }
+                    throw e;
+                }
+                books.forEach(sink);
+                for (int i = 0; i < task.malformed; i++) {
+                    report.recordMalformed();
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /*
+    Private class representing the task of reading a single chunk of a file, which covers every
+    line that starts at or after the start of the chunk and before its end. Since the line that
+    crosses the end of the chunk is read in full by this chunk, the next chunk skips ahead to the
+    first line that starts within it.
+     */
+    private static class ChunkTask extends RecursiveTask<ArrayList<BookSnapshot>> {
+        // Declares the version of this class for serialization, since every ForkJoinTask is
+        // Serializable (although a ChunkTask is never actually serialized)
+        private static final long serialVersionUID = 1L;
+
+        // Declares the file and range of bytes covered by this chunk, and the number of
+        // malformed lines found in it
+        private String filename;
+        private long start;
+        private long end;
+        private int malformed;
+
+        private ChunkTask(String filename, long start, long end) {
+            this.filename = filename;
+            this.start = start;
+            this.end = end;
+        }
+
+        protected ArrayList<BookSnapshot> compute() {
+            try {
+                return readChunk();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /*
+        Private helper method which reads each of the lines in this chunk using the
+        CatalogParser, counting any malformed lines.
+
+        @return ArrayList<BookSnapshot> of the books in this chunk, in order
+         */
+        private ArrayList<BookSnapshot> readChunk() throws IOException {
+            ArrayList<BookSnapshot> books = new ArrayList<BookSnapshot>();
+            try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+                malformed = CatalogParser.parse(channel, start, end, books::add);
+            }
+            return books;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+File: ReadOnlyBook.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This interface defines the read-only view of a book, which holds everything that can
+be learned about a book (its title, author, rating, and read status) but offers no way of
+changing any of it. The model hands out books only through this interface, which allows for
+the immutable BookSnapshot objects that it stores to be returned directly, rather than copying
+every book that is returned. Both the mutable Book class and the immutable BookSnapshot class
+implement this interface, so code that only needs to look at books (such as the comparators
+in the Book class, or the views) works with either of them. The describe() method below gives
+both classes the same String representation.
+ */
+
+public interface ReadOnlyBook {
+    /*
+    Returns the title of the book, in all uppercase.
+
+    @return a String representing the title of the book
+     */
+    String getTitle();
+
+    /*
+    Returns the author of the book, in all uppercase.
+
+    @return a String representing the author of the book
+     */
+    String getAuthor();
+
+    /*
+    Returns the rating of the book, which is -1 if the book has not been rated yet.
+
+    @return an int representing the rating associated with the book
+     */
+    int getRating();
+
+    /*
+    Returns the read status of the book.
+
+    @return an enumerated type Read object representing the book's read status
+     */
+    Read getReadStatus();
+
+    /*
+    Returns the key that uniquely identifies the book within the library collection, in the
+    same format as the makeKey() method of the Book class.
+
+    @return a String key representing the title and author of the book
+     */
+    String getKey();
+
+    /*
+    Public static method which returns a String representation of the given book, with the
+    following format: "Title: book.title; Author: book.author; Rating: book.rating; Read Status:
+    book.readStatus". If the book has not been rated, then that is explicitly mentioned within
+    the string. This is used by the toString() methods of both the Book and BookSnapshot classes.
+
+    @pre book != null
+    @return a String representing the given book
+     */
+    static String describe(ReadOnlyBook book) {
+        // Constructs the string to be returned using the values of the book's fields
+        String returnString = "Title: " + book.getTitle() + "; ";
+        returnString += "Author: " + book.getAuthor() + "; ";
+        returnString += "Rating: ";
+        if (book.getRating() == -1) {
+            returnString += "not rated yet; ";
+        } else {
+            returnString += book.getRating() + "; ";
+        }
+        returnString += "Read Status: ";
+        if (book.getReadStatus().equals(Read.READ)) {
+            returnString += "read";
+        } else {
+            returnString += "not read";
+        }
+        return returnString;
+    }
+}
@@ -0,0 +1,296 @@
+/*
+File: SortedBookIndex.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a sorted secondary index over the Book objects in the
+library collection. Each Book is stored under a String sort key (such as its title or its
+author), with the keys being kept in sorted order by a TreeMap, and the Books that share
+the same sort key being kept in the order in which they were added to the index. This
+allows for the LibraryCollection class to list its books in sorted order, or to find all
+of the books with a particular key, without ever having to sort the whole collection.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/*
+When it comes to maintaining encapsulation, the TreeMap underlying this class is private,
+and it is never returned directly. Any collections of Books handed out by this class are
+unmodifiable views, so client code cannot add or remove entries from the index without
+going through the methods below. Note that the Book objects themselves are the same ones
+stored by the LibraryCollection class, which only ever stores immutable BookSnapshots.
+ */
+
+public class SortedBookIndex implements Iterable<ReadOnlyBook> {
+    // Declares the private instance variables, which are the TreeMap from each sort key to
+    // the Books with that key (themselves stored in a LinkedHashMap from the key of each
+    // Book to the Book, to preserve insertion order), and the total number of Books indexed
+    private TreeMap<String, LinkedHashMap<String, ReadOnlyBook>> entries;
+    private int size;
+
+    /*
+    Public constructor for the SortedBookIndex class, which takes no inputs and produces an
+    empty index. Since there are no inputs and no assumptions, there are no preconditions.
+     */
+    public SortedBookIndex() {
+        this.entries = new TreeMap<String, LinkedHashMap<String, ReadOnlyBook>>();
+        this.size = 0;
+    }
+
+    /*
+    Public method for adding a Book to the index under the given sort key. The Book is
+    placed after any other Books that already have this sort key. This takes O(log n) time,
+    where n is the number of distinct keys in the index.
+
+    @pre sortKey != null && book != null && book is not already in the index
+     */
+    public void add(String sortKey, ReadOnlyBook book) {
+        // Gets the group of Books with this sort key, creating it if it does not exist yet
+        LinkedHashMap<String, ReadOnlyBook> group = entries.get(sortKey);
+        if (group == null) {
+            group = new LinkedHashMap<String, ReadOnlyBook>();
+            entries.put(sortKey, group);
+        }
+
+        // Adds the Book to the end of this group
+        group.put(book.getKey(), book);
+        size++;
+    }
+
+    /*
+    Public method for removing a Book from the index, where the given sort key must be the
+    same one that the Book was added under. If the Book is not in the index, then nothing
+    is changed. This takes O(log n) time, where n is the number of distinct keys in the index.
+
+    @pre sortKey != null && book != null
+     */
+    public void remove(String sortKey, ReadOnlyBook book) {
+        // Gets the group of Books with this sort key, if it exists
+        LinkedHashMap<String, ReadOnlyBook> group = entries.get(sortKey);
+        if (group == null) {
+            return;
+        }
+
+        // Removes the Book from the group, and removes the group if it is now empty
+        if (group.remove(book.getKey()) != null) {
+            size--;
+            if (group.isEmpty()) {
+                entries.remove(sortKey);
+            }
+        }
+    }
+
+    /*
+    Public method for replacing a Book within the index with a new Book that is equal to it
+    (in the sense of having the same title and author), where the given sort key must be the
+    same one that the original Book was added under. The new Book takes the same position as
+    the original within its group. If the original Book is not in the index, then nothing is
+    changed. This takes O(log n) time, where n is the number of distinct keys in the index.
+
+    @pre sortKey != null && book != null
+     */
+    public void replace(String sortKey, ReadOnlyBook book) {
+        // Gets the group of Books with this sort key, and replaces the Book if it is present
+        LinkedHashMap<String, ReadOnlyBook> group = entries.get(sortKey);
+        if (group != null && group.containsKey(book.getKey())) {
+            group.put(book.getKey(), book);
+        }
+    }
+
+    /*
+    Public method for obtaining all of the Books in the index with exactly the given sort key,
+    in the order in which they were added. If there are no such Books, an empty collection is
+    returned. Note that the returned collection is an unmodifiable view of the index, so it
+    should be copied by the caller if the index may be changed while it is being used.
+
+    @pre sortKey != null
+    @return Collection<ReadOnlyBook> of the Books with the given sort key
+     */
+    public Collection<ReadOnlyBook> getEqual(String sortKey) {
+        LinkedHashMap<String, ReadOnlyBook> group = entries.get(sortKey);
+        if (group == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableCollection(group.values());
+    }
+
+    /*
+    Public method for obtaining all of the Books in the index whose sort key starts with the
+    given prefix, in ascending order of their sort keys. This is done by starting at the first
+    sort key that is greater than or equal to the prefix within the TreeMap, then walking forward
+    only while the sort keys still start with the prefix, so this takes O(log n + k) time, where
+    k is the number of Books returned. Note that the walk is done with a plain loop rather than
+    a lazy stream, since the iterator of a stream may read ahead through the rest of the index
+    past the last matching key, and that the returned Iterable is a new list, with no connection
+    to the index.
+
+    @pre prefix != null
+    @return Iterable<ReadOnlyBook> over the Books whose sort key starts with the given prefix
+     */
+    public Iterable<ReadOnlyBook> getPrefix(String prefix) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        for (Map.Entry<String, LinkedHashMap<String, ReadOnlyBook>> entry : entries.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            books.addAll(entry.getValue().values());
+        }
+        return books;
+    }
+
+    /*
+    Public method for obtaining an Iterator over the Books in the index whose sort key starts
+    with the given prefix, in the same order as getPrefix(). Unlike getPrefix(), the Books are
+    found one group at a time as the Iterator is used, so a caller that only needs the first few
+    of them (such as a query with a limit) takes O(log n + k) time for the k Books that it reads,
+    no matter how many Books have the prefix. Note that the Iterator reads from the index itself,
+    so the index must not be changed while it is being used.
+
+    @pre prefix != null
+    @return Iterator<ReadOnlyBook> over the Books whose sort key starts with the given prefix
+     */
+    public Iterator<ReadOnlyBook> iteratePrefix(String prefix) {
+        Iterator<Map.Entry<String, LinkedHashMap<String, ReadOnlyBook>>> groups = entries.tailMap(prefix, true).entrySet().iterator();
+        return new Iterator<ReadOnlyBook>() {
+            private Iterator<ReadOnlyBook> group = Collections.emptyIterator();
+
+            public boolean hasNext() {
+                // Moves on to the next group once the current one runs out, stopping at the first
+                // sort key that does not start with the prefix
+                while (!group.hasNext() && groups.hasNext()) {
+                    Map.Entry<String, LinkedHashMap<String, ReadOnlyBook>> entry = groups.next();
+                    if (!entry.getKey().startsWith(prefix)) {
+                        break;
+                    }
+                    group = entry.getValue().values().iterator();
+                }
+                return group.hasNext();
+            }
+
+            public ReadOnlyBook next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return group.next();
+            }
+        };
+    }
+
+    /*
+    Public method for obtaining up to limit Books from the index, in sorted order, starting just
+    after the Book with the given key that was added under the given sort key (or starting from
+    the first Book in the index, if the sort key is null). The Books after it within its group
+    are taken first, followed by the Books under the greater sort keys, which are reached through
+    the tailMap of the TreeMap, so this takes O(log n + g + limit) time, where g is the number of
+    Books in the group of the given Book, rather than time proportional to the number of Books
+    before it. If the given Book is not in its group, then the Books under the greater sort keys
+    are returned. The returned list is a new list, with no connection to the index.
+
+    @pre limit >= 0 && (sortKey == null || bookKey != null)
+    @return ArrayList<ReadOnlyBook> of up to limit Books following the given Book, in sorted order
+     */
+    public ArrayList<ReadOnlyBook> getAfter(String sortKey, String bookKey, int limit) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        Map<String, LinkedHashMap<String, ReadOnlyBook>> rest = entries;
+        if (sortKey != null) {
+            // Takes the Books after the given Book within its own group first
+            LinkedHashMap<String, ReadOnlyBook> group = entries.get(sortKey);
+            if (group != null) {
+                boolean found = false;
+                for (ReadOnlyBook book : group.values()) {
+                    if (books.size() == limit) {
+                        return books;
+                    } else if (found) {
+                        books.add(book);
+                    } else {
+                        found = book.getKey().equals(bookKey);
+                    }
+                }
+            }
+            rest = entries.tailMap(sortKey, false);
+        }
+        return addUpTo(books, rest.values(), limit);
+    }
+
+    /*
+    Public method for obtaining up to limit Books from the index, in sorted order, skipping the
+    first offset Books. Entire groups of Books that share a sort key are skipped at once, so this
+    takes O(g + limit) time, where g is the number of distinct sort keys before the first Book
+    returned. The returned list is a new list, with no connection to the index.
+
+    @pre offset >= 0 && limit >= 0
+    @return ArrayList<ReadOnlyBook> of up to limit Books, starting from the Book at position offset
+     */
+    public ArrayList<ReadOnlyBook> getRange(int offset, int limit) {
+        ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+        if (offset >= size) {
+            return books;
+        }
+        int skipped = 0;
+        for (Map.Entry<String, LinkedHashMap<String, ReadOnlyBook>> entry : entries.entrySet()) {
+            LinkedHashMap<String, ReadOnlyBook> group = entry.getValue();
+            if (skipped + group.size() <= offset) {
+                skipped += group.size();
+                continue;
+            }
+
+            // Takes the Books of this group past the offset, then every group after it
+            for (ReadOnlyBook book : group.values()) {
+                if (books.size() == limit) {
+                    return books;
+                } else if (skipped >= offset) {
+                    books.add(book);
+                }
+                skipped++;
+            }
+            return addUpTo(books, entries.tailMap(entry.getKey(), false).values(), limit);
+        }
+        return books;
+    }
+
+    /*
+    Private static helper method which adds the Books of the given groups, in order, to the given
+    list until it holds limit Books.
+
+    @pre books != null && groups != null && limit >= 0
+    @return the given ArrayList<ReadOnlyBook>, after the Books have been added
+     */
+    private static ArrayList<ReadOnlyBook> addUpTo(ArrayList<ReadOnlyBook> books, Collection<LinkedHashMap<String, ReadOnlyBook>> groups, int limit) {
+        for (LinkedHashMap<String, ReadOnlyBook> group : groups) {
+            for (ReadOnlyBook book : group.values()) {
+                if (books.size() == limit) {
+                    return books;
+                }
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    /*
+    Public getter for the number of Books currently in the index. This takes constant time.
+
+    @return an int representing the number of Books in the index
+     */
+    public int size() {
+        return size;
+    }
+
+    /*
+    Public method for obtaining an Iterator over all of the Books in the index, in ascending
+    order of their sort keys (with Books that share a sort key being in the order in which
+    they were added). The returned Iterator does not support removal.
+
+    @return Iterator<ReadOnlyBook> over all of the Books in the index, in sorted order
+     */
+    public Iterator<ReadOnlyBook> iterator() {
+        return Collections.unmodifiableCollection(entries.values()).stream()
+                .flatMap(group -> group.values().stream()).iterator();
+    }
+}
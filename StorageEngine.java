@@ -0,0 +1,17 @@
+/*
+File: StorageEngine.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class is designed to simply define the StorageEngine enumerated type, which
+is used to choose how the library collection stores its books when a new
+LibraryCollectionController is constructed. It can take on one of three values: OBJECTS, where
+each book is stored as a Book object (see LibraryCollection.java), COLUMNAR, where the
+books are stored in columns of primitive arrays (see ColumnarLibraryCollection.java), which
+uses far less memory for very large collections, and OFF_HEAP, which is the same as COLUMNAR
+except that the titles and authors are stored outside of the Java heap (see
+OffHeapLibraryCollection.java), so that they do not slow down the garbage collector.
+ */
+
+public enum StorageEngine {
+    OBJECTS, COLUMNAR, OFF_HEAP
+}
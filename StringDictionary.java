@@ -0,0 +1,448 @@
+/*
+File: StringDictionary.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a compact dictionary of Strings, which gives each distinct
+String that is added to it a small int id (with ids being handed out in order, starting from
+0). It is used by the columnar storage engine (see ColumnarLibraryCollection.java) so that each
+book only needs to store the int ids of its title and author, rather than references to Strings.
+Rather than using a HashMap, which would create an entry object (and a boxed Integer) for every
+String, the dictionary uses open addressing over a plain int array, where each slot holds the
+id of a String (plus one, so that 0 can mark an empty slot). The dictionary can also produce the
+ids of all of its Strings in sorted order, which is cached and kept up to date as new Strings
+are added (by placing the few new ids within the cached order, rather than sorting every id again).
+Note that the Strings themselves are kept in an ordinary array, but subclasses (such as the
+OffHeapStringDictionary class) may store them elsewhere by overriding the storeValue() and
+valueAt() methods (and the compareValue() method, so that searching does not need a copy of each
+String it passes over).
+ */
+
+import java.util.Arrays;
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private, and that the arrays are never returned directly; the sortedIds() method
+returns a new array built from the cached sorted order, whose arrays are never changed once
+built. The only way to change the dictionary is to add a
+new String through the intern() method, and Strings are immutable, so no escaping references
+can be produced.
+ */
+
+public class StringDictionary {
+    // Declares the constants, which are the most recently added ids that are kept apart from the
+    // main sorted run before being folded into it (see sortedOrder()), and an empty array
+    private static final int PENDING_LIMIT = 1024;
+    private static final int[] EMPTY = new int[0];
+
+    // Declares the private instance variables, which are the Strings in the order of their
+    // ids, the hash code of each String, the number of Strings, the open addressing table of
+    // ids (each plus one), and the cached order of the ids when sorted by their Strings. The
+    // cached order always covers the ids from 0 up to its size, so any ids at or beyond its
+    // size were added since and still have to be placed in it. The cached order is volatile,
+    // since several threads that only read from the dictionary (such as readers of the
+    // ConcurrentLibraryCollection class) may update and publish it at the same time
+    private String[] values;
+    private int[] hashes;
+    private int size;
+    private int[] table;
+    private volatile SortedOrder sorted;
+
+    /*
+    Public constructor for the StringDictionary class, which takes no inputs and produces an
+    empty dictionary. Since there are no inputs and no assumptions, there are no preconditions.
+     */
+    public StringDictionary() {
+        this.values = new String[16];
+        this.hashes = new int[16];
+        this.size = 0;
+        this.table = new int[32];
+        this.sorted = new SortedOrder(EMPTY, EMPTY, EMPTY);
+    }
+
+    /*
+    Public method which returns the id of the given String, adding it to the dictionary with the
+    next id if it is not already there. This takes constant time on average.
+
+    @pre value != null
+    @return an int representing the id of value
+     */
+    public int intern(String value) {
+        int slot = findSlot(value);
+        if (table[slot] != 0) {
+            return table[slot] - 1;
+        }
+
+        // Adds the String with the next id, growing the arrays first if necessary
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        hashes[size] = value.hashCode();
+        storeValue(size, value);
+        table[slot] = size + 1;
+        size++;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /*
+    Public method which returns the id of the given String, or -1 if it is not in the dictionary.
+    This takes constant time on average.
+
+    @pre value != null
+    @return an int representing the id of value, or -1 if it is not present
+     */
+    public int find(String value) {
+        return table[findSlot(value)] - 1;
+    }
+
+    /*
+    Public getter for the String with the given id.
+
+    @pre 0 <= id && id < size()
+    @return the String with the given id
+     */
+    public String get(int id) {
+        return valueAt(id);
+    }
+
+    /*
+    Public getter for the number of Strings in the dictionary.
+
+    @return an int representing the number of Strings in the dictionary
+     */
+    public int size() {
+        return size;
+    }
+
+    /*
+    Public method which returns the ids of every String in the dictionary, sorted alphabetically
+    by their Strings. The sorted order is cached and kept up to date as Strings are added (see
+    sortedOrder()), so it is never sorted from scratch unless many Strings were added at once.
+
+    @return an int[] of every id, in the alphabetical order of their Strings
+     */
+    public int[] sortedIds() {
+        return sortedOrder().merged();
+    }
+
+    /*
+    Public method which returns the position within the sorted order of ids (see sortedIds())
+    of the first String that is greater than or equal to the given String. This uses binary
+    search over both parts of the sorted order, so it takes O(log u) time once the sorted order
+    is up to date.
+
+    @pre value != null
+    @return an int representing the position of the first String >= value in the sorted order
+     */
+    public int lowerBound(String value) {
+        SortedOrder order = sortedOrder();
+        return countBelow(order.run, 0, order.run.length, value)
+                + countBelow(order.added, 0, order.added.length, value);
+    }
+
+    /*
+    Public method which returns the id found at the given position within the sorted order.
+    This takes O(log k) time, where k is the number of recently added ids which have not yet
+    been folded into the main sorted run (at most PENDING_LIMIT).
+
+    @pre 0 <= position && position < size()
+    @return an int representing the id at the given position in the sorted order
+     */
+    public int sortedIdAt(int position) {
+        return sortedOrder().idAt(position);
+    }
+
+    /*
+    Protected method which stores the String with the given id. Subclasses may override this
+    (along with valueAt()) in order to keep the Strings somewhere other than an ordinary array.
+
+    @pre value != null && id == the number of Strings stored so far
+     */
+    protected void storeValue(int id, String value) {
+        if (id == values.length) {
+            values = Arrays.copyOf(values, id * 2);
+        }
+        values[id] = value;
+    }
+
+    /*
+    Protected method which returns the String with the given id, as stored by storeValue().
+
+    @pre 0 <= id && id < size()
+    @return the String with the given id
+     */
+    protected String valueAt(int id) {
+        return values[id];
+    }
+
+    /*
+    Protected method which compares the String with the given id to the given String, in the
+    same order as String.compareTo(). This is used whenever the dictionary is searched, so
+    subclasses which store their Strings elsewhere may override it in order to compare the
+    stored String without fetching a copy of it first.
+
+    @pre 0 <= id && id < size() && value != null
+    @return a negative int, zero, or a positive int as the String with the given id is less
+    than, equal to, or greater than value
+     */
+    protected int compareValue(int id, String value) {
+        return valueAt(id).compareTo(value);
+    }
+
+    /*
+    Private helper method which returns the cached sorted order of the ids, first bringing it up
+    to date if Strings have been added since it was last used. Only the new ids are sorted, and
+    each is placed by binary search within the main sorted run, and then merged into the small
+    sorted list of recently added ids, so the main run does not have to be copied each time a
+    String is added. Once there are more than PENDING_LIMIT recently added ids they are folded
+    into a new main run, and if the new ids make up a large part of the dictionary (such as after
+    a bulk import), every id is sorted again instead, which is faster at that point. The new
+    order is built separately and is only stored in the (volatile) cache once it is complete, so
+    another thread reading the cache at the same time either sees the whole new order or the old
+    one (in which case it adds the same ids itself), and never sees a partly built order.
+
+    @return the cached SortedOrder of every id
+     */
+    private SortedOrder sortedOrder() {
+        SortedOrder current = sorted;
+        int count = size;
+        int base = current.size();
+        if (base == count) {
+            return current;
+        }
+
+        // Every id is sorted again if the new ids make up a large part of the dictionary
+        int[] run = current.run;
+        if (count - run.length > run.length / 16) {
+            int[] all = new int[count];
+            String[] allValues = new String[count];
+            for (int id = 0; id < count; id++) {
+                all[id] = id;
+                allValues[id] = valueAt(id);
+            }
+            sortIds(all, allValues, 0);
+            SortedOrder rebuilt = new SortedOrder(all, EMPTY, EMPTY);
+            sorted = rebuilt;
+            return rebuilt;
+        }
+
+        // Otherwise the new ids are sorted on their own first, with each String being fetched
+        // only once, since fetching a String may be slow
+        int[] newIds = new int[count - base];
+        String[] newValues = new String[count - base];
+        for (int i = 0; i < newIds.length; i++) {
+            newIds[i] = base + i;
+            newValues[i] = valueAt(base + i);
+        }
+        sortIds(newIds, newValues, base);
+
+        // Each new id is then given the number of ids in the main run with smaller Strings. Since
+        // the new ids are in sorted order, each search can start where the one before it ended
+        int[] newPositions = new int[newIds.length];
+        int from = 0;
+        for (int i = 0; i < newIds.length; i++) {
+            from += countBelow(run, from, run.length, newValues[newIds[i] - base]);
+            newPositions[i] = from;
+        }
+
+        // The new ids are merged with the recently added ids, ordering first by their position
+        // within the main run, and then by their Strings for ids with the same position
+        int[] added = new int[current.added.length + newIds.length];
+        int[] positions = new int[added.length];
+        int left = 0;
+        int right = 0;
+        for (int next = 0; next < added.length; next++) {
+            boolean takeLeft = right == newIds.length;
+            if (left < current.added.length && !takeLeft) {
+                int difference = current.positions[left] - newPositions[right];
+                String newValue = newValues[newIds[right] - base];
+                takeLeft = difference < 0 || (difference == 0
+                        && compareValue(current.added[left], newValue) < 0);
+            }
+            if (takeLeft) {
+                added[next] = current.added[left];
+                positions[next] = current.positions[left++];
+            } else {
+                added[next] = newIds[right];
+                positions[next] = newPositions[right++];
+            }
+        }
+
+        SortedOrder updated = new SortedOrder(run, added, positions);
+        if (added.length > PENDING_LIMIT) {
+            updated = new SortedOrder(updated.merged(), EMPTY, EMPTY);
+        }
+        sorted = updated;
+        return updated;
+    }
+
+    /*
+    Private helper method which counts how many of the ids in ids[from, to) have Strings that are
+    less than the given String, using binary search.
+
+    @pre the ids in ids[from, to) are in the sorted order of their Strings
+    @return an int representing how many of those ids have Strings less than value
+     */
+    private int countBelow(int[] ids, int from, int to, String value) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareValue(ids[mid], value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - from;
+    }
+
+    /*
+    Private helper method which sorts the given ids by their Strings, where the String of each id
+    is found at values[id - base]. This is a merge sort over the plain int array, so that no
+    boxed Integer needs to be created for each id, and takes O(k log k) time for k ids.
+
+    @pre values[id - base] is the String of each id in ids
+     */
+    private static void sortIds(int[] ids, String[] values, int base) {
+        int[] merged = new int[ids.length];
+        for (int width = 1; width < ids.length; width *= 2) {
+            for (int low = 0; low < ids.length; low += 2 * width) {
+                int mid = Math.min(low + width, ids.length);
+                int high = Math.min(low + 2 * width, ids.length);
+                int left = low;
+                int right = mid;
+                int next = low;
+                while (left < mid && right < high) {
+                    if (values[ids[right] - base].compareTo(values[ids[left] - base]) < 0) {
+                        merged[next++] = ids[right++];
+                    } else {
+                        merged[next++] = ids[left++];
+                    }
+                }
+                System.arraycopy(ids, left, merged, next, mid - left);
+                System.arraycopy(ids, right, merged, next + mid - left, high - right);
+            }
+            System.arraycopy(merged, 0, ids, 0, ids.length);
+        }
+    }
+
+    /*
+    Private helper method which finds the slot of the table holding the given String, or the
+    empty slot where it would be placed, using linear probing.
+
+    @pre value != null
+    @return an int representing the slot for value
+     */
+    private int findSlot(String value) {
+        int mask = table.length - 1;
+        int hash = value.hashCode();
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && compareValue(id, value) == 0) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /*
+    Private helper method which doubles the size of the table, placing every id into its new slot.
+     */
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    // Private helper method which spreads the bits of a hash code, so that hash codes which
+    // only differ in their high bits do not all land in the same slots
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /*
+    Private static nested class which holds one version of the sorted order of the ids. This is
+    made up of a main run holding the ids from 0 up to its length in sorted order, and a short
+    sorted list of the ids added after those, along with the number of ids in the main run that
+    come before each of them. Both lists are never changed once the SortedOrder has been built.
+     */
+    private static final class SortedOrder {
+        // Declares the final instance variables, which are the main run of ids, the recently
+        // added ids, and the position within the main run of each recently added id
+        private final int[] run;
+        private final int[] added;
+        private final int[] positions;
+
+        /*
+        Private constructor for the SortedOrder class, which takes in the main run of ids, the
+        recently added ids, and their positions within the main run.
+
+        @pre run and added are sorted by their Strings && positions.length == added.length
+         */
+        private SortedOrder(int[] run, int[] added, int[] positions) {
+            this.run = run;
+            this.added = added;
+            this.positions = positions;
+        }
+
+        // Private helper method which returns the number of ids in this sorted order
+        private int size() {
+            return run.length + added.length;
+        }
+
+        /*
+        Private helper method which returns the id at the given position within the whole sorted
+        order. The recently added id at index j of the added list is found at position
+        positions[j] + j, so binary search finds how many of them come before the position.
+
+        @pre 0 <= position && position < size()
+        @return an int representing the id at the given position
+         */
+        private int idAt(int position) {
+            int low = 0;
+            int high = added.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (positions[mid] + mid < position) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (low < added.length && positions[low] + low == position) {
+                return added[low];
+            }
+            return run[position - low];
+        }
+
+        /*
+        Private helper method which returns every id of this sorted order in a single new array,
+        copying across the runs of the main run that fall between the recently added ids.
+
+        @return an int[] of every id in sorted order
+         */
+        private int[] merged() {
+            int[] all = new int[size()];
+            int from = 0;
+            for (int j = 0; j < added.length; j++) {
+                System.arraycopy(run, from, all, from + j, positions[j] - from);
+                from = positions[j];
+                all[from + j] = added[j];
+            }
+            System.arraycopy(run, from, all, from + added.length, run.length - from);
+            return all;
+        }
+    }
+}
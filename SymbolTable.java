@@ -0,0 +1,62 @@
+/*
+File: SymbolTable.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a symbol table (also known as a dictionary), which stores
+each distinct String only once. Each LibraryCollection keeps its own symbol table for the
+names of authors, since a prolific author may have tens of thousands of books in a catalog,
+and without the symbol table every one of these books would hold its own copy of the author's
+name. With it, every book by the same author within the collection shares a single String,
+which also lets the author Comparator of the Book class find two such books to be equal
+without comparing any characters. Since the symbol table belongs to a single collection, the
+Strings that it holds can be reclaimed along with the collection itself, rather than being
+kept for as long as the program runs. Note that this is only interning: the symbol table does
+not give its Strings int ids or sort ranks, and Books still hold (and are sorted by) their
+Strings. Encoding titles and authors as int ids, with a cached sorted order of the ids, is
+done by the columnar storage engine instead (see StringDictionary.java).
+ */
+
+import java.util.HashMap;
+
+/*
+When it comes to maintaining encapsulation, note that the only instance variable of this
+class is private, and is never returned from any method. The only values handed out are the
+stored Strings themselves, which are immutable. Note that this class is not thread-safe, in
+the same way as the LibraryCollection class that owns it.
+ */
+
+public class SymbolTable {
+    // Declares the private instance variable, which is the map from each String to the single
+    // stored copy of that String
+    private HashMap<String, String> symbols;
+
+    /*
+    Public constructor for the SymbolTable class, which takes no inputs and produces an empty
+    symbol table. Since there are no inputs and no assumptions, there are no preconditions.
+     */
+    public SymbolTable() {
+        this.symbols = new HashMap<String, String>();
+    }
+
+    /*
+    Public method which returns the stored copy of the given String, adding the String to the
+    table (so that it becomes the stored copy) if an equal String is not already there. This
+    takes constant time on average.
+
+    @pre value != null
+    @return the single stored String that is equal to value
+     */
+    public String intern(String value) {
+        String stored = symbols.putIfAbsent(value, value);
+        return stored == null ? value : stored;
+    }
+
+    /*
+    Public getter for the number of distinct Strings in the symbol table.
+
+    @return an int representing the number of Strings in the table
+     */
+    public int size() {
+        return symbols.size();
+    }
+}
@@ -0,0 +1,218 @@
+/*
+File: TrigramIndex.java
+Authors: Micaila Marcelle (micailamarcelle) and Elise Bushra (ebushra)
+Course: CSC 335
+Purpose: This class implements a trigram index over a vocabulary of terms (the words found in
+the titles and authors of the books, as split up by the InvertedIndex class), which allows for
+the terms that are spelled almost the same as a given word to be found quickly, so that a search
+for "Tolkein" still finds the books by "Tolkien". Each term is padded with two '$' characters on
+either side, and is broken into every run of three characters (trigram) within it, with the index
+keeping a list of the terms containing each trigram. Two words that are only a few edits apart
+(where an edit is inserting, deleting, or changing a single character, or swapping two
+neighbouring characters) must share most of their trigrams, so the candidates for a word are the
+terms that share at least a certain number of trigrams with it, which are found by walking only
+the lists for the trigrams of the word, rather than the whole vocabulary. Each candidate is then
+checked by computing its edit distance from the word, giving up as soon as the distance is
+known to be too large. The number of edits allowed grows with the length of the word: none for
+words of up to three letters, one for words of up to seven letters, and two for longer words.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+When it comes to maintaining encapsulation, note that all of the instance variables of this
+class are private, and that the lists of terms are never returned directly; the similar()
+method returns a new map. Since the terms are Strings, which are immutable, no client code can
+change the contents of the index other than by adding new terms through the add() method.
+ */
+
+public class TrigramIndex {
+    // Declares the character used to pad each term, which cannot appear within a term (since
+    // terms are only made up of letters and digits)
+    private static final char PAD = '$';
+
+    // Declares the private instance variables, which are the terms in the order in which they
+    // were added (so that each term is known by its position), and the ids of the terms
+    // containing each trigram, where each trigram is packed into a long
+    private ArrayList<String> terms;
+    private HashMap<Long, int[]> trigrams;
+
+    /*
+    Public constructor for the TrigramIndex class, which takes no inputs and produces an empty
+    index. Since there are no inputs and no assumptions, there are no preconditions.
+     */
+    public TrigramIndex() {
+        this.terms = new ArrayList<String>();
+        this.trigrams = new HashMap<Long, int[]>();
+    }
+
+    /*
+    Public method which adds the given term to the index. This takes time proportional to the
+    length of the term.
+
+    @pre term != null && term is not already in the index
+     */
+    public void add(String term) {
+        int id = terms.size();
+        terms.add(term);
+        for (long trigram : trigramsOf(term)) {
+            // Each list keeps its size in its first slot, and holds the distinct ids after it
+            int[] ids = trigrams.get(trigram);
+            if (ids == null) {
+                ids = new int[4];
+            } else if (ids[ids[0]] == id) {
+                continue;
+            } else if (ids[0] + 1 == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[0]++;
+            ids[ids[0]] = id;
+            trigrams.put(trigram, ids);
+        }
+    }
+
+    /*
+    Public method which returns every term in the index that is within the allowed number of
+    edits of the given word (see maxDistance()), along with its edit distance from the word, in
+    increasing order of distance. The word should already be split up and normalized in the same
+    way as the terms (see InvertedIndex.tokenize()).
+
+    @pre word != null
+    @return LinkedHashMap<String, Integer> from each similar term to its distance from word
+     */
+    public LinkedHashMap<String, Integer> similar(String word) {
+        int maxDistance = maxDistance(word.length());
+
+        // Counts the trigrams that each term shares with the word, then keeps the terms which
+        // share enough of them. A word with k edits can lose at most 4k of its trigrams, since
+        // each trigram covers three characters and a swap changes two characters
+        HashMap<Integer, Integer> shared = new HashMap<Integer, Integer>();
+        for (long trigram : trigramsOf(word)) {
+            int[] ids = trigrams.get(trigram);
+            if (ids != null) {
+                for (int i = 1; i <= ids[0]; i++) {
+                    shared.merge(ids[i], 1, Integer::sum);
+                }
+            }
+        }
+        int needed = word.length() + 2 - 4 * maxDistance;
+
+        // Verifies each candidate with its actual edit distance, grouping them by distance
+        ArrayList<ArrayList<String>> byDistance = new ArrayList<ArrayList<String>>();
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            byDistance.add(new ArrayList<String>());
+        }
+        for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+            String term = terms.get(entry.getKey());
+            if (entry.getValue() >= needed && Math.abs(term.length() - word.length()) <= maxDistance) {
+                int distance = distance(word, term, maxDistance);
+                if (distance <= maxDistance) {
+                    byDistance.get(distance).add(term);
+                }
+            }
+        }
+        LinkedHashMap<String, Integer> similar = new LinkedHashMap<String, Integer>();
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            for (String term : byDistance.get(distance)) {
+                similar.put(term, distance);
+            }
+        }
+        return similar;
+    }
+
+    /*
+    Public static method which returns the number of edits allowed for a word of the given
+    length: none for words of up to three letters, one for words of up to seven letters, and
+    two for longer words.
+
+    @pre length >= 0
+    @return an int representing the number of edits allowed
+     */
+    public static int maxDistance(int length) {
+        if (length <= 3) {
+            return 0;
+        } else if (length <= 7) {
+            return 1;
+        }
+        return 2;
+    }
+
+    /*
+    Public static method which returns the edit distance between the two given Strings, where
+    an edit is inserting, deleting, or changing a single character, or swapping two neighbouring
+    characters. Only the cells of the table within max of the diagonal are computed, and as soon
+    as every cell of a row is greater than max, max + 1 is returned, so this takes O(max * n)
+    time, where n is the length of the shorter String.
+
+    @pre first != null && second != null && max >= 0
+    @return an int representing the edit distance, or max + 1 if it is greater than max
+     */
+    public static int distance(String first, String second, int max) {
+        if (Math.abs(first.length() - second.length()) > max) {
+            return max + 1;
+        }
+        int width = second.length() + 1;
+        int over = max + 1;
+        int[] before = new int[width];
+        int[] previous = new int[width];
+        int[] current = new int[width];
+        for (int j = 0; j < width; j++) {
+            previous[j] = Math.min(j, over);
+        }
+
+        for (int i = 1; i <= first.length(); i++) {
+            // Only the cells within max of the diagonal can be at most max
+            int from = Math.max(1, i - max);
+            int to = Math.min(second.length(), i + max);
+
+            // The cells just outside of the band are marked as too large, since the next row
+            // reads them
+            current[from - 1] = from == 1 ? Math.min(i, over) : over;
+            if (to + 1 < width) {
+                current[to + 1] = over;
+            }
+            int rowMin = current[from - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                        && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    value = Math.min(value, before[j - 2] + 1);
+                }
+                current[j] = Math.min(value, over);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return over;
+            }
+
+            // Moves each row up by one, reusing the oldest row for the next one
+            int[] oldest = before;
+            before = previous;
+            previous = current;
+            current = oldest;
+        }
+        return previous[second.length()];
+    }
+
+    /*
+    Private static helper method which returns every trigram of the given term after padding it
+    with two PAD characters on either side, with each trigram packed into a long (using 16 bits
+    for each character).
+
+    @pre term != null
+    @return a long[] of the trigrams of the padded term, in order
+     */
+    private static long[] trigramsOf(String term) {
+        String padded = "" + PAD + PAD + term + PAD + PAD;
+        long[] result = new long[padded.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        return result;
+    }
+}
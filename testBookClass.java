@@ -11,14 +11,19 @@ system
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 
 import org.junit.jupiter.api.Test;
 
 //import model.Book;
+//import model.LibraryCollection;
 //import model.Read;
+//import model.ReadOnlyBook;
+//import model.SymbolTable;
 
 public class testBookClass {
 	@Test
@@ -60,6 +65,15 @@ public class testBookClass {
 		assertFalse(e.equals(f));
 	}
 	
+	@Test
+	public void testEqualsObjectAndHashCode() {
+		Object other = b;
+		assertTrue(a.equals(other));
+		assertEquals(a.hashCode(), c.hashCode());
+		assertFalse(a.equals((Object) "The Fellowship of the Ring"));
+		assertEquals(a.getKey(), Book.makeKey("the fellowship of the ring", "j.r.r. tolkein"));
+	}
+	
 	@Test
 	public void testToString() {
 		assertEquals(a.toString(), "Title: THE FELLOWSHIP OF THE RING; Author: J.R.R. TOLKEIN; Rating: not rated yet; Read Status: not read");
@@ -104,4 +118,21 @@ public class testBookClass {
 		int result3 = comparator.compare(f, d);
 		assertTrue(result3 < 0);
 	}
+
+	@Test
+	public void testAuthorsShared() {
+		// Books by the same author within a collection share the author's String
+		LibraryCollection collection = new LibraryCollection();
+		collection.addBook("Emma", "Jane Austen");
+		collection.addBook("Persuasion", "jane austen");
+		ArrayList<ReadOnlyBook> austen = collection.getBooksWithAuthor("Jane Austen");
+		assertSame(austen.get(0).getAuthor(), austen.get(1).getAuthor());
+
+		// The symbol table hands back the first copy it was given of each distinct String
+		SymbolTable table = new SymbolTable();
+		String stored = table.intern(new String("JANE AUSTEN"));
+		assertSame(table.intern(new String("JANE AUSTEN")), stored);
+		table.intern("FRANK HERBERT");
+		assertEquals(table.size(), 2);
+	}
 }
@@ -13,17 +13,48 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.Scanner;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import model.AsyncLibraryCollectionController;
+import model.BatchResult;
 import model.Book;
+import model.BookPage;
+import model.BookQuery;
+import model.BookSnapshot;
+import model.ColumnarLibraryCollection;
+import model.ConcurrentLibraryCollection;
+import model.Durability;
+import model.ImportReport;
 import model.LibraryCollection;
 import model.LibraryCollectionController;
+import model.LibraryHttpServer;
+import model.LibraryModel;
 import model.MyLibrary;
+import model.ParallelImporter;
 import model.Read;
+import model.ReadOnlyBook;
+import model.StorageEngine;
 import model.TypeSort;
 
 public class testMyLibrary {
@@ -35,14 +66,14 @@ public class testMyLibrary {
 		controller.cAddBook("The Fellowship of the Ring", "J.R.R. Tolkein");
 		controller.cAddBook("The Two Towers", "J.R.R. Tolkein");
 		controller.cAddBook("The Sorcerer's Stone", "J.K. Rowling");
-		 ArrayList<Book> sortedByAuthor = controller.cGetSortedCollection(TypeSort.AUTHOR);
+		 ArrayList<ReadOnlyBook> sortedByAuthor = controller.cGetSortedCollection(TypeSort.AUTHOR);
 		 //assertEquals(sortedByAuthor.get(0).getTitle(), "THE SORCERER'S STONE");
 		 assertEquals(sortedByAuthor.get(0).getTitle(), "THE SORCERER'S STONE");
 		 assertEquals(sortedByAuthor.get(1).getTitle(), "THE FELLOWSHIP OF THE RING");
 		 assertEquals(sortedByAuthor.get(2).getTitle(), "THE TWO TOWERS");
 		 
 		 //sort by title
-		 ArrayList<Book> sortedByTitle = controller.cGetSortedCollection(TypeSort.TITLE);
+		 ArrayList<ReadOnlyBook> sortedByTitle = controller.cGetSortedCollection(TypeSort.TITLE);
 		 assertEquals(sortedByTitle.get(1).getTitle(), "THE SORCERER'S STONE");
 		 assertEquals(sortedByTitle.get(0).getTitle(), "THE FELLOWSHIP OF THE RING");
 		 assertEquals(sortedByTitle.get(2).getTitle(), "THE TWO TOWERS");
@@ -53,7 +84,7 @@ public class testMyLibrary {
 		controller.cAddBook("The Fellowship of the Ring", "J.R.R. Tolkein");
 		controller.cAddBook("The Two Towers", "J.R.R. Tolkein");
 		controller.cAddBook("The Sorcerer's Stone", "J.K. Rowling");
-		ArrayList<Book> lotr = controller.cGetBooksWithAuthor("J.R.R. Tolkein");
+		ArrayList<ReadOnlyBook> lotr = controller.cGetBooksWithAuthor("J.R.R. Tolkein");
 		assertEquals(lotr.size(), 2);
 		assertEquals(lotr.get(0).getTitle(), "THE FELLOWSHIP OF THE RING");
 		assertEquals(lotr.get(1).getTitle(), "THE TWO TOWERS");
@@ -66,12 +97,28 @@ public class testMyLibrary {
 		controller.cAddBook("The Two Towers", "J.R.R. Tolkein");
 		controller.cAddBook("The Sorcerer's Stone", "J.K. Rowling");
 		controller.cAddBook("It", "Other Author");
-		ArrayList<Book> it = controller.cGetBooksWithTitle("it");
+		ArrayList<ReadOnlyBook> it = controller.cGetBooksWithTitle("it");
 		assertEquals(it.size(), 2);
 		assertEquals(it.get(1).getAuthor(), "OTHER AUTHOR");
 		assertEquals(it.get(0).getAuthor(), "STEPHEN KING");
 	}
 	
+	@Test
+	public void testBooksWithPrefix() {
+		controller.cAddBook("The Two Towers", "J.R.R. Tolkein");
+		controller.cAddBook("The Fellowship of the Ring", "J.R.R. Tolkein");
+		controller.cAddBook("The Sorcerer's Stone", "J.K. Rowling");
+		controller.cAddBook("It", "Stephen King");
+		ArrayList<ReadOnlyBook> jAuthors = controller.cGetBooksWithAuthorPrefix("j.");
+		assertEquals(jAuthors.size(), 3);
+		assertEquals(jAuthors.get(0).getAuthor(), "J.K. ROWLING");
+		assertEquals(jAuthors.get(1).getTitle(), "THE TWO TOWERS");
+		ArrayList<ReadOnlyBook> theTitles = controller.cGetBooksWithTitlePrefix("The ");
+		assertEquals(theTitles.size(), 3);
+		assertEquals(theTitles.get(0).getTitle(), "THE FELLOWSHIP OF THE RING");
+		assertEquals(controller.cGetBooksWithTitlePrefix("Harry").size(), 0);
+	}
+	
 	@Test
 	public void testBooksWithRating() {
 		controller.cAddBook("It", "Stephen King");
@@ -83,17 +130,33 @@ public class testMyLibrary {
 		controller.cAddBook("The Sorcerer's Stone", "J.K. Rowling");
 		controller.cUpdateBookRating("The Sorcerer's Stone", "J.K. Rowling", 4);
 		
-		ArrayList<Book> booksAs4 = controller.cGetBooksWithRating(4);
+		ArrayList<ReadOnlyBook> booksAs4 = controller.cGetBooksWithRating(4);
 		assertEquals(booksAs4.get(1).getTitle(), "THE SORCERER'S STONE");
 		assertEquals(booksAs4.get(0).getTitle(), "THE TWO TOWERS");
 		
-		ArrayList<Book> booksAs3 = controller.cGetBooksWithRating(3);
+		ArrayList<ReadOnlyBook> booksAs3 = controller.cGetBooksWithRating(3);
 		assertEquals(booksAs3.get(0).getTitle(), "IT");
 		
-		ArrayList<Book> booksAs5 = controller.cGetBooksWithRating(5);
+		ArrayList<ReadOnlyBook> booksAs5 = controller.cGetBooksWithRating(5);
 		assertEquals(booksAs5.get(0).getTitle(), "THE FELLOWSHIP OF THE RING");
 	}
 	
+	@Test
+	public void testReturnedBooksAreSnapshots() {
+		controller.cAddBook("It", "Stephen King");
+		ReadOnlyBook before = controller.cGetBooksWithTitle("It").get(0);
+		assertTrue(before instanceof BookSnapshot);
+		assertFalse(before instanceof Book);
+		controller.cSetToRead("It", "Stephen King");
+		controller.cUpdateBookRating("It", "Stephen King", 5);
+		assertEquals(before.getReadStatus(), Read.UNREAD);
+		ReadOnlyBook after = controller.cGetBooksWithAuthor("Stephen King").get(0);
+		assertEquals(after.getReadStatus(), Read.READ);
+		assertEquals(after.getRating(), 5);
+		assertEquals(controller.cGetBooksWithRating(5).size(), 1);
+		assertEquals(controller.cAllReadBooks().get(0).getRating(), 5);
+	}
+	
 	@Test
 	public void testInCollection() {
 		controller.cAddBook("It", "Stephen King");
@@ -121,16 +184,52 @@ public class testMyLibrary {
 		assertTrue(controller.cAllReadBooks().size() == 2);
 	}
 	
+	@Test
+	public void testCounts() {
+		controller.cAddBook("It", "Stephen King");
+		controller.cAddBook("The Two Towers", "J.R.R. Tolkein");
+		controller.cAddBook("The Hunger Games", "Suzanne Collins");
+		assertEquals(controller.cCountUnreadBooks(), 3);
+		assertEquals(controller.cCountBooksWithRating(-1), 3);
+		controller.cSetToRead("It", "Stephen King");
+		controller.cSetToRead("It", "Stephen King");
+		controller.cUpdateBookRating("It", "Stephen King", 4);
+		assertEquals(controller.cCountReadBooks(), 1);
+		assertEquals(controller.cCountUnreadBooks(), 2);
+		assertEquals(controller.cCountBooksWithRating(4), 1);
+		assertEquals(controller.cCountBooksWithRating(-1), 2);
+		for (int i = 0; i < 20; i++) {
+			assertFalse(controller.cGetRandomBook().getTitle().equals("IT"));
+		}
+	}
+	
 	@Test
 	public void testRandomBook() {
 		assertNull(controller.cGetRandomBook());
 		controller.cAddBook("It", "Stephen King");
 		assertEquals(controller.cGetRandomBook().getTitle(), "IT");
 		controller.cAddBook("The Hunger Games", "Suzanne Collins");
-		Book random = controller.cGetRandomBook();
+		ReadOnlyBook random = controller.cGetRandomBook();
 		assertTrue(controller.cAlreadyInCollection(random.getTitle(), random.getAuthor()));
 	}
 	
+	@Test
+	public void testSuggest() {
+		assertEquals(controller.cSuggest(3).size(), 0);
+		controller.cAddBook("It", "Stephen King");
+		controller.cAddBook("The Two Towers", "J.R.R. Tolkein");
+		controller.cAddBook("The Hunger Games", "Suzanne Collins");
+		controller.cSetToRead("The Two Towers", "J.R.R. Tolkein");
+		ArrayList<ReadOnlyBook> two = controller.cSuggest(2);
+		assertEquals(two.size(), 2);
+		assertFalse(two.get(0).equals(two.get(1)));
+		ArrayList<ReadOnlyBook> all = controller.cSuggest(5);
+		assertEquals(all.size(), 2);
+		for (ReadOnlyBook book : all) {
+			assertEquals(book.getReadStatus(), Read.UNREAD);
+		}
+	}
+	
 	@Test
 	public void testFromFile() {
 		assertTrue(controller.cIsEmpty());
@@ -138,4 +237,587 @@ public class testMyLibrary {
 		assertFalse(controller.cIsEmpty());
 		assertFalse(controller.cIsEmpty());
 	}
+	
+	@Test
+	public void testFromFileReport() {
+		ImportReport first = controller.cAddBooksFromFile("books.txt");
+		assertEquals(first.getAdded(), 87);
+		assertEquals(first.getDuplicates(), 0);
+		ImportReport second = controller.cAddBooksFromFile("books.txt");
+		assertEquals(second.getAdded(), 0);
+		assertEquals(second.getDuplicates(), 87);
+		assertNull(controller.cAddBooksFromFile("not a file.txt"));
+	}
+
+	@Test
+	public void testConcurrentCollection() throws InterruptedException {
+		LibraryCollectionController shared = new LibraryCollectionController(new ConcurrentLibraryCollection());
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 8; i++) {
+			pool.submit(() -> {
+				for (int j = 0; j < 200; j++) {
+					shared.cAddBook("Book " + j, "Author " + (j % 10));
+					shared.cAlreadyInCollection("Book " + j, "Author " + (j % 10));
+					shared.cGetSortedCollection(TypeSort.TITLE);
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(shared.cGetSortedCollection(TypeSort.TITLE).size(), 200);
+		assertEquals(shared.cCountUnreadBooks(), 200);
+		assertTrue(shared.cAlreadyInCollection("book 7", "author 7"));
+		assertEquals(shared.cGetBooksWithAuthor("Author 3").size(), 20);
+
+		// Other threads may keep reading while a file is being imported, since it is parsed without the lock
+		CountDownLatch read = new CountDownLatch(1);
+		boolean[] readDuringImport = new boolean[1];
+		ImportReport report = shared.cAddBooksFromFile("books.txt", (bytesRead, totalBytes) -> {
+			new Thread(() -> {
+				shared.cCountUnreadBooks();
+				read.countDown();
+			}).start();
+			try {
+				readDuringImport[0] = read.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				readDuringImport[0] = false;
+			}
+			return true;
+		});
+		assertTrue(readDuringImport[0]);
+		assertEquals(report.getAdded(), 87);
+		assertEquals(shared.cGetSortedCollection(TypeSort.TITLE).size(), 287);
+
+		// Readers never see only part of a batch, even while batches are being added
+		Thread batches = new Thread(() -> {
+			for (int i = 0; i < 200; i++) {
+				shared.cAddBooks(Arrays.asList(new BookSnapshot("Pair " + i, "First"), new BookSnapshot("Pair " + i, "Second")));
+			}
+		});
+		batches.start();
+		boolean wholeBatches = true;
+		while (batches.isAlive()) {
+			wholeBatches = wholeBatches && (shared.cCountUnreadBooks() - 287) % 2 == 0;
+		}
+		batches.join();
+		assertTrue(wholeBatches);
+		assertEquals(shared.cCountUnreadBooks(), 687);
+		assertEquals(shared.cGetBooksWithAuthor("Second").size(), 200);
+	}
+
+	@Test
+	public void testSnapshot() throws IOException {
+		controller.cAddBooksFromFile("books.txt");
+		controller.cAddBook("\u00dcber Caf\u00e9", "Zo\u00eb");
+		controller.cSetToRead("Nerve: Adventures in the Science of Fear", "Eva Holland");
+		controller.cUpdateBookRating("Nerve: Adventures in the Science of Fear", "Eva Holland", 4);
+		controller.cUpdateBookRating("Dracula", "Bram Stoker", 2);
+		File file = File.createTempFile("library", ".snapshot");
+		file.deleteOnExit();
+		assertTrue(controller.cSaveSnapshot(file.getPath()));
+
+		LibraryCollectionController restored = new LibraryCollectionController();
+		ImportReport report = restored.cLoadSnapshot(file.getPath());
+		assertEquals(report.getAdded(), 88);
+		assertEquals(restored.cGetSortedCollection(TypeSort.TITLE).toString(),
+				controller.cGetSortedCollection(TypeSort.TITLE).toString());
+		assertEquals(restored.cGetBooksWithRating(4).get(0).getReadStatus(), Read.READ);
+		assertEquals(restored.cGetBooksWithRating(2).get(0).getTitle(), "DRACULA");
+		assertTrue(restored.cAlreadyInCollection("\u00fcber caf\u00e9", "zo\u00eb"));
+		assertEquals(restored.cLoadSnapshot(file.getPath()).getDuplicates(), 88);
+		assertNull(restored.cLoadSnapshot("books.txt"));
+	}
+
+	@Test
+	public void testWriteAheadLog() throws IOException {
+		File snapshot = File.createTempFile("library", ".snapshot");
+		File log = File.createTempFile("library", ".log");
+		snapshot.delete();
+		snapshot.deleteOnExit();
+		log.deleteOnExit();
+
+		assertTrue(controller.cOpenLog(snapshot.getPath(), log.getPath(), Durability.SYNC));
+		controller.cAddBook("Dune", "Frank Herbert");
+		controller.cAddBook("Emma", "Jane Austen");
+		controller.cSetToRead("Dune", "Frank Herbert");
+		controller.cUpdateBookRating("Emma", "Jane Austen", 5);
+		assertFalse(controller.cOpenLog(snapshot.getPath(), log.getPath(), Durability.SYNC));
+
+		// Replays the log without closing it first, as if the program had stopped
+		LibraryCollectionController restored = new LibraryCollectionController();
+		assertTrue(restored.cOpenLog(snapshot.getPath(), log.getPath(), Durability.NONE));
+		assertEquals(restored.cAllReadBooks().get(0).getTitle(), "DUNE");
+		assertEquals(restored.cGetBooksWithRating(5).get(0).getTitle(), "EMMA");
+		assertTrue(restored.cCloseLog());
+
+		// Compacts the log into the snapshot, then adds one more change to the log
+		assertTrue(controller.cCompact());
+		assertEquals(log.length(), 0);
+		controller.cAddBook("Beloved", "Toni Morrison");
+		assertTrue(controller.cCloseLog());
+
+		// Appends a partly written record, which should be ignored during replay
+		try (FileOutputStream out = new FileOutputStream(log, true)) {
+			out.write(new byte[] {0, 0, 0, 40, 1, 2});
+		}
+		LibraryCollectionController recovered = new LibraryCollectionController(new ConcurrentLibraryCollection());
+		assertTrue(recovered.cOpenLog(snapshot.getPath(), log.getPath(), Durability.BATCHED));
+		assertEquals(recovered.cGetSortedCollection(TypeSort.TITLE).size(), 3);
+		assertTrue(recovered.cAlreadyInCollection("beloved", "toni morrison"));
+		assertEquals(recovered.cCountReadBooks(), 1);
+		assertTrue(recovered.cCloseLog());
+	}
+
+	@Test
+	public void testFailedLogWritesAreNotMade() {
+		// Every write to /dev/full fails, as it would on a full disk
+		if (!new File("/dev/full").exists()) {
+			return;
+		}
+		LibraryModel[] models = {new LibraryCollection(), new ColumnarLibraryCollection(), new ConcurrentLibraryCollection()};
+		for (LibraryModel model : models) {
+			LibraryCollectionController failing = new LibraryCollectionController(model);
+			failing.cAddBook("Emma", "Jane Austen");
+			assertTrue(failing.cOpenLog("no-such-library.snapshot", "/dev/full", Durability.SYNC));
+			assertFalse(failing.cAddBook("Dune", "Frank Herbert"));
+			assertFalse(failing.cAlreadyInCollection("Dune", "Frank Herbert"));
+			assertFalse(failing.cSetToRead("Emma", "Jane Austen"));
+			assertFalse(failing.cUpdateBookRating("Emma", "Jane Austen", 5));
+			assertEquals(failing.cAddBooks(Arrays.asList(new BookSnapshot("Dune", "Frank Herbert"))).get(0), BatchResult.FAILED);
+			assertEquals(failing.cSetToRead(Arrays.asList(Book.makeKey("Emma", "Jane Austen"))).get(0), BatchResult.FAILED);
+			assertEquals(failing.cGetSortedCollection(TypeSort.TITLE).size(), 1);
+			assertEquals(failing.cCountReadBooks(), 0);
+			assertEquals(failing.cGetBooksWithRating(5).size(), 0);
+			failing.cCloseLog();
+		}
+	}
+
+	@Test
+	public void testParallelImport() throws IOException {
+		File first = File.createTempFile("books", ".txt");
+		File second = File.createTempFile("books", ".txt");
+		first.deleteOnExit();
+		second.deleteOnExit();
+		try (PrintWriter out = new PrintWriter(first, "UTF-8")) {
+			out.println("Title;Author");
+			for (int i = 0; i < 500; i++) {
+				out.println("Book " + i + ";Author " + (i % 7));
+			}
+			out.println("no separator here");
+		}
+		try (PrintWriter out = new PrintWriter(second, "UTF-8")) {
+			out.println("Title;Author");
+			out.println("Book 3;Author 3");
+			out.print("Last Book;Last Author");
+		}
+		ArrayList<String> files = new ArrayList<String>();
+		files.add(first.getPath());
+		files.add(second.getPath());
+
+		ImportReport report = controller.cAddBooksFromFiles(files);
+		assertEquals(report.getAdded(), 501);
+		assertEquals(report.getDuplicates(), 1);
+		assertEquals(report.getMalformed(), 1);
+		assertTrue(controller.cAlreadyInCollection("last book", "last author"));
+
+		// Small chunks split the file in the middle of lines, which should give the same books
+		ImportReport chunked = new ImportReport();
+		ArrayList<BookSnapshot> books = new ParallelImporter(4, 37).parse(files, chunked);
+		assertEquals(books.size(), 502);
+		assertEquals(chunked.getMalformed(), 1);
+		for (int i = 0; i < 500; i++) {
+			assertEquals(books.get(i).getTitle(), "BOOK " + i);
+		}
+		assertEquals(books.get(501).getAuthor(), "LAST AUTHOR");
+
+		files.add("not a file.txt");
+		assertNull(controller.cAddBooksFromFiles(files));
+	}
+
+	@Test
+	public void testFromFileMalformed() throws IOException {
+		File file = File.createTempFile("books", ".txt");
+		file.deleteOnExit();
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write("Title;Author\r\nCaf\u00e9 Stories;Zo\u00eb\r\n\r\nno separator\nA;B;C\n;Nobody".getBytes("UTF-8"));
+		}
+		ImportReport report = controller.cAddBooksFromFile(file.getPath());
+		assertEquals(report.getAdded(), 3);
+		assertEquals(report.getMalformed(), 1);
+		assertTrue(controller.cAlreadyInCollection("caf\u00e9 stories", "zo\u00eb"));
+		assertEquals(controller.cGetBooksWithTitle("A").get(0).getAuthor(), "B;C");
+		assertEquals(controller.cGetBooksWithAuthor("Nobody").get(0).getTitle(), "");
+	}
+
+	@Test
+	public void testColumnarEngine() throws IOException {
+		LibraryCollectionController columnar = new LibraryCollectionController(StorageEngine.COLUMNAR);
+		for (LibraryCollectionController cur : new LibraryCollectionController[] {controller, columnar}) {
+			cur.cAddBooksFromFile("books.txt");
+			cur.cAddBook("Dracula", "Someone Else");
+			cur.cUpdateBookRating("Dracula", "Bram Stoker", 3);
+			cur.cUpdateBookRating("Dracula", "Someone Else", 3);
+			cur.cUpdateBookRating("Dracula", "Bram Stoker", 4);
+			cur.cSetToRead("Dracula", "Someone Else");
+		}
+		assertEquals(columnar.cGetSortedCollection(TypeSort.TITLE).toString(), controller.cGetSortedCollection(TypeSort.TITLE).toString());
+		assertEquals(columnar.cGetSortedCollection(TypeSort.AUTHOR).toString(), controller.cGetSortedCollection(TypeSort.AUTHOR).toString());
+		assertEquals(columnar.cGetBooksWithTitle("dracula").toString(), controller.cGetBooksWithTitle("dracula").toString());
+		assertEquals(columnar.cGetBooksWithAuthorPrefix("J").toString(), controller.cGetBooksWithAuthorPrefix("J").toString());
+		assertEquals(columnar.cGetBooksWithTitlePrefix("The").toString(), controller.cGetBooksWithTitlePrefix("The").toString());
+		assertEquals(columnar.cGetBooksWithRating(3).toString(), controller.cGetBooksWithRating(3).toString());
+		assertEquals(columnar.cGetBooksWithRating(4).toString(), controller.cGetBooksWithRating(4).toString());
+		assertEquals(columnar.cAllReadBooks().toString(), controller.cAllReadBooks().toString());
+		assertEquals(columnar.cAllUnreadBooks().toString(), controller.cAllUnreadBooks().toString());
+		assertEquals(columnar.cCountUnreadBooks(), 87);
+		assertEquals(columnar.cCountBooksWithRating(-1), 86);
+		assertTrue(columnar.cAlreadyInCollection("dracula", "bram stoker"));
+		assertFalse(columnar.cAlreadyInCollection("dracula", "nobody"));
+		assertEquals(columnar.cSuggest(100).size(), 87);
+		assertEquals(columnar.cGetRandomBook().getReadStatus(), Read.UNREAD);
+
+		// Snapshots written by one engine can be loaded by the other
+		File file = File.createTempFile("library", ".snapshot");
+		file.deleteOnExit();
+		assertTrue(columnar.cSaveSnapshot(file.getPath()));
+		LibraryCollectionController restored = new LibraryCollectionController(StorageEngine.OBJECTS);
+		assertEquals(restored.cLoadSnapshot(file.getPath()).getAdded(), 88);
+		assertEquals(restored.cGetSortedCollection(TypeSort.TITLE).toString(), controller.cGetSortedCollection(TypeSort.TITLE).toString());
+	}
+
+	@Test
+	public void testOffHeapEngine() {
+		LibraryCollectionController offHeap = new LibraryCollectionController(StorageEngine.OFF_HEAP);
+		for (LibraryCollectionController cur : new LibraryCollectionController[] {controller, offHeap}) {
+			cur.cAddBooksFromFile("books.txt");
+			cur.cAddBook("Les Mis\u00e9rables", "Victor Hugo");
+			cur.cUpdateBookRating("Dracula", "Bram Stoker", 4);
+			cur.cSetToRead("Les Mis\u00e9rables", "Victor Hugo");
+		}
+		assertEquals(offHeap.cGetSortedCollection(TypeSort.TITLE).toString(), controller.cGetSortedCollection(TypeSort.TITLE).toString());
+		assertEquals(offHeap.cGetSortedCollection(TypeSort.AUTHOR).toString(), controller.cGetSortedCollection(TypeSort.AUTHOR).toString());
+		assertEquals(offHeap.cGetBooksWithTitlePrefix("les mis").toString(), controller.cGetBooksWithTitlePrefix("les mis").toString());
+		assertEquals(offHeap.cAllReadBooks().get(0).getTitle(), "LES MIS\u00c9RABLES");
+		assertEquals(offHeap.cGetBooksWithRating(4).get(0).getAuthor(), "BRAM STOKER");
+		assertTrue(offHeap.cAlreadyInCollection("les mis\u00e9rables", "victor hugo"));
+		assertFalse(offHeap.cAlreadyInCollection("les miserables", "victor hugo"));
+	}
+
+	@Test
+	public void testSearch() {
+		LibraryCollectionController columnar = new LibraryCollectionController(StorageEngine.COLUMNAR);
+		for (LibraryCollectionController cur : new LibraryCollectionController[] {controller, columnar}) {
+			cur.cAddBooksFromFile("books.txt");
+			cur.cAddBook("Les Mis\u00e9rables", "Victor Hugo");
+			assertEquals(cur.cSearch("fellowship", true).get(0).getTitle(), "THE FELLOWSHIP OF THE RING");
+			assertEquals(cur.cSearch("TOLKIEN ring", true).size(), 1);
+			assertEquals(cur.cSearch("tolkien ring", false).get(0).getTitle(), "THE FELLOWSHIP OF THE RING");
+			assertEquals(cur.cSearch("miserables", true).get(0).getAuthor(), "VICTOR HUGO");
+			assertEquals(cur.cSearch("fellowship nobody", true).size(), 0);
+			assertEquals(cur.cSearch("  ,; ", false).size(), 0);
+
+			// A match in the title ranks above a match in the author
+			cur.cAddBook("Holland", "Someone Else");
+			ArrayList<ReadOnlyBook> holland = cur.cSearch("holland", false);
+			assertEquals(holland.size(), 3);
+			assertEquals(holland.get(0).getTitle(), "HOLLAND");
+			assertEquals(holland.get(1).getAuthor(), "EVA HOLLAND");
+		}
+		assertEquals(columnar.cSearch("tolkien", false).toString(), controller.cSearch("tolkien", false).toString());
+		assertEquals(columnar.cSearch("the of", false).toString(), controller.cSearch("the of", false).toString());
+	}
+
+	@Test
+	public void testFuzzySearch() {
+		LibraryCollectionController offHeap = new LibraryCollectionController(StorageEngine.OFF_HEAP);
+		for (LibraryCollectionController cur : new LibraryCollectionController[] {controller, offHeap}) {
+			cur.cAddBooksFromFile("books.txt");
+			cur.cAddBook("The Fellowship of the Ring", "J.R.R. Tolkein");
+			assertEquals(cur.cSearch("tolkein", true).size(), 1);
+
+			// The exact spelling ranks first, followed by the books with the swapped letters
+			ArrayList<ReadOnlyBook> found = cur.cFuzzySearch("tolkein", true);
+			assertEquals(found.size(), 6);
+			assertEquals(found.get(0).getAuthor(), "J.R.R. TOLKEIN");
+			assertEquals(found.get(1).getAuthor(), "J.R.R. TOLKIEN");
+			assertEquals(cur.cFuzzySearch("felowship tolkien", true).get(0).getTitle(), "THE FELLOWSHIP OF THE RING");
+			assertEquals(cur.cFuzzySearch("silmarilion", false).get(0).getTitle(), "THE SILMARILLION");
+			assertEquals(cur.cFuzzySearch("tolkein zzzzzzzz", true).size(), 0);
+
+			// Short words must match exactly
+			assertEquals(cur.cFuzzySearch("teh", false).size(), 0);
+		}
+	}
+
+	@Test
+	public void testQuery() {
+		LibraryCollectionController columnar = new LibraryCollectionController(StorageEngine.COLUMNAR);
+		for (LibraryCollectionController cur : new LibraryCollectionController[] {controller, columnar}) {
+			cur.cAddBooksFromFile("books.txt");
+			cur.cUpdateBookRating("The Two Towers", "J.R.R. Tolkien", 5);
+			cur.cUpdateBookRating("The Silmarillion", "J.R.R. Tolkien", 4);
+			cur.cUpdateBookRating("The Fellowship of the Ring", "J.R.R. Tolkien", 3);
+			cur.cUpdateBookRating("Dracula", "Bram Stoker", 5);
+			cur.cSetToRead("The Two Towers", "J.R.R. Tolkien");
+
+			// Unread books by an author rated at least 4
+			ArrayList<ReadOnlyBook> books = cur.cQuery(new BookQuery().withAuthor("j.r.r. tolkien").withMinRating(4).withReadStatus(Read.UNREAD));
+			assertEquals(books.size(), 1);
+			assertEquals(books.get(0).getTitle(), "THE SILMARILLION");
+
+			// The two best books by title, out of every book rated at least 3
+			books = cur.cQuery(new BookQuery().withMinRating(3).sortedBy(TypeSort.TITLE).withLimit(2));
+			assertEquals(books.size(), 2);
+			assertEquals(books.get(0).getTitle(), "DRACULA");
+			assertEquals(books.get(1).getTitle(), "THE FELLOWSHIP OF THE RING");
+
+			// Rated exactly 5, sorted by author
+			books = cur.cQuery(new BookQuery().withMinRating(5).withMaxRating(5).sortedBy(TypeSort.AUTHOR));
+			assertEquals(books.size(), 2);
+			assertEquals(books.get(0).getAuthor(), "BRAM STOKER");
+			assertEquals(books.get(1).getTitle(), "THE TWO TOWERS");
+			assertEquals(cur.cQuery(new BookQuery().withKeywords("ring tolkien").withReadStatus(Read.UNREAD)).size(), 1);
+			assertEquals(cur.cQuery(new BookQuery().withTitlePrefix("the t").withLimit(1)).size(), 1);
+			assertEquals(cur.cQuery(new BookQuery().withTitle("Nothing")).size(), 0);
+			assertEquals(cur.cQuery(new BookQuery().withLimit(0)).size(), 0);
+			assertEquals(cur.cQuery(new BookQuery().withReadStatus(Read.UNREAD)).size(), 86);
+
+			// A sorted query with a limit gives the same books as the first part of the unlimited
+			// query, even when the limit falls between books that share the sort key
+			ArrayList<ReadOnlyBook> everyAuthor = cur.cQuery(new BookQuery().sortedBy(TypeSort.AUTHOR));
+			for (int limit : new int[] {1, 5, 20, 40}) {
+				assertEquals(cur.cQuery(new BookQuery().sortedBy(TypeSort.AUTHOR).withLimit(limit)).toString(),
+						everyAuthor.subList(0, limit).toString());
+			}
+			cur.cAddBook("Dracula", "Zed Writer");
+			cur.cAddBook("Dracula", "Abe Writer");
+			books = cur.cQuery(new BookQuery().withTitlePrefix("drac").sortedBy(TypeSort.TITLE).withLimit(2));
+			assertEquals(books.size(), 2);
+			assertEquals(books.get(0).getAuthor(), "ABE WRITER");
+			assertEquals(books.get(1).getAuthor(), "BRAM STOKER");
+		}
+		BookQuery sorted = new BookQuery().withAuthorPrefix("J").sortedBy(TypeSort.AUTHOR);
+		assertEquals(columnar.cQuery(sorted).toString(), controller.cQuery(sorted).toString());
+	}
+
+	@Test
+	public void testPagination() {
+		LibraryCollectionController columnar = new LibraryCollectionController(StorageEngine.COLUMNAR);
+		for (LibraryCollectionController cur : new LibraryCollectionController[] {controller, columnar}) {
+			cur.cAddBooksFromFile("books.txt");
+			for (TypeSort howSort : TypeSort.values()) {
+				ArrayList<ReadOnlyBook> all = cur.cGetSortedCollection(howSort);
+
+				// Following the tokens from page to page gives back the whole sorted collection
+				ArrayList<ReadOnlyBook> paged = new ArrayList<ReadOnlyBook>();
+				BookPage page = cur.cGetPage(howSort, null, 7);
+				paged.addAll(page.getBooks());
+				while (page.getNextToken() != null) {
+					page = cur.cGetPage(howSort, page.getNextToken(), 7);
+					assertTrue(page.getBooks().size() > 0);
+					paged.addAll(page.getBooks());
+				}
+				assertEquals(paged.toString(), all.toString());
+
+				// As do the offset pages, the iterator, and the stream
+				assertEquals(cur.cGetSortedCollection(howSort, 10, 5).toString(), all.subList(10, 15).toString());
+				assertEquals(cur.cGetSortedCollection(howSort, all.size() - 2, 5).size(), 2);
+				assertEquals(cur.cGetSortedCollection(howSort, all.size() + 1, 5).size(), 0);
+				Iterator<ReadOnlyBook> books = cur.cIterateSorted(howSort);
+				assertEquals(books.next().toString(), all.get(0).toString());
+				assertEquals(cur.cStreamSorted(howSort).count(), (long) all.size());
+			}
+
+			// A token still continues from the same book after more books have been added
+			BookPage first = cur.cGetPage(TypeSort.TITLE, null, 3);
+			cur.cAddBook("AAA", "Nobody");
+			cur.cAddBook(first.getBooks().get(2).getTitle(), "Somebody Else");
+			BookPage second = cur.cGetPage(TypeSort.TITLE, first.getNextToken(), 1);
+			assertEquals(second.getBooks().get(0).getAuthor(), "SOMEBODY ELSE");
+			assertNull(cur.cGetPage(TypeSort.TITLE, "not a token", 1));
+		}
+	}
+
+	@Test
+	public void testAsyncController() throws Exception {
+		// A file of several sections, so that its progress is reported more than once. The titles
+		// are long, so that only a few thousand books are needed to fill more than one section
+		File big = File.createTempFile("books", ".txt");
+		big.deleteOnExit();
+		String padding = "x".repeat(1500);
+		try (PrintWriter out = new PrintWriter(big, "UTF-8")) {
+			out.println("Title;Author");
+			for (int i = 0; i < 3000; i++) {
+				out.println("Book Number " + i + " " + padding + ";Author Number " + (i % 100));
+			}
+			out.println("no separator here");
+		}
+		AsyncLibraryCollectionController async = new AsyncLibraryCollectionController(controller);
+		ArrayList<Long> progress = new ArrayList<Long>();
+		ImportReport report = async.cAddBooksFromFile(big.getPath(), (bytesRead, totalBytes) -> {
+			progress.add(bytesRead);
+			return true;
+		}).get();
+		assertEquals(report.getAdded(), 3000);
+		assertEquals(report.getMalformed(), 1);
+		assertFalse(report.wasCancelled());
+		assertTrue(progress.size() > 1);
+		assertEquals((long) progress.get(progress.size() - 1), big.length());
+		assertEquals(async.cGetBooksWithAuthor("author number 7").get().size(), 30);
+
+		// An import cancelled by its listener keeps only the books read so far
+		LibraryCollectionController other = new LibraryCollectionController(StorageEngine.COLUMNAR);
+		ImportReport partial = other.cAddBooksFromFile(big.getPath(), (bytesRead, totalBytes) -> false);
+		assertTrue(partial.wasCancelled());
+		assertTrue(partial.getAdded() > 0 && partial.getAdded() < 3000);
+		assertEquals(other.cGetSortedCollection(TypeSort.TITLE).size(), partial.getAdded());
+
+		// A task cancelled while it is still queued is never run, while the tasks are run in order
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		async.submit(c -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		});
+		started.await();
+		CompletableFuture<Void> skipped = async.submit(c -> {
+			c.cAddBook("Never Added", "Nobody");
+			return null;
+		});
+		CompletableFuture<ArrayList<ReadOnlyBook>> page = async.cGetPage(TypeSort.TITLE, null, 5).thenApply(BookPage::getBooks);
+		skipped.cancel(false);
+		release.countDown();
+		assertEquals(page.get().size(), 5);
+		assertFalse(async.cAlreadyInCollection("Never Added", "Nobody").get());
+
+		// A task that fails with an Error still completes its future, and the worker keeps going
+		CompletableFuture<Void> failed = async.submit(c -> {
+			throw new StackOverflowError();
+		});
+		assertTrue(failed.handle((value, error) -> error).get() instanceof StackOverflowError);
+		assertTrue(async.cAlreadyInCollection("book number 7 " + padding, "author number 7").get());
+		async.shutdown();
+	}
+
+	@Test
+	public void testHttpServer() throws IOException {
+		LibraryCollectionController shared = new LibraryCollectionController(new ConcurrentLibraryCollection());
+		LibraryHttpServer server = new LibraryHttpServer(shared, 0, 2);
+		server.start();
+		String base = "http://127.0.0.1:" + server.getPort();
+		try {
+			assertEquals(httpRequest("POST", base + "/books?title=Dune&author=Frank%20Herbert"), "200 {\"added\":true}");
+			assertEquals(httpRequest("POST", base + "/books?title=dune&author=frank+herbert"), "200 {\"added\":false}");
+			assertEquals(httpRequest("POST", base + "/books/rating?title=dune&author=frank+herbert&rating=5"),
+					"200 {\"rating\":5}");
+			assertEquals(httpRequest("GET", base + "/books/title?title=DUNE"),
+					"200 [{\"title\":\"DUNE\",\"author\":\"FRANK HERBERT\",\"rating\":5,\"read\":false}]");
+			assertEquals(httpRequest("GET", base + "/books/contains?title=dune&author=nobody"), "200 {\"contains\":false}");
+
+			// Bad inputs, missing books, unknown endpoints, and the wrong method are all reported
+			assertTrue(httpRequest("POST", base + "/books/rating?title=dune&author=frank+herbert&rating=9").startsWith("400"));
+			assertTrue(httpRequest("POST", base + "/books?title=Dune%0AFrank&author=Herbert").startsWith("400"));
+			assertTrue(httpRequest("POST", base + "/books/batch?title=Emma&author=Jane%0DAusten").startsWith("400"));
+			assertTrue(httpRequest("POST", base + "/books/read?title=missing&author=nobody").startsWith("404"));
+			assertTrue(httpRequest("GET", base + "/nothing").startsWith("404"));
+			assertTrue(httpRequest("GET", base + "/books/read?title=dune&author=frank+herbert").startsWith("200"));
+			assertTrue(httpRequest("PUT", base + "/books").startsWith("405"));
+			assertTrue(httpRequest("GET", base + "/log/compact").startsWith("405"));
+
+			// Endpoints that reach the file system are turned off, and pages from other sites are refused
+			assertTrue(httpRequest("POST", base + "/snapshot/save?file=library.snapshot").startsWith("403"));
+			assertFalse(new File("library.snapshot").exists());
+			try (Socket foreign = new Socket("127.0.0.1", server.getPort())) {
+				foreign.getOutputStream().write(("GET /books/empty HTTP/1.1\r\nHost: localhost\r\n"
+						+ "Origin: http://example.com\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+				assertTrue(new String(foreign.getInputStream().readAllBytes(), StandardCharsets.US_ASCII)
+						.startsWith("HTTP/1.1 403"));
+			}
+
+			assertEquals(httpRequest("POST", base + "/books/batch?title=Emma&author=Jane+Austen&title=dune&author=frank+herbert"),
+					"200 {\"results\":[\"APPLIED\",\"DUPLICATE\"]}");
+			assertEquals(httpRequest("POST", base + "/books/batch/rating?title=dune&author=frank+herbert&rating=2"
+					+ "&title=nope&author=nobody&rating=3&title=dune&author=nobody&rating=x"),
+					"200 {\"results\":[\"APPLIED\",\"NOT_FOUND\",\"INVALID\"]}");
+
+			// A listing far larger than the response buffer is streamed in full
+			for (int i = 0; i < 5000; i++) {
+				shared.cAddBook("Streamed Book " + i, "Author " + i);
+			}
+			String all = httpRequest("GET", base + "/books?sort=author");
+			assertEquals(all.split("\\},\\{").length, 5002);
+			assertTrue(all.startsWith("200 [{\"title\":\"STREAMED BOOK 0\""));
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	// Sends a single request to the server, returning its status followed by its body
+	private String httpRequest(String method, String address) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(address).openConnection();
+		connection.setRequestMethod(method);
+		int status = connection.getResponseCode();
+		try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+			return status + " " + new String(body.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	public void testBatchUpdates() throws IOException {
+		for (StorageEngine engine : StorageEngine.values()) {
+			File snapshot = File.createTempFile("library", ".snapshot");
+			File log = File.createTempFile("library", ".log");
+			snapshot.delete();
+			snapshot.deleteOnExit();
+			log.deleteOnExit();
+			LibraryCollectionController batch = new LibraryCollectionController(engine);
+			assertTrue(batch.cOpenLog(snapshot.getPath(), log.getPath(), Durability.SYNC));
+
+			// Books already in the collection, or given twice, are reported as duplicates
+			batch.cAddBook("Dune", "Frank Herbert");
+			ArrayList<ReadOnlyBook> books = new ArrayList<ReadOnlyBook>();
+			books.add(new BookSnapshot("Emma", "Jane Austen", 4, Read.READ));
+			books.add(new BookSnapshot("dune", "frank herbert"));
+			books.add(new BookSnapshot("Beloved", "Toni Morrison"));
+			books.add(new BookSnapshot("EMMA", "JANE AUSTEN"));
+			books.add(null);
+			assertEquals(batch.cAddBooks(books), new ArrayList<BatchResult>(Arrays.asList(BatchResult.APPLIED,
+					BatchResult.DUPLICATE, BatchResult.APPLIED, BatchResult.DUPLICATE, BatchResult.INVALID)));
+			assertEquals(batch.cCountBooksWithRating(4), 1);
+			assertEquals(batch.cCountReadBooks(), 1);
+
+			// Each key gets its own result, in order, and keys are not case-sensitive
+			assertEquals(batch.cSetToRead(Arrays.asList(Book.makeKey("Dune", "Frank Herbert"), "dune\nfrank herbert",
+					Book.makeKey("Emma", "Jane Austen"), Book.makeKey("Missing", "Nobody"), "not a key")),
+					new ArrayList<BatchResult>(Arrays.asList(BatchResult.APPLIED, BatchResult.UNCHANGED,
+							BatchResult.UNCHANGED, BatchResult.NOT_FOUND, BatchResult.INVALID)));
+			assertEquals(batch.cCountReadBooks(), 2);
+			LinkedHashMap<String, Integer> ratings = new LinkedHashMap<String, Integer>();
+			ratings.put(Book.makeKey("Beloved", "Toni Morrison"), 5);
+			ratings.put(Book.makeKey("Emma", "Jane Austen"), 4);
+			ratings.put(Book.makeKey("Dune", "Frank Herbert"), 9);
+			ratings.put(Book.makeKey("Missing", "Nobody"), 3);
+			assertEquals(batch.cUpdateRatings(ratings), new ArrayList<BatchResult>(Arrays.asList(BatchResult.APPLIED,
+					BatchResult.UNCHANGED, BatchResult.INVALID, BatchResult.NOT_FOUND)));
+			assertEquals(batch.cGetBooksWithRating(5).get(0).getTitle(), "BELOVED");
+
+			// Every change of a batch is recorded in the log
+			LibraryCollectionController restored = new LibraryCollectionController(engine);
+			assertTrue(restored.cOpenLog(snapshot.getPath(), log.getPath(), Durability.NONE));
+			assertEquals(restored.cGetSortedCollection(TypeSort.TITLE).toString(),
+					batch.cGetSortedCollection(TypeSort.TITLE).toString());
+			assertTrue(restored.cCloseLog());
+			assertTrue(batch.cCloseLog());
+		}
+
+		// A shared collection knows about the books added by a batch without taking its lock
+		LibraryCollectionController shared = new LibraryCollectionController(new ConcurrentLibraryCollection());
+		shared.cAddBooks(Arrays.asList(new BookSnapshot("Dune", "Frank Herbert")));
+		assertTrue(shared.cAlreadyInCollection("DUNE", "frank herbert"));
+	}
 }